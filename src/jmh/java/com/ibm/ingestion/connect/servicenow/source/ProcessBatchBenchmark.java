@@ -0,0 +1,80 @@
+package com.ibm.ingestion.connect.servicenow.source;
+
+import com.ibm.ingestion.http.ServiceNowTableApiClient;
+import org.apache.kafka.connect.source.SourceRecord;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost per record of turning a page of Table API results into source records.
+ *
+ * Run with {@code ./gradlew jmh -Pjmh.profilers=gc} (or {@code -prof gc} on the JMH jar) to see the bytes
+ * allocated per record ({@code gc.alloc.rate.norm}).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class ProcessBatchBenchmark {
+
+    private static final int PAGE_SIZE = 1000;
+    private static final int FIELDS = 20;
+
+    private TableAPISubTask _subTask;
+    private List<JSONObject> _page;
+
+    @Setup
+    public void setUp() {
+        Map<String, String> props = new HashMap<>();
+        props.put(ServiceNowSourceConnectorConfig.SERVICENOW_CLIENT_BASEURI, "https://benchmark.service-now.com");
+        props.put(ServiceNowSourceConnectorConfig.SERVICENOW_CLIENT_OAUTH_CLIENTID, "id");
+        props.put(ServiceNowSourceConnectorConfig.SERVICENOW_CLIENT_OAUTH_CLIENTSECRET, "secret");
+        props.put(ServiceNowSourceConnectorConfig.SERVICENOW_CLIENT_OAUTH_USERNAME, "user");
+        props.put(ServiceNowSourceConnectorConfig.SERVICENOW_CLIENT_OAUTH_USERPASSWORD, "password");
+        props.put(ServiceNowSourceConnectorConfig.TABLE_WHITELIST, "incident");
+        props.put(ServiceNowSourceConnectorConfig.STREAM_PREFIX, "servicenow.");
+        props.put(ServiceNowTableAPISourceTaskConfig.TABLE_LIST, "incident");
+        props.put("table.whitelist.incident.name", "incident");
+        props.put("table.whitelist.incident.timestamp.field.name", "sys_updated_on");
+        props.put("table.whitelist.incident.identifier.field.name", "sys_id");
+
+        ServiceNowTableAPISourceTaskConfig config = new ServiceNowTableAPISourceTaskConfig(props);
+        this._subTask = new TableAPISubTask(new TableQueryPartition("incident"), new TimestampSourceOffset(null, null), config, new ServiceNowTableApiClient(config));
+
+        this._page = new ArrayList<>(PAGE_SIZE);
+        for(int i = 0; i < PAGE_SIZE; i++) {
+            JSONObject record = new JSONObject();
+            record.put("sys_id", String.format("%032x", i));
+            // NOTE: bulk updates put many rows in the same second.
+            record.put("sys_updated_on", String.format("2026-02-03 14:%02d:%02d", (i / 600) % 60, (i / 10) % 60));
+            for(int f = 0; f < FIELDS; f++) {
+                record.put("u_field_" + f, "value " + f);
+            }
+            this._page.add(record);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PAGE_SIZE)
+    public List<SourceRecord> processBatch() {
+        return this._subTask.processBatch(this._page);
+    }
+}
@@ -0,0 +1,86 @@
+package com.ibm.ingestion.connect.servicenow.util;
+
+import org.apache.kafka.connect.data.Struct;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records per second from a response body to a record value: parsing into JSONObjects and decoding Structs,
+ * against slicing the raw JSON out of the body (plus reading the offset fields).
+ *
+ * Run with {@code ./gradlew jmh}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 3, time = 2, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class PassthroughBenchmark {
+
+    private static final int PAGE_SIZE = 100;
+    private static final byte[] TIMESTAMP_KEY = RawJsonRecord.key("sys_updated_on");
+    private static final byte[] IDENTIFIER_KEY = RawJsonRecord.key("sys_id");
+
+    @Param({"50", "300"})
+    public int fields;
+
+    private byte[] _body;
+
+    @Setup
+    public void setUp() {
+        JSONArray result = new JSONArray();
+        for(int i = 0; i < PAGE_SIZE; i++) {
+            JSONObject record = new JSONObject();
+            for(int f = 0; f < this.fields; f++) {
+                record.put("u_field_" + f, "value " + f);
+            }
+            record.put("sys_id", String.format("%032x", i));
+            record.put("sys_updated_on", "2026-02-03 14:40:07");
+            result.put(record);
+        }
+        this._body = new JSONObject().put("result", result).toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PAGE_SIZE)
+    public void struct(Blackhole blackhole) {
+        JSONArray records = new JSONObject(new String(this._body, StandardCharsets.UTF_8)).getJSONArray("result");
+        StructCodec codec = null;
+        for(int i = 0; i < records.length(); i++) {
+            JSONObject record = records.getJSONObject(i);
+            if(codec == null) {
+                codec = StructCodec.compile(record);
+            }
+            blackhole.consume(record.getString("sys_updated_on"));
+            blackhole.consume(record.getString("sys_id"));
+            Struct struct = codec.decode(record);
+            blackhole.consume(struct);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PAGE_SIZE)
+    public void passthrough(Blackhole blackhole) throws IOException {
+        for(RawJsonRecord record : RawJsonPage.parse(this._body).getRecords()) {
+            blackhole.consume(record.getString(TIMESTAMP_KEY));
+            blackhole.consume(record.getString(IDENTIFIER_KEY));
+            blackhole.consume(record.toBytes());
+        }
+    }
+}
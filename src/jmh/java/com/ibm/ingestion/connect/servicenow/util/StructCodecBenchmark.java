@@ -0,0 +1,68 @@
+package com.ibm.ingestion.connect.servicenow.util;
+
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.data.Struct;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records per second decoded by {@link Helpers#buildStruct} against the compiled {@link StructCodec}.
+ *
+ * Run with {@code ./gradlew jmh}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 3, time = 2, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class StructCodecBenchmark {
+
+    @Param({"50", "300"})
+    public int fields;
+
+    @Param({"false", "true"})
+    public boolean displayValues;
+
+    private JSONObject _record;
+    private Schema _schema;
+    private StructCodec _codec;
+
+    @Setup
+    public void setUp() {
+        this._record = new JSONObject();
+        for(int i = 0; i < this.fields; i++) {
+            // NOTE: roughly one in five ServiceNow columns is a reference with a display value.
+            if(this.displayValues && i % 5 == 0) {
+                JSONObject reference = new JSONObject();
+                reference.put("value", "6816f79cc0a8016401c5a33be04be441");
+                reference.put("display_value", "Display " + i);
+                this._record.put("u_reference_" + i, reference);
+            } else {
+                this._record.put("u_field_" + i, "value " + i);
+            }
+        }
+        this._schema = Helpers.buildSchemaFromSimpleJsonRecord(this._record);
+        this._codec = StructCodec.compile(this._record);
+    }
+
+    @Benchmark
+    public Struct buildStruct() {
+        return Helpers.buildStruct(this._schema, this._record);
+    }
+
+    @Benchmark
+    public Struct codec() {
+        return this._codec.decode(this._record);
+    }
+}
@@ -0,0 +1,41 @@
+package com.ibm.ingestion.connect.servicenow.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of parsing one ServiceNow timestamp with the formatters against the fixed layout parser.
+ *
+ * Run with {@code ./gradlew jmh}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class TimestampParserBenchmark {
+
+    @Param({"2026-02-03 14:40:07", "03/02/2026 14:40:07"})
+    public String timestamp;
+
+    @Benchmark
+    public long formatter() {
+        return Helpers.parseServiceNowDateTimeUtcWithFormatter(this.timestamp).toEpochSecond(java.time.ZoneOffset.UTC);
+    }
+
+    @Benchmark
+    public long fixedLayout() {
+        return Helpers.parseServiceNowEpochSecondsUtc(this.timestamp);
+    }
+}
@@ -3,11 +3,15 @@ package com.ibm.ingestion.connect.servicenow;
 import com.ibm.ingestion.connect.servicenow.source.ServiceNowSourceConnectorConfig;
 import com.ibm.ingestion.connect.servicenow.source.ServiceNowTableAPISourceTask;
 import com.ibm.ingestion.connect.servicenow.source.ServiceNowTableAPISourceTaskConfig;
+import com.ibm.ingestion.connect.servicenow.source.TableAssignor;
+import com.ibm.ingestion.connect.servicenow.source.TableLoadRegistry;
+import com.ibm.ingestion.connect.servicenow.source.TaskRebalanceMonitor;
 import org.apache.kafka.common.config.ConfigDef;
 import org.apache.kafka.connect.connector.Task;
 import org.apache.kafka.connect.errors.ConnectException;
+import org.apache.kafka.connect.source.ConnectorTransactionBoundaries;
+import org.apache.kafka.connect.source.ExactlyOnceSupport;
 import org.apache.kafka.connect.source.SourceConnector;
-import org.apache.kafka.connect.util.ConnectorUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -15,6 +19,9 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 public class ServiceNowSourceConnector extends SourceConnector {
 
@@ -23,12 +30,53 @@ public class ServiceNowSourceConnector extends SourceConnector {
     private Map<String, String> _configProperties;
     private ServiceNowSourceConnectorConfig _config;
 
+    private volatile List<List<String>> _currentAssignment;
+    private ScheduledExecutorService _rebalanceExecutor;
+
     @Override
     public void start(Map<String, String> props) {
 
         LOG.info("Starting [{}].", ServiceNowSourceConnector.class.getName());
         this._configProperties = props;
         this._config = new ServiceNowSourceConnectorConfig(props);
+
+        final int checkIntervalSeconds = this._config.getInt(ServiceNowSourceConnectorConfig.REBALANCE_CHECK_INTERVAL_SECONDS);
+        if(checkIntervalSeconds > 0) {
+            final TaskRebalanceMonitor monitor = new TaskRebalanceMonitor(
+                    this._config.getDouble(ServiceNowSourceConnectorConfig.REBALANCE_IMBALANCE_THRESHOLD),
+                    this._config.getInt(ServiceNowSourceConnectorConfig.REBALANCE_CONSECUTIVE_CHECKS),
+                    this._config.getInt(ServiceNowSourceConnectorConfig.REBALANCE_MIN_INTERVAL_SECONDS) * 1000L,
+                    this._config.getInt(ServiceNowSourceConnectorConfig.REBALANCE_LAG_THRESHOLD_SECONDS),
+                    System.currentTimeMillis());
+
+            this._rebalanceExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "servicenow-rebalance-monitor");
+                thread.setDaemon(true);
+                return thread;
+            });
+            this._rebalanceExecutor.scheduleWithFixedDelay(() -> this.checkRebalance(monitor), checkIntervalSeconds, checkIntervalSeconds, TimeUnit.SECONDS);
+            LOG.info("Checking task load balance every [{}] seconds.", checkIntervalSeconds);
+        }
+    }
+
+    private void checkRebalance(TaskRebalanceMonitor monitor) {
+        try {
+            List<List<String>> assignment = this._currentAssignment;
+            if(assignment == null) {
+                return;
+            }
+
+            List<String> tables = new ArrayList<String>();
+            assignment.forEach(tables::addAll);
+            final String connectorName = this._configProperties.get(ServiceNowSourceConnectorConfig.CONNECTOR_NAME);
+            if(monitor.check(assignment, this.getTableWeights(tables), TableLoadRegistry.getLagSeconds(connectorName), System.currentTimeMillis())) {
+                LOG.info("Requesting task reconfiguration to rebalance tables across tasks.");
+                this.context.requestTaskReconfiguration();
+            }
+        } catch(Exception ex) {
+            // NOTE: never let an exception kill the scheduled check.
+            LOG.error("Error while checking task load balance. {}", ex);
+        }
     }
 
     @Override
@@ -51,22 +99,109 @@ public class ServiceNowSourceConnector extends SourceConnector {
         for(String table : rawTableWhitelist) {
             tableWhiteList.add(table);
         }
-        List<List<String>> groupedTables = ConnectorUtils.groupPartitions(tableWhiteList, groups);
+        Map<String, Double> tableWeights = this.getTableWeights(tableWhiteList);
+        List<List<String>> groupedTables = TableAssignor.assign(tableWhiteList, tableWeights, groups);
         for (List<String> group : groupedTables) {
             Map<String, String> taskProps = new HashMap<String, String>(this._configProperties);
             taskProps.put(ServiceNowTableAPISourceTaskConfig.TABLE_LIST, String.join(",", group));
             taskConfigs.add(taskProps);
         }
 
+        this._currentAssignment = groupedTables;
+
         LOG.debug("Tasks with configs: {}", taskConfigs);
-        LOG.info("Grouped tables into [{}] buckets, [{}].", groupedTables.size(), groupedTables);
+        LOG.info("Grouped tables into [{}] buckets, [{}], using table weights {}.", groupedTables.size(), groupedTables, tableWeights);
         return taskConfigs;
     }
 
+    /**
+     * Configured weight hints win, otherwise the records per minute observed by tasks in this worker are used.
+     * Observed rates are only used when every table without a hint has one; tables observed in other workers
+     * would otherwise get the average weight next to live local rates, which can split worse than by count.
+     * Tables left without a weight get the average weight when assigned.
+     */
+    private Map<String, Double> getTableWeights(List<String> tableWhiteList) {
+        Map<String, Double> observed = TableLoadRegistry.getRecordsPerMinute(this._configProperties.get(ServiceNowSourceConnectorConfig.CONNECTOR_NAME));
+        Map<String, Double> weights = new HashMap<String, Double>();
+        List<String> unweighted = new ArrayList<String>();
+        for(String table : tableWhiteList) {
+            final String WEIGHT_KEY = String.format("table.whitelist.%s.weight", table);
+            final String rawWeight = this._configProperties.get(WEIGHT_KEY);
+            if(rawWeight != null && !rawWeight.trim().isEmpty()) {
+                try {
+                    weights.put(table, Double.parseDouble(rawWeight.trim()));
+                } catch(NumberFormatException ex) {
+                    throw new ConnectException(String.format("Weight must be a number. Configuration [%s], Value [%s]", WEIGHT_KEY, rawWeight));
+                }
+            } else {
+                unweighted.add(table);
+            }
+        }
+
+        if(observed.keySet().containsAll(unweighted)) {
+            unweighted.forEach(table -> weights.put(table, observed.get(table)));
+        } else if(!observed.isEmpty()) {
+            LOG.debug("Not using observed table rates {}, tables {} have none.", observed, unweighted);
+        }
+        return weights;
+    }
+
     @Override
     public void stop() {
         LOG.info("Stopping [{}].", ServiceNowSourceConnector.class.getName());
+        if(this._rebalanceExecutor != null) {
+            this._rebalanceExecutor.shutdownNow();
+            this._rebalanceExecutor = null;
+        }
+        if(this._configProperties != null) {
+            TableLoadRegistry.clear(this._configProperties.get(ServiceNowSourceConnectorConfig.CONNECTOR_NAME));
+        }
+    }
+
+    /**
+     * Records are read again from the offsets stored with them, so a restart after an aborted transaction emits the
+     * same records. Tables that drop rows using state kept outside of Kafka (dedup caches, change hashes) can't
+     * promise that: the state may already count rows whose transaction was aborted. Nor can offset checkpoints, which
+     * resume from an offset that may be further on than the one committed with the last transaction.
+     *
+     * NOTE: only called by runtimes with exactly-once source support (Kafka 3.3 and later), older ones never load
+     * the enums this returns.
+     */
+    @Override
+    public ExactlyOnceSupport exactlyOnceSupport(Map<String, String> connectorConfig) {
+        final String checkpointDirectory = connectorConfig.get(ServiceNowSourceConnectorConfig.OFFSET_CHECKPOINT_DIR);
+        if(checkpointDirectory != null && !checkpointDirectory.trim().isEmpty()) {
+            LOG.info("Exactly-once delivery is not supported, [{}] keeps offsets outside of Kafka.", ServiceNowSourceConnectorConfig.OFFSET_CHECKPOINT_DIR);
+            return ExactlyOnceSupport.UNSUPPORTED;
+        }
+        for(Map.Entry<String, String> entry : connectorConfig.entrySet()) {
+            final String key = entry.getKey();
+            final String value = entry.getValue() == null ? "" : entry.getValue().trim();
+            if(!key.startsWith(ServiceNowSourceConnectorConfig.TABLE_WHITELIST + ".") || value.isEmpty()) {
+                continue;
+            }
+            if(key.endsWith(".change.suppression.fields") || (key.endsWith(".dedup.max.entries") && isPositive(value))) {
+                LOG.info("Exactly-once delivery is not supported, [{}] keeps state outside of Kafka.", key);
+                return ExactlyOnceSupport.UNSUPPORTED;
+            }
+        }
+        return ExactlyOnceSupport.SUPPORTED;
+    }
+
+    private static boolean isPositive(String value) {
+        try {
+            return Long.parseLong(value) > 0;
+        } catch(NumberFormatException ex) {
+            return false;
+        }
+    }
 
+    /**
+     * Tasks commit a transaction after each table's page when 'transaction.boundary' is 'connector'.
+     */
+    @Override
+    public ConnectorTransactionBoundaries canDefineTransactionBoundaries(Map<String, String> connectorConfig) {
+        return ConnectorTransactionBoundaries.SUPPORTED;
     }
 
     @Override
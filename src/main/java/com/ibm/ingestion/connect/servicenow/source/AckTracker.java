@@ -0,0 +1,55 @@
+package com.ibm.ingestion.connect.servicenow.source;
+
+import org.apache.kafka.connect.source.SourceRecord;
+
+import java.util.ArrayDeque;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Follows the records of one source partition from being handed to Connect to being acknowledged, and keeps the
+ * offset of the last record before which every record has been acknowledged: the furthest a restart can resume
+ * from without losing a record.
+ *
+ * Records are acknowledged as the producer writes them, which across topic partitions is not the order they were
+ * emitted in, so each is matched by identity and the acknowledged offset only moves over an unbroken run. Records
+ * are acknowledged from the producer's thread, hence the locking.
+ */
+public class AckTracker {
+
+    private final ArrayDeque<SourceRecord> _inFlight = new ArrayDeque<>();
+    private final IdentityHashMap<SourceRecord, Boolean> _acked = new IdentityHashMap<>();
+    private Map<String, ?> _ackedOffset;
+
+    public synchronized void emitted(SourceRecord record) {
+        this._inFlight.addLast(record);
+        this._acked.put(record, Boolean.FALSE);
+    }
+
+    /**
+     * Notes a record as written (or dropped by a transformation, or skipped as failed with errors tolerated).
+     * Records this tracker never saw emitted are ignored.
+     */
+    public synchronized void acked(SourceRecord record) {
+        if(!this._acked.containsKey(record)) {
+            return;
+        }
+        this._acked.put(record, Boolean.TRUE);
+        while(!this._inFlight.isEmpty() && this._acked.get(this._inFlight.peekFirst())) {
+            final SourceRecord head = this._inFlight.pollFirst();
+            this._acked.remove(head);
+            this._ackedOffset = head.sourceOffset();
+        }
+    }
+
+    /**
+     * @return The offset of the last record of the acknowledged run, or null before the first is acknowledged.
+     */
+    public synchronized Map<String, ?> getAckedOffset() {
+        return this._ackedOffset;
+    }
+
+    public synchronized int getInFlightCount() {
+        return this._inFlight.size();
+    }
+}
@@ -0,0 +1,248 @@
+package com.ibm.ingestion.connect.servicenow.source;
+
+import com.ibm.ingestion.connect.servicenow.util.Helpers;
+import com.ibm.ingestion.connect.servicenow.util.JsonPage;
+import com.ibm.ingestion.connect.servicenow.util.SpillableJsonPage;
+import com.ibm.ingestion.http.ServiceNowTableApiClient;
+import com.ibm.ingestion.http.TableAPIQueryBuilder;
+import org.apache.kafka.common.config.ConfigException;
+import org.apache.kafka.connect.errors.ConnectException;
+import org.apache.kafka.connect.source.SourceRecord;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static com.ibm.ingestion.connect.servicenow.util.Helpers.valueOf;
+
+/**
+ * Polls one of ServiceNow's audit tables for the audit rows of one table, as a stream of its own with its own source
+ * partition and offset, on sys_created_on and sys_id of the audit rows. Pages the same way as the table's rows: the
+ * rest of the offset's second, then the window after it up to the delay interval.
+ */
+abstract class AuditSubTask implements ISubTask {
+
+    private static final Logger LOG = LoggerFactory.getLogger(AuditSubTask.class);
+
+    protected static final String TIMESTAMP_FIELD = "sys_created_on";
+    protected static final String IDENTIFIER_FIELD = "sys_id";
+    protected static final String TABLE_FIELD = "tablename";
+    protected static final String DOCUMENT_KEY_FIELD = "documentkey";
+
+    private static final int UNBOUNDED_FROM_QUERY_KEY = -1;
+    private static final int DEFAULT_PRIORITY = 1;
+
+    private final String AUDIT_TABLE;
+    private TimestampSourceOffset _offset;
+    private ServiceNowTableApiClient _client;
+    private LocalDateTime _nextPollUtc;
+    private boolean _lastPageFull = false;
+
+    private long FAST_INTERVAL_NS;
+    private long SLOW_INTERVAL_NS;
+    private long INITIAL_QUERY_HOURS_AGO;
+    private int TIMESTAMP_DELAY_INTERVAL_SECONDS;
+    private int MAX_BATCH_SIZE;
+    private int PRIORITY = DEFAULT_PRIORITY;
+
+    protected String TABLE_NAME;
+    protected String TOPIC_PREFIX;
+    protected TableQueryPartition SOURCE_PARTITION;
+
+    protected static String tryGetConfig(ServiceNowTableAPISourceTaskConfig config, String key, String defaultValue) {
+        try {
+            return config.getString(key);
+        } catch(ConfigException ex) {
+            return defaultValue;
+        }
+    }
+
+    AuditSubTask(String auditTable, TableQueryPartition sourcePartition, TimestampSourceOffset offset, ServiceNowTableAPISourceTaskConfig config, ServiceNowTableApiClient client) {
+
+        this.AUDIT_TABLE = auditTable;
+        this._client = client;
+        this._offset = offset;
+        this.FAST_INTERVAL_NS = config.getLong(ServiceNowSourceConnectorConfig.TASK_POLL_FAST_INTERVAL_MS) * 1000000;
+        this.SLOW_INTERVAL_NS = config.getLong(ServiceNowSourceConnectorConfig.TASK_POLL_SLOW_INTERVAL_MS) * 1000000;
+        this.INITIAL_QUERY_HOURS_AGO = config.getLong(ServiceNowSourceConnectorConfig.TIMESTAMP_INITIAL_QUERY_HOURS_AGO);
+        this.TIMESTAMP_DELAY_INTERVAL_SECONDS = config.getInt(ServiceNowSourceConnectorConfig.TIMESTAMP_DELAY_INTERVAL_SECONDS);
+        this.MAX_BATCH_SIZE = config.getInt(ServiceNowSourceConnectorConfig.TASK_POLL_BATCH_MAX_SIZE);
+
+        this.SOURCE_PARTITION = sourcePartition;
+        final String tableKey = this.SOURCE_PARTITION.getTableName();
+
+        final String TABLE_NAME_KEY = String.format("table.whitelist.%s.name", tableKey);
+        this.TABLE_NAME = config.getString(TABLE_NAME_KEY);
+        if(this.TABLE_NAME == null || this.TABLE_NAME.trim().isEmpty()) {
+            throw new ConnectException(String.format("Must specify the name of the source table. Configuration [%s]", TABLE_NAME_KEY));
+        }
+
+        final String streamPrefix = config.getString(ServiceNowSourceConnectorConfig.STREAM_PREFIX);
+        if(streamPrefix == null || streamPrefix.trim().isEmpty()) {
+            throw new ConnectException(String.format("Must specify the topic/stream prefix to which records should be published. Configuration [%s]", ServiceNowSourceConnectorConfig.STREAM_PREFIX));
+        }
+        this.TOPIC_PREFIX = streamPrefix.replaceAll("\\.+$", "") + tableKey;
+
+        final String PRIORITY_KEY = String.format("table.whitelist.%s.priority", tableKey);
+        final String rawPriority = tryGetConfig(config, PRIORITY_KEY, "");
+        if(rawPriority != null && !rawPriority.trim().isEmpty()) {
+            try {
+                this.PRIORITY = Integer.parseInt(rawPriority.trim());
+            } catch(NumberFormatException ex) {
+                throw new ConnectException(String.format("Priority must be a whole number. Configuration [%s], Value [%s]", PRIORITY_KEY, rawPriority));
+            }
+            if(this.PRIORITY < 1) {
+                throw new ConnectException(String.format("Priority must be at least 1. Configuration [%s], Value [%s]", PRIORITY_KEY, rawPriority));
+            }
+        }
+    }
+
+    /**
+     * @return The fields of the audit rows to fetch.
+     */
+    protected abstract List<String> getAuditFields();
+
+    /**
+     * @return A query for the table's audit rows, without bounds or order.
+     */
+    protected abstract TableAPIQueryBuilder auditRowsQuery();
+
+    /**
+     * @return The record of an audit row, carrying {@code offset}, or null to skip it. Skipped rows still move the
+     * offset along.
+     */
+    protected abstract SourceRecord toRecord(JSONObject auditRow, long timestamp, String identifier, Map<String, Object> offset);
+
+    public String getTableKey() {
+        return this.SOURCE_PARTITION.getTableName();
+    }
+
+    public int getPriority() {
+        return this.PRIORITY;
+    }
+
+    /**
+     * @return How far the stream's offset is behind the wall clock, in seconds, while working through a backlog.
+     */
+    public long getLagSeconds() {
+        Instant lastSeenTimestamp = this._offset.getLastSeenTimestamp();
+        if(lastSeenTimestamp == null) {
+            return -1;
+        }
+        if(!this._lastPageFull) {
+            return 0;
+        }
+        return Math.max(0, Instant.now().getEpochSecond() - lastSeenTimestamp.getEpochSecond());
+    }
+
+    public LocalDateTime getNextPollUtc() {
+        return this._nextPollUtc;
+    }
+
+    public SourceRecordsPage poll() throws IOException, InterruptedException {
+
+        TableAPIQueryBuilder builder = buildQuery();
+        LOG.info("Query [{}].", builder.build());
+        final int fetched;
+        final long fetchedBytes;
+        final List<SourceRecord> records;
+        if(this._client.isResponseMemoryBounded()) {
+            // NOTE: audit rows are decoded one at a time from the page's bytes, which may be spilled off the heap.
+            try(SpillableJsonPage page = this._client.getRecordPage(AUDIT_TABLE, builder, 0, this.MAX_BATCH_SIZE, this.getAuditFields())) {
+                fetched = page.getRecords().size();
+                fetchedBytes = page.getSizeInBytes();
+                records = processBatch(page.getRecords());
+            }
+        } else {
+            JsonPage page = this._client.getJsonPage(AUDIT_TABLE, builder, 0, this.MAX_BATCH_SIZE, this.getAuditFields());
+            fetched = page.getRecords().size();
+            fetchedBytes = page.getSizeInBytes();
+            records = processBatch(page.getRecords());
+        }
+
+        // NOTE: counts the audit rows fetched, a page of nothing but skipped ones still means there may be more behind it.
+        this._lastPageFull = fetched >= this.MAX_BATCH_SIZE;
+        final long nextPollIntervalNs = fetched == 0 ? SLOW_INTERVAL_NS : FAST_INTERVAL_NS;
+        this._nextPollUtc = LocalDateTime.now(ZoneOffset.UTC).plusNanos(nextPollIntervalNs);
+
+        LOG.info("Received [{}] records from [{}] for table [{}]. Suggested next poll time for its [{}] stream is [{}].", records.size(), AUDIT_TABLE, TABLE_NAME, this.SOURCE_PARTITION.getStream(), this._nextPollUtc);
+        return new SourceRecordsPage(records, this._nextPollUtc, fetchedBytes);
+    }
+
+    List<SourceRecord> processBatch(List<JSONObject> batch) {
+
+        List<SourceRecord> records = new ArrayList<>(batch.size());
+        Long lastProcessedTimestamp = null;
+        String lastProcessedIdentifier = null;
+
+        for(JSONObject result : batch) {
+            final String rawTimestamp = valueOf(result, TIMESTAMP_FIELD);
+            if(rawTimestamp == null) {
+                throw new ConnectException("Timestamp field '" + TIMESTAMP_FIELD + "' is null or missing in record: " + result);
+            }
+            lastProcessedTimestamp = Helpers.parseServiceNowEpochSecondsUtc(rawTimestamp);
+            lastProcessedIdentifier = valueOf(result, IDENTIFIER_FIELD);
+            final Map<String, Object> offset = TimestampSourceOffset.toCompactMap(lastProcessedTimestamp, lastProcessedIdentifier);
+
+            final SourceRecord record = this.toRecord(result, lastProcessedTimestamp, lastProcessedIdentifier, offset);
+            if(record != null) {
+                records.add(record);
+            }
+        }
+
+        if(lastProcessedTimestamp != null) {
+            this._offset.updateOffset(Instant.ofEpochSecond(lastProcessedTimestamp), lastProcessedIdentifier);
+        }
+
+        return records;
+    }
+
+    private LocalDateTime getFromDateTimeUtc() {
+        final LocalDateTime nowUtc = LocalDateTime.now(ZoneOffset.UTC);
+
+        Instant lastSeenTimestamp = this._offset.getLastSeenTimestamp();
+        if(lastSeenTimestamp == null) {
+
+            if(this.INITIAL_QUERY_HOURS_AGO == UNBOUNDED_FROM_QUERY_KEY) {
+                return null;
+            }
+
+            lastSeenTimestamp = nowUtc.minusHours(this.INITIAL_QUERY_HOURS_AGO).toInstant(ZoneOffset.UTC);
+        }
+
+        return LocalDateTime.ofInstant(lastSeenTimestamp, ZoneOffset.UTC);
+    }
+
+    TableAPIQueryBuilder buildQuery() {
+        LocalDateTime fromDateTimeUtc = this.getFromDateTimeUtc();
+        LocalDateTime throughDateTimeUtc = LocalDateTime.now(ZoneOffset.UTC).minusSeconds(this.TIMESTAMP_DELAY_INTERVAL_SECONDS);
+
+        if(fromDateTimeUtc == null) {
+            return this.auditRowsQuery()
+                    .orderByAsc(TIMESTAMP_FIELD)
+                    .orderByAsc(IDENTIFIER_FIELD);
+        }
+
+        // NOTE: the same two part query as the table's rows, the rest of the offset's second, then the window after it.
+        TableAPIQueryBuilder lastSeenTimestampEqualsQuery = this.auditRowsQuery()
+                .whereTimestampEquals(TIMESTAMP_FIELD, fromDateTimeUtc);
+        String lastSeenIdentifier = this._offset.getLastReadIdentifier();
+        if(lastSeenIdentifier != null) {
+            lastSeenTimestampEqualsQuery.whereGreaterThan(IDENTIFIER_FIELD, lastSeenIdentifier);
+        }
+
+        TableAPIQueryBuilder timestampWindowQuery = this.auditRowsQuery()
+                .whereBetweenExclusive(TIMESTAMP_FIELD, fromDateTimeUtc, throughDateTimeUtc)
+                .orderByAsc(TIMESTAMP_FIELD)
+                .orderByAsc(IDENTIFIER_FIELD);
+
+        return lastSeenTimestampEqualsQuery.union(timestampWindowQuery);
+    }
+}
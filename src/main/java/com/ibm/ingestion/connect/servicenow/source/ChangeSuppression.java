@@ -0,0 +1,218 @@
+package com.ibm.ingestion.connect.servicenow.source;
+
+import com.ibm.ingestion.connect.servicenow.util.SysIdLongTable;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Tells which of a table's watched columns changed since a row was last written, from a hash of them kept per
+ * sys_id, so updates that only touch other columns (sys_updated_on, sys_mod_count, ...) can be dropped.
+ *
+ * Each row keeps a 64 bit hash of all its watched columns, which decides whether it changed at all. In delta mode
+ * it also keeps the 64 bit hash of each column, keyed by sys_id and column, to tell which columns changed. Both are
+ * {@link SysIdLongTable}s, off the heap, and with a state directory kept on disk across restarts.
+ */
+public class ChangeSuppression {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ChangeSuppression.class);
+
+    private static final int DEFAULT_EXPECTED_ROWS = 100000;
+    private static final long NULL_HASH = 0x6E756C6C6E756C6CL;
+    // NOTE: part of what is watched, so hashes kept in an older layout are started over.
+    private static final String FORMAT = "2";
+
+    private final List<String> _fields;
+    private final SysIdLongTable _rows;
+    private final SysIdLongTable _columns;
+
+    private ChangeSuppression(List<String> fields, SysIdLongTable rows, SysIdLongTable columns) {
+        this._fields = Collections.unmodifiableList(new ArrayList<>(fields));
+        this._rows = rows;
+        this._columns = columns;
+    }
+
+    public static ChangeSuppression inMemory(List<String> fields, boolean delta) {
+        checkFields(fields);
+        return new ChangeSuppression(fields, SysIdLongTable.inMemory(DEFAULT_EXPECTED_ROWS), delta ? SysIdLongTable.inMemory(DEFAULT_EXPECTED_ROWS) : null);
+    }
+
+    /**
+     * Opens the hashes kept under {@code directory} as {@code <name>.changes} (and {@code <name>.columns} in delta
+     * mode). Hashes kept for a different set of watched columns are started over.
+     */
+    public static ChangeSuppression open(File directory, String name, List<String> fields, boolean delta) throws IOException {
+        checkFields(fields);
+        if(!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException(String.format("Could not create the state directory [%s].", directory));
+        }
+
+        final File rowsFile = new File(directory, name + ".changes");
+        final File columnsFile = new File(directory, name + ".columns");
+        final File watchedFile = new File(directory, name + ".watched");
+        final String watched = FORMAT + ":" + String.join(",", fields);
+        if(!watchedFile.exists() || !new String(Files.readAllBytes(watchedFile.toPath()), StandardCharsets.UTF_8).equals(watched)) {
+            // NOTE: hashes of other columns would flag every row as changed, or worse the wrong columns of it.
+            Files.deleteIfExists(rowsFile.toPath());
+            Files.deleteIfExists(columnsFile.toPath());
+            Files.write(watchedFile.toPath(), watched.getBytes(StandardCharsets.UTF_8));
+        } else if(!delta) {
+            Files.deleteIfExists(columnsFile.toPath());
+        }
+
+        ChangeSuppression changes = new ChangeSuppression(fields, SysIdLongTable.open(rowsFile, DEFAULT_EXPECTED_ROWS), delta ? SysIdLongTable.open(columnsFile, DEFAULT_EXPECTED_ROWS) : null);
+        LOG.info("Loaded the watched column hashes of [{}] rows from [{}].", changes._rows.size(), rowsFile);
+        return changes;
+    }
+
+    private static void checkFields(List<String> fields) {
+        if(fields == null || fields.isEmpty()) {
+            throw new IllegalArgumentException("At least one column must be watched for changes.");
+        }
+    }
+
+    public List<String> getFields() {
+        return this._fields;
+    }
+
+    /**
+     * @return The hashes of a row's watched columns, to compare with {@link #changedFields(Hashes, Hashes)} and keep
+     * with {@link #record(Hashes)} once the row is written. Null if its sys_id isn't hexadecimal.
+     */
+    public Hashes hash(String sysId, JSONObject row) {
+        final long key = SysIdLongTable.keyOf(sysId);
+        if(key == 0) {
+            return null;
+        }
+
+        long rowHash = 0;
+        final long[] columns = new long[this._fields.size()];
+        for(int i = 0; i < columns.length; i++) {
+            columns[i] = hash(row.opt(this._fields.get(i)));
+            rowHash = mix(rowHash ^ columns[i] ^ (i * 0x9E3779B97F4A7C15L));
+        }
+        return new Hashes(key, rowHash, columns);
+    }
+
+    /**
+     * Compares a row's watched columns with the last version of it written, without keeping anything.
+     *
+     * @return null if the row wasn't written before (or {@code hashes} is null), or it changed but which columns
+     * did isn't known (outside delta mode, or its column hashes weren't kept), so it should be emitted whole.
+     * Otherwise the watched columns that changed, empty if none did.
+     */
+    public List<String> changedFields(Hashes hashes) {
+        return this.changedFields(hashes, null);
+    }
+
+    /**
+     * Compares a row's watched columns with {@code previous}, the hashes of a later version of it emitted but not
+     * yet written, or with the last version written when that is null.
+     *
+     * @see #changedFields(Hashes)
+     */
+    public synchronized List<String> changedFields(Hashes hashes, Hashes previous) {
+        if(hashes == null) {
+            return null;
+        }
+        final long previousRowHash = previous != null ? previous._row : this._rows.get(hashes._key);
+        if(previousRowHash == SysIdLongTable.MISSING) {
+            return null;
+        }
+        if(previousRowHash == hashes._row) {
+            return Collections.emptyList();
+        }
+        if(this._columns == null) {
+            return null;
+        }
+
+        List<String> changed = new ArrayList<>();
+        for(int i = 0; i < hashes._columns.length; i++) {
+            final long previousColumn = previous != null ? previous._columns[i] : this._columns.get(columnKey(hashes._key, i));
+            if(previousColumn == SysIdLongTable.MISSING) {
+                return null;
+            } else if(previousColumn != hashes._columns[i]) {
+                changed.add(this._fields.get(i));
+            }
+        }
+        return changed.isEmpty() ? null : changed;
+    }
+
+    /**
+     * Keeps a row's hashes as those of the last version written. Called once the row is acknowledged, so a row
+     * that never made it to Kafka is still compared with the version before it.
+     */
+    public synchronized void record(Hashes hashes) throws IOException {
+        this._rows.put(hashes._key, hashes._row);
+        if(this._columns != null) {
+            for(int i = 0; i < hashes._columns.length; i++) {
+                this._columns.put(columnKey(hashes._key, i), hashes._columns[i]);
+            }
+        }
+    }
+
+    /**
+     * @return The key of column {@code i} of a row, its sys_id key mixed with the column, never the empty slot's 0.
+     */
+    private static long columnKey(long key, int i) {
+        final long columnKey = mix(key + (i + 1) * 0x9E3779B97F4A7C15L);
+        return columnKey == 0 ? 1 : columnKey;
+    }
+
+    /**
+     * Writes the hashes through to the state directory. Nothing to do when held in memory.
+     */
+    public synchronized void flush() {
+        this._rows.flush();
+        if(this._columns != null) {
+            this._columns.flush();
+        }
+    }
+
+    private static long hash(Object value) {
+        if(value == null || value == JSONObject.NULL) {
+            return NULL_HASH;
+        }
+        // NOTE: FNV-1a over the value's text, with display_value=all that is both the value and display value.
+        final String text = value.toString();
+        long hash = 0xcbf29ce484222325L;
+        for(int i = 0; i < text.length(); i++) {
+            hash ^= text.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return mix(hash);
+    }
+
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    /**
+     * The hashes of one version of a row.
+     */
+    public static final class Hashes {
+
+        private final long _key;
+        private final long _row;
+        private final long[] _columns;
+
+        private Hashes(long key, long row, long[] columns) {
+            this._key = key;
+            this._row = row;
+            this._columns = columns;
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package com.ibm.ingestion.connect.servicenow.source;
+
+import com.ibm.ingestion.connect.servicenow.source.partitioner.IServiceNowTablePartitioner;
+import com.ibm.ingestion.connect.servicenow.source.partitioner.PartitionerFactory;
+import com.ibm.ingestion.connect.servicenow.source.partitioner.Partitioners;
+import com.ibm.ingestion.http.ServiceNowTableApiClient;
+import com.ibm.ingestion.http.TableAPIQueryBuilder;
+import org.apache.kafka.connect.errors.ConnectException;
+import org.apache.kafka.connect.source.SourceRecord;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.ibm.ingestion.connect.servicenow.util.Helpers.commaDelimitedToList;
+import static com.ibm.ingestion.connect.servicenow.util.Helpers.valueOf;
+
+/**
+ * Polls sys_audit_delete for the rows deleted from one table, emitting a tombstone (a null value) for each onto
+ * the table's topic, keyed the same way as the table's rows, so compacted topics drop deleted rows.
+ *
+ * Deletes have their own source partition and offset, on sys_created_on and sys_id of the audit rows. Key fields
+ * other than sys_id are read from the deleted row's XML payload.
+ */
+public class DeleteCaptureSubTask extends AuditSubTask {
+
+    private static final Logger LOG = LoggerFactory.getLogger(DeleteCaptureSubTask.class);
+
+    public static final String STREAM = "deletes";
+
+    private static final String AUDIT_TABLE = "sys_audit_delete";
+    private static final String PAYLOAD_FIELD = "payload";
+
+    private String TARGET_TOPIC;
+    private List<String> KEY_FIELDS;
+    private List<String> FIELDS;
+    private IServiceNowTablePartitioner DESTINATION_PARTITIONER;
+
+    /**
+     * @return true if 'table.whitelist.<key>.capture.deletes' is enabled for the table.
+     */
+    public static boolean isEnabled(ServiceNowTableAPISourceTaskConfig config, String tableKey) {
+        final String CAPTURE_DELETES_KEY = String.format("table.whitelist.%s.capture.deletes", tableKey);
+        return Boolean.parseBoolean(tryGetConfig(config, CAPTURE_DELETES_KEY, "false").trim());
+    }
+
+    public DeleteCaptureSubTask(TableQueryPartition sourcePartition, TimestampSourceOffset offset, ServiceNowTableAPISourceTaskConfig config, ServiceNowTableApiClient client) {
+        super(AUDIT_TABLE, sourcePartition, offset, config, client);
+        final String tableKey = this.SOURCE_PARTITION.getTableName();
+        this.TARGET_TOPIC = this.TOPIC_PREFIX;
+
+        // NOTE: a tombstone only removes a row from a compacted topic if it has the row's key.
+        this.DESTINATION_PARTITIONER = PartitionerFactory.build(tableKey, config);
+        if(!Partitioners.FieldBased.equals(this.DESTINATION_PARTITIONER.getPartitionerId())) {
+            throw new ConnectException(String.format("Capturing deletes requires the [%s] partition type, so tombstones are keyed like the table's rows. Configuration [%s]",
+                    Partitioners.FieldBased, String.format("table.whitelist.%s.partition.type", tableKey)));
+        }
+        this.KEY_FIELDS = commaDelimitedToList(tryGetConfig(config, String.format("table.whitelist.%s.partition.fields", tableKey), ""));
+
+        this.FIELDS = new ArrayList<>(Arrays.asList(IDENTIFIER_FIELD, TIMESTAMP_FIELD, DOCUMENT_KEY_FIELD));
+        for(String keyField : this.KEY_FIELDS) {
+            if(!IDENTIFIER_FIELD.equals(keyField)) {
+                this.FIELDS.add(PAYLOAD_FIELD);
+                break;
+            }
+        }
+    }
+
+    protected List<String> getAuditFields() {
+        return this.FIELDS;
+    }
+
+    protected TableAPIQueryBuilder auditRowsQuery() {
+        return TableAPIQueryBuilder.Builder().whereEquals(TABLE_FIELD, this.TABLE_NAME);
+    }
+
+    protected SourceRecord toRecord(JSONObject auditRow, long timestamp, String identifier, Map<String, Object> offset) {
+        final JSONObject key = this.buildKeyRecord(auditRow);
+        if(key == null) {
+            // NOTE: still moves the offset along, the audit row will never have the key.
+            return null;
+        }
+
+        return new SourceRecord(
+                this.SOURCE_PARTITION.getPartition(),
+                offset,
+                this.TARGET_TOPIC,
+                this.DESTINATION_PARTITIONER.getTargetPartition(),
+                this.DESTINATION_PARTITIONER.getKeySchema(),
+                this.DESTINATION_PARTITIONER.getKeyValue(key),
+                null,
+                null);
+    }
+
+    /**
+     * @return The deleted row's key fields, or null if any of them can't be found.
+     */
+    private JSONObject buildKeyRecord(JSONObject auditRow) {
+        JSONObject key = new JSONObject();
+        Map<String, String> payload = null;
+        for(String keyField : this.KEY_FIELDS) {
+            String value;
+            if(IDENTIFIER_FIELD.equals(keyField)) {
+                value = valueOf(auditRow, DOCUMENT_KEY_FIELD);
+            } else {
+                if(payload == null) {
+                    payload = parsePayload(valueOf(auditRow, PAYLOAD_FIELD));
+                }
+                value = payload.get(keyField);
+            }
+
+            if(value == null || value.isEmpty()) {
+                LOG.warn("Skipping delete [{}] of table [{}], key field [{}] could not be found.", valueOf(auditRow, IDENTIFIER_FIELD), TABLE_NAME, keyField);
+                return null;
+            }
+            key.put(keyField, value);
+        }
+        return key;
+    }
+
+    /**
+     * Reads the field values of a deleted row from its sys_audit_delete payload, which looks like
+     * {@code <record_update table="incident"><incident action="DELETE"><number>INC0001</number>...</incident></record_update>}.
+     *
+     * @return The value per field, empty if the payload is missing or can't be parsed.
+     */
+    static Map<String, String> parsePayload(String payload) {
+        Map<String, String> fields = new HashMap<>();
+        if(payload == null || payload.trim().isEmpty()) {
+            return fields;
+        }
+
+        final Document document;
+        try {
+            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+            // NOTE: the payload is row data, nothing in it should reach out to other documents.
+            factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+            factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+            factory.setExpandEntityReferences(false);
+            document = factory.newDocumentBuilder().parse(new InputSource(new StringReader(payload)));
+        } catch(ParserConfigurationException | SAXException | IOException ex) {
+            LOG.warn("Could not parse a sys_audit_delete payload. {}", ex.getMessage());
+            return fields;
+        }
+
+        Element row = firstChildElement(document.getDocumentElement());
+        if(row == null) {
+            return fields;
+        }
+        for(Node node = row.getFirstChild(); node != null; node = node.getNextSibling()) {
+            if(node.getNodeType() == Node.ELEMENT_NODE) {
+                fields.put(node.getNodeName(), node.getTextContent());
+            }
+        }
+        return fields;
+    }
+
+    private static Element firstChildElement(Element parent) {
+        for(Node node = parent.getFirstChild(); node != null; node = node.getNextSibling()) {
+            if(node.getNodeType() == Node.ELEMENT_NODE) {
+                return (Element)node;
+            }
+        }
+        return null;
+    }
+}
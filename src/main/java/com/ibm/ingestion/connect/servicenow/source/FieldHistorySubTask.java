@@ -0,0 +1,162 @@
+package com.ibm.ingestion.connect.servicenow.source;
+
+import com.ibm.ingestion.http.ServiceNowTableApiClient;
+import com.ibm.ingestion.http.TableAPIQueryBuilder;
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.data.SchemaBuilder;
+import org.apache.kafka.connect.data.Struct;
+import org.apache.kafka.connect.data.Timestamp;
+import org.apache.kafka.connect.errors.ConnectException;
+import org.apache.kafka.connect.source.SourceRecord;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import static com.ibm.ingestion.connect.servicenow.util.Helpers.commaDelimitedToList;
+import static com.ibm.ingestion.connect.servicenow.util.Helpers.valueOf;
+
+/**
+ * Polls sys_audit for the field changes made to one table, emitting one record per changed field (table, sys_id,
+ * field, old and new value, time) onto {@code <table topic>.field_history}, so a high churn table can be followed
+ * without reading its whole row on every update.
+ *
+ * Field changes have their own source partition and offset, on sys_created_on and sys_id of the audit rows, paged
+ * the same way as the table's rows. Only fields the instance audits show up.
+ */
+public class FieldHistorySubTask extends AuditSubTask {
+
+    private static final Logger LOG = LoggerFactory.getLogger(FieldHistorySubTask.class);
+
+    public static final String STREAM = "field_history";
+
+    public static final String CAPTURE_ROWS = "rows";
+    public static final String CAPTURE_FIELD_HISTORY = "field-history";
+    public static final String CAPTURE_BOTH = "both";
+
+    public static final Schema VALUE_SCHEMA = SchemaBuilder.struct()
+            .name("com.ibm.ingestion.connect.servicenow.FieldChange")
+            .field("table", Schema.STRING_SCHEMA)
+            .field("sys_id", Schema.STRING_SCHEMA)
+            .field("field", Schema.STRING_SCHEMA)
+            .field("old", Schema.OPTIONAL_STRING_SCHEMA)
+            .field("new", Schema.OPTIONAL_STRING_SCHEMA)
+            .field("time", Timestamp.SCHEMA)
+            .field("user", Schema.OPTIONAL_STRING_SCHEMA)
+            .build();
+
+    private static final String AUDIT_TABLE = "sys_audit";
+    private static final String FIELD_NAME_FIELD = "fieldname";
+    private static final String OLD_VALUE_FIELD = "oldvalue";
+    private static final String NEW_VALUE_FIELD = "newvalue";
+    private static final String USER_FIELD = "user";
+    private static final List<String> FIELDS = Collections.unmodifiableList(Arrays.asList(
+            IDENTIFIER_FIELD, TIMESTAMP_FIELD, DOCUMENT_KEY_FIELD, FIELD_NAME_FIELD, OLD_VALUE_FIELD, NEW_VALUE_FIELD, USER_FIELD));
+
+    private String TARGET_TOPIC;
+    private List<String> AUDITED_FIELDS;
+
+    /**
+     * @return The table's 'table.whitelist.<key>.capture.mode', one of 'rows' (the default), 'field-history' or 'both'.
+     */
+    public static String getCaptureMode(ServiceNowTableAPISourceTaskConfig config, String tableKey) {
+        final String CAPTURE_MODE_KEY = String.format("table.whitelist.%s.capture.mode", tableKey);
+        final String rawCaptureMode = tryGetConfig(config, CAPTURE_MODE_KEY, "");
+        if(rawCaptureMode == null || rawCaptureMode.trim().isEmpty()) {
+            return CAPTURE_ROWS;
+        }
+        final String captureMode = rawCaptureMode.trim().toLowerCase(Locale.US);
+        switch(captureMode) {
+            case CAPTURE_ROWS:
+            case CAPTURE_FIELD_HISTORY:
+            case CAPTURE_BOTH:
+                return captureMode;
+            default:
+                throw new ConnectException(String.format("Capture mode must be one of '%s', '%s' or '%s'. Configuration [%s], Value [%s]", CAPTURE_ROWS, CAPTURE_FIELD_HISTORY, CAPTURE_BOTH, CAPTURE_MODE_KEY, rawCaptureMode));
+        }
+    }
+
+    /**
+     * @return true if the table's rows are polled, which they are unless it only captures field history.
+     */
+    public static boolean capturesRows(ServiceNowTableAPISourceTaskConfig config, String tableKey) {
+        return !CAPTURE_FIELD_HISTORY.equals(getCaptureMode(config, tableKey));
+    }
+
+    /**
+     * @return true if the table's field history is polled from sys_audit.
+     */
+    public static boolean isEnabled(ServiceNowTableAPISourceTaskConfig config, String tableKey) {
+        return !CAPTURE_ROWS.equals(getCaptureMode(config, tableKey));
+    }
+
+    public FieldHistorySubTask(TableQueryPartition sourcePartition, TimestampSourceOffset offset, ServiceNowTableAPISourceTaskConfig config, ServiceNowTableApiClient client) {
+        super(AUDIT_TABLE, sourcePartition, offset, config, client);
+        final String tableKey = this.SOURCE_PARTITION.getTableName();
+        this.TARGET_TOPIC = this.TOPIC_PREFIX + "." + STREAM;
+
+        final String AUDITED_FIELDS_KEY = String.format("table.whitelist.%s.field.history.fields", tableKey);
+        final String rawAuditedFields = tryGetConfig(config, AUDITED_FIELDS_KEY, "");
+        if(rawAuditedFields != null && !rawAuditedFields.trim().isEmpty()) {
+            this.AUDITED_FIELDS = commaDelimitedToList(rawAuditedFields);
+            if(this.AUDITED_FIELDS.isEmpty()) {
+                throw new ConnectException(String.format("If specifying [%s], then it must include at least one field name.", AUDITED_FIELDS_KEY));
+            }
+        }
+    }
+
+    protected List<String> getAuditFields() {
+        return FIELDS;
+    }
+
+    protected SourceRecord toRecord(JSONObject auditRow, long timestamp, String identifier, Map<String, Object> offset) {
+        final String documentKey = valueOf(auditRow, DOCUMENT_KEY_FIELD);
+        final String fieldName = valueOf(auditRow, FIELD_NAME_FIELD);
+        if(documentKey == null || fieldName == null) {
+            // NOTE: still moves the offset along, the audit row will never say what changed.
+            LOG.warn("Skipping field change [{}] of table [{}], it has no [{}] or [{}].", identifier, TABLE_NAME, DOCUMENT_KEY_FIELD, FIELD_NAME_FIELD);
+            return null;
+        }
+
+        Struct value = new Struct(VALUE_SCHEMA)
+                .put("table", this.TABLE_NAME)
+                .put("sys_id", documentKey)
+                .put("field", fieldName)
+                .put("old", valueOf(auditRow, OLD_VALUE_FIELD))
+                .put("new", valueOf(auditRow, NEW_VALUE_FIELD))
+                .put("time", new Date(timestamp * 1000L))
+                .put("user", valueOf(auditRow, USER_FIELD));
+
+        // NOTE: keyed by the changed row, so its changes stay in order on one partition.
+        return new SourceRecord(
+                this.SOURCE_PARTITION.getPartition(),
+                offset,
+                this.TARGET_TOPIC,
+                null,
+                Schema.STRING_SCHEMA,
+                documentKey,
+                VALUE_SCHEMA,
+                value);
+    }
+
+    /**
+     * @return A query for the table's audit rows, of the audited fields if they are limited.
+     */
+    protected TableAPIQueryBuilder auditRowsQuery() {
+        TableAPIQueryBuilder query = TableAPIQueryBuilder.Builder().whereEquals(TABLE_FIELD, this.TABLE_NAME);
+        if(this.AUDITED_FIELDS != null) {
+            // NOTE: ^OR binds to the condition before it, so this is tablename=x AND (fieldname=a OR fieldname=b).
+            query.whereEquals(FIELD_NAME_FIELD, this.AUDITED_FIELDS.get(0));
+            for(int i = 1; i < this.AUDITED_FIELDS.size(); i++) {
+                query.orWhereEquals(FIELD_NAME_FIELD, this.AUDITED_FIELDS.get(i));
+            }
+        }
+        return query;
+    }
+}
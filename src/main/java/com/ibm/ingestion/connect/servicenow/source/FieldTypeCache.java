@@ -0,0 +1,129 @@
+package com.ibm.ingestion.connect.servicenow.source;
+
+import com.ibm.ingestion.connect.servicenow.util.TypedValues;
+import com.ibm.ingestion.http.ServiceNowTableApiClient;
+import com.ibm.ingestion.http.TableAPIQueryBuilder;
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.errors.ConnectException;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.ibm.ingestion.connect.servicenow.util.Helpers.valueOf;
+
+/**
+ * The column types of a table, loaded from sys_dictionary and refreshed periodically.
+ *
+ * Columns are inherited, so the dictionary entries of every table up the sys_db_object super_class chain are
+ * read, with a child table's definition of a column winning over its parent's.
+ */
+public class FieldTypeCache {
+
+    private static final Logger LOG = LoggerFactory.getLogger(FieldTypeCache.class);
+
+    private static final int MAX_HIERARCHY_DEPTH = 16;
+    private static final int PAGE_SIZE = 1000;
+
+    private final ServiceNowTableApiClient _client;
+    private final String _table;
+    private final long REFRESH_INTERVAL_MS;
+
+    private Map<String, Schema> _types;
+    private long _loadedAtMs;
+
+    public FieldTypeCache(ServiceNowTableApiClient client, String table, long refreshIntervalMs) {
+        this._client = client;
+        this._table = table;
+        this.REFRESH_INTERVAL_MS = refreshIntervalMs;
+    }
+
+    /**
+     * @return The schema per field name. Loaded on first use; a failed refresh keeps the types already loaded.
+     */
+    public Map<String, Schema> get(long nowMs) throws IOException, InterruptedException {
+        if(this._types == null) {
+            this._types = this.load();
+            this._loadedAtMs = nowMs;
+        } else if(this.REFRESH_INTERVAL_MS > 0 && nowMs - this._loadedAtMs >= this.REFRESH_INTERVAL_MS) {
+            this._loadedAtMs = nowMs;
+            try {
+                this._types = this.load();
+            } catch(ConnectException | IOException | JSONException ex) {
+                LOG.warn("Could not refresh column types for table [{}], keeping the ones already loaded. {}", this._table, ServiceNowTableApiClient.toLogFormat(ex));
+            }
+        }
+        return this._types;
+    }
+
+    private Map<String, Schema> load() throws IOException, InterruptedException {
+        final List<String> hierarchy = this.loadHierarchy();
+
+        TableAPIQueryBuilder query = TableAPIQueryBuilder.Builder();
+        for(int i = 0; i < hierarchy.size(); i++) {
+            if(i == 0) {
+                query.whereEquals("name", hierarchy.get(i));
+            } else {
+                query.orWhereEquals("name", hierarchy.get(i));
+            }
+        }
+        query.whereIsNotEmpty("element").orderByAsc("sys_id");
+
+        List<JSONObject> entries = new ArrayList<>();
+        for(long offset = 0; ; offset += PAGE_SIZE) {
+            List<JSONObject> page = this._client.getRecords("sys_dictionary", query, offset, PAGE_SIZE, Arrays.asList("name", "element", "internal_type"));
+            entries.addAll(page);
+            if(page.size() < PAGE_SIZE) {
+                break;
+            }
+        }
+
+        Map<String, Schema> types = toTypes(hierarchy, entries);
+        LOG.info("Loaded [{}] typed columns for table [{}] from hierarchy {}.", types.size(), this._table, hierarchy);
+        return types;
+    }
+
+    private List<String> loadHierarchy() throws IOException, InterruptedException {
+        List<String> hierarchy = new ArrayList<>();
+        String current = this._table;
+        while(current != null && !current.isEmpty() && hierarchy.size() < MAX_HIERARCHY_DEPTH && !hierarchy.contains(current)) {
+            hierarchy.add(current);
+            List<JSONObject> rows = this._client.getRecords("sys_db_object", TableAPIQueryBuilder.Builder().whereEquals("name", current), 0, 1, Collections.singletonList("super_class.name"));
+            current = rows.isEmpty() ? null : valueOf(rows.get(0), "super_class.name");
+        }
+        return hierarchy;
+    }
+
+    /**
+     * @param hierarchy The table first, then its ancestors nearest first.
+     * @param entries The sys_dictionary rows for all of those tables.
+     */
+    static Map<String, Schema> toTypes(List<String> hierarchy, List<JSONObject> entries) {
+        Map<String, Integer> depths = new HashMap<>();
+        Map<String, Schema> types = new HashMap<>();
+        for(JSONObject entry : entries) {
+            final String element = valueOf(entry, "element");
+            final int depth = hierarchy.indexOf(valueOf(entry, "name"));
+            if(element == null || depth < 0) {
+                continue;
+            }
+            Integer existing = depths.get(element);
+            if(existing == null || depth < existing) {
+                depths.put(element, depth);
+                types.put(element, TypedValues.schemaFor(valueOf(entry, "internal_type")));
+            }
+        }
+
+        // NOTE: only the columns that actually change type are kept, everything else stays a string.
+        types.values().removeIf(schema -> schema == Schema.OPTIONAL_STRING_SCHEMA);
+        return types;
+    }
+}
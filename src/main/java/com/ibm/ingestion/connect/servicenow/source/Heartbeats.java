@@ -0,0 +1,38 @@
+package com.ibm.ingestion.connect.servicenow.source;
+
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.data.SchemaBuilder;
+import org.apache.kafka.connect.data.Struct;
+import org.apache.kafka.connect.data.Timestamp;
+import org.apache.kafka.connect.source.SourceRecord;
+
+import java.time.Instant;
+import java.util.Date;
+import java.util.Map;
+
+/**
+ * Heartbeat records, saying a table is complete up to a watermark, emitted while the table has no changes so
+ * its offset moves on (Connect only commits offsets that come with a record) and consumers can tell an idle
+ * table from a stuck one.
+ */
+public final class Heartbeats {
+
+    public static final Schema VALUE_SCHEMA = SchemaBuilder.struct()
+            .name("com.ibm.ingestion.connect.servicenow.Heartbeat")
+            .field("table", Schema.STRING_SCHEMA)
+            .field("watermark", Timestamp.SCHEMA)
+            .build();
+
+    private Heartbeats() {
+    }
+
+    /**
+     * @param offset The table's offset at the watermark, committed once the heartbeat has been sent.
+     */
+    public static SourceRecord build(TableQueryPartition partition, Map<String, Object> offset, String topic, Instant watermark) {
+        Struct value = new Struct(VALUE_SCHEMA)
+                .put("table", partition.getTableName())
+                .put("watermark", Date.from(watermark));
+        return new SourceRecord(partition.getPartition(), offset, topic, null, Schema.STRING_SCHEMA, partition.getTableName(), VALUE_SCHEMA, value);
+    }
+}
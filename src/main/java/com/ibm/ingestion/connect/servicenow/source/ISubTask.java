@@ -0,0 +1,15 @@
+package com.ibm.ingestion.connect.servicenow.source;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+
+/**
+ * A unit of polling scheduled by the {@link SubTaskManager}, with its own source partition and offset.
+ */
+public interface ISubTask {
+    String getTableKey();
+    int getPriority();
+    LocalDateTime getNextPollUtc();
+    long getLagSeconds();
+    SourceRecordsPage poll() throws IOException, InterruptedException;
+}
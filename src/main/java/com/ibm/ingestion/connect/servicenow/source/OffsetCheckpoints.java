@@ -0,0 +1,153 @@
+package com.ibm.ingestion.connect.servicenow.source;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The acknowledged offset of each source partition, kept in a file per partition, so a restarted task can carry on
+ * from the last record written rather than the last offset Connect flushed, which lags it by up to
+ * 'offset.flush.interval.ms'.
+ *
+ * Each checkpoint also keeps the committed offset the task started from. A committed offset behind that one has
+ * been reset on purpose since, and the checkpoint is ignored so the reset isn't undone.
+ */
+public class OffsetCheckpoints {
+
+    private static final Logger LOG = LoggerFactory.getLogger(OffsetCheckpoints.class);
+
+    // NOTE: the second layout, with the committed offset the checkpoint was based on. The first one's are ignored.
+    private static final int MAGIC = 0x534E4F44;
+
+    private final File _directory;
+    private final String _connectorName;
+
+    public OffsetCheckpoints(File directory, String connectorName) {
+        this._directory = directory;
+        this._connectorName = connectorName;
+    }
+
+    /**
+     * @return The file of a partition, {@code <connector>.<table config id>[.<stream>].offset}.
+     */
+    File fileOf(TableQueryPartition partition) {
+        StringBuilder name = new StringBuilder();
+        if(this._connectorName != null) {
+            name.append(this._connectorName).append('.');
+        }
+        name.append(partition.getTableName());
+        if(partition.getStream() != null) {
+            name.append('.').append(partition.getStream());
+        }
+        return new File(this._directory, name.append(".offset").toString());
+    }
+
+    /**
+     * @return The partition's checkpoint, or null if it has none (or it can't be read).
+     */
+    public Checkpoint read(TableQueryPartition partition) {
+        final File file = this.fileOf(partition);
+        if(!file.exists()) {
+            return null;
+        }
+        try(DataInputStream in = new DataInputStream(new FileInputStream(file))) {
+            if(in.readInt() != MAGIC) {
+                throw new IOException("Not an offset checkpoint.");
+            }
+            final TimestampSourceOffset offset = readOffset(in);
+            return new Checkpoint(offset, readOffset(in));
+        } catch(IOException ex) {
+            LOG.warn("Could not read the offset checkpoint [{}], ignoring it. {}", file, ex.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Writes a partition's offset, and the committed offset it carries on from, through a temp file so a crash
+     * never leaves it half written. Empty offsets (before a table's first row) aren't written.
+     */
+    public void write(TableQueryPartition partition, Map<String, ?> offsetMap, TimestampSourceOffset base) throws IOException {
+        final TimestampSourceOffset offset = TimestampSourceOffset.fromMap(new HashMap<>(offsetMap));
+        if(offset.isEmpty()) {
+            return;
+        }
+        if(!this._directory.isDirectory() && !this._directory.mkdirs()) {
+            throw new IOException(String.format("Could not create the state directory [%s].", this._directory));
+        }
+
+        final File file = this.fileOf(partition);
+        final File next = new File(file.getPath() + ".next");
+        try(DataOutputStream out = new DataOutputStream(new FileOutputStream(next))) {
+            out.writeInt(MAGIC);
+            writeOffset(out, offset);
+            writeOffset(out, base);
+        }
+        Files.move(next.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void writeOffset(DataOutputStream out, TimestampSourceOffset offset) throws IOException {
+        out.writeBoolean(!offset.isEmpty());
+        if(offset.isEmpty()) {
+            return;
+        }
+        final String identifier = offset.isSnapshot() ? offset.getSnapshotCursor() : offset.getLastReadIdentifier();
+        out.writeBoolean(offset.isSnapshot());
+        out.writeLong(offset.isSnapshot() ? offset.getSnapshotStarted().getEpochSecond() : offset.getLastSeenTimestamp().getEpochSecond());
+        out.writeBoolean(identifier != null);
+        if(identifier != null) {
+            out.writeUTF(identifier);
+        }
+    }
+
+    private static TimestampSourceOffset readOffset(DataInputStream in) throws IOException {
+        if(!in.readBoolean()) {
+            return new TimestampSourceOffset(null, null);
+        }
+        final boolean snapshot = in.readBoolean();
+        final long seconds = in.readLong();
+        final String identifier = in.readBoolean() ? in.readUTF() : null;
+        return TimestampSourceOffset.fromMap(snapshot
+                ? TimestampSourceOffset.toSnapshotMap(seconds, identifier)
+                : TimestampSourceOffset.toCompactMap(seconds, identifier));
+    }
+
+    /**
+     * A partition's checkpointed offset, and the committed offset the task it came from started at.
+     */
+    public static final class Checkpoint {
+
+        private final TimestampSourceOffset _offset;
+        private final TimestampSourceOffset _base;
+
+        Checkpoint(TimestampSourceOffset offset, TimestampSourceOffset base) {
+            this._offset = offset;
+            this._base = base;
+        }
+
+        public TimestampSourceOffset getOffset() {
+            return this._offset;
+        }
+
+        public TimestampSourceOffset getBase() {
+            return this._base;
+        }
+
+        /**
+         * @return true unless {@code committed} is behind the committed offset the checkpoint was based on, or empty,
+         * either of which means the offsets were reset since.
+         */
+        public boolean isBasedOn(TimestampSourceOffset committed) {
+            return !committed.isEmpty() && !this._base.isAfter(committed);
+        }
+    }
+}
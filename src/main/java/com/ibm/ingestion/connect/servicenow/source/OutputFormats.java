@@ -0,0 +1,13 @@
+package com.ibm.ingestion.connect.servicenow.source;
+
+/**
+ * The ways a table's records can be written as record values.
+ */
+public final class OutputFormats {
+    /** A Struct with a schema derived from the record's fields. */
+    public static final String Struct = "struct";
+    /** The record's JSON, as received from ServiceNow, with a STRING schema. */
+    public static final String JsonString = "json-string";
+    /** The record's JSON, as received from ServiceNow, with a BYTES schema. */
+    public static final String JsonBytes = "json-bytes";
+}
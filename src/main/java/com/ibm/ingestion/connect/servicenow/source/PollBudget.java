@@ -0,0 +1,48 @@
+package com.ibm.ingestion.connect.servicenow.source;
+
+/**
+ * Tracks how much of a single polling cycle's wall clock, record and byte allowance has been used.
+ *
+ * A limit of {@value #UNBOUNDED} disables that particular budget. Budgets are only checked between fetches,
+ * so the last fetch of a cycle can overshoot them by up to one page.
+ */
+class PollBudget {
+
+    static final long UNBOUNDED = -1;
+
+    private final long MAX_DURATION_NS;
+    private final long MAX_RECORDS;
+    private final long MAX_BYTES;
+
+    private final long _startNs;
+    private long _records = 0;
+    private long _bytes = 0;
+
+    PollBudget(long maxDurationMs, long maxRecords, long maxBytes, long startNs) {
+        this.MAX_DURATION_NS = maxDurationMs <= 0 ? UNBOUNDED : maxDurationMs * 1_000_000L;
+        this.MAX_RECORDS = maxRecords <= 0 ? UNBOUNDED : maxRecords;
+        this.MAX_BYTES = maxBytes <= 0 ? UNBOUNDED : maxBytes;
+        this._startNs = startNs;
+    }
+
+    void add(long records, long bytes) {
+        this._records += records;
+        this._bytes += bytes;
+    }
+
+    /**
+     * @return The name of the budget that has been used up, or null if there is still room for another fetch.
+     */
+    String exhausted(long nowNs) {
+        if(this.MAX_DURATION_NS != UNBOUNDED && nowNs - this._startNs >= this.MAX_DURATION_NS) {
+            return "duration";
+        }
+        if(this.MAX_RECORDS != UNBOUNDED && this._records >= this.MAX_RECORDS) {
+            return "records";
+        }
+        if(this.MAX_BYTES != UNBOUNDED && this._bytes >= this.MAX_BYTES) {
+            return "bytes";
+        }
+        return null;
+    }
+}
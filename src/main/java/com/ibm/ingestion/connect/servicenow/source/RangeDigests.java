@@ -0,0 +1,242 @@
+package com.ibm.ingestion.connect.servicenow.source;
+
+import com.ibm.ingestion.connect.servicenow.util.SysIdLongTable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * A digest per sys_id range of the rows emitted for a table, kept up to date as rows are emitted, so a range
+ * can be checked against ServiceNow by fetching nothing but its sys_id and sys_mod_count columns.
+ *
+ * Ranges are the sys_ids sharing their first {@code prefixLength} hexadecimal characters. A range's digest is the
+ * sum of a hash of (sys_id, sys_mod_count) over its rows; the last sys_mod_count emitted per sys_id is kept in a
+ * {@link SysIdLongTable} so a row's old contribution can be taken out when it changes.
+ *
+ * A range starts out unseeded: nothing is known about what was emitted before, so its first check adopts
+ * ServiceNow's digest rather than comparing against it. With a state directory the digests and rows are kept on
+ * disk across restarts.
+ */
+public class RangeDigests {
+
+    private static final Logger LOG = LoggerFactory.getLogger(RangeDigests.class);
+
+    private static final int MAGIC = 0x534E5244;
+    private static final int DEFAULT_EXPECTED_ROWS = 100000;
+
+    private final int _prefixLength;
+    private final long[] _digests;
+    private final boolean[] _seeded;
+    private final SysIdLongTable _rows;
+    private final File _file;
+
+    private RangeDigests(int prefixLength, SysIdLongTable rows, File file) {
+        this._prefixLength = prefixLength;
+        this._digests = new long[1 << (4 * prefixLength)];
+        this._seeded = new boolean[this._digests.length];
+        this._rows = rows;
+        this._file = file;
+    }
+
+    public static RangeDigests inMemory(int prefixLength) {
+        checkPrefixLength(prefixLength);
+        return new RangeDigests(prefixLength, SysIdLongTable.inMemory(DEFAULT_EXPECTED_ROWS), null);
+    }
+
+    /**
+     * Opens the digests kept under {@code directory} as {@code <name>.ranges} and {@code <name>.rows}. Digests kept
+     * with a different prefix length are started over.
+     */
+    public static RangeDigests open(File directory, String name, int prefixLength) throws IOException {
+        checkPrefixLength(prefixLength);
+        if(!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException(String.format("Could not create the state directory [%s].", directory));
+        }
+
+        final File file = new File(directory, name + ".ranges");
+        final File rowsFile = new File(directory, name + ".rows");
+        if(file.exists()) {
+            try(DataInputStream in = new DataInputStream(new FileInputStream(file))) {
+                if(in.readInt() == MAGIC && in.readInt() == prefixLength) {
+                    RangeDigests digests = new RangeDigests(prefixLength, SysIdLongTable.open(rowsFile, DEFAULT_EXPECTED_ROWS), file);
+                    for(int i = 0; i < digests._digests.length; i++) {
+                        digests._digests[i] = in.readLong();
+                        digests._seeded[i] = in.readBoolean();
+                    }
+                    LOG.info("Loaded [{}] range digests covering [{}] rows from [{}].", digests._digests.length, digests._rows.size(), file);
+                    return digests;
+                }
+            } catch(IOException ex) {
+                LOG.warn("Could not read range digests from [{}], starting over. {}", file, ex.getMessage());
+            }
+        }
+
+        // NOTE: rows without digests to go with them are no use, so they go too.
+        Files.deleteIfExists(rowsFile.toPath());
+        return new RangeDigests(prefixLength, SysIdLongTable.open(rowsFile, DEFAULT_EXPECTED_ROWS), file);
+    }
+
+    private static void checkPrefixLength(int prefixLength) {
+        if(prefixLength < 1 || prefixLength > 4) {
+            throw new IllegalArgumentException(String.format("The range prefix length must be between 1 and 4, received [%s].", prefixLength));
+        }
+    }
+
+    public int getRangeCount() {
+        return this._digests.length;
+    }
+
+    /**
+     * @return The range of a sys_id, or -1 if it isn't a hexadecimal sys_id.
+     */
+    public int rangeOf(String sysId) {
+        final long key = SysIdLongTable.keyOf(sysId);
+        return key == 0 ? -1 : this.rangeOf(key);
+    }
+
+    private int rangeOf(long key) {
+        return (int)(key >>> (64 - 4 * this._prefixLength));
+    }
+
+    /**
+     * @return The sys_id prefix shared by the range's rows.
+     */
+    public String prefixOf(int range) {
+        final String hex = Integer.toHexString(range);
+        StringBuilder prefix = new StringBuilder(this._prefixLength);
+        for(int i = hex.length(); i < this._prefixLength; i++) {
+            prefix.append('0');
+        }
+        return prefix.append(hex).toString();
+    }
+
+    public long getDigest(int range) {
+        return this._digests[range];
+    }
+
+    public boolean isSeeded(int range) {
+        return this._seeded[range];
+    }
+
+    /**
+     * Notes a row as emitted, moving its range's digest from the row's old sys_mod_count to the new one.
+     */
+    public void record(String sysId, long modCount) throws IOException {
+        final long key = SysIdLongTable.keyOf(sysId);
+        if(key == 0) {
+            return;
+        }
+        final long previous = this._rows.put(key, modCount);
+        final int range = this.rangeOf(key);
+        if(previous != SysIdLongTable.MISSING) {
+            this._digests[range] -= contribution(key, previous);
+        }
+        this._digests[range] += contribution(key, modCount);
+    }
+
+    /**
+     * Notes a row as it is in ServiceNow without it having been emitted, while seeding a range.
+     */
+    public void seed(String sysId, long modCount) throws IOException {
+        final long key = SysIdLongTable.keyOf(sysId);
+        if(key != 0) {
+            this._rows.put(key, modCount);
+        }
+    }
+
+    /**
+     * Sets a range's digest to one worked out from ServiceNow's rows, once it has been seeded or re-fetched.
+     */
+    public void reset(int range, long digest) {
+        this._digests[range] = digest;
+        this._seeded[range] = true;
+    }
+
+    /**
+     * @return The sys_mod_count last emitted or seeded for a row, or -1 if there is none.
+     */
+    public long getModCount(String sysId) {
+        final long key = SysIdLongTable.keyOf(sysId);
+        final long modCount = key == 0 ? SysIdLongTable.MISSING : this._rows.get(key);
+        return modCount == SysIdLongTable.MISSING ? -1 : modCount;
+    }
+
+    /**
+     * @return The sys_mod_count as a number, or -1 if it isn't one. Display values are accepted only with the
+     * thousands grouped in threes ("1,024"); anything else but digits ("1.5", "1 024") isn't a count.
+     */
+    public static long parseModCount(String raw) {
+        if(raw == null) {
+            return -1;
+        }
+        long modCount = 0;
+        int digits = 0;
+        int groupDigits = 0;
+        boolean grouped = false;
+        for(int i = 0; i < raw.length(); i++) {
+            final char c = raw.charAt(i);
+            if(c >= '0' && c <= '9') {
+                modCount = modCount * 10 + (c - '0');
+                digits++;
+                groupDigits++;
+            } else if(c == ',' && groupDigits > 0 && (grouped ? groupDigits == 3 : groupDigits <= 3)) {
+                grouped = true;
+                groupDigits = 0;
+            } else {
+                return -1;
+            }
+        }
+        if(groupDigits == 0 || (grouped && groupDigits != 3) || digits > 18) {
+            return -1;
+        }
+        return modCount;
+    }
+
+    /**
+     * @return The hash a row adds to its range's digest.
+     */
+    public static long contribution(String sysId, long modCount) {
+        final long key = SysIdLongTable.keyOf(sysId);
+        return key == 0 ? 0 : contribution(key, modCount);
+    }
+
+    private static long contribution(long key, long modCount) {
+        // NOTE: the murmur3 64 bit finalizer over the key and sys_mod_count, so sums of them don't cancel out.
+        long hash = key ^ (modCount * 0x9E3779B97F4A7C15L);
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    /**
+     * Writes the digests, and the rows behind them, to the state directory. Nothing to do when held in memory.
+     */
+    public void flush() throws IOException {
+        if(this._file == null) {
+            return;
+        }
+        this._rows.flush();
+
+        final File next = new File(this._file.getPath() + ".next");
+        try(DataOutputStream out = new DataOutputStream(new FileOutputStream(next))) {
+            out.writeInt(MAGIC);
+            out.writeInt(this._prefixLength);
+            for(int i = 0; i < this._digests.length; i++) {
+                out.writeLong(this._digests[i]);
+                out.writeBoolean(this._seeded[i]);
+            }
+        }
+        Files.move(next.toPath(), this._file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
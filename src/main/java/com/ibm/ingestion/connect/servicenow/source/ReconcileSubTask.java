@@ -0,0 +1,210 @@
+package com.ibm.ingestion.connect.servicenow.source;
+
+import com.ibm.ingestion.connect.servicenow.util.ConnectorMetrics;
+import com.ibm.ingestion.connect.servicenow.util.Helpers;
+import com.ibm.ingestion.connect.servicenow.util.JsonPage;
+import com.ibm.ingestion.connect.servicenow.util.SpillableJsonPage;
+import com.ibm.ingestion.http.ServiceNowTableApiClient;
+import com.ibm.ingestion.http.TableAPIQueryBuilder;
+import org.apache.kafka.common.metrics.Sensor;
+import org.apache.kafka.connect.source.SourceRecord;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static com.ibm.ingestion.connect.servicenow.util.Helpers.valueOf;
+
+/**
+ * Checks a table's emitted rows against ServiceNow, a sys_id range at a time, to catch rows the timestamp
+ * polling missed (clock skew, updates that don't touch the timestamp column).
+ *
+ * Each range is first read as just its sys_id, sys_mod_count and timestamp columns and digested the same way as the
+ * {@link RangeDigests} kept from the emitted rows. Rows changed since the table's offset haven't been streamed yet,
+ * so they are digested as the version last emitted rather than counting as missed. Only ranges whose digests still
+ * differ are fetched again in full and re-emitted, through the table's own conversion and with its current offset. One page is fetched per poll, and
+ * once every range has been checked the next cycle waits for the reconcile interval.
+ */
+public class ReconcileSubTask implements ISubTask {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ReconcileSubTask.class);
+
+    private static final String METRIC_GROUP = "servicenow-table-metrics";
+    private static final String SYS_ID_FIELD = "sys_id";
+    private static final String MOD_COUNT_FIELD = "sys_mod_count";
+
+    // NOTE: digest pages are three short columns per row, so can be much larger than pages of whole rows.
+    static final int DIGEST_PAGE_SIZE = 5000;
+
+    private final TableAPISubTask _table;
+    private final RangeDigests _digests;
+    private final ServiceNowTableApiClient _client;
+    private final List<String> _digestFields;
+    private final Sensor _rangesRefetched;
+    private final Sensor _rowsRefetched;
+    private LocalDateTime _nextPollUtc;
+
+    private int _range = 0;
+    private boolean _refetching = false;
+    private String _afterSysId = null;
+    private long _remoteDigest = 0;
+    private int _cycleRangesRefetched = 0;
+
+    private long FAST_INTERVAL_NS;
+    private long INTERVAL_MINUTES;
+    private int MAX_BATCH_SIZE;
+
+    public ReconcileSubTask(TableAPISubTask table, ServiceNowTableAPISourceTaskConfig config, ServiceNowTableApiClient client) {
+        this._table = table;
+        this._digests = table.getRangeDigests();
+        this._client = client;
+        this._digestFields = Collections.unmodifiableList(Arrays.asList(SYS_ID_FIELD, MOD_COUNT_FIELD, table.getTimestampField()));
+        this.FAST_INTERVAL_NS = config.getLong(ServiceNowSourceConnectorConfig.TASK_POLL_FAST_INTERVAL_MS) * 1000000;
+        this.INTERVAL_MINUTES = table.getReconcileIntervalMinutes();
+        this.MAX_BATCH_SIZE = config.getInt(ServiceNowSourceConnectorConfig.TASK_POLL_BATCH_MAX_SIZE);
+
+        Map<String, String> tags = Collections.singletonMap("table", table.getTableKey());
+        this._rangesRefetched = ConnectorMetrics.countSensor(METRIC_GROUP, "reconcile-ranges-refetched", "sys_id ranges whose digests differed and were fetched again.", tags);
+        this._rowsRefetched = ConnectorMetrics.countSensor(METRIC_GROUP, "reconcile-rows-refetched", "rows re-emitted by reconciliation.", tags);
+    }
+
+    public String getTableKey() {
+        return this._table.getTableKey();
+    }
+
+    public int getPriority() {
+        return this._table.getPriority();
+    }
+
+    public LocalDateTime getNextPollUtc() {
+        return this._nextPollUtc;
+    }
+
+    public long getLagSeconds() {
+        return 0;
+    }
+
+    public SourceRecordsPage poll() throws IOException, InterruptedException {
+        final String prefix = this._digests.prefixOf(this._range);
+        TableAPIQueryBuilder builder = TableAPIQueryBuilder.Builder().whereStartsWith(SYS_ID_FIELD, prefix);
+        if(this._afterSysId != null) {
+            builder.whereGreaterThan(SYS_ID_FIELD, this._afterSysId);
+        }
+        builder.orderByAsc(SYS_ID_FIELD);
+
+        List<SourceRecord> records = Collections.emptyList();
+        final long fetchedBytes;
+        if(this._refetching && this._client.isResponseMemoryBounded()) {
+            // NOTE: full rows of a wide table, decoded one at a time from the page's bytes, which may be spilled off the heap.
+            try(SpillableJsonPage page = this._client.getRecordPage(this._table.getTableName(), builder, 0, this.MAX_BATCH_SIZE, this._table.getFields())) {
+                fetchedBytes = page.getSizeInBytes();
+                records = this.refetched(page.getRecords());
+            }
+        } else if(this._refetching) {
+            JsonPage page = this._client.getJsonPage(this._table.getTableName(), builder, 0, this.MAX_BATCH_SIZE, this._table.getFields());
+            fetchedBytes = page.getSizeInBytes();
+            records = this.refetched(page.getRecords());
+        } else {
+            JsonPage page = this._client.getJsonPage(this._table.getTableName(), builder, 0, DIGEST_PAGE_SIZE, this._digestFields);
+            fetchedBytes = page.getSizeInBytes();
+            List<JSONObject> rows = page.getRecords();
+            final boolean seed = !this._digests.isSeeded(this._range);
+            this._remoteDigest += this.digest(rows, seed, !seed);
+            if(rows.size() < DIGEST_PAGE_SIZE) {
+                this.compareRange(prefix);
+            }
+        }
+
+        if(this._range == 0 && !this._refetching && this._afterSysId == null) {
+            this._nextPollUtc = LocalDateTime.now(ZoneOffset.UTC).plusMinutes(this.INTERVAL_MINUTES);
+            LOG.info("Reconciled [{}] ranges of table [{}], [{}] fetched again. Next reconciliation at [{}].", this._digests.getRangeCount(), this._table.getTableName(), this._cycleRangesRefetched, this._nextPollUtc);
+            this._cycleRangesRefetched = 0;
+            this._digests.flush();
+        } else {
+            this._nextPollUtc = LocalDateTime.now(ZoneOffset.UTC).plusNanos(this.FAST_INTERVAL_NS);
+        }
+        return new SourceRecordsPage(records, this._nextPollUtc, fetchedBytes);
+    }
+
+    /**
+     * Digests and re-emits a page of a range's rows fetched again in full, moving on to the next range after its last.
+     */
+    private List<SourceRecord> refetched(List<JSONObject> rows) throws IOException {
+        this._remoteDigest += this.digest(rows, false, false);
+        List<SourceRecord> records = this._table.processReconciledBatch(rows);
+        this._rowsRefetched.record(records.size());
+        if(rows.size() < this.MAX_BATCH_SIZE) {
+            this._digests.reset(this._range, this._remoteDigest);
+            this.nextRange();
+        }
+        return records;
+    }
+
+    /**
+     * @return The digest of a page of ServiceNow's rows. When {@code compare}, rows changed since the table's offset
+     * count as the version last emitted, as the table's own polling has yet to reach them.
+     */
+    long digest(List<JSONObject> rows, boolean seed, boolean compare) throws IOException {
+        final Instant streamedThrough = compare ? this._table.getStreamedThrough() : null;
+        long digest = 0;
+        for(JSONObject row : rows) {
+            final String sysId = valueOf(row, SYS_ID_FIELD);
+            long modCount = RangeDigests.parseModCount(valueOf(row, MOD_COUNT_FIELD));
+            if(sysId != null) {
+                this._afterSysId = sysId;
+            }
+            if(compare && this.isUnstreamed(row, streamedThrough)) {
+                modCount = this._digests.getModCount(sysId);
+            }
+            if(modCount < 0) {
+                continue;
+            }
+            digest += RangeDigests.contribution(sysId, modCount);
+            if(seed) {
+                this._digests.seed(sysId, modCount);
+            }
+        }
+        return digest;
+    }
+
+    private boolean isUnstreamed(JSONObject row, Instant streamedThrough) {
+        if(streamedThrough == null) {
+            return true;
+        }
+        final String rawTimestamp = valueOf(row, this._table.getTimestampField());
+        // NOTE: rows of the offset's own second may be either side of it, those already streamed count the same.
+        return rawTimestamp != null && Helpers.parseServiceNowEpochSecondsUtc(rawTimestamp) >= streamedThrough.getEpochSecond();
+    }
+
+    private void compareRange(String prefix) {
+        if(!this._digests.isSeeded(this._range)) {
+            // NOTE: nothing is known of what was emitted before, so ServiceNow's rows become the baseline.
+            this._digests.reset(this._range, this._remoteDigest);
+            this.nextRange();
+        } else if(this._digests.getDigest(this._range) == this._remoteDigest) {
+            this.nextRange();
+        } else {
+            LOG.info("Range [{}] of table [{}] differs from the emitted rows, fetching it again.", prefix, this._table.getTableName());
+            this._rangesRefetched.record();
+            this._cycleRangesRefetched++;
+            this._refetching = true;
+            this._afterSysId = null;
+            this._remoteDigest = 0;
+        }
+    }
+
+    private void nextRange() {
+        this._range = (this._range + 1) % this._digests.getRangeCount();
+        this._refetching = false;
+        this._afterSysId = null;
+        this._remoteDigest = 0;
+    }
+}
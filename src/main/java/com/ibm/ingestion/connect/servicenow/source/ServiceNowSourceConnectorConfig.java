@@ -24,6 +24,11 @@ public class ServiceNowSourceConnectorConfig extends AbstractConfig {
         return config;
     }
 
+    /**
+     * Set by the Kafka Connect framework on every connector (and copied into every task) configuration.
+     */
+    public static final String CONNECTOR_NAME = "name";
+
     public static final String TABLE_WHITELIST_PREFIX = "table.whitelist.";
     public static final String TABLE_WHITELIST_NAME_POSTFIX = "name";
     public static final String TABLE_WHITELIST_TIMESTAMP_FIELD_POSTFIX = "timestamp.field.name";
@@ -249,6 +254,13 @@ public class ServiceNowSourceConnectorConfig extends AbstractConfig {
             = "ServiceNow Display Value Mode";
     public static final String SERVICENOW_CLIENT_DISPLAY_VALUE_DEFAULT = "false";
 
+    public static final String SERVICENOW_CLIENT_MAX_CONCURRENT_REQUESTS = "servicenow.client.max.concurrent.requests";
+    private static final String SERVICENOW_CLIENT_MAX_CONCURRENT_REQUESTS_DOC
+            = "The maximum number of requests in flight against one ServiceNow instance (base url) across every task running in the same worker JVM. Requests over the limit wait in arrival order. The first task to start against an instance sets the limit. If not specified, or '-1', then requests are not limited.";
+    private static final String SERVICENOW_CLIENT_MAX_CONCURRENT_REQUESTS_DISPLAY
+            = "ServiceNow Max Concurrent Requests Per Instance";
+    public static final int SERVICENOW_CLIENT_MAX_CONCURRENT_REQUESTS_DEFAULT = -1;
+
     private static void addServiceNowClientOptions(ConfigDef config) {
         int orderInGroup = 0;
         config.define(
@@ -396,6 +408,16 @@ public class ServiceNowSourceConnectorConfig extends AbstractConfig {
                 ++orderInGroup,
                 ConfigDef.Width.MEDIUM,
                 SERVICENOW_CLIENT_DISPLAY_VALUE_DISPLAY
+        ).define(
+                SERVICENOW_CLIENT_MAX_CONCURRENT_REQUESTS,
+                ConfigDef.Type.INT,
+                SERVICENOW_CLIENT_MAX_CONCURRENT_REQUESTS_DEFAULT,
+                ConfigDef.Importance.MEDIUM,
+                SERVICENOW_CLIENT_MAX_CONCURRENT_REQUESTS_DOC,
+                SERVICENOW_CLIENT_GROUP,
+                ++orderInGroup,
+                ConfigDef.Width.LONG,
+                SERVICENOW_CLIENT_MAX_CONCURRENT_REQUESTS_DISPLAY
         );
     }
 
@@ -408,6 +430,38 @@ public class ServiceNowSourceConnectorConfig extends AbstractConfig {
     private static final int TIMESTAMP_DELAY_INTERVAL_SECONDS_DEFAULT = 0;
 
 
+    public static final String TIMESTAMP_DELAY_ADAPTIVE = "through.timestamp.delay.adaptive";
+    private static final String TIMESTAMP_DELAY_ADAPTIVE_DOC
+            = "When true, the delay adapts to the commit lag observed from rows arriving late, between 'through.timestamp.delay.min.seconds' and 'through.timestamp.delay.interval.seconds', and is measured against the ServiceNow instance's clock (from the Date header of its responses) rather than the worker's.";
+    private static final String TIMESTAMP_DELAY_ADAPTIVE_DISPLAY
+            = "Adaptive Timestamp Delay";
+    public static final boolean TIMESTAMP_DELAY_ADAPTIVE_DEFAULT = false;
+
+
+    public static final String TIMESTAMP_DELAY_MIN_SECONDS = "through.timestamp.delay.min.seconds";
+    private static final String TIMESTAMP_DELAY_MIN_SECONDS_DOC
+            = "The least the adaptive timestamp delay goes down to.";
+    private static final String TIMESTAMP_DELAY_MIN_SECONDS_DISPLAY
+            = "Adaptive Timestamp Delay Minimum (Seconds)";
+    public static final int TIMESTAMP_DELAY_MIN_SECONDS_DEFAULT = 2;
+
+
+    public static final String HEARTBEAT_INTERVAL_SECONDS = "heartbeat.interval.seconds";
+    private static final String HEARTBEAT_INTERVAL_SECONDS_DOC
+            = "How often a table with no changes sends a heartbeat record, which moves its offset on to the through timestamp of its last query. If 0, then no heartbeats are sent.";
+    private static final String HEARTBEAT_INTERVAL_SECONDS_DISPLAY
+            = "Heartbeat Interval (Seconds)";
+    public static final int HEARTBEAT_INTERVAL_SECONDS_DEFAULT = 0;
+
+
+    public static final String HEARTBEAT_TOPIC = "heartbeat.topic";
+    private static final String HEARTBEAT_TOPIC_DOC
+            = "The topic heartbeat records are sent to, keyed by table config id. It must already exist.";
+    private static final String HEARTBEAT_TOPIC_DISPLAY
+            = "Heartbeat Topic";
+    public static final String HEARTBEAT_TOPIC_DEFAULT = "servicenow-heartbeats";
+
+
     public static final String TABLE_WHITELIST = "table.whitelist";
     private static final String TABLE_WHITELIST_DOC
             = "A comma separated list of table identifiers used subsequently in this config.";
@@ -452,6 +506,135 @@ public class ServiceNowSourceConnectorConfig extends AbstractConfig {
     private static final long TIMESTAMP_INITIAL_QUERY_HOURS_AGO_DEFAULT = -1;
 
 
+    public static final String TASK_POLL_MAX_FETCHES = "task.poll.max.fetches";
+    private static final String TASK_POLL_MAX_FETCHES_DOC
+            = "The maximum number of table fetches a task performs in a single polling cycle. Due tables are served in weighted fair order based on their priority, and any that do not get a fetch slot are carried over to the next cycle. If not specified, or '-1', then every due table is fetched each cycle.";
+    private static final String TASK_POLL_MAX_FETCHES_DISPLAY
+            = "Task Max Fetches Per Poll";
+    public static final int TASK_POLL_MAX_FETCHES_DEFAULT = -1;
+
+
+    public static final String TASK_POLL_MAX_DURATION_MS = "task.poll.max.duration.ms";
+    private static final String TASK_POLL_MAX_DURATION_MS_DOC
+            = "The wall clock budget for a single polling cycle. Once it is used up no further tables are fetched in that cycle, the remaining due tables are carried over to the next one. A fetch that is already running is never interrupted. If not specified, or '-1', then polling cycles are not time bounded.";
+    private static final String TASK_POLL_MAX_DURATION_MS_DISPLAY
+            = "Task Polling Cycle Max Duration (ms)";
+    public static final long TASK_POLL_MAX_DURATION_MS_DEFAULT = -1;
+
+
+    public static final String TASK_POLL_MAX_RECORDS = "task.poll.max.records";
+    private static final String TASK_POLL_MAX_RECORDS_DOC
+            = "The number of records after which a polling cycle stops fetching further tables, the remaining due tables are carried over to the next cycle. If not specified, or '-1', then the number of records per cycle is not bounded.";
+    private static final String TASK_POLL_MAX_RECORDS_DISPLAY
+            = "Task Polling Cycle Max Records";
+    public static final int TASK_POLL_MAX_RECORDS_DEFAULT = -1;
+
+
+    public static final String TASK_POLL_MAX_BYTES = "task.poll.max.bytes";
+    private static final String TASK_POLL_MAX_BYTES_DOC
+            = "The amount of response data (bytes) after which a polling cycle stops fetching further tables, the remaining due tables are carried over to the next cycle. If not specified, or '-1', then the response data per cycle is not bounded.";
+    private static final String TASK_POLL_MAX_BYTES_DISPLAY
+            = "Task Polling Cycle Max Bytes";
+    public static final long TASK_POLL_MAX_BYTES_DEFAULT = -1;
+
+
+    public static final String TASK_RESPONSE_HEAP_MAX_BYTES = "task.response.heap.max.bytes";
+    private static final String TASK_RESPONSE_HEAP_MAX_BYTES_DOC
+            = "The amount of a single Table API response (bytes) a task keeps on the heap while converting it. Pages are read as a stream and their records decoded one at a time; whatever of a response doesn't fit within this limit is spilled to a memory-mapped temp file, which is unmapped as soon as the page has been converted. The limit applies to each response on its own, not to the records converted from it that are still waiting to be written. If not specified, or '-1', then each page is read fully onto the heap.";
+    private static final String TASK_RESPONSE_HEAP_MAX_BYTES_DISPLAY
+            = "Task Response Heap Max Bytes";
+    public static final long TASK_RESPONSE_HEAP_MAX_BYTES_DEFAULT = -1;
+
+
+    public static final String TASK_RESPONSE_SPILL_DIR = "task.response.spill.dir";
+    private static final String TASK_RESPONSE_SPILL_DIR_DOC
+            = "The directory that response data over 'task.response.heap.max.bytes' is spilled to. If not specified, then the JVM's temp directory is used.";
+    private static final String TASK_RESPONSE_SPILL_DIR_DISPLAY
+            = "Task Response Spill Directory";
+    public static final String TASK_RESPONSE_SPILL_DIR_DEFAULT = "";
+
+
+    public static final String TYPED_SCHEMA_REFRESH_INTERVAL_MINUTES = "typed.schema.refresh.interval.minutes";
+    private static final String TYPED_SCHEMA_REFRESH_INTERVAL_MINUTES_DOC
+            = "How often the column types of tables with 'table.whitelist.<key>.typed.schema' enabled are reloaded from sys_dictionary. If '0', then they are only loaded once, when the task starts.";
+    private static final String TYPED_SCHEMA_REFRESH_INTERVAL_MINUTES_DISPLAY
+            = "Typed Schema Refresh Interval (Minutes)";
+    public static final int TYPED_SCHEMA_REFRESH_INTERVAL_MINUTES_DEFAULT = 60;
+
+
+    public static final String REBALANCE_CHECK_INTERVAL_SECONDS = "rebalance.check.interval.seconds";
+    private static final String REBALANCE_CHECK_INTERVAL_SECONDS_DOC
+            = "How often the connector compares the observed load of each task and decides whether tables should be reassigned. If not specified, or '0', then automatic rebalancing is disabled.";
+    private static final String REBALANCE_CHECK_INTERVAL_SECONDS_DISPLAY
+            = "Rebalance Check Interval (Seconds)";
+    public static final int REBALANCE_CHECK_INTERVAL_SECONDS_DEFAULT = 0;
+
+
+    public static final String REBALANCE_IMBALANCE_THRESHOLD = "rebalance.imbalance.threshold";
+    private static final String REBALANCE_IMBALANCE_THRESHOLD_DOC
+            = "The ratio between the most loaded task and the average task above which the assignment is considered skewed.";
+    private static final String REBALANCE_IMBALANCE_THRESHOLD_DISPLAY
+            = "Rebalance Imbalance Threshold";
+    public static final double REBALANCE_IMBALANCE_THRESHOLD_DEFAULT = 1.5;
+
+
+    public static final String REBALANCE_CONSECUTIVE_CHECKS = "rebalance.consecutive.checks";
+    private static final String REBALANCE_CONSECUTIVE_CHECKS_DOC
+            = "The number of checks in a row that must find the assignment skewed before a task reconfiguration is requested.";
+    private static final String REBALANCE_CONSECUTIVE_CHECKS_DISPLAY
+            = "Rebalance Consecutive Checks";
+    public static final int REBALANCE_CONSECUTIVE_CHECKS_DEFAULT = 3;
+
+
+    public static final String REBALANCE_MIN_INTERVAL_SECONDS = "rebalance.min.interval.seconds";
+    private static final String REBALANCE_MIN_INTERVAL_SECONDS_DOC
+            = "The minimum amount of time between two task reconfigurations requested by the rebalance check.";
+    private static final String REBALANCE_MIN_INTERVAL_SECONDS_DISPLAY
+            = "Rebalance Minimum Interval (Seconds)";
+    public static final int REBALANCE_MIN_INTERVAL_SECONDS_DEFAULT = 30 * 60;
+
+
+    public static final String REBALANCE_LAG_THRESHOLD_SECONDS = "rebalance.lag.threshold.seconds";
+    private static final String REBALANCE_LAG_THRESHOLD_SECONDS_DOC
+            = "A skewed assignment is only acted on when a table on the most loaded task is at least this far behind. Keeps the connector from reshuffling tasks that are all keeping up.";
+    private static final String REBALANCE_LAG_THRESHOLD_SECONDS_DISPLAY
+            = "Rebalance Lag Threshold (Seconds)";
+    public static final int REBALANCE_LAG_THRESHOLD_SECONDS_DEFAULT = 300;
+
+
+    public static final String RECONCILE_STATE_DIR = "reconcile.state.dir";
+    private static final String RECONCILE_STATE_DIR_DOC
+            = "The directory the range digests of reconciled tables are kept in across restarts. If not specified, then they are held in memory and rebuilt from ServiceNow after every restart.";
+    private static final String RECONCILE_STATE_DIR_DISPLAY
+            = "Reconcile State Directory";
+    public static final String RECONCILE_STATE_DIR_DEFAULT = "";
+
+
+    public static final String DEDUP_STATE_DIR = "dedup.state.dir";
+    private static final String DEDUP_STATE_DIR_DOC
+            = "The directory the emitted rows remembered by tables with 'table.whitelist.<key>.dedup.max.entries' set are saved to when the task stops, and loaded from when it starts. If not specified, then they are only held in memory.";
+    private static final String DEDUP_STATE_DIR_DISPLAY
+            = "Dedup State Directory";
+    public static final String DEDUP_STATE_DIR_DEFAULT = "";
+
+
+    public static final String CHANGE_SUPPRESSION_STATE_DIR = "change.suppression.state.dir";
+    private static final String CHANGE_SUPPRESSION_STATE_DIR_DOC
+            = "The directory the watched column hashes of tables with 'table.whitelist.<key>.change.suppression.fields' set are kept in across restarts. If not specified, then they are held in memory and every row is emitted whole once after a restart.";
+    private static final String CHANGE_SUPPRESSION_STATE_DIR_DISPLAY
+            = "Change Suppression State Directory";
+    public static final String CHANGE_SUPPRESSION_STATE_DIR_DEFAULT = "";
+
+
+    public static final String OFFSET_CHECKPOINT_DIR = "offset.checkpoint.dir";
+    private static final String OFFSET_CHECKPOINT_DIR_DOC
+            = "The directory the offset of each table's last acknowledged record is written to every poll, and resumed from when it is further on than the offset Connect committed. A checkpoint is ignored once the committed offset is behind the one its task started from, or was deleted, so an offset reset isn't undone. If not specified, then a restarted task resumes from the committed offset, fetching again the records written since it was last flushed.";
+    private static final String OFFSET_CHECKPOINT_DIR_DISPLAY
+            = "Offset Checkpoint Directory";
+    public static final String OFFSET_CHECKPOINT_DIR_DEFAULT = "";
+
+
+
     private static void addConnectorOptions(ConfigDef config) {
         int orderInGroup = 0;
         config.define(
@@ -464,6 +647,46 @@ public class ServiceNowSourceConnectorConfig extends AbstractConfig {
                 ++orderInGroup,
                 ConfigDef.Width.LONG,
                 TIMESTAMP_DELAY_INTERVAL_SECONDS_DISPLAY
+        ).define(
+                TIMESTAMP_DELAY_ADAPTIVE,
+                ConfigDef.Type.BOOLEAN,
+                TIMESTAMP_DELAY_ADAPTIVE_DEFAULT,
+                ConfigDef.Importance.LOW,
+                TIMESTAMP_DELAY_ADAPTIVE_DOC,
+                CONNECTOR_GROUP,
+                ++orderInGroup,
+                ConfigDef.Width.LONG,
+                TIMESTAMP_DELAY_ADAPTIVE_DISPLAY
+        ).define(
+                TIMESTAMP_DELAY_MIN_SECONDS,
+                ConfigDef.Type.INT,
+                TIMESTAMP_DELAY_MIN_SECONDS_DEFAULT,
+                ConfigDef.Importance.LOW,
+                TIMESTAMP_DELAY_MIN_SECONDS_DOC,
+                CONNECTOR_GROUP,
+                ++orderInGroup,
+                ConfigDef.Width.LONG,
+                TIMESTAMP_DELAY_MIN_SECONDS_DISPLAY
+        ).define(
+                HEARTBEAT_INTERVAL_SECONDS,
+                ConfigDef.Type.INT,
+                HEARTBEAT_INTERVAL_SECONDS_DEFAULT,
+                ConfigDef.Importance.LOW,
+                HEARTBEAT_INTERVAL_SECONDS_DOC,
+                CONNECTOR_GROUP,
+                ++orderInGroup,
+                ConfigDef.Width.LONG,
+                HEARTBEAT_INTERVAL_SECONDS_DISPLAY
+        ).define(
+                HEARTBEAT_TOPIC,
+                ConfigDef.Type.STRING,
+                HEARTBEAT_TOPIC_DEFAULT,
+                ConfigDef.Importance.LOW,
+                HEARTBEAT_TOPIC_DOC,
+                CONNECTOR_GROUP,
+                ++orderInGroup,
+                ConfigDef.Width.LONG,
+                HEARTBEAT_TOPIC_DISPLAY
         ).define(
                 TABLE_WHITELIST,
                 ConfigDef.Type.STRING,
@@ -522,6 +745,166 @@ public class ServiceNowSourceConnectorConfig extends AbstractConfig {
                 ++orderInGroup,
                 ConfigDef.Width.LONG,
                 TIMESTAMP_INITIAL_QUERY_HOURS_AGO_DISPLAY
+        ).define(
+                TASK_POLL_MAX_FETCHES,
+                ConfigDef.Type.INT,
+                TASK_POLL_MAX_FETCHES_DEFAULT,
+                ConfigDef.Importance.LOW,
+                TASK_POLL_MAX_FETCHES_DOC,
+                CONNECTOR_GROUP,
+                ++orderInGroup,
+                ConfigDef.Width.LONG,
+                TASK_POLL_MAX_FETCHES_DISPLAY
+        ).define(
+                TASK_POLL_MAX_DURATION_MS,
+                ConfigDef.Type.LONG,
+                TASK_POLL_MAX_DURATION_MS_DEFAULT,
+                ConfigDef.Importance.LOW,
+                TASK_POLL_MAX_DURATION_MS_DOC,
+                CONNECTOR_GROUP,
+                ++orderInGroup,
+                ConfigDef.Width.LONG,
+                TASK_POLL_MAX_DURATION_MS_DISPLAY
+        ).define(
+                TASK_POLL_MAX_RECORDS,
+                ConfigDef.Type.INT,
+                TASK_POLL_MAX_RECORDS_DEFAULT,
+                ConfigDef.Importance.LOW,
+                TASK_POLL_MAX_RECORDS_DOC,
+                CONNECTOR_GROUP,
+                ++orderInGroup,
+                ConfigDef.Width.LONG,
+                TASK_POLL_MAX_RECORDS_DISPLAY
+        ).define(
+                TASK_POLL_MAX_BYTES,
+                ConfigDef.Type.LONG,
+                TASK_POLL_MAX_BYTES_DEFAULT,
+                ConfigDef.Importance.LOW,
+                TASK_POLL_MAX_BYTES_DOC,
+                CONNECTOR_GROUP,
+                ++orderInGroup,
+                ConfigDef.Width.LONG,
+                TASK_POLL_MAX_BYTES_DISPLAY
+        ).define(
+                TASK_RESPONSE_HEAP_MAX_BYTES,
+                ConfigDef.Type.LONG,
+                TASK_RESPONSE_HEAP_MAX_BYTES_DEFAULT,
+                ConfigDef.Importance.LOW,
+                TASK_RESPONSE_HEAP_MAX_BYTES_DOC,
+                CONNECTOR_GROUP,
+                ++orderInGroup,
+                ConfigDef.Width.LONG,
+                TASK_RESPONSE_HEAP_MAX_BYTES_DISPLAY
+        ).define(
+                TASK_RESPONSE_SPILL_DIR,
+                ConfigDef.Type.STRING,
+                TASK_RESPONSE_SPILL_DIR_DEFAULT,
+                ConfigDef.Importance.LOW,
+                TASK_RESPONSE_SPILL_DIR_DOC,
+                CONNECTOR_GROUP,
+                ++orderInGroup,
+                ConfigDef.Width.LONG,
+                TASK_RESPONSE_SPILL_DIR_DISPLAY
+        ).define(
+                TYPED_SCHEMA_REFRESH_INTERVAL_MINUTES,
+                ConfigDef.Type.INT,
+                TYPED_SCHEMA_REFRESH_INTERVAL_MINUTES_DEFAULT,
+                ConfigDef.Importance.LOW,
+                TYPED_SCHEMA_REFRESH_INTERVAL_MINUTES_DOC,
+                CONNECTOR_GROUP,
+                ++orderInGroup,
+                ConfigDef.Width.LONG,
+                TYPED_SCHEMA_REFRESH_INTERVAL_MINUTES_DISPLAY
+        ).define(
+                REBALANCE_CHECK_INTERVAL_SECONDS,
+                ConfigDef.Type.INT,
+                REBALANCE_CHECK_INTERVAL_SECONDS_DEFAULT,
+                ConfigDef.Importance.LOW,
+                REBALANCE_CHECK_INTERVAL_SECONDS_DOC,
+                CONNECTOR_GROUP,
+                ++orderInGroup,
+                ConfigDef.Width.LONG,
+                REBALANCE_CHECK_INTERVAL_SECONDS_DISPLAY
+        ).define(
+                REBALANCE_IMBALANCE_THRESHOLD,
+                ConfigDef.Type.DOUBLE,
+                REBALANCE_IMBALANCE_THRESHOLD_DEFAULT,
+                ConfigDef.Importance.LOW,
+                REBALANCE_IMBALANCE_THRESHOLD_DOC,
+                CONNECTOR_GROUP,
+                ++orderInGroup,
+                ConfigDef.Width.LONG,
+                REBALANCE_IMBALANCE_THRESHOLD_DISPLAY
+        ).define(
+                REBALANCE_CONSECUTIVE_CHECKS,
+                ConfigDef.Type.INT,
+                REBALANCE_CONSECUTIVE_CHECKS_DEFAULT,
+                ConfigDef.Importance.LOW,
+                REBALANCE_CONSECUTIVE_CHECKS_DOC,
+                CONNECTOR_GROUP,
+                ++orderInGroup,
+                ConfigDef.Width.LONG,
+                REBALANCE_CONSECUTIVE_CHECKS_DISPLAY
+        ).define(
+                REBALANCE_MIN_INTERVAL_SECONDS,
+                ConfigDef.Type.INT,
+                REBALANCE_MIN_INTERVAL_SECONDS_DEFAULT,
+                ConfigDef.Importance.LOW,
+                REBALANCE_MIN_INTERVAL_SECONDS_DOC,
+                CONNECTOR_GROUP,
+                ++orderInGroup,
+                ConfigDef.Width.LONG,
+                REBALANCE_MIN_INTERVAL_SECONDS_DISPLAY
+        ).define(
+                REBALANCE_LAG_THRESHOLD_SECONDS,
+                ConfigDef.Type.INT,
+                REBALANCE_LAG_THRESHOLD_SECONDS_DEFAULT,
+                ConfigDef.Importance.LOW,
+                REBALANCE_LAG_THRESHOLD_SECONDS_DOC,
+                CONNECTOR_GROUP,
+                ++orderInGroup,
+                ConfigDef.Width.LONG,
+                REBALANCE_LAG_THRESHOLD_SECONDS_DISPLAY
+        ).define(
+                RECONCILE_STATE_DIR,
+                ConfigDef.Type.STRING,
+                RECONCILE_STATE_DIR_DEFAULT,
+                ConfigDef.Importance.LOW,
+                RECONCILE_STATE_DIR_DOC,
+                CONNECTOR_GROUP,
+                ++orderInGroup,
+                ConfigDef.Width.LONG,
+                RECONCILE_STATE_DIR_DISPLAY
+        ).define(
+                DEDUP_STATE_DIR,
+                ConfigDef.Type.STRING,
+                DEDUP_STATE_DIR_DEFAULT,
+                ConfigDef.Importance.LOW,
+                DEDUP_STATE_DIR_DOC,
+                CONNECTOR_GROUP,
+                ++orderInGroup,
+                ConfigDef.Width.LONG,
+                DEDUP_STATE_DIR_DISPLAY
+        ).define(
+                CHANGE_SUPPRESSION_STATE_DIR,
+                ConfigDef.Type.STRING,
+                CHANGE_SUPPRESSION_STATE_DIR_DEFAULT,
+                ConfigDef.Importance.LOW,
+                CHANGE_SUPPRESSION_STATE_DIR_DOC,
+                CONNECTOR_GROUP,
+                ++orderInGroup,
+                ConfigDef.Width.LONG,
+                CHANGE_SUPPRESSION_STATE_DIR_DISPLAY
+        ).define(
+                OFFSET_CHECKPOINT_DIR,
+                ConfigDef.Type.STRING,
+                OFFSET_CHECKPOINT_DIR_DEFAULT,
+                ConfigDef.Importance.LOW,
+                OFFSET_CHECKPOINT_DIR_DOC,
+                CONNECTOR_GROUP,
+                ++orderInGroup,
+                ConfigDef.Width.LONG,
+                OFFSET_CHECKPOINT_DIR_DISPLAY
         );
     }
 }
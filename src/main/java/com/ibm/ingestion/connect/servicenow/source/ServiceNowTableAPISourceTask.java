@@ -5,6 +5,7 @@ import org.apache.kafka.connect.errors.ConnectException;
 import org.apache.kafka.connect.source.SourceRecord;
 import org.apache.kafka.connect.source.SourceTask;
 import org.apache.kafka.connect.source.SourceTaskContext;
+import org.apache.kafka.connect.source.TransactionContext;
 import org.json.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -61,21 +62,60 @@ public class ServiceNowTableAPISourceTask extends SourceTask {
         }
 
         this.taskManager = new SubTaskManager(this._config, this._client);
+        this.taskManager.setTransactionContext(transactionContext(this.context));
 
         // TODO(millies): clean up this logic with some refactoring. This felt like fighting against the object model.
         List<TableQueryPartition> partitions = new ArrayList<>(tables.length);
         List<Map<String, Object>> offsetKeys = new ArrayList<>(tables.length);
         for(String table : tables) {
-            TableQueryPartition partition = new TableQueryPartition(table);
-            partitions.add(partition);
-            offsetKeys.add(partition.getPartition());
+            if(FieldHistorySubTask.capturesRows(this._config, table)) {
+                TableQueryPartition partition = new TableQueryPartition(table);
+                partitions.add(partition);
+                offsetKeys.add(partition.getPartition());
 
-            LOG.info("Added source partition for table [{}].", partition.getTableName());
+                LOG.info("Added source partition for table [{}].", partition.getTableName());
+            }
+
+            if(FieldHistorySubTask.isEnabled(this._config, table)) {
+                TableQueryPartition fieldHistoryPartition = new TableQueryPartition(table, FieldHistorySubTask.STREAM);
+                partitions.add(fieldHistoryPartition);
+                offsetKeys.add(fieldHistoryPartition.getPartition());
+
+                LOG.info("Added field history source partition for table [{}].", fieldHistoryPartition.getTableName());
+            }
+
+            if(DeleteCaptureSubTask.isEnabled(this._config, table)) {
+                TableQueryPartition deletesPartition = new TableQueryPartition(table, DeleteCaptureSubTask.STREAM);
+                partitions.add(deletesPartition);
+                offsetKeys.add(deletesPartition.getPartition());
+
+                LOG.info("Added deletes source partition for table [{}].", deletesPartition.getTableName());
+            }
         }
 
         this._offsets = this.context.offsetStorageReader().offsets(offsetKeys);
         for(TableQueryPartition partition : partitions) {
-            this.taskManager.addSubTask(partition, TimestampSourceOffset.fromMap(this._offsets.get(partition.getPartition())));
+            TimestampSourceOffset offset = TimestampSourceOffset.fromMap(this._offsets.get(partition.getPartition()));
+            if(DeleteCaptureSubTask.STREAM.equals(partition.getStream())) {
+                this.taskManager.addDeleteCaptureSubTask(partition, offset);
+            } else if(FieldHistorySubTask.STREAM.equals(partition.getStream())) {
+                this.taskManager.addFieldHistorySubTask(partition, offset);
+            } else {
+                this.taskManager.addSubTask(partition, offset);
+            }
+        }
+    }
+
+    /**
+     * @return The context tasks define transactions with, or null unless the runtime has exactly-once source support
+     * and the connector's 'transaction.boundary' is 'connector'.
+     */
+    private static TransactionContext transactionContext(SourceTaskContext context) {
+        try {
+            return context.transactionContext();
+        } catch(NoSuchMethodError | NoClassDefFoundError ex) {
+            // NOTE: runtimes before Kafka 3.3 have no exactly-once source support, records are delivered at least once.
+            return null;
         }
     }
 
@@ -128,6 +168,16 @@ public class ServiceNowTableAPISourceTask extends SourceTask {
         return page.getRecords();
     }
 
+    // NOTE: the one argument form, which newer runtimes still call from the two argument one, and older ones call
+    // directly. Called from the producer's thread.
+    @Override
+    @SuppressWarnings("deprecation")
+    public void commitRecord(SourceRecord record) {
+        if(this.taskManager != null) {
+            this.taskManager.commitRecord(record);
+        }
+    }
+
     @Override
     public synchronized void stop() {
         try {
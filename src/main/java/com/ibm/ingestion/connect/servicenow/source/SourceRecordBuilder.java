@@ -2,6 +2,9 @@ package com.ibm.ingestion.connect.servicenow.source;
 
 import com.ibm.ingestion.connect.servicenow.source.partitioner.DefaultServiceNowTablePartitioner;
 import com.ibm.ingestion.connect.servicenow.source.partitioner.IServiceNowTablePartitioner;
+import com.ibm.ingestion.connect.servicenow.util.RawJsonRecord;
+import com.ibm.ingestion.connect.servicenow.util.StringCanonicalizer;
+import com.ibm.ingestion.connect.servicenow.util.StructCodec;
 import org.apache.kafka.connect.data.Schema;
 import org.apache.kafka.connect.source.SourceRecord;
 import org.json.JSONObject;
@@ -13,7 +16,10 @@ import static com.ibm.ingestion.connect.servicenow.util.Helpers.buildStruct;
 public class SourceRecordBuilder {
 
     private Schema _valueSchema;
+    private StructCodec _valueCodec;
+    private StringCanonicalizer _strings;
     private JSONObject _record;
+    private RawJsonRecord _rawRecord;
     private Map<String, Object> _offset;
     private Map<String, Object> _sourcePartition;
     private String _topic;
@@ -33,8 +39,32 @@ public class SourceRecordBuilder {
         return this;
     }
 
+    public SourceRecordBuilder withValueCodec(StructCodec valueCodec) {
+        this._valueCodec = valueCodec;
+        this._valueSchema = valueCodec.schema();
+        return this;
+    }
+
+    /**
+     * Shares repeated string values between the records decoded through the value codec.
+     */
+    public SourceRecordBuilder withStrings(StringCanonicalizer strings) {
+        this._strings = strings;
+        return this;
+    }
+
     public SourceRecordBuilder withRecord(JSONObject record) {
         this._record = record;
+        this._rawRecord = null;
+        return this;
+    }
+
+    /**
+     * Emits the record's JSON as is, as a string or as bytes depending on the value schema.
+     */
+    public SourceRecordBuilder withRawRecord(RawJsonRecord record) {
+        this._rawRecord = record;
+        this._record = null;
         return this;
     }
 
@@ -54,6 +84,19 @@ public class SourceRecordBuilder {
     }
 
     public SourceRecord build() {
+        if(this._rawRecord != null) {
+            return new SourceRecord(
+                    this._sourcePartition,
+                    this._offset,
+                    this._topic,
+                    this._partitioner.getTargetPartition(),
+                    this._partitioner.getKeySchema(),
+                    this._partitioner.getKeyValue(this._rawRecord),
+                    this._valueSchema,
+                    this._valueSchema.type() == Schema.Type.BYTES ? this._rawRecord.toBytes() : this._rawRecord.toJsonString()
+            );
+        }
+
         return new SourceRecord(
                 this._sourcePartition,
                 this._offset,
@@ -62,7 +105,7 @@ public class SourceRecordBuilder {
                 this._partitioner.getKeySchema(),
                 this._partitioner.getKeyValue(this._record),
                 this._valueSchema,
-                buildStruct(this._valueSchema, this._record)
+                this._valueCodec != null ? this._valueCodec.decode(this._record, this._strings) : buildStruct(this._valueSchema, this._record)
         );
     }
 }
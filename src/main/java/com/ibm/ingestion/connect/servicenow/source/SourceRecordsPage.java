@@ -10,10 +10,16 @@ public class SourceRecordsPage {
 
     private List<SourceRecord> _records;
     private LocalDateTime _nextTimeToPollUtc;
+    private long _responseBytes;
 
     public SourceRecordsPage(List<SourceRecord> records, LocalDateTime nextTimeToPollUtc) {
+        this(records, nextTimeToPollUtc, 0);
+    }
+
+    public SourceRecordsPage(List<SourceRecord> records, LocalDateTime nextTimeToPollUtc, long responseBytes) {
         this._records = records;
         this._nextTimeToPollUtc = nextTimeToPollUtc;
+        this._responseBytes = responseBytes;
     }
 
     public List<SourceRecord> getRecords() {
@@ -23,4 +29,11 @@ public class SourceRecordsPage {
     public LocalDateTime getNextTimeToPollUtc(){
         return this._nextTimeToPollUtc;
     }
+
+    /**
+     * @return The size, in bytes, of the response the records were read from.
+     */
+    public long getResponseBytes() {
+        return this._responseBytes;
+    }
 }
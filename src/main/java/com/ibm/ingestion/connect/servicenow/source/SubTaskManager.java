@@ -2,83 +2,231 @@ package com.ibm.ingestion.connect.servicenow.source;
 
 import com.ibm.ingestion.http.ServiceNowTableApiClient;
 import org.apache.kafka.connect.source.SourceRecord;
+import org.apache.kafka.connect.source.TransactionContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.File;
 import java.io.IOException;
-import java.time.Instant;
-import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
 import java.util.ArrayList;
-import java.util.LinkedList;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Queue;
+import java.util.Map;
 
 public class SubTaskManager {
 
     private static final Logger LOG = LoggerFactory.getLogger(SubTaskManager.class);
 
-    private Queue<TableAPISubTask> _subTasks = new LinkedList<>();
+    private static final int UNBOUNDED_FETCHES = -1;
+
+    private List<ISubTask> _subTasks = new ArrayList<>();
+    private WeightedFairScheduler<ISubTask> _scheduler = new WeightedFairScheduler<>();
+    private List<TableAPISubTask> _tableSubTasks = new ArrayList<>();
+    private Map<Map<String, Object>, TableAPISubTask> _tableSubTasksByPartition = new HashMap<>();
     private ServiceNowTableApiClient _client;
     private ServiceNowTableAPISourceTaskConfig _config;
+    private TransactionContext _transactionContext;
+    private OffsetCheckpoints _checkpoints;
+    private Map<Map<String, Object>, Checkpoint> _checkpointed = new HashMap<>();
 
-    private LocalDateTime _nextPollUtc;
+    private int MAX_FETCHES_PER_POLL;
+    private long MAX_POLL_DURATION_MS;
+    private int MAX_POLL_RECORDS;
+    private long MAX_POLL_BYTES;
+    private String CONNECTOR_NAME;
 
     public SubTaskManager(ServiceNowTableAPISourceTaskConfig config, ServiceNowTableApiClient client) {
         this._config = config;
         this._client = client;
+        this.MAX_FETCHES_PER_POLL = config.getInt(ServiceNowSourceConnectorConfig.TASK_POLL_MAX_FETCHES);
+        this.MAX_POLL_DURATION_MS = config.getLong(ServiceNowSourceConnectorConfig.TASK_POLL_MAX_DURATION_MS);
+        this.MAX_POLL_RECORDS = config.getInt(ServiceNowSourceConnectorConfig.TASK_POLL_MAX_RECORDS);
+        this.MAX_POLL_BYTES = config.getLong(ServiceNowSourceConnectorConfig.TASK_POLL_MAX_BYTES);
+        this.CONNECTOR_NAME = (String)config.originals().get(ServiceNowSourceConnectorConfig.CONNECTOR_NAME);
+
+        final String checkpointDirectory = config.getString(ServiceNowSourceConnectorConfig.OFFSET_CHECKPOINT_DIR);
+        if(checkpointDirectory != null && !checkpointDirectory.trim().isEmpty()) {
+            this._checkpoints = new OffsetCheckpoints(new File(checkpointDirectory.trim()), this.CONNECTOR_NAME);
+        }
+    }
+
+    /**
+     * @param transactionContext Where a transaction is committed after each page, or null to leave transactions
+     *                           (if any) to the runtime.
+     */
+    public void setTransactionContext(TransactionContext transactionContext) {
+        this._transactionContext = transactionContext;
     }
 
     public void addSubTask(TableQueryPartition sourcePartition, TimestampSourceOffset offset) {
-        this._subTasks.add(new TableAPISubTask(sourcePartition, offset, this._config, this._client));
+        offset = this.resume(sourcePartition, offset);
+        TableAPISubTask subTask = new TableAPISubTask(sourcePartition, offset, this._config, this._client);
+        this._subTasks.add(subTask);
+        this._scheduler.add(subTask, subTask.getPriority());
+        this._tableSubTasks.add(subTask);
+        this._tableSubTasksByPartition.put(sourcePartition.getPartition(), subTask);
+        LOG.info("Table [{}] scheduled with priority [{}].", subTask.getTableKey(), subTask.getPriority());
+
+        if(subTask.getRangeDigests() != null) {
+            ReconcileSubTask reconcileSubTask = new ReconcileSubTask(subTask, this._config, this._client);
+            this._subTasks.add(reconcileSubTask);
+            this._scheduler.add(reconcileSubTask, reconcileSubTask.getPriority());
+            LOG.info("Table [{}] reconciled every [{}] minutes.", subTask.getTableKey(), subTask.getReconcileIntervalMinutes());
+        }
     }
 
-    public SourceRecordsPage poll() throws IOException, InterruptedException {
+    public void addDeleteCaptureSubTask(TableQueryPartition sourcePartition, TimestampSourceOffset offset) {
+        offset = this.resume(sourcePartition, offset);
+        DeleteCaptureSubTask subTask = new DeleteCaptureSubTask(sourcePartition, offset, this._config, this._client);
+        this._subTasks.add(subTask);
+        this._scheduler.add(subTask, subTask.getPriority());
+        LOG.info("Deletes of table [{}] scheduled with priority [{}].", subTask.getTableKey(), subTask.getPriority());
+    }
 
-        List<SourceRecord> records = new ArrayList<>();
-        LocalDateTime nextPollUtc = null;
-        int numChecks = this._subTasks.size();
-        while(numChecks-- > 0) {
+    public void addFieldHistorySubTask(TableQueryPartition sourcePartition, TimestampSourceOffset offset) {
+        offset = this.resume(sourcePartition, offset);
+        FieldHistorySubTask subTask = new FieldHistorySubTask(sourcePartition, offset, this._config, this._client);
+        this._subTasks.add(subTask);
+        this._scheduler.add(subTask, subTask.getPriority());
+        LOG.info("Field history of table [{}] scheduled with priority [{}].", subTask.getTableKey(), subTask.getPriority());
+    }
+
+    /**
+     * Follows the partition's records until they are acknowledged, when checkpointing.
+     *
+     * @return The partition's checkpointed offset if it is further on than {@code offset}, and was based on it or an
+     * offset before it, otherwise {@code offset}.
+     */
+    private TimestampSourceOffset resume(TableQueryPartition sourcePartition, TimestampSourceOffset offset) {
+        if(this._checkpoints == null) {
+            return offset;
+        }
+        // NOTE: a copy, the offset handed on moves with the table.
+        final TimestampSourceOffset committed = TimestampSourceOffset.fromMap(offset.isEmpty() ? null : offset.toMap());
+        this._checkpointed.put(sourcePartition.getPartition(), new Checkpoint(sourcePartition, committed));
 
-            LocalDateTime nowUtc = LocalDateTime.now(ZoneOffset.UTC);
-            TableAPISubTask currentSubTask = null;
+        OffsetCheckpoints.Checkpoint checkpoint = this._checkpoints.read(sourcePartition);
+        if(checkpoint == null || !checkpoint.getOffset().isAfter(offset)) {
+            return offset;
+        }
+        if(!checkpoint.isBasedOn(offset)) {
+            LOG.info("Ignoring the checkpoint [{}] of [{}], its committed offset was reset since.", checkpoint.getOffset().toMap(), sourcePartition.getPartition());
+            return offset;
+        }
+        // NOTE: records acknowledged after the last offset flush, fetched again otherwise.
+        LOG.info("Resuming [{}] from its checkpoint [{}], further on than its committed offset [{}].", sourcePartition.getPartition(), checkpoint.getOffset().toMap(), offset.toMap());
+        return checkpoint.getOffset();
+    }
+
+    /**
+     * Notes a record as written (or dropped, or skipped), so its table keeps what it tracks of the row, and its
+     * partition's checkpoint moves on past it once every record before it was written too.
+     */
+    public void commitRecord(SourceRecord record) {
+        TableAPISubTask subTask = this._tableSubTasksByPartition.get(record.sourcePartition());
+        if(subTask != null) {
+            subTask.commitRecord(record);
+        }
+        Checkpoint checkpoint = this._checkpointed.get(record.sourcePartition());
+        if(checkpoint != null) {
+            checkpoint._tracker.acked(record);
+        }
+    }
+
+    private void writeCheckpoints() {
+        for(Checkpoint checkpoint : this._checkpointed.values()) {
+            final Map<String, ?> offset = checkpoint._tracker.getAckedOffset();
+            if(offset == null || offset.equals(checkpoint._written)) {
+                continue;
+            }
             try {
-                // NOTE(millies): dequeue.
-                currentSubTask = this._subTasks.remove();
-                LocalDateTime candidate = currentSubTask.getNextPollUtc();
-                if(candidate != null && candidate.isAfter(nowUtc)) {
-
-                    // NOTE(millies): If a task wants to be polled before the current next poll cycle, then use that one.
-                    if(nextPollUtc == null || candidate.isBefore(nextPollUtc)) {
-                        nextPollUtc = candidate;
-                    }
+                this._checkpoints.write(checkpoint._partition, offset, checkpoint._base);
+                checkpoint._written = offset;
+            } catch(IOException ex) {
+                LOG.warn("Could not write the offset checkpoint of [{}]. {}", checkpoint._partition.getPartition(), ex.getMessage());
+            }
+        }
+    }
 
-                    if(LOG.isDebugEnabled()) {
-                        LOG.debug(String.format("Skipping Candidate: %s, Now: %s, Candidate %s s > Now %s s = %s", candidate, nowUtc, candidate.toEpochSecond(ZoneOffset.UTC), nowUtc.toEpochSecond(ZoneOffset.UTC), candidate.isAfter(nowUtc)));
-                    }
-                    // NOTE(millies): skipping tasks that are not ready to be executed yet.
-                    continue;
-                }
+    public SourceRecordsPage poll() throws IOException, InterruptedException {
+        this.writeCheckpoints();
 
-                SourceRecordsPage subTaskPage = currentSubTask.poll();
+        List<SourceRecord> records = new ArrayList<>();
+        LocalDateTime nextPollUtc = null;
+        PollBudget budget = new PollBudget(this.MAX_POLL_DURATION_MS, this.MAX_POLL_RECORDS, this.MAX_POLL_BYTES, System.nanoTime());
 
-                // NOTE(millies): Getting the earliest next poll time.
-                candidate = subTaskPage.getNextTimeToPollUtc();
+        final LocalDateTime nowUtc = LocalDateTime.now(ZoneOffset.UTC);
+        List<ISubTask> dueSubTasks = new ArrayList<>(this._subTasks.size());
+        for(ISubTask subTask : this._subTasks) {
+            LocalDateTime candidate = subTask.getNextPollUtc();
+            if(candidate != null && candidate.isAfter(nowUtc)) {
+
+                // NOTE(millies): If a task wants to be polled before the current next poll cycle, then use that one.
                 if(nextPollUtc == null || candidate.isBefore(nextPollUtc)) {
                     nextPollUtc = candidate;
-                } else if(LOG.isDebugEnabled()) {
-                    LOG.debug(String.format("Not using Candidate: %s, Next Poll: %s", candidate, nextPollUtc));
                 }
 
-                // NOTE(millies): add records from subtask to unified page.
-                records.addAll(subTaskPage.getRecords());
-            } finally {
-                // NOTE(millies): requeue. back of the queue.
-                if(currentSubTask != null) {
-                    this._subTasks.add(currentSubTask);
+                if(LOG.isDebugEnabled()) {
+                    LOG.debug(String.format("Skipping Candidate: %s, Now: %s, Candidate %s s > Now %s s = %s", candidate, nowUtc, candidate.toEpochSecond(ZoneOffset.UTC), nowUtc.toEpochSecond(ZoneOffset.UTC), candidate.isAfter(nowUtc)));
+                }
+                // NOTE(millies): skipping tasks that are not ready to be executed yet.
+                continue;
+            }
+            dueSubTasks.add(subTask);
+        }
+
+        // NOTE: due tables are served lowest virtual start tag first, so when fetch slots run out it is the
+        // tables that already had more than their weighted share that wait for the next cycle.
+        int remainingFetches = this.MAX_FETCHES_PER_POLL == UNBOUNDED_FETCHES ? dueSubTasks.size() : this.MAX_FETCHES_PER_POLL;
+        for(ISubTask currentSubTask : this._scheduler.order(dueSubTasks)) {
+
+            if(remainingFetches-- <= 0) {
+                // NOTE: carried over tables are still due, so come straight back for them.
+                LOG.debug("No fetch slots left for table [{}] this cycle, carrying over.", currentSubTask.getTableKey());
+                nextPollUtc = nowUtc;
+                continue;
+            }
+
+            // NOTE: the first due table is always fetched, so a cycle makes progress whatever the budgets.
+            final String exhausted = budget.exhausted(System.nanoTime());
+            if(exhausted != null) {
+                LOG.debug("Poll {} budget used up before table [{}] this cycle, carrying over.", exhausted, currentSubTask.getTableKey());
+                nextPollUtc = nowUtc;
+                continue;
+            }
+
+            SourceRecordsPage subTaskPage = currentSubTask.poll();
+            budget.add(subTaskPage.getRecords().size(), subTaskPage.getResponseBytes());
+            this._scheduler.charge(currentSubTask, subTaskPage.getRecords().size());
+            if(currentSubTask instanceof TableAPISubTask) {
+                // NOTE: the load of a table is its rows, companion streams (deletes) are left out of assignment.
+                TableLoadRegistry.record(this.CONNECTOR_NAME, currentSubTask.getTableKey(), subTaskPage.getRecords().size(), currentSubTask.getLagSeconds());
+            }
+
+            // NOTE(millies): Getting the earliest next poll time.
+            LocalDateTime candidate = subTaskPage.getNextTimeToPollUtc();
+            if(nextPollUtc == null || candidate.isBefore(nextPollUtc)) {
+                nextPollUtc = candidate;
+            } else if(LOG.isDebugEnabled()) {
+                LOG.debug(String.format("Not using Candidate: %s, Next Poll: %s", candidate, nextPollUtc));
+            }
+
+            // NOTE(millies): add records from subtask to unified page.
+            records.addAll(subTaskPage.getRecords());
+            if(this._checkpoints != null) {
+                for(SourceRecord record : subTaskPage.getRecords()) {
+                    Checkpoint checkpoint = this._checkpointed.get(record.sourcePartition());
+                    if(checkpoint != null) {
+                        checkpoint._tracker.emitted(record);
+                    }
                 }
             }
+            if(this._transactionContext != null && !subTaskPage.getRecords().isEmpty()) {
+                // NOTE: a transaction per page, so a page's records and the offset they carry land or abort together.
+                this._transactionContext.commitTransaction(records.get(records.size() - 1));
+            }
         }
 
         // NOTE(millies): Delaying the polling loop at least a minimum amount of time.
@@ -94,6 +242,14 @@ public class SubTaskManager {
     }
 
     public void close() {
+        this.writeCheckpoints();
+        for(TableAPISubTask subTask : this._tableSubTasks) {
+            try {
+                subTask.saveState();
+            } catch(IOException ex) {
+                LOG.warn("Could not save the state of table [{}]. {}", subTask.getTableKey(), ex.getMessage());
+            }
+        }
         try {
             this._client.close();
         }
@@ -101,4 +257,17 @@ public class SubTaskManager {
             LOG.debug("Error occurred while closing the subtask manager. {}", ex);
         }
     }
+
+    private static final class Checkpoint {
+
+        private final TableQueryPartition _partition;
+        private final TimestampSourceOffset _base;
+        private final AckTracker _tracker = new AckTracker();
+        private Map<String, ?> _written;
+
+        Checkpoint(TableQueryPartition partition, TimestampSourceOffset base) {
+            this._partition = partition;
+            this._base = base;
+        }
+    }
 }
@@ -2,10 +2,23 @@ package com.ibm.ingestion.connect.servicenow.source;
 
 import com.ibm.ingestion.connect.servicenow.source.partitioner.IServiceNowTablePartitioner;
 import com.ibm.ingestion.connect.servicenow.source.partitioner.PartitionerFactory;
+import com.ibm.ingestion.connect.servicenow.util.DisplayValueFields;
+import com.ibm.ingestion.connect.servicenow.util.AdaptiveDelay;
+import com.ibm.ingestion.connect.servicenow.util.ConnectorMetrics;
+import com.ibm.ingestion.connect.servicenow.util.DedupCache;
 import com.ibm.ingestion.connect.servicenow.util.Helpers;
+import com.ibm.ingestion.connect.servicenow.util.JsonPage;
+import com.ibm.ingestion.connect.servicenow.util.LargeFieldPolicy;
+import com.ibm.ingestion.connect.servicenow.util.RawJsonPage;
+import com.ibm.ingestion.connect.servicenow.util.RawJsonRecord;
+import com.ibm.ingestion.connect.servicenow.util.SpillableJsonPage;
+import com.ibm.ingestion.connect.servicenow.util.StringCanonicalizer;
+import com.ibm.ingestion.connect.servicenow.util.StructCodec;
+import com.ibm.ingestion.connect.servicenow.util.TypedValues;
 import com.ibm.ingestion.http.ServiceNowTableApiClient;
 import com.ibm.ingestion.http.TableAPIQueryBuilder;
 import org.apache.kafka.common.config.ConfigException;
+import org.apache.kafka.common.metrics.Sensor;
 import org.apache.kafka.connect.data.Schema;
 import org.apache.kafka.connect.errors.ConnectException;
 import org.apache.kafka.connect.source.SourceRecord;
@@ -13,39 +26,88 @@ import org.json.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.File;
 import java.io.IOException;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
 
-import static com.ibm.ingestion.connect.servicenow.util.Helpers.buildSchemaFromSimpleJsonRecord;
 import static com.ibm.ingestion.connect.servicenow.util.Helpers.commaDelimitedToList;
 
-public class TableAPISubTask {
+public class TableAPISubTask implements ISubTask {
 
     private static final Logger LOG = LoggerFactory.getLogger(TableAPISubTask.class);
 
     private final int UNBOUNDED_FROM_QUERY_KEY = -1;
+    private static final int DEFAULT_PRIORITY = 1;
+    private static final String METRIC_GROUP = "servicenow-table-metrics";
+    private static final String SYS_ID_FIELD = "sys_id";
+    private static final String MOD_COUNT_FIELD = "sys_mod_count";
 
     private TimestampSourceOffset _offset;
     private ServiceNowTableApiClient _client;
     private LocalDateTime _nextPollUtc;
+    private boolean _lastPageFull = false;
 
     private long FAST_INTERVAL_NS;
     private long SLOW_INTERVAL_NS;
     private long INITIAL_QUERY_HOURS_AGO;
     private int TIMESTAMP_DELAY_INTERVAL_SECONDS;
     private int MAX_BATCH_SIZE;
+    private int PRIORITY = DEFAULT_PRIORITY;
 
     private String TABLE_NAME;
     private String TIMESTAMP_COLUMN_FIELD;
     private String IDENTIFIER_COLUMN_FIELD;
     private String TARGET_TOPIC;
     private List<String> FIELDS = null;
+    private String OUTPUT_FORMAT = OutputFormats.Struct;
+    private byte[] RAW_TIMESTAMP_KEY;
+    private byte[] RAW_IDENTIFIER_KEY;
+    private byte[] RAW_SYS_ID_KEY;
+    private byte[] RAW_MOD_COUNT_KEY;
+    private DisplayValueFields DISPLAY_VALUE_FIELDS = null;
+    private LargeFieldPolicy LARGE_FIELD_POLICY = null;
+    private long RECONCILE_INTERVAL_MINUTES = 0;
+    private boolean SNAPSHOT_INITIAL_LOAD = false;
+    private long HEARTBEAT_INTERVAL_MS = 0;
+    private boolean CHANGE_DELTA = false;
+    private HashSet<String> DELTA_KEY_FIELDS;
+    private String HEARTBEAT_TOPIC;
 
-    private Schema _cachedValueSchema;
+    private ValueSchemaCache _valueSchemas;
+    private FieldTypeCache _fieldTypes;
+    private SourceRecordBuilder _recordBuilder;
+    private RangeDigests _rangeDigests;
+    private DedupCache _emitted;
+    private File _emittedFile;
+    private Sensor _duplicates;
+    private ChangeSuppression _changes;
+    private Sensor _unchangedRows;
+    private final Map<SourceRecord, Unacked> _unacked = new IdentityHashMap<>();
+    private final Set<String> _unackedVersions = new HashSet<>();
+    // NOTE: the latest emitted version of each row still in flight, by sys_id, for its change hashes.
+    private final Map<String, Unacked> _latestUnacked = new HashMap<>();
+    private int _lastFetchedCount = 0;
+    private long _lastFetchedBytes = 0;
+    private AdaptiveDelay _delay;
+    private Sensor _lateRows;
+    private Long _queryServerSeconds;
+    private Long _queryThroughSeconds;
+    private Long _previousServerSeconds;
+    private Long _previousThroughSeconds;
+    private boolean _previousComplete = false;
+    private long _lastHeartbeatMs = Long.MIN_VALUE;
+    private Long _lastEmittedTimestamp = Long.MIN_VALUE;
     private TableQueryPartition SOURCE_PARTITION;
     private IServiceNowTablePartitioner DESTINATION_PARTITIONER;
 
@@ -104,16 +166,16 @@ public class TableAPISubTask {
      *
      * @param record The JSONObject containing the timestamp field
      * @param fieldName The name of the timestamp field
-     * @return LocalDateTime representing the timestamp
+     * @return The timestamp in seconds since the epoch
      */
-    private LocalDateTime extractTimestampField(JSONObject record, String fieldName) {
+    private long extractTimestampField(JSONObject record, String fieldName) {
         String rawTimestamp = extractStringField(record, fieldName);
         if (rawTimestamp == null) {
             throw new ConnectException(
                     "Timestamp field '" + fieldName + "' is null or missing in record: " + record
             );
         }
-        return Helpers.parseServiceNowDateTimeUtc(rawTimestamp);
+        return Helpers.parseServiceNowEpochSecondsUtc(rawTimestamp);
     }
 
     private static String tryGetConfig(ServiceNowTableAPISourceTaskConfig config, String key, String defaultValue) {
@@ -173,7 +235,429 @@ public class TableAPISubTask {
             }
         }
 
+        final String DISPLAY_VALUE_FIELDS_KEY = String.format("table.whitelist.%s.display.value.fields", tableKey);
+        final String rawDisplayValueFields = tryGetConfig(config, DISPLAY_VALUE_FIELDS_KEY, "");
+        if(rawDisplayValueFields != null && !rawDisplayValueFields.trim().isEmpty()) {
+            final String displayValue = config.getString(ServiceNowSourceConnectorConfig.SERVICENOW_CLIENT_DISPLAY_VALUE);
+            if(this.FIELDS == null) {
+                throw new ConnectException(String.format("Display value fields can only be used together with [%s]. Configuration [%s]", FIELDS_KEY, DISPLAY_VALUE_FIELDS_KEY));
+            }
+            if(displayValue != null && !"false".equalsIgnoreCase(displayValue.trim())) {
+                // NOTE: ServiceNow is already returning display values for every field.
+                LOG.warn("Ignoring [{}] for table [{}], [{}] is already [{}].", DISPLAY_VALUE_FIELDS_KEY, tableKey, ServiceNowSourceConnectorConfig.SERVICENOW_CLIENT_DISPLAY_VALUE, displayValue);
+            } else {
+                try {
+                    this.DISPLAY_VALUE_FIELDS = DisplayValueFields.parse(commaDelimitedToList(rawDisplayValueFields));
+                } catch(IllegalArgumentException ex) {
+                    throw new ConnectException(String.format("%s Configuration [%s]", ex.getMessage(), DISPLAY_VALUE_FIELDS_KEY));
+                }
+                for(String field : this.DISPLAY_VALUE_FIELDS.requestFields()) {
+                    if(!this.FIELDS.contains(field)) {
+                        this.FIELDS.add(field);
+                    }
+                }
+            }
+        }
+
+        final String PRIORITY_KEY = String.format("table.whitelist.%s.priority", tableKey);
+        final String rawPriority = tryGetConfig(config, PRIORITY_KEY, "");
+        if(rawPriority != null && !rawPriority.trim().isEmpty()) {
+            try {
+                this.PRIORITY = Integer.parseInt(rawPriority.trim());
+            } catch(NumberFormatException ex) {
+                throw new ConnectException(String.format("Priority must be a whole number. Configuration [%s], Value [%s]", PRIORITY_KEY, rawPriority));
+            }
+            if(this.PRIORITY < 1) {
+                throw new ConnectException(String.format("Priority must be at least 1. Configuration [%s], Value [%s]", PRIORITY_KEY, rawPriority));
+            }
+        }
+
+        final String SCHEMA_MODE_KEY = String.format("table.whitelist.%s.schema.mode", tableKey);
+        final String rawSchemaMode = tryGetConfig(config, SCHEMA_MODE_KEY, "");
+        ValueSchemaCache.Mode schemaMode = ValueSchemaCache.Mode.RECORD;
+        if(rawSchemaMode != null && !rawSchemaMode.trim().isEmpty()) {
+            try {
+                schemaMode = ValueSchemaCache.Mode.valueOf(rawSchemaMode.trim().toUpperCase(Locale.US));
+            } catch(IllegalArgumentException ex) {
+                throw new ConnectException(String.format("Schema mode must be one of 'record' or 'union'. Configuration [%s], Value [%s]", SCHEMA_MODE_KEY, rawSchemaMode));
+            }
+        }
+
+        final String OUTPUT_FORMAT_KEY = String.format("table.whitelist.%s.output.format", tableKey);
+        final String rawOutputFormat = tryGetConfig(config, OUTPUT_FORMAT_KEY, "");
+        if(rawOutputFormat != null && !rawOutputFormat.trim().isEmpty()) {
+            switch(rawOutputFormat.trim()) {
+                case OutputFormats.Struct:
+                case OutputFormats.JsonString:
+                case OutputFormats.JsonBytes:
+                    this.OUTPUT_FORMAT = rawOutputFormat.trim();
+                    break;
+                default:
+                    throw new ConnectException(String.format("Output format must be one of '%s', '%s' or '%s'. Configuration [%s], Value [%s]", OutputFormats.Struct, OutputFormats.JsonString, OutputFormats.JsonBytes, OUTPUT_FORMAT_KEY, rawOutputFormat));
+            }
+        }
+        this.RAW_TIMESTAMP_KEY = RawJsonRecord.key(this.TIMESTAMP_COLUMN_FIELD);
+        this.RAW_IDENTIFIER_KEY = RawJsonRecord.key(this.IDENTIFIER_COLUMN_FIELD);
+        this.RAW_SYS_ID_KEY = RawJsonRecord.key(SYS_ID_FIELD);
+        this.RAW_MOD_COUNT_KEY = RawJsonRecord.key(MOD_COUNT_FIELD);
+
+        TypedValues.Failures conversionFailures = null;
+        final String TYPED_SCHEMA_KEY = String.format("table.whitelist.%s.typed.schema", tableKey);
+        final boolean typedSchema = Boolean.parseBoolean(tryGetConfig(config, TYPED_SCHEMA_KEY, "false").trim());
+        if(typedSchema && !OutputFormats.Struct.equals(this.OUTPUT_FORMAT)) {
+            LOG.warn("Ignoring [{}] for table [{}], it only applies to the [{}] output format.", TYPED_SCHEMA_KEY, this.TABLE_NAME, OutputFormats.Struct);
+        } else if(typedSchema) {
+            final String displayValue = config.getString(ServiceNowSourceConnectorConfig.SERVICENOW_CLIENT_DISPLAY_VALUE);
+            if(displayValue != null && "true".equalsIgnoreCase(displayValue.trim())) {
+                // NOTE: display values are formatted for people ("1,024", "Yes"), they can't be typed reliably.
+                // With 'all' the raw value is still there to type, and the display value stays a string.
+                LOG.warn("Ignoring [{}] for table [{}], typed schemas need [{}] to be 'false' or 'all'.", TYPED_SCHEMA_KEY, this.TABLE_NAME, ServiceNowSourceConnectorConfig.SERVICENOW_CLIENT_DISPLAY_VALUE);
+            } else {
+                final long refreshIntervalMs = config.getInt(ServiceNowSourceConnectorConfig.TYPED_SCHEMA_REFRESH_INTERVAL_MINUTES) * 60L * 1000L;
+                this._fieldTypes = new FieldTypeCache(this._client, this.TABLE_NAME, refreshIntervalMs);
+                conversionFailures = new TypedValues.Failures(this.TABLE_NAME,
+                        ConnectorMetrics.countSensor(METRIC_GROUP, "conversion-failures", "values that couldn't be converted to their column type and were emitted as null.", Collections.singletonMap("table", tableKey)));
+            }
+        }
+        this._valueSchemas = new ValueSchemaCache(this.TABLE_NAME, schemaMode, ValueSchemaCache.DEFAULT_MAX_SCHEMAS, conversionFailures);
+
+        final String LARGE_FIELD_MAX_BYTES_KEY = String.format("table.whitelist.%s.large.field.max.bytes", tableKey);
+        final String LARGE_FIELD_POLICY_KEY = String.format("table.whitelist.%s.large.field.policy", tableKey);
+        final String LARGE_FIELD_NAMES_KEY = String.format("table.whitelist.%s.large.field.names", tableKey);
+        final String rawLargeFieldMaxBytes = tryGetConfig(config, LARGE_FIELD_MAX_BYTES_KEY, "");
+        if(rawLargeFieldMaxBytes != null && !rawLargeFieldMaxBytes.trim().isEmpty()) {
+            final int largeFieldMaxBytes;
+            try {
+                largeFieldMaxBytes = Integer.parseInt(rawLargeFieldMaxBytes.trim());
+            } catch(NumberFormatException ex) {
+                throw new ConnectException(String.format("Large field max bytes must be a whole number. Configuration [%s], Value [%s]", LARGE_FIELD_MAX_BYTES_KEY, rawLargeFieldMaxBytes));
+            }
+            if(largeFieldMaxBytes < 0) {
+                throw new ConnectException(String.format("Large field max bytes can't be negative. Configuration [%s], Value [%s]", LARGE_FIELD_MAX_BYTES_KEY, rawLargeFieldMaxBytes));
+            }
+
+            final String rawLargeFieldPolicy = tryGetConfig(config, LARGE_FIELD_POLICY_KEY, "");
+            LargeFieldPolicy.Action largeFieldAction = LargeFieldPolicy.Action.TRUNCATE;
+            if(rawLargeFieldPolicy != null && !rawLargeFieldPolicy.trim().isEmpty()) {
+                try {
+                    largeFieldAction = LargeFieldPolicy.parseAction(rawLargeFieldPolicy);
+                } catch(IllegalArgumentException ex) {
+                    throw new ConnectException(String.format("Large field policy must be one of 'truncate', 'hash' or 'drop'. Configuration [%s], Value [%s]", LARGE_FIELD_POLICY_KEY, rawLargeFieldPolicy));
+                }
+            }
+
+            if(!OutputFormats.Struct.equals(this.OUTPUT_FORMAT)) {
+                LOG.warn("Ignoring [{}] for table [{}], it only applies to the [{}] output format.", LARGE_FIELD_MAX_BYTES_KEY, this.TABLE_NAME, OutputFormats.Struct);
+            } else {
+                Map<String, String> tags = new HashMap<>();
+                tags.put("table", tableKey);
+                tags.put("policy", largeFieldAction.name().toLowerCase(Locale.US));
+                this.LARGE_FIELD_POLICY = new LargeFieldPolicy(
+                        largeFieldMaxBytes,
+                        largeFieldAction,
+                        new HashSet<>(commaDelimitedToList(tryGetConfig(config, LARGE_FIELD_NAMES_KEY, ""))),
+                        ConnectorMetrics.countSensor(METRIC_GROUP, "large-fields", "field values over the large field limit.", tags));
+            }
+        }
+
+        final String CANONICAL_STRINGS_KEY = String.format("table.whitelist.%s.canonical.strings", tableKey);
+        final String CANONICAL_STRINGS_MAX_ENTRIES_KEY = String.format("table.whitelist.%s.canonical.strings.max.entries", tableKey);
+        StringCanonicalizer strings = null;
+        final String rawCanonicalStrings = tryGetConfig(config, CANONICAL_STRINGS_KEY, "");
+        if(rawCanonicalStrings != null && !rawCanonicalStrings.trim().isEmpty()) {
+            int maxEntries = StringCanonicalizer.DEFAULT_MAX_ENTRIES;
+            final String rawMaxEntries = tryGetConfig(config, CANONICAL_STRINGS_MAX_ENTRIES_KEY, "");
+            if(rawMaxEntries != null && !rawMaxEntries.trim().isEmpty()) {
+                try {
+                    maxEntries = Integer.parseInt(rawMaxEntries.trim());
+                } catch(NumberFormatException ex) {
+                    throw new ConnectException(String.format("Canonical strings max entries must be a whole number. Configuration [%s], Value [%s]", CANONICAL_STRINGS_MAX_ENTRIES_KEY, rawMaxEntries));
+                }
+                if(maxEntries < 1) {
+                    throw new ConnectException(String.format("Canonical strings max entries must be at least 1. Configuration [%s], Value [%s]", CANONICAL_STRINGS_MAX_ENTRIES_KEY, rawMaxEntries));
+                }
+            }
+
+            if(!OutputFormats.Struct.equals(this.OUTPUT_FORMAT)) {
+                LOG.warn("Ignoring [{}] for table [{}], it only applies to the [{}] output format.", CANONICAL_STRINGS_KEY, this.TABLE_NAME, OutputFormats.Struct);
+            } else if(StringCanonicalizer.AUTO.equalsIgnoreCase(rawCanonicalStrings.trim())) {
+                strings = StringCanonicalizer.auto(maxEntries);
+            } else {
+                strings = StringCanonicalizer.forFields(new HashSet<>(commaDelimitedToList(rawCanonicalStrings)), maxEntries);
+            }
+        }
+
+        if(config.getBoolean(ServiceNowSourceConnectorConfig.TIMESTAMP_DELAY_ADAPTIVE)) {
+            final int minDelaySeconds = config.getInt(ServiceNowSourceConnectorConfig.TIMESTAMP_DELAY_MIN_SECONDS);
+            if(minDelaySeconds < 0) {
+                throw new ConnectException(String.format("Minimum timestamp delay can't be negative. Configuration [%s], Value [%s]", ServiceNowSourceConnectorConfig.TIMESTAMP_DELAY_MIN_SECONDS, minDelaySeconds));
+            }
+            // NOTE: the fixed delay is the most the adaptive one goes up to.
+            this._delay = new AdaptiveDelay(minDelaySeconds, Math.max(minDelaySeconds, this.TIMESTAMP_DELAY_INTERVAL_SECONDS), System.currentTimeMillis());
+            this._lateRows = ConnectorMetrics.countSensor(METRIC_GROUP, "late-rows", "rows that committed after a query that should have returned them.", Collections.singletonMap("table", tableKey));
+        }
+
+        final int heartbeatIntervalSeconds = config.getInt(ServiceNowSourceConnectorConfig.HEARTBEAT_INTERVAL_SECONDS);
+        if(heartbeatIntervalSeconds < 0) {
+            throw new ConnectException(String.format("Heartbeat interval can't be negative. Configuration [%s], Value [%s]", ServiceNowSourceConnectorConfig.HEARTBEAT_INTERVAL_SECONDS, heartbeatIntervalSeconds));
+        } else if(heartbeatIntervalSeconds > 0) {
+            this.HEARTBEAT_TOPIC = config.getString(ServiceNowSourceConnectorConfig.HEARTBEAT_TOPIC);
+            if(this.HEARTBEAT_TOPIC == null || this.HEARTBEAT_TOPIC.trim().isEmpty()) {
+                throw new ConnectException(String.format("Must specify the topic heartbeats are sent to. Configuration [%s]", ServiceNowSourceConnectorConfig.HEARTBEAT_TOPIC));
+            }
+            this.HEARTBEAT_TOPIC = this.HEARTBEAT_TOPIC.trim();
+            this.HEARTBEAT_INTERVAL_MS = heartbeatIntervalSeconds * 1000L;
+        }
+
+        final String RECONCILE_INTERVAL_KEY = String.format("table.whitelist.%s.reconcile.interval.minutes", tableKey);
+        final String RECONCILE_PREFIX_LENGTH_KEY = String.format("table.whitelist.%s.reconcile.range.prefix.length", tableKey);
+        final String rawReconcileInterval = tryGetConfig(config, RECONCILE_INTERVAL_KEY, "");
+        if(rawReconcileInterval != null && !rawReconcileInterval.trim().isEmpty()) {
+            final long reconcileIntervalMinutes;
+            try {
+                reconcileIntervalMinutes = Long.parseLong(rawReconcileInterval.trim());
+            } catch(NumberFormatException ex) {
+                throw new ConnectException(String.format("Reconcile interval must be a whole number of minutes. Configuration [%s], Value [%s]", RECONCILE_INTERVAL_KEY, rawReconcileInterval));
+            }
+            if(reconcileIntervalMinutes < 0) {
+                throw new ConnectException(String.format("Reconcile interval can't be negative. Configuration [%s], Value [%s]", RECONCILE_INTERVAL_KEY, rawReconcileInterval));
+            }
+
+            int prefixLength = 2;
+            final String rawPrefixLength = tryGetConfig(config, RECONCILE_PREFIX_LENGTH_KEY, "");
+            if(rawPrefixLength != null && !rawPrefixLength.trim().isEmpty()) {
+                try {
+                    prefixLength = Integer.parseInt(rawPrefixLength.trim());
+                } catch(NumberFormatException ex) {
+                    prefixLength = -1;
+                }
+                if(prefixLength < 1 || prefixLength > 4) {
+                    throw new ConnectException(String.format("Reconcile range prefix length must be between 1 and 4. Configuration [%s], Value [%s]", RECONCILE_PREFIX_LENGTH_KEY, rawPrefixLength));
+                }
+            }
+
+            if(reconcileIntervalMinutes > 0 && !OutputFormats.Struct.equals(this.OUTPUT_FORMAT)) {
+                LOG.warn("Ignoring [{}] for table [{}], it only applies to the [{}] output format.", RECONCILE_INTERVAL_KEY, this.TABLE_NAME, OutputFormats.Struct);
+            } else if(reconcileIntervalMinutes > 0) {
+                this.RECONCILE_INTERVAL_MINUTES = reconcileIntervalMinutes;
+                // NOTE: digests are kept from the emitted rows, so they need both columns whatever else is selected.
+                this.requireFields(SYS_ID_FIELD, MOD_COUNT_FIELD);
+
+                final String stateDirectory = config.getString(ServiceNowSourceConnectorConfig.RECONCILE_STATE_DIR);
+                if(stateDirectory == null || stateDirectory.trim().isEmpty()) {
+                    this._rangeDigests = RangeDigests.inMemory(prefixLength);
+                } else {
+                    final String connectorName = (String)config.originals().get(ServiceNowSourceConnectorConfig.CONNECTOR_NAME);
+                    try {
+                        this._rangeDigests = RangeDigests.open(new File(stateDirectory.trim()), connectorName == null ? tableKey : connectorName + "." + tableKey, prefixLength);
+                    } catch(IOException ex) {
+                        throw new ConnectException(String.format("Could not open the range digests of table [%s]. Configuration [%s], Value [%s]", tableKey, ServiceNowSourceConnectorConfig.RECONCILE_STATE_DIR, stateDirectory), ex);
+                    }
+                }
+            }
+        }
+
+        final String INITIAL_LOAD_KEY = String.format("table.whitelist.%s.initial.load", tableKey);
+        final String rawInitialLoad = tryGetConfig(config, INITIAL_LOAD_KEY, "");
+        if(rawInitialLoad != null && !rawInitialLoad.trim().isEmpty()) {
+            switch(rawInitialLoad.trim().toLowerCase(Locale.US)) {
+                case "timestamp":
+                    break;
+                case "snapshot":
+                    if(this.INITIAL_QUERY_HOURS_AGO != UNBOUNDED_FROM_QUERY_KEY) {
+                        // NOTE: a snapshot reads the whole table, a bounded first load only wants the recent rows.
+                        LOG.warn("Ignoring [{}] for table [{}], a snapshot only applies when [{}] is [{}].", INITIAL_LOAD_KEY, tableKey, ServiceNowSourceConnectorConfig.TIMESTAMP_INITIAL_QUERY_HOURS_AGO, UNBOUNDED_FROM_QUERY_KEY);
+                    } else {
+                        this.SNAPSHOT_INITIAL_LOAD = true;
+                        this.requireFields(SYS_ID_FIELD);
+                    }
+                    break;
+                default:
+                    throw new ConnectException(String.format("Initial load must be one of 'timestamp' or 'snapshot'. Configuration [%s], Value [%s]", INITIAL_LOAD_KEY, rawInitialLoad));
+            }
+        }
+
+        final String DEDUP_MAX_ENTRIES_KEY = String.format("table.whitelist.%s.dedup.max.entries", tableKey);
+        final String rawDedupMaxEntries = tryGetConfig(config, DEDUP_MAX_ENTRIES_KEY, "");
+        if(rawDedupMaxEntries != null && !rawDedupMaxEntries.trim().isEmpty()) {
+            final int dedupMaxEntries;
+            try {
+                dedupMaxEntries = Integer.parseInt(rawDedupMaxEntries.trim());
+            } catch(NumberFormatException ex) {
+                throw new ConnectException(String.format("Dedup max entries must be a whole number. Configuration [%s], Value [%s]", DEDUP_MAX_ENTRIES_KEY, rawDedupMaxEntries));
+            }
+            if(dedupMaxEntries > 0) {
+                try {
+                    this._emitted = new DedupCache(dedupMaxEntries);
+                } catch(IllegalArgumentException ex) {
+                    throw new ConnectException(String.format("%s Configuration [%s]", ex.getMessage(), DEDUP_MAX_ENTRIES_KEY));
+                }
+                this.requireFields(SYS_ID_FIELD, MOD_COUNT_FIELD);
+                this._duplicates = ConnectorMetrics.countSensor(METRIC_GROUP, "duplicates", "rows dropped as already emitted.", Collections.singletonMap("table", tableKey));
+
+                final String stateDirectory = config.getString(ServiceNowSourceConnectorConfig.DEDUP_STATE_DIR);
+                if(stateDirectory != null && !stateDirectory.trim().isEmpty()) {
+                    final String connectorName = (String)config.originals().get(ServiceNowSourceConnectorConfig.CONNECTOR_NAME);
+                    this._emittedFile = new File(stateDirectory.trim(), (connectorName == null ? tableKey : connectorName + "." + tableKey) + ".dedup");
+                    try {
+                        LOG.info("Loaded [{}] emitted rows of table [{}] from [{}].", this._emitted.load(this._emittedFile), tableKey, this._emittedFile);
+                    } catch(IOException ex) {
+                        LOG.warn("Could not load the emitted rows of table [{}] from [{}], starting empty. {}", tableKey, this._emittedFile, ex.getMessage());
+                    }
+                }
+            }
+        }
+
+        final String CHANGE_SUPPRESSION_FIELDS_KEY = String.format("table.whitelist.%s.change.suppression.fields", tableKey);
+        final String CHANGE_SUPPRESSION_MODE_KEY = String.format("table.whitelist.%s.change.suppression.mode", tableKey);
+        final String rawChangeSuppressionFields = tryGetConfig(config, CHANGE_SUPPRESSION_FIELDS_KEY, "");
+        if(rawChangeSuppressionFields != null && !rawChangeSuppressionFields.trim().isEmpty()) {
+            final List<String> watchedFields = commaDelimitedToList(rawChangeSuppressionFields);
+            if(watchedFields.isEmpty()) {
+                throw new ConnectException(String.format("If specifying [%s], then it must include at least one field name.", CHANGE_SUPPRESSION_FIELDS_KEY));
+            }
+            final String rawChangeSuppressionMode = tryGetConfig(config, CHANGE_SUPPRESSION_MODE_KEY, "");
+            if(rawChangeSuppressionMode != null && !rawChangeSuppressionMode.trim().isEmpty()) {
+                switch(rawChangeSuppressionMode.trim().toLowerCase(Locale.US)) {
+                    case "suppress":
+                        break;
+                    case "delta":
+                        this.CHANGE_DELTA = true;
+                        break;
+                    default:
+                        throw new ConnectException(String.format("Change suppression mode must be one of 'suppress' or 'delta'. Configuration [%s], Value [%s]", CHANGE_SUPPRESSION_MODE_KEY, rawChangeSuppressionMode));
+                }
+            }
+
+            if(!OutputFormats.Struct.equals(this.OUTPUT_FORMAT)) {
+                LOG.warn("Ignoring [{}] for table [{}], it only applies to the [{}] output format.", CHANGE_SUPPRESSION_FIELDS_KEY, this.TABLE_NAME, OutputFormats.Struct);
+            } else {
+                this.requireFields(SYS_ID_FIELD);
+                this.requireFields(watchedFields.toArray(new String[0]));
+                this._unchangedRows = ConnectorMetrics.countSensor(METRIC_GROUP, "unchanged-rows", "rows dropped as their watched columns hadn't changed.", Collections.singletonMap("table", tableKey));
+                if(this.CHANGE_DELTA) {
+                    // NOTE: a delta keeps what identifies the row, orders it, and keys it, whatever changed.
+                    this.DELTA_KEY_FIELDS = new HashSet<>(commaDelimitedToList(tryGetConfig(config, String.format("table.whitelist.%s.partition.fields", tableKey), "")));
+                    Collections.addAll(this.DELTA_KEY_FIELDS, SYS_ID_FIELD, MOD_COUNT_FIELD, this.TIMESTAMP_COLUMN_FIELD, this.IDENTIFIER_COLUMN_FIELD);
+                }
+
+                final String stateDirectory = config.getString(ServiceNowSourceConnectorConfig.CHANGE_SUPPRESSION_STATE_DIR);
+                if(stateDirectory == null || stateDirectory.trim().isEmpty()) {
+                    this._changes = ChangeSuppression.inMemory(watchedFields, this.CHANGE_DELTA);
+                } else {
+                    final String connectorName = (String)config.originals().get(ServiceNowSourceConnectorConfig.CONNECTOR_NAME);
+                    try {
+                        this._changes = ChangeSuppression.open(new File(stateDirectory.trim()), connectorName == null ? tableKey : connectorName + "." + tableKey, watchedFields, this.CHANGE_DELTA);
+                    } catch(IOException ex) {
+                        throw new ConnectException(String.format("Could not open the change hashes of table [%s]. Configuration [%s], Value [%s]", tableKey, ServiceNowSourceConnectorConfig.CHANGE_SUPPRESSION_STATE_DIR, stateDirectory), ex);
+                    }
+                }
+            }
+        }
+
         this.DESTINATION_PARTITIONER = PartitionerFactory.build(tableKey, config);
+        this._recordBuilder = SourceRecordBuilder.Builder(this.DESTINATION_PARTITIONER)
+                .withSourcePartition(this.SOURCE_PARTITION.getPartition())
+                .withTopic(this.TARGET_TOPIC)
+                .withStrings(strings);
+        if(OutputFormats.JsonString.equals(this.OUTPUT_FORMAT)) {
+            this._recordBuilder.withValueSchema(Schema.STRING_SCHEMA);
+        } else if(OutputFormats.JsonBytes.equals(this.OUTPUT_FORMAT)) {
+            this._recordBuilder.withValueSchema(Schema.BYTES_SCHEMA);
+        }
+    }
+
+    public String getTableKey() {
+        return this.SOURCE_PARTITION.getTableName();
+    }
+
+    public String getTableName() {
+        return this.TABLE_NAME;
+    }
+
+    /**
+     * @return The fields requested for the table's rows, or null for all of them.
+     */
+    public List<String> getFields() {
+        return this.FIELDS;
+    }
+
+    /**
+     * @return The range digests of the emitted rows, or null if the table isn't reconciled.
+     */
+    public RangeDigests getRangeDigests() {
+        return this._rangeDigests;
+    }
+
+    public long getReconcileIntervalMinutes() {
+        return this.RECONCILE_INTERVAL_MINUTES;
+    }
+
+    public String getTimestampField() {
+        return this.TIMESTAMP_COLUMN_FIELD;
+    }
+
+    /**
+     * @return The second the table's rows have been streamed up to, or null while it is snapshotted or before its
+     * first rows.
+     */
+    public Instant getStreamedThrough() {
+        return this._offset.isSnapshot() ? null : this._offset.getLastSeenTimestamp();
+    }
+
+    /**
+     * Writes the table's range digests, emitted rows and change hashes to the state directory, where one is configured.
+     */
+    public void saveState() throws IOException {
+        if(this._rangeDigests != null) {
+            this._rangeDigests.flush();
+        }
+        if(this._changes != null) {
+            this._changes.flush();
+        }
+        if(this._emittedFile != null) {
+            final File directory = this._emittedFile.getParentFile();
+            if(!directory.isDirectory() && !directory.mkdirs()) {
+                throw new IOException(String.format("Could not create the state directory [%s].", directory));
+            }
+            // NOTE: only acknowledged row versions are in it, ones still in flight are fetched and emitted again.
+            synchronized(this._unacked) {
+                this._emitted.save(this._emittedFile);
+            }
+        }
+    }
+
+    private void requireFields(String... fields) {
+        if(this.FIELDS == null) {
+            return;
+        }
+        for(String field : fields) {
+            if(!this.FIELDS.contains(field)) {
+                this.FIELDS.add(field);
+            }
+        }
+    }
+
+    public int getPriority() {
+        return this.PRIORITY;
+    }
+
+    /**
+     * @return How far the table's offset is behind the wall clock, in seconds, while it is working through a
+     * backlog (the last fetch returned a full page). 0 once it has caught up, or -1 before the first record.
+     */
+    public long getLagSeconds() {
+        if(this._offset.isSnapshot()) {
+            return Math.max(0, Instant.now().getEpochSecond() - this._offset.getSnapshotStarted().getEpochSecond());
+        }
+        Instant lastSeenTimestamp = this._offset.getLastSeenTimestamp();
+        if(lastSeenTimestamp == null) {
+            return -1;
+        }
+        if(!this._lastPageFull) {
+            return 0;
+        }
+        return Math.max(0, Instant.now().getEpochSecond() - lastSeenTimestamp.getEpochSecond());
     }
 
     public LocalDateTime getNextPollUtc() {
@@ -187,8 +671,16 @@ public class TableAPISubTask {
     public SourceRecordsPage poll() throws IOException, InterruptedException {
 
         List<SourceRecord> records = getBatch();
+        if(this._lastFetchedCount == 0) {
+            final SourceRecord heartbeat = this.heartbeat(this._previousThroughSeconds, System.currentTimeMillis());
+            if(heartbeat != null) {
+                records = Collections.singletonList(heartbeat);
+            }
+        }
+        // NOTE: counts the rows fetched, a page of nothing but duplicates still means there may be more behind it.
+        this._lastPageFull = this._lastFetchedCount >= this.MAX_BATCH_SIZE;
         long nextPollIntervalNs = SLOW_INTERVAL_NS;
-        if(records != null && records.size() > 0) {
+        if(this._lastFetchedCount > 0) {
             nextPollIntervalNs = FAST_INTERVAL_NS;
         }
 
@@ -196,47 +688,393 @@ public class TableAPISubTask {
         this.setNextPollUtc(nextPollUtc);
 
         LOG.info("Received [{}] records for table [{}]. Suggested next poll time for table is [{}].", records.size(), TABLE_NAME, nextPollUtc);
-        return new SourceRecordsPage(records, nextPollUtc);
+        return new SourceRecordsPage(records, nextPollUtc, this._lastFetchedBytes);
     }
 
     private List<SourceRecord> getBatch() throws IOException, InterruptedException {
+        if(this._fieldTypes != null) {
+            this._valueSchemas.setFieldTypes(this._fieldTypes.get(System.currentTimeMillis()));
+        }
+
+        if(this.SNAPSHOT_INITIAL_LOAD && this._offset.getLastSeenTimestamp() == null && !this._offset.isSnapshot()) {
+            this._offset.startSnapshot(this.getSnapshotStart());
+            LOG.info("Starting a snapshot of table [{}], changes will be streamed from [{}] once it finishes.", TABLE_NAME, this._offset.getSnapshotStarted());
+        }
+
         TableAPIQueryBuilder builder = buildQuery();
         LOG.info("Query [{}].", builder.build());
 
-        List<JSONObject> rawRecords = this._client.getRecords(TABLE_NAME, builder, 0, this.MAX_BATCH_SIZE, this.FIELDS);
-        return processBatch(rawRecords);
+        if(!OutputFormats.Struct.equals(this.OUTPUT_FORMAT)) {
+            // NOTE: passthrough tables never build a JSONObject or a Struct for the value.
+            RawJsonPage page = this._client.getRawRecords(TABLE_NAME, builder, 0, this.MAX_BATCH_SIZE, this.FIELDS);
+            this._lastFetchedBytes = page.getSizeInBytes();
+            return processRawBatch(page);
+        }
+
+        if(this._client.isResponseMemoryBounded()) {
+            // NOTE: records are decoded one at a time from the page's bytes, which may be spilled off the heap.
+            try(SpillableJsonPage page = this._client.getRecordPage(TABLE_NAME, builder, 0, this.MAX_BATCH_SIZE, this.FIELDS)) {
+                this._lastFetchedBytes = page.getSizeInBytes();
+                return processBatch(page.getRecords());
+            }
+        }
+
+        JsonPage page = this._client.getJsonPage(TABLE_NAME, builder, 0, this.MAX_BATCH_SIZE, this.FIELDS);
+        this._lastFetchedBytes = page.getSizeInBytes();
+        return processBatch(page.getRecords());
     }
 
-    private List<SourceRecord> processBatch(List<JSONObject> batch) {
+    List<SourceRecord> processBatch(List<JSONObject> batch) {
 
+        // NOTE: everything but the record payload (key, value and the SourceRecord itself) is shared between
+        // records: the builder, the source partition, and the boxed offset timestamp while it doesn't change.
         List<SourceRecord> records = new ArrayList<>(batch.size());
-        LocalDateTime lastProcessedTimestamp = null;
+        Long lastProcessedTimestamp = null;
         String lastProcessedIdentifier = null;
+        final boolean snapshot = this._offset.isSnapshot();
+        final long snapshotStarted = snapshot ? this._offset.getSnapshotStarted().getEpochSecond() : 0;
+        String snapshotCursor = null;
 
+        this._lastFetchedCount = batch.size();
         for(JSONObject result : batch) {
 
-            // Build schema dynamically from the first record
-            // This handles both display_value=false (simple strings) and display_value=all (nested objects)
-            if(this._cachedValueSchema == null && result != null) {
-                this._cachedValueSchema = buildSchemaFromSimpleJsonRecord(result);
-                LOG.info("Built schema for table [{}]: {}", TABLE_NAME, this._cachedValueSchema);
+            final Map<String, Object> recordOffset;
+            if(snapshot) {
+                snapshotCursor = extractStringField(result, SYS_ID_FIELD);
+                recordOffset = TimestampSourceOffset.toSnapshotMap(snapshotStarted, snapshotCursor);
+            } else {
+                // Extract timestamp and identifier (always using the "value", not "display_value")
+                final long timestamp = extractTimestampField(result, this.TIMESTAMP_COLUMN_FIELD);
+                this.observeLateness(timestamp);
+                if(timestamp != this._lastEmittedTimestamp) {
+                    this._lastEmittedTimestamp = timestamp;
+                }
+                lastProcessedTimestamp = this._lastEmittedTimestamp;
+                lastProcessedIdentifier = extractStringField(result, this.IDENTIFIER_COLUMN_FIELD);
+                recordOffset = TimestampSourceOffset.toCompactMap(lastProcessedTimestamp, lastProcessedIdentifier);
             }
 
-            // Extract timestamp and identifier (always using the "value", not "display_value")
-            lastProcessedTimestamp = extractTimestampField(result, this.TIMESTAMP_COLUMN_FIELD);
-            lastProcessedIdentifier = extractStringField(result, this.IDENTIFIER_COLUMN_FIELD);
+            // NOTE: the offset still moves past a duplicate, it was emitted (and counted) the first time around.
+            final String sysId = extractStringField(result, SYS_ID_FIELD);
+            final long modCount = RangeDigests.parseModCount(extractStringField(result, MOD_COUNT_FIELD));
+            if(this.isDuplicate(sysId, modCount)) {
+                continue;
+            }
+            final ChangeSuppression.Hashes hashes = this._changes == null ? null : this._changes.hash(sysId, result);
+            if(this.isUnchanged(result, sysId, modCount, hashes)) {
+                // NOTE: the row's digest still moves to its new sys_mod_count, so reconciliation doesn't re-fetch it.
+                this.recordDigest(result);
+                continue;
+            }
 
-            SourceRecord record = SourceRecordBuilder.Builder(DESTINATION_PARTITIONER)
-                    .withSourcePartition(this.SOURCE_PARTITION.getPartition())
-                    .withOffset(TimestampSourceOffset.toMap(lastProcessedTimestamp.toInstant(ZoneOffset.UTC), lastProcessedIdentifier))
-                    .withTopic(this.TARGET_TOPIC)
-                    .withValueSchema(this._cachedValueSchema)
+            final StructCodec valueCodec = this.prepare(result);
+
+            SourceRecord record = this._recordBuilder
+                    .withOffset(recordOffset)
+                    .withValueCodec(valueCodec)
+                    .withRecord(result)
+                    .build();
+
+            records.add(record);
+            this.awaitAck(record, sysId, modCount, hashes);
+            this.recordDigest(result);
+        }
+
+        // NOTE: only moved once the whole page has been converted, a page that fails part way is fetched again.
+        if(snapshot) {
+            this.advanceSnapshot(snapshotCursor, batch.size());
+        } else {
+            this.completeQuery(batch.size());
+            if(lastProcessedTimestamp != null) {
+                this._offset.updateOffset(Instant.ofEpochSecond(lastProcessedTimestamp), lastProcessedIdentifier);
+            }
+        }
+
+        return records;
+    }
+
+    /**
+     * Notes a row older than the through timestamp of the previous query, which returned every row it could, so
+     * the row must have committed after that query ran.
+     */
+    private void observeLateness(long timestamp) {
+        if(this._delay == null || this._previousThroughSeconds == null || !this._previousComplete || timestamp >= this._previousThroughSeconds) {
+            return;
+        }
+        this._lateRows.record();
+        this._delay.observeLateness(this._previousServerSeconds - timestamp, System.currentTimeMillis());
+        LOG.debug("Row of table [{}] at [{}] committed at least [{}] s late.", TABLE_NAME, timestamp, this._previousServerSeconds - timestamp);
+    }
+
+    private void completeQuery(int fetched) {
+        this._previousServerSeconds = this._queryServerSeconds;
+        this._previousThroughSeconds = this._queryThroughSeconds;
+        this._previousComplete = fetched < this.MAX_BATCH_SIZE;
+        this._queryServerSeconds = null;
+        this._queryThroughSeconds = null;
+    }
+
+    /**
+     * Moves an idle table's offset on to the through timestamp of its last query, which returned nothing, and
+     * builds the heartbeat that carries the new offset to Connect.
+     *
+     * @return The heartbeat, or null if heartbeats are off, one was sent within the interval, or the offset
+     * wouldn't move.
+     */
+    SourceRecord heartbeat(Long throughSeconds, long nowMs) {
+        if(this.HEARTBEAT_INTERVAL_MS <= 0 || throughSeconds == null || this._offset.isSnapshot()) {
+            return null;
+        }
+        if(this._lastHeartbeatMs != Long.MIN_VALUE && nowMs - this._lastHeartbeatMs < this.HEARTBEAT_INTERVAL_MS) {
+            return null;
+        }
+        final Instant lastSeenTimestamp = this._offset.getLastSeenTimestamp();
+        if(lastSeenTimestamp != null && throughSeconds <= lastSeenTimestamp.getEpochSecond()) {
+            return null;
+        }
+
+        // NOTE: the query returned every row before the through timestamp, and the next one reads the rows at it
+        // whatever their identifier, so nothing is skipped.
+        final Instant watermark = Instant.ofEpochSecond(throughSeconds);
+        this._offset.updateOffset(watermark, null);
+        this._lastHeartbeatMs = nowMs;
+        LOG.debug("Table [{}] idle, heartbeat at [{}].", TABLE_NAME, watermark);
+        return Heartbeats.build(this.SOURCE_PARTITION, TimestampSourceOffset.toCompactMap(throughSeconds, null), this.HEARTBEAT_TOPIC, watermark);
+    }
+
+    private void advanceSnapshot(String cursor, int fetched) {
+        if(cursor != null) {
+            this._offset.updateSnapshotCursor(cursor);
+        }
+        if(fetched < this.MAX_BATCH_SIZE) {
+            LOG.info("Snapshot of table [{}] finished, streaming changes since [{}].", TABLE_NAME, this._offset.getSnapshotStarted());
+            this._offset.finishSnapshot();
+        }
+    }
+
+    /**
+     * Converts rows re-fetched by a reconciliation. They carry the table's current offset, so emitting them
+     * neither moves the offset on nor back.
+     */
+    List<SourceRecord> processReconciledBatch(List<JSONObject> batch) {
+
+        final Instant lastSeenTimestamp = this._offset.getLastSeenTimestamp();
+        final Map<String, Object> offset;
+        if(this._offset.isSnapshot()) {
+            offset = this._offset.toMap();
+        } else if(lastSeenTimestamp == null) {
+            offset = Collections.<String, Object>emptyMap();
+        } else {
+            offset = TimestampSourceOffset.toCompactMap(lastSeenTimestamp.getEpochSecond(), this._offset.getLastReadIdentifier());
+        }
+
+        List<SourceRecord> records = new ArrayList<>(batch.size());
+        for(JSONObject result : batch) {
+            final String sysId = extractStringField(result, SYS_ID_FIELD);
+            final long modCount = RangeDigests.parseModCount(extractStringField(result, MOD_COUNT_FIELD));
+            if(this.isDuplicate(sysId, modCount)) {
+                continue;
+            }
+            final StructCodec valueCodec = this.prepare(result);
+            SourceRecord record = this._recordBuilder
+                    .withOffset(offset)
+                    .withValueCodec(valueCodec)
                     .withRecord(result)
                     .build();
+            records.add(record);
+            this.awaitAck(record, sysId, modCount, null);
+            this.recordDigest(result);
+        }
+        return records;
+    }
+
+    private StructCodec prepare(JSONObject result) {
+        if(this.DISPLAY_VALUE_FIELDS != null) {
+            this.DISPLAY_VALUE_FIELDS.apply(result);
+        }
+        if(this.LARGE_FIELD_POLICY != null) {
+            this.LARGE_FIELD_POLICY.apply(result);
+        }
+
+        // Schemas are built dynamically per field set
+        // This handles both display_value=false (simple strings) and display_value=all (nested objects)
+        return this._valueSchemas.codecFor(result);
+    }
+
+    /**
+     * @return true if the row version was already written, or is on its way there.
+     */
+    private boolean isDuplicate(String sysId, long modCount) {
+        if(this._emitted == null) {
+            return false;
+        }
+        synchronized(this._unacked) {
+            if(!this._emitted.contains(sysId, modCount) && !this._unackedVersions.contains(versionOf(sysId, modCount))) {
+                return false;
+            }
+        }
+        this._duplicates.record();
+        return true;
+    }
+
+    private static String versionOf(String sysId, long modCount) {
+        return sysId + "/" + modCount;
+    }
+
+    /**
+     * Compares the row's watched columns with the latest version of it emitted, whether or not that was written yet.
+     * In delta mode a changed row is cut down to the watched columns that changed, and its key columns.
+     *
+     * @return true if none of its watched columns changed, so it should be dropped.
+     */
+    private boolean isUnchanged(JSONObject result, String sysId, long modCount, ChangeSuppression.Hashes hashes) {
+        if(this._changes == null) {
+            return false;
+        }
+        ChangeSuppression.Hashes emitted = null;
+        synchronized(this._unacked) {
+            final Unacked latest = sysId == null ? null : this._latestUnacked.get(sysId);
+            // NOTE: the same version fetched again is compared with the one written before it, as if it was never sent.
+            if(latest != null && (modCount < 0 || latest._modCount != modCount)) {
+                emitted = latest._hashes;
+            }
+        }
+        final List<String> changed = this._changes.changedFields(hashes, emitted);
+        if(changed == null) {
+            return false;
+        }
+        if(changed.isEmpty()) {
+            this._unchangedRows.record();
+            return true;
+        }
+        if(this.CHANGE_DELTA) {
+            for(String field : new ArrayList<>(result.keySet())) {
+                if(!changed.contains(field) && !this.DELTA_KEY_FIELDS.contains(field)) {
+                    result.remove(field);
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Holds on to what is kept of an emitted row until Connect acknowledges it, see {@link #commitRecord(SourceRecord)}.
+     * The row version counts as a duplicate meanwhile, so it isn't emitted twice while in flight.
+     */
+    private void awaitAck(SourceRecord record, String sysId, long modCount, ChangeSuppression.Hashes hashes) {
+        final boolean tracked = this._emitted != null && DedupCache.isTracked(sysId, modCount);
+        if(!tracked && hashes == null) {
+            return;
+        }
+        synchronized(this._unacked) {
+            final Unacked unacked = new Unacked(sysId, tracked, modCount, hashes);
+            this._unacked.put(record, unacked);
+            if(tracked) {
+                this._unackedVersions.add(versionOf(sysId, modCount));
+            }
+            if(hashes != null) {
+                this._latestUnacked.put(sysId, unacked);
+            }
+        }
+    }
+
+    /**
+     * Notes one of the table's records as written, remembering its row version and keeping its change hashes.
+     * Until then neither is saved, so a row lost to a failed task is emitted again rather than dropped as a
+     * duplicate or unchanged. Called from the producer's thread.
+     */
+    public void commitRecord(SourceRecord record) {
+        synchronized(this._unacked) {
+            final Unacked unacked = this._unacked.remove(record);
+            if(unacked == null) {
+                return;
+            }
+            if(unacked._tracked) {
+                this._unackedVersions.remove(versionOf(unacked._sysId, unacked._modCount));
+                this._emitted.add(unacked._sysId, unacked._modCount);
+            }
+            if(unacked._hashes == null) {
+                return;
+            }
+            // NOTE: kept before the in flight version is let go, so the row is never compared with an older one.
+            try {
+                this._changes.record(unacked._hashes);
+            } catch(IOException ex) {
+                LOG.warn("Could not record the change hash of a row of table [{}], it will be emitted again. {}", this.TABLE_NAME, ex.getMessage());
+            }
+            // NOTE: left alone when a later version of the row was emitted since, that one is still in flight.
+            if(this._latestUnacked.get(unacked._sysId) == unacked) {
+                this._latestUnacked.remove(unacked._sysId);
+            }
+        }
+    }
+
+    private void recordDigest(JSONObject result) {
+        if(this._rangeDigests == null) {
+            return;
+        }
+        final long modCount = RangeDigests.parseModCount(extractStringField(result, MOD_COUNT_FIELD));
+        if(modCount < 0) {
+            return;
+        }
+        try {
+            this._rangeDigests.record(extractStringField(result, SYS_ID_FIELD), modCount);
+        } catch(IOException ex) {
+            throw new ConnectException(String.format("Could not record the range digest of a row of table [%s].", this.TABLE_NAME), ex);
+        }
+    }
+
+    List<SourceRecord> processRawBatch(RawJsonPage page) {
+
+        List<SourceRecord> records = new ArrayList<>(page.getRecords().size());
+        Long lastProcessedTimestamp = null;
+        String lastProcessedIdentifier = null;
+        final boolean snapshot = this._offset.isSnapshot();
+        final long snapshotStarted = snapshot ? this._offset.getSnapshotStarted().getEpochSecond() : 0;
+        String snapshotCursor = null;
+
+        this._lastFetchedCount = page.getRecords().size();
+        for(RawJsonRecord result : page.getRecords()) {
+            final Map<String, Object> recordOffset;
+            if(snapshot) {
+                snapshotCursor = result.getString(this.RAW_SYS_ID_KEY);
+                recordOffset = TimestampSourceOffset.toSnapshotMap(snapshotStarted, snapshotCursor);
+            } else {
+                final String rawTimestamp = result.getString(this.RAW_TIMESTAMP_KEY);
+                if(rawTimestamp == null) {
+                    throw new ConnectException("Timestamp field '" + this.TIMESTAMP_COLUMN_FIELD + "' is null or missing in record: " + result);
+                }
+                final long timestamp = Helpers.parseServiceNowEpochSecondsUtc(rawTimestamp);
+                this.observeLateness(timestamp);
+                if(timestamp != this._lastEmittedTimestamp) {
+                    this._lastEmittedTimestamp = timestamp;
+                }
+                lastProcessedTimestamp = this._lastEmittedTimestamp;
+                lastProcessedIdentifier = result.getString(this.RAW_IDENTIFIER_KEY);
+                recordOffset = TimestampSourceOffset.toCompactMap(lastProcessedTimestamp, lastProcessedIdentifier);
+            }
 
+            final String sysId = result.getString(this.RAW_SYS_ID_KEY);
+            final long modCount = RangeDigests.parseModCount(result.getString(this.RAW_MOD_COUNT_KEY));
+            if(this.isDuplicate(sysId, modCount)) {
+                continue;
+            }
+
+            SourceRecord record = this._recordBuilder
+                    .withOffset(recordOffset)
+                    .withRawRecord(result)
+                    .build();
             records.add(record);
+            this.awaitAck(record, sysId, modCount, null);
+        }
 
-            this._offset.updateOffset(lastProcessedTimestamp.toInstant(ZoneOffset.UTC), lastProcessedIdentifier);
+        if(snapshot) {
+            this.advanceSnapshot(snapshotCursor, page.getRecords().size());
+        } else {
+            this.completeQuery(page.getRecords().size());
+            if(lastProcessedTimestamp != null) {
+                this._offset.updateOffset(Instant.ofEpochSecond(lastProcessedTimestamp), lastProcessedIdentifier);
+            }
         }
 
         return records;
@@ -259,13 +1097,43 @@ public class TableAPISubTask {
         return LocalDateTime.ofInstant(lastSeenTimestamp, ZoneOffset.UTC);
     }
 
+    /**
+     * @return Where changes are streamed from once the snapshot finishes, the delay interval before now, so rows
+     * committed late while the snapshot runs are still streamed. Taken off the instance's clock with the longest
+     * adaptive delay, as the queries that follow are, so an instance clock running behind the worker's doesn't put
+     * rows updated during the snapshot before it.
+     */
+    Instant getSnapshotStart() {
+        if(this._delay != null) {
+            return this._client.getServerClock().nowUtc().minusSeconds(this._delay.getMaxSeconds()).toInstant(ZoneOffset.UTC);
+        }
+        return Instant.now().minusSeconds(this.TIMESTAMP_DELAY_INTERVAL_SECONDS);
+    }
+
     private LocalDateTime getThroughDateTimeUtc() {
+        if(this._delay != null) {
+            // NOTE: row timestamps are the instance's, so the delay is taken off the instance's clock.
+            final LocalDateTime serverNowUtc = this._client.getServerClock().nowUtc();
+            final int delaySeconds = this._delay.getDelaySeconds(System.currentTimeMillis());
+            final LocalDateTime throughDateTimeUtc = serverNowUtc.minusSeconds(delaySeconds);
+            this._queryServerSeconds = serverNowUtc.toEpochSecond(ZoneOffset.UTC);
+            this._queryThroughSeconds = throughDateTimeUtc.toEpochSecond(ZoneOffset.UTC);
+            LOG.debug("Table [{}] delayed [{}] s, server clock skew [{}] ms.", TABLE_NAME, delaySeconds, this._client.getServerClock().getSkewMs());
+            return throughDateTimeUtc;
+        }
+
         final LocalDateTime nowUtc = LocalDateTime.now(ZoneOffset.UTC);
         final int timestampDelaySeconds = this.TIMESTAMP_DELAY_INTERVAL_SECONDS;
-        return nowUtc.minusSeconds(timestampDelaySeconds);
+        final LocalDateTime throughDateTimeUtc = nowUtc.minusSeconds(timestampDelaySeconds);
+        this._queryServerSeconds = nowUtc.toEpochSecond(ZoneOffset.UTC);
+        this._queryThroughSeconds = throughDateTimeUtc.toEpochSecond(ZoneOffset.UTC);
+        return throughDateTimeUtc;
     }
 
     private TableAPIQueryBuilder buildQuery() {
+        if(this._offset.isSnapshot()) {
+            return buildSnapshotQuery();
+        }
         LocalDateTime fromDateTimeUtc = this.getFromDateTimeUtc();
         LocalDateTime throughDateTimeUtc = this.getThroughDateTimeUtc();
         if(fromDateTimeUtc == null) {
@@ -275,6 +1143,17 @@ public class TableAPISubTask {
         }
     }
 
+    private TableAPIQueryBuilder buildSnapshotQuery() {
+        // NOTE: keyset pages on sys_id, which is indexed, rather than sorting the whole table by timestamp per page.
+        TableAPIQueryBuilder snapshotQuery = TableAPIQueryBuilder.Builder();
+        String cursor = this._offset.getSnapshotCursor();
+        if(cursor != null) {
+            snapshotQuery.whereGreaterThan(SYS_ID_FIELD, cursor);
+        }
+        snapshotQuery.orderByAsc(SYS_ID_FIELD);
+        return snapshotQuery;
+    }
+
     private TableAPIQueryBuilder buildQueryUnboundedQuery(LocalDateTime throughDateTimeUtc) {
         TableAPIQueryBuilder unboundedQuery = TableAPIQueryBuilder.Builder();
         unboundedQuery.whereIsNotEmpty(this.IDENTIFIER_COLUMN_FIELD);
@@ -311,4 +1190,22 @@ public class TableAPISubTask {
 
         return lastSeenTimestampEqualsQuery;
     }
+
+    /**
+     * What is kept of an emitted row once it is acknowledged, its version if deduplicated and its change hashes.
+     */
+    private static final class Unacked {
+
+        private final String _sysId;
+        private final boolean _tracked;
+        private final long _modCount;
+        private final ChangeSuppression.Hashes _hashes;
+
+        Unacked(String sysId, boolean tracked, long modCount, ChangeSuppression.Hashes hashes) {
+            this._sysId = sysId;
+            this._tracked = tracked;
+            this._modCount = modCount;
+            this._hashes = hashes;
+        }
+    }
 }
@@ -0,0 +1,102 @@
+package com.ibm.ingestion.connect.servicenow.source;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Assigns tables to tasks using longest processing time first (LPT) bin packing: tables are taken heaviest
+ * first, and each one goes to the task with the least load so far.
+ */
+public final class TableAssignor {
+
+    private static final double DEFAULT_WEIGHT = 1.0;
+
+    private TableAssignor() {
+    }
+
+    /**
+     * @param tables The table keys to assign, in whitelist order.
+     * @param weights Relative load per table key. Tables without a weight get the mean of the known weights.
+     * @param groups The number of groups (tasks) to spread the tables across.
+     * @return Exactly {@code groups} lists of table keys, each in whitelist order.
+     */
+    public static List<List<String>> assign(List<String> tables, Map<String, Double> weights, int groups) {
+        if(groups <= 0) {
+            throw new IllegalArgumentException(String.format("Number of groups must be positive, received [%s].", groups));
+        }
+
+        final double fallbackWeight = meanWeight(tables, weights);
+        List<Integer> order = new ArrayList<>(tables.size());
+        for(int i = 0; i < tables.size(); i++) {
+            order.add(i);
+        }
+        // NOTE: stable sort, so equally weighted tables keep their whitelist order.
+        order.sort(Comparator.comparingDouble((Integer i) -> weightOf(tables.get(i), weights, fallbackWeight)).reversed());
+
+        double[] loads = new double[groups];
+        List<List<Integer>> assigned = new ArrayList<>(groups);
+        for(int g = 0; g < groups; g++) {
+            assigned.add(new ArrayList<>());
+        }
+
+        for(Integer tableIndex : order) {
+            int target = 0;
+            for(int g = 1; g < groups; g++) {
+                if(loads[g] < loads[target] || (loads[g] == loads[target] && assigned.get(g).size() < assigned.get(target).size())) {
+                    target = g;
+                }
+            }
+            loads[target] += weightOf(tables.get(tableIndex), weights, fallbackWeight);
+            assigned.get(target).add(tableIndex);
+        }
+
+        List<List<String>> result = new ArrayList<>(groups);
+        for(List<Integer> group : assigned) {
+            Collections.sort(group);
+            List<String> tableKeys = new ArrayList<>(group.size());
+            for(Integer tableIndex : group) {
+                tableKeys.add(tables.get(tableIndex));
+            }
+            result.add(tableKeys);
+        }
+        return result;
+    }
+
+    /**
+     * @return The total weight of each group.
+     */
+    public static double[] loads(List<List<String>> groups, Map<String, Double> weights) {
+        List<String> all = new ArrayList<>();
+        groups.forEach(all::addAll);
+        final double fallbackWeight = meanWeight(all, weights);
+
+        double[] loads = new double[groups.size()];
+        for(int g = 0; g < groups.size(); g++) {
+            for(String table : groups.get(g)) {
+                loads[g] += weightOf(table, weights, fallbackWeight);
+            }
+        }
+        return loads;
+    }
+
+    private static double weightOf(String table, Map<String, Double> weights, double fallbackWeight) {
+        Double weight = weights.get(table);
+        return weight == null ? fallbackWeight : Math.max(0, weight);
+    }
+
+    private static double meanWeight(List<String> tables, Map<String, Double> weights) {
+        double total = 0;
+        int known = 0;
+        for(String table : tables) {
+            Double weight = weights.get(table);
+            if(weight != null) {
+                total += Math.max(0, weight);
+                known++;
+            }
+        }
+        return known == 0 || total == 0 ? DEFAULT_WEIGHT : total / known;
+    }
+}
@@ -0,0 +1,144 @@
+package com.ibm.ingestion.connect.servicenow.source;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * JVM wide record of the load each table puts on its task, keyed by connector name and table key.
+ *
+ * Tasks report every fetch here and the connector reads the observed rates back when it (re)assigns tables to
+ * tasks. Only tasks running in the same worker JVM as the connector are visible, tables that have not been
+ * observed are simply missing from {@link #getRecordsPerMinute(String)}.
+ *
+ * A table that hasn't been reported for a few windows has most likely moved to a task in another worker, so its
+ * last rate is no longer live. Such tables are dropped as soon as they are read past that point.
+ */
+public final class TableLoadRegistry {
+
+    private static final long WINDOW_MS = 60 * 1000;
+    private static final double SMOOTHING = 0.5;
+    private static final long STALE_AFTER_MS = 3 * WINDOW_MS;
+
+    private static final ConcurrentHashMap<String, ConcurrentHashMap<String, TableLoad>> LOADS = new ConcurrentHashMap<>();
+
+    private TableLoadRegistry() {
+    }
+
+    static class TableLoad {
+        private long _windowStartMs;
+        private long _lastReportedMs;
+        private long _windowRecords;
+        private double _recordsPerMinute = -1;
+        private long _lagSeconds = -1;
+
+        TableLoad(long nowMs) {
+            this._windowStartMs = nowMs;
+            this._lastReportedMs = nowMs;
+        }
+
+        synchronized void record(long records, long lagSeconds, long nowMs) {
+            this._lastReportedMs = nowMs;
+            this._lagSeconds = lagSeconds;
+            this._windowRecords += records;
+            final long elapsedMs = nowMs - this._windowStartMs;
+            if(elapsedMs >= WINDOW_MS) {
+                final double windowRate = this._windowRecords * (double)WINDOW_MS / elapsedMs;
+                this._recordsPerMinute = this._recordsPerMinute < 0
+                        ? windowRate
+                        : SMOOTHING * windowRate + (1 - SMOOTHING) * this._recordsPerMinute;
+                this._windowStartMs = nowMs;
+                this._windowRecords = 0;
+            }
+        }
+
+        synchronized boolean isStale(long nowMs) {
+            return nowMs - this._lastReportedMs > STALE_AFTER_MS;
+        }
+
+        synchronized double getRecordsPerMinute() {
+            return this._recordsPerMinute;
+        }
+
+        synchronized long getLagSeconds() {
+            return this._lagSeconds;
+        }
+    }
+
+    /**
+     * @param records The number of records returned by the fetch.
+     * @param lagSeconds How far behind the wall clock the table's offset is after the fetch, or -1 if unknown.
+     */
+    public static void record(String connectorName, String tableKey, long records, long lagSeconds) {
+        record(connectorName, tableKey, records, lagSeconds, System.currentTimeMillis());
+    }
+
+    static void record(String connectorName, String tableKey, long records, long lagSeconds, long nowMs) {
+        LOADS.computeIfAbsent(nullToEmpty(connectorName), key -> new ConcurrentHashMap<>())
+                .computeIfAbsent(tableKey, key -> new TableLoad(nowMs))
+                .record(records, lagSeconds, nowMs);
+    }
+
+    /**
+     * @return Smoothed records per minute for every table of the connector that has been observed for at
+     * least one full window, and reported within the last few.
+     */
+    public static Map<String, Double> getRecordsPerMinute(String connectorName) {
+        return getRecordsPerMinute(connectorName, System.currentTimeMillis());
+    }
+
+    static Map<String, Double> getRecordsPerMinute(String connectorName, long nowMs) {
+        Map<String, Double> result = new HashMap<>();
+        Map<String, TableLoad> loads = freshLoads(connectorName, nowMs);
+        if(loads != null) {
+            loads.forEach((tableKey, load) -> {
+                final double rate = load.getRecordsPerMinute();
+                if(rate >= 0) {
+                    result.put(tableKey, rate);
+                }
+            });
+        }
+        return result;
+    }
+
+    /**
+     * @return The most recently reported lag, in seconds, for every table of the connector that reported one
+     * within the last few windows.
+     */
+    public static Map<String, Long> getLagSeconds(String connectorName) {
+        return getLagSeconds(connectorName, System.currentTimeMillis());
+    }
+
+    static Map<String, Long> getLagSeconds(String connectorName, long nowMs) {
+        Map<String, Long> result = new HashMap<>();
+        Map<String, TableLoad> loads = freshLoads(connectorName, nowMs);
+        if(loads != null) {
+            loads.forEach((tableKey, load) -> {
+                final long lag = load.getLagSeconds();
+                if(lag >= 0) {
+                    result.put(tableKey, lag);
+                }
+            });
+        }
+        return result;
+    }
+
+    /**
+     * @return The connector's loads, once those not reported for a few windows are dropped.
+     */
+    private static Map<String, TableLoad> freshLoads(String connectorName, long nowMs) {
+        Map<String, TableLoad> loads = LOADS.get(nullToEmpty(connectorName));
+        if(loads != null) {
+            loads.entrySet().removeIf(entry -> entry.getValue().isStale(nowMs));
+        }
+        return loads;
+    }
+
+    public static void clear(String connectorName) {
+        LOADS.remove(nullToEmpty(connectorName));
+    }
+
+    private static String nullToEmpty(String value) {
+        return value == null ? "" : value;
+    }
+}
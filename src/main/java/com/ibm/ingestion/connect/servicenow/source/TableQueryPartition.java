@@ -1,5 +1,6 @@
 package com.ibm.ingestion.connect.servicenow.source;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -7,19 +8,41 @@ public class TableQueryPartition {
 
 
     private static final String PARTITION_KEY = "partition";
+    private static final String STREAM_KEY = "stream";
     private String _tableName;
+    private String _stream;
+    private Map<String, Object> _partition;
 
     public TableQueryPartition(String tableName) {
         this._tableName = tableName;
+        // NOTE: immutable, so every record of the table can share the one instance.
+        this._partition = Collections.singletonMap(PARTITION_KEY, tableName);
+    }
+
+    /**
+     * A partition for a companion stream of the table (e.g. its deletes), tracked with its own offset.
+     */
+    public TableQueryPartition(String tableName, String stream) {
+        this._tableName = tableName;
+        this._stream = stream;
+        Map<String, Object> partition = new HashMap<>();
+        partition.put(PARTITION_KEY, tableName);
+        partition.put(STREAM_KEY, stream);
+        this._partition = Collections.unmodifiableMap(partition);
     }
 
     public String getTableName() {
         return this._tableName;
     }
 
+    /**
+     * @return The companion stream, or null for the table's rows.
+     */
+    public String getStream() {
+        return this._stream;
+    }
+
     public Map<String, Object> getPartition() {
-        HashMap<String, Object> partitionInfo = new HashMap<>(1);
-        partitionInfo.put(PARTITION_KEY, this._tableName);
-        return partitionInfo;
+        return this._partition;
     }
 }
@@ -0,0 +1,129 @@
+package com.ibm.ingestion.connect.servicenow.source;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Decides when the table to task assignment has drifted far enough from what the observed load calls for
+ * that the connector should ask for a task reconfiguration.
+ *
+ * A check only counts as skewed when the current imbalance (heaviest task / mean task load) is above the
+ * threshold, a fresh assignment would bring it back under the threshold, and the heaviest task is actually
+ * falling behind. The skew has to be seen on several checks in a row, and reconfigurations are never
+ * requested closer together than the minimum interval.
+ *
+ * Nothing is decided while most of the assigned tables have no weight or no recently reported lag, for instance
+ * when their tasks run in other workers; unknown loads would otherwise pass for average ones.
+ */
+public class TaskRebalanceMonitor {
+
+    private static final Logger LOG = LoggerFactory.getLogger(TaskRebalanceMonitor.class);
+
+    private final double IMBALANCE_THRESHOLD;
+    private final int CONSECUTIVE_CHECKS;
+    private final long MIN_INTERVAL_MS;
+    private final long LAG_THRESHOLD_SECONDS;
+
+    private int _consecutiveSkewedChecks = 0;
+    private long _lastRebalanceMs;
+
+    public TaskRebalanceMonitor(double imbalanceThreshold, int consecutiveChecks, long minIntervalMs, long lagThresholdSeconds, long nowMs) {
+        this.IMBALANCE_THRESHOLD = imbalanceThreshold;
+        this.CONSECUTIVE_CHECKS = Math.max(1, consecutiveChecks);
+        this.MIN_INTERVAL_MS = minIntervalMs;
+        this.LAG_THRESHOLD_SECONDS = lagThresholdSeconds;
+        // NOTE: a freshly made assignment gets the full minimum interval before it can be replaced.
+        this._lastRebalanceMs = nowMs;
+    }
+
+    /**
+     * @param assignment The table keys currently assigned to each task.
+     * @param weights The load per table key, as used by {@link TableAssignor}.
+     * @param lagSeconds The recently reported lag per table key, tables without a fresh report left out.
+     * @return true if a task reconfiguration should be requested now.
+     */
+    public synchronized boolean check(List<List<String>> assignment, Map<String, Double> weights, Map<String, Long> lagSeconds, long nowMs) {
+        if(assignment == null || assignment.size() < 2) {
+            return false;
+        }
+
+        if(this.isSkewed(assignment, weights, lagSeconds)) {
+            this._consecutiveSkewedChecks++;
+        } else {
+            this._consecutiveSkewedChecks = 0;
+        }
+
+        if(this._consecutiveSkewedChecks < this.CONSECUTIVE_CHECKS) {
+            return false;
+        }
+
+        if(nowMs - this._lastRebalanceMs < this.MIN_INTERVAL_MS) {
+            LOG.debug("Task load is skewed but the last reconfiguration was [{}] ms ago, waiting.", nowMs - this._lastRebalanceMs);
+            return false;
+        }
+
+        this._consecutiveSkewedChecks = 0;
+        this._lastRebalanceMs = nowMs;
+        return true;
+    }
+
+    private boolean isSkewed(List<List<String>> assignment, Map<String, Double> weights, Map<String, Long> lagSeconds) {
+        List<String> tables = new ArrayList<>();
+        assignment.forEach(tables::addAll);
+        final long known = tables.stream().filter(table -> weights.containsKey(table) && lagSeconds.containsKey(table)).count();
+        if(known * 2 <= tables.size()) {
+            LOG.debug("Only [{}] of [{}] tables have a known load, not checking the balance.", known, tables.size());
+            return false;
+        }
+
+        final double[] currentLoads = TableAssignor.loads(assignment, weights);
+        final double currentImbalance = imbalance(currentLoads);
+        if(currentImbalance <= this.IMBALANCE_THRESHOLD) {
+            return false;
+        }
+
+        final double proposedImbalance = imbalance(TableAssignor.loads(TableAssignor.assign(tables, weights, assignment.size()), weights));
+        if(proposedImbalance > this.IMBALANCE_THRESHOLD) {
+            // NOTE: a few very heavy tables can't be split any further, reassigning wouldn't help.
+            return false;
+        }
+
+        int heaviest = 0;
+        for(int i = 1; i < currentLoads.length; i++) {
+            if(currentLoads[i] > currentLoads[heaviest]) {
+                heaviest = i;
+            }
+        }
+
+        long heaviestLag = 0;
+        for(String table : assignment.get(heaviest)) {
+            Long lag = lagSeconds.get(table);
+            if(lag != null) {
+                heaviestLag = Math.max(heaviestLag, lag);
+            }
+        }
+        if(heaviestLag < this.LAG_THRESHOLD_SECONDS) {
+            return false;
+        }
+
+        LOG.info("Task load imbalance [{}] exceeds threshold [{}] (reassigning would give [{}]), heaviest task lag [{}] s.", currentImbalance, this.IMBALANCE_THRESHOLD, proposedImbalance, heaviestLag);
+        return true;
+    }
+
+    static double imbalance(double[] loads) {
+        double total = 0;
+        double max = 0;
+        for(double load : loads) {
+            total += load;
+            max = Math.max(max, load);
+        }
+        if(total <= 0) {
+            return 1.0;
+        }
+        return max / (total / loads.length);
+    }
+}
@@ -2,15 +2,30 @@ package com.ibm.ingestion.connect.servicenow.source;
 
 import java.time.Instant;
 import java.time.LocalDateTime;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
 
+/**
+ * Where a table is up to: the timestamp and identifier of the last row read, or, while the table's first load is
+ * still a snapshot, the sys_id the snapshot has read up to and when it started.
+ */
 public class TimestampSourceOffset {
 
     private static final String TIMESTAMP_KEY = "timestamp";
     private static final String LAST_READ_IDENTIFIER = "last_identifier";
+    private static final String PHASE_KEY = "phase";
+    private static final String SNAPSHOT_STARTED_KEY = "snapshot_started";
+    private static final String SNAPSHOT_CURSOR_KEY = "snapshot_cursor";
+    private static final String SNAPSHOT_PHASE = "snapshot";
     private Instant _lastSeenTimestamp;
     private String _lastReadIdentifier;
+    private Instant _snapshotStarted;
+    private String _snapshotCursor;
 
     public TimestampSourceOffset(Instant lastSeenTimestamp, String lastReadIdentifier) {
         this._lastSeenTimestamp = lastSeenTimestamp;
@@ -22,15 +37,36 @@ public class TimestampSourceOffset {
             return new TimestampSourceOffset(null, null);
         }
 
+        if(SNAPSHOT_PHASE.equals(offsetMap.get(PHASE_KEY))) {
+            TimestampSourceOffset offset = new TimestampSourceOffset(null, null);
+            offset._snapshotStarted = Instant.ofEpochSecond((long)offsetMap.get(SNAPSHOT_STARTED_KEY));
+            offset._snapshotCursor = (String)offsetMap.get(SNAPSHOT_CURSOR_KEY);
+            return offset;
+        }
+
         long lastSeenTimestampSeconds = (long)offsetMap.get(TIMESTAMP_KEY);
         String lastReadIdentifier = (String)offsetMap.get(LAST_READ_IDENTIFIER);
         return new TimestampSourceOffset(Instant.ofEpochSecond(lastSeenTimestampSeconds), lastReadIdentifier);
     }
 
     public Map<String, Object> toMap() {
+        if(this.isSnapshot()) {
+            return toSnapshotMap(this._snapshotStarted.getEpochSecond(), this._snapshotCursor);
+        }
         return toMap(this._lastSeenTimestamp, this._lastReadIdentifier);
     }
 
+    /**
+     * The offset of a row read by a snapshot, which resumes after {@code cursor}.
+     */
+    public static Map<String, Object> toSnapshotMap(long snapshotStartedSeconds, String cursor) {
+        Map<String, Object> offsetMap = new HashMap<String, Object>();
+        offsetMap.put(PHASE_KEY, SNAPSHOT_PHASE);
+        offsetMap.put(SNAPSHOT_STARTED_KEY, snapshotStartedSeconds);
+        offsetMap.put(SNAPSHOT_CURSOR_KEY, cursor);
+        return offsetMap;
+    }
+
     public static Map<String, Object> toMap(Instant lastSeenTimestamp, String lastReadIdentifier) {
         Map<String, Object> offsetMap = new HashMap<String, Object>();
         offsetMap.put(TIMESTAMP_KEY, lastSeenTimestamp.getEpochSecond());
@@ -38,6 +74,80 @@ public class TimestampSourceOffset {
         return offsetMap;
     }
 
+    /**
+     * As {@link #toMap(Instant, String)}, but as a compact read only map holding the given values directly, so
+     * emitting a record doesn't need a hash table or a new boxed timestamp per record.
+     */
+    public static Map<String, Object> toCompactMap(Long lastSeenTimestampSeconds, String lastReadIdentifier) {
+        return new CompactOffsetMap(lastSeenTimestampSeconds, lastReadIdentifier);
+    }
+
+    private static final class CompactOffsetMap extends AbstractMap<String, Object> {
+
+        private final Long _timestamp;
+        private final String _identifier;
+
+        private CompactOffsetMap(Long timestamp, String identifier) {
+            this._timestamp = timestamp;
+            this._identifier = identifier;
+        }
+
+        @Override
+        public Object get(Object key) {
+            if(TIMESTAMP_KEY.equals(key)) {
+                return this._timestamp;
+            }
+            if(LAST_READ_IDENTIFIER.equals(key)) {
+                return this._identifier;
+            }
+            return null;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return TIMESTAMP_KEY.equals(key) || LAST_READ_IDENTIFIER.equals(key);
+        }
+
+        @Override
+        public int size() {
+            return 2;
+        }
+
+        @Override
+        public Set<Entry<String, Object>> entrySet() {
+            return new AbstractSet<Entry<String, Object>>() {
+                @Override
+                public Iterator<Entry<String, Object>> iterator() {
+                    return new Iterator<Entry<String, Object>>() {
+                        private int _next = 0;
+
+                        @Override
+                        public boolean hasNext() {
+                            return this._next < 2;
+                        }
+
+                        @Override
+                        public Entry<String, Object> next() {
+                            switch(this._next++) {
+                                case 0:
+                                    return new SimpleImmutableEntry<>(TIMESTAMP_KEY, _timestamp);
+                                case 1:
+                                    return new SimpleImmutableEntry<>(LAST_READ_IDENTIFIER, _identifier);
+                                default:
+                                    throw new NoSuchElementException();
+                            }
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return 2;
+                }
+            };
+        }
+    }
+
     public Instant getLastSeenTimestamp() {
         return this._lastSeenTimestamp;
     }
@@ -55,4 +165,77 @@ public class TimestampSourceOffset {
     public void updateLastReadIdentifier(String lastReadIdentifier) {
         this._lastReadIdentifier = lastReadIdentifier;
     }
+
+    /**
+     * @return true if this offset is further on than {@code other}. Streaming from a timestamp is further on than
+     * any snapshot, and snapshots are only compared with ones started at the same time.
+     */
+    public boolean isAfter(TimestampSourceOffset other) {
+        if(this.isSnapshot()) {
+            if(other.isSnapshot()) {
+                return this._snapshotStarted.equals(other._snapshotStarted) && compareNullsFirst(this._snapshotCursor, other._snapshotCursor) > 0;
+            }
+            return other._lastSeenTimestamp == null;
+        }
+        if(this._lastSeenTimestamp == null) {
+            return false;
+        }
+        if(other.isSnapshot() || other._lastSeenTimestamp == null) {
+            return true;
+        }
+        final int timestamps = this._lastSeenTimestamp.compareTo(other._lastSeenTimestamp);
+        // NOTE: no identifier at a timestamp means none of its rows have been read yet.
+        return timestamps != 0 ? timestamps > 0 : compareNullsFirst(this._lastReadIdentifier, other._lastReadIdentifier) > 0;
+    }
+
+    private static int compareNullsFirst(String left, String right) {
+        if(left == null || right == null) {
+            return left == null ? (right == null ? 0 : -1) : 1;
+        }
+        return left.compareTo(right);
+    }
+
+    /**
+     * @return true before the table's first row, with neither a timestamp nor a snapshot to carry on from.
+     */
+    public boolean isEmpty() {
+        return !this.isSnapshot() && this._lastSeenTimestamp == null;
+    }
+
+    public boolean isSnapshot() {
+        return this._snapshotStarted != null;
+    }
+
+    /**
+     * @return When the snapshot started, or null if the table isn't being snapshotted.
+     */
+    public Instant getSnapshotStarted() {
+        return this._snapshotStarted;
+    }
+
+    /**
+     * @return The last sys_id the snapshot read, or null before its first row.
+     */
+    public String getSnapshotCursor() {
+        return this._snapshotCursor;
+    }
+
+    public void startSnapshot(Instant started) {
+        this._snapshotStarted = started;
+        this._snapshotCursor = null;
+    }
+
+    public void updateSnapshotCursor(String cursor) {
+        this._snapshotCursor = cursor;
+    }
+
+    /**
+     * Ends the snapshot, carrying on from the timestamp it started at, so rows changed while it ran are read.
+     */
+    public void finishSnapshot() {
+        this._lastSeenTimestamp = this._snapshotStarted;
+        this._lastReadIdentifier = null;
+        this._snapshotStarted = null;
+        this._snapshotCursor = null;
+    }
 }
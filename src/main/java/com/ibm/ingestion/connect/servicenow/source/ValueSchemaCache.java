@@ -0,0 +1,169 @@
+package com.ibm.ingestion.connect.servicenow.source;
+
+import com.ibm.ingestion.connect.servicenow.util.StructCodec;
+import com.ibm.ingestion.connect.servicenow.util.TypedValues;
+import org.apache.kafka.connect.data.Schema;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Hands out the value schema, and its compiled codec, for each record of a table.
+ *
+ * Records are keyed by a cheap fingerprint of their field set (names, and which fields carry display_value
+ * objects), so records with different fields no longer have to share the schema built from the first record. The
+ * fingerprint only narrows the search: a codec found by it is still checked against the record's fields, since
+ * field sets whose names hash alike share a fingerprint.
+ *
+ * In {@link Mode#RECORD} mode each distinct field set gets its own schema, kept in a bounded LRU cache. In
+ * {@link Mode#UNION} mode there is a single schema that grows to the superset of every field seen, so downstream
+ * consumers only see a new schema when a genuinely new field turns up.
+ *
+ * Fields can be given column types with {@link #setFieldTypes(Map)}; when the types change every schema is rebuilt.
+ *
+ * Every new schema is stamped with a version that only ever increases for the table. A field set that was evicted
+ * and comes back is built with the next version too, so a version number never stands for two schemas; only a
+ * rebuild of the latest field set keeps its version. Versions are not persisted, they start again from 1 when the
+ * task restarts.
+ */
+public class ValueSchemaCache {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ValueSchemaCache.class);
+
+    public enum Mode {
+        RECORD,
+        UNION
+    }
+
+    public static final int DEFAULT_MAX_SCHEMAS = 32;
+
+    private final String _table;
+    private final Mode _mode;
+    private final TypedValues.Failures _failures;
+    private final Map<Long, StructCodec> _codecs;
+    private int _nextVersion = 1;
+    private StructCodec _latest;
+    private StructCodec _union;
+    private Map<String, Schema> _types = Collections.emptyMap();
+
+    public ValueSchemaCache(String table, Mode mode) {
+        this(table, mode, DEFAULT_MAX_SCHEMAS);
+    }
+
+    public ValueSchemaCache(String table, Mode mode, int maxSchemas) {
+        this(table, mode, maxSchemas, null);
+    }
+
+    /**
+     * @param failures Where typed values that can't be converted are reported, null to only log them at debug.
+     */
+    public ValueSchemaCache(String table, Mode mode, int maxSchemas, TypedValues.Failures failures) {
+        this._table = table;
+        this._mode = mode;
+        this._failures = failures;
+        this._codecs = new LruMap<>(maxSchemas);
+    }
+
+    /**
+     * @param types The schema per ServiceNow field name, fields not in the map stay strings.
+     */
+    public void setFieldTypes(Map<String, Schema> types) {
+        if(types.equals(this._types)) {
+            return;
+        }
+
+        this._types = types;
+        this._codecs.clear();
+        this._latest = null;
+        if(this._union != null) {
+            this._union = this._union.withTypes(types, this._nextVersion++);
+            LOG.info("Column types changed, rebuilt union schema version [{}] for table [{}]: {}", this._union.schema().version(), this._table, this._union.schema());
+        }
+    }
+
+    public StructCodec codecFor(JSONObject record) {
+        final long fingerprint = fingerprint(record);
+        StructCodec codec = this._codecs.get(fingerprint);
+        if(codec != null && (this._mode == Mode.UNION ? codec.covers(record) : codec.matches(record))) {
+            return codec;
+        }
+
+        if(this._mode == Mode.UNION) {
+            if(this._union == null) {
+                this._union = StructCodec.compile(record, this._nextVersion++, this._types, this._failures);
+                LOG.info("Built union schema version [{}] for table [{}]: {}", this._union.schema().version(), this._table, this._union.schema());
+            } else if(!this._union.covers(record)) {
+                this._union = this._union.union(record, this._nextVersion++);
+                // NOTE: codecs for the field sets seen so far are all superseded by the wider schema.
+                this._codecs.clear();
+                LOG.info("Grew union schema to version [{}] for table [{}]: {}", this._union.schema().version(), this._table, this._union.schema());
+            }
+            codec = this._union;
+        } else {
+            // NOTE: the latest field set is the only one whose version is known not to have been handed out since.
+            if(this._latest != null && this._latest.matches(record)) {
+                codec = this._latest;
+            } else {
+                codec = StructCodec.compile(record, this._nextVersion++, this._types, this._failures);
+                this._latest = codec;
+                LOG.info("Built schema version [{}] for table [{}]: {}", codec.schema().version(), this._table, codec.schema());
+            }
+        }
+
+        this._codecs.put(fingerprint, codec);
+        return codec;
+    }
+
+    /**
+     * An order independent 64 bit hash of the record's field names and display_value flags.
+     */
+    static long fingerprint(JSONObject record) {
+        long hash = record.length();
+        Iterator<String> keys = record.keys();
+        while(keys.hasNext()) {
+            final String key = keys.next();
+            final Object value = record.opt(key);
+            final boolean displayValue = value instanceof JSONObject
+                    && ((JSONObject)value).has("display_value") && ((JSONObject)value).has("value");
+            long field = ((key.hashCode() & 0xffffffffL) << 1) | (displayValue ? 1 : 0);
+            field ^= (long)key.length() << 40;
+            hash += mix(field);
+        }
+        return hash;
+    }
+
+    private static long mix(long value) {
+        // NOTE: the murmur3 64 bit finalizer, so the sum of the field hashes doesn't collide on similar names.
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return value;
+    }
+
+    /**
+     * A map that drops its least recently used entry once it holds more than {@code maxEntries}.
+     */
+    private static final class LruMap<K, V> extends LinkedHashMap<K, V> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int _maxEntries;
+
+        LruMap(int maxEntries) {
+            super(16, 0.75f, true);
+            this._maxEntries = maxEntries;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+            return size() > this._maxEntries;
+        }
+    }
+}
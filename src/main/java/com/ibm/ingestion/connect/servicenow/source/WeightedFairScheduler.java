@@ -0,0 +1,94 @@
+package com.ibm.ingestion.connect.servicenow.source;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Start-time fair queuing over a fixed set of items (one per table).
+ *
+ * Every item carries a virtual start tag. Serving an item with a cost of N records advances its tag by
+ * N / weight, so an item with twice the weight can consume twice the records before it falls behind the
+ * others. Items that were idle are brought forward to the current virtual time when they become due again,
+ * which stops them from hoarding credit, but also means they go to the front of the line straight away.
+ */
+public class WeightedFairScheduler<T> {
+
+    private static class Entry {
+        private final int weight;
+        private final long order;
+        private double tag;
+
+        private Entry(int weight, long order) {
+            this.weight = weight;
+            this.order = order;
+        }
+    }
+
+    private final Map<T, Entry> _entries = new HashMap<>();
+    private double _virtualTime = 0;
+    private long _nextOrder = 0;
+
+    public void add(T item, int weight) {
+        if(weight < 1) {
+            throw new IllegalArgumentException(String.format("Weight must be at least 1, received [%s].", weight));
+        }
+        Entry entry = new Entry(weight, this._nextOrder++);
+        entry.tag = this._virtualTime;
+        this._entries.put(item, entry);
+    }
+
+    /**
+     * @param candidates The items that are due to be served.
+     * @return The candidates in the order they should be served, lowest virtual start tag first.
+     */
+    public List<T> order(Collection<T> candidates) {
+        List<T> ordered = new ArrayList<>(candidates);
+        for(T item : ordered) {
+            Entry entry = this.getEntry(item);
+            // NOTE: idle items don't get to bank credit while they were not due.
+            entry.tag = Math.max(entry.tag, this._virtualTime);
+        }
+
+        ordered.sort((left, right) -> {
+            Entry l = this.getEntry(left);
+            Entry r = this.getEntry(right);
+            int byTag = Double.compare(l.tag, r.tag);
+            if(byTag != 0) {
+                return byTag;
+            }
+            int byWeight = Integer.compare(r.weight, l.weight);
+            if(byWeight != 0) {
+                return byWeight;
+            }
+            return Long.compare(l.order, r.order);
+        });
+        return ordered;
+    }
+
+    /**
+     * Records that an item has been served.
+     * @param item The item that was served.
+     * @param cost The amount of work done, e.g. number of records returned. Anything below 1 counts as 1 so
+     *             that empty fetches still take their turn.
+     */
+    public void charge(T item, long cost) {
+        Entry entry = this.getEntry(item);
+        this._virtualTime = Math.max(this._virtualTime, entry.tag);
+        entry.tag += (double)Math.max(1, cost) / entry.weight;
+    }
+
+    public int getWeight(T item) {
+        return this.getEntry(item).weight;
+    }
+
+    private Entry getEntry(T item) {
+        Entry entry = this._entries.get(item);
+        if(entry == null) {
+            throw new IllegalArgumentException(String.format("Item [%s] has not been added to the scheduler.", item));
+        }
+        return entry;
+    }
+}
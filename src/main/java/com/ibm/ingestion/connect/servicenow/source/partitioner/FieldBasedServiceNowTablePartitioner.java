@@ -1,21 +1,34 @@
 package com.ibm.ingestion.connect.servicenow.source.partitioner;
 
+import com.ibm.ingestion.connect.servicenow.util.RawJsonRecord;
+import org.apache.kafka.connect.data.Field;
 import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.data.Struct;
 import org.json.JSONObject;
 
 import java.util.List;
 
 import static com.ibm.ingestion.connect.servicenow.util.Helpers.buildKeyStruct;
 import static com.ibm.ingestion.connect.servicenow.util.Helpers.buildSchemaForKey;
+import static com.ibm.ingestion.connect.servicenow.util.Helpers.underscoresForPeriods;
 
 public class FieldBasedServiceNowTablePartitioner implements IServiceNowTablePartitioner {
 
     private Schema _keySchema;
     private List<String> _keyFields;
+    private byte[][] _rawKeyFields;
+    private Field[] _rawKeySchemaFields;
 
     public FieldBasedServiceNowTablePartitioner(List<String> keyFields) {
         this._keyFields = keyFields;
         this._keySchema = buildSchemaForKey(this._keyFields);
+
+        this._rawKeyFields = new byte[keyFields.size()][];
+        this._rawKeySchemaFields = new Field[keyFields.size()];
+        for(int i = 0; i < keyFields.size(); i++) {
+            this._rawKeyFields[i] = RawJsonRecord.key(keyFields.get(i));
+            this._rawKeySchemaFields[i] = this._keySchema.field(underscoresForPeriods(keyFields.get(i)));
+        }
     }
 
     public String getPartitionerId() {
@@ -33,4 +46,14 @@ public class FieldBasedServiceNowTablePartitioner implements IServiceNowTablePar
     public Object getKeyValue(JSONObject record) {
         return buildKeyStruct(this._keySchema, this._keyFields, record);
     }
+
+    public Object getKeyValue(RawJsonRecord record) {
+        Struct struct = new Struct(this._keySchema);
+        for(int i = 0; i < this._rawKeyFields.length; i++) {
+            if(this._rawKeySchemaFields[i] != null) {
+                struct.put(this._rawKeySchemaFields[i], record.getString(this._rawKeyFields[i]));
+            }
+        }
+        return struct;
+    }
 }
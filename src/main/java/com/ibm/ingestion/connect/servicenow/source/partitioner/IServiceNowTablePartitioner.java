@@ -1,5 +1,6 @@
 package com.ibm.ingestion.connect.servicenow.source.partitioner;
 
+import com.ibm.ingestion.connect.servicenow.util.RawJsonRecord;
 import org.apache.kafka.connect.data.Schema;
 import org.json.JSONObject;
 
@@ -8,4 +9,5 @@ public interface IServiceNowTablePartitioner {
     Integer getTargetPartition();
     Schema getKeySchema();
     Object getKeyValue(JSONObject record);
+    Object getKeyValue(RawJsonRecord record);
 }
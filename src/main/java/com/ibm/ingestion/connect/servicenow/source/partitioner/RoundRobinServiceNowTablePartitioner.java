@@ -1,5 +1,6 @@
 package com.ibm.ingestion.connect.servicenow.source.partitioner;
 
+import com.ibm.ingestion.connect.servicenow.util.RawJsonRecord;
 import org.apache.kafka.connect.data.Schema;
 import org.json.JSONObject;
 
@@ -24,4 +25,8 @@ public class RoundRobinServiceNowTablePartitioner implements IServiceNowTablePar
     public Object getKeyValue(JSONObject record) {
         return null;
     }
+
+    public Object getKeyValue(RawJsonRecord record) {
+        return null;
+    }
 }
@@ -0,0 +1,56 @@
+package com.ibm.ingestion.connect.servicenow.util;
+
+/**
+ * How long to let rows settle before querying past them, adapted to the commit lag actually observed.
+ *
+ * The delay is the worst lateness seen recently, with a safety factor, kept within [min, max]. It starts at the
+ * max, and the worst lateness decays with a half life, so without late rows the delay works its way down to the
+ * min, and a late row puts it straight back up.
+ */
+public final class AdaptiveDelay {
+
+    static final double SAFETY_FACTOR = 1.5;
+    static final long HALF_LIFE_MS = 30 * 60 * 1000L;
+
+    private final int _minSeconds;
+    private final int _maxSeconds;
+    private double _peakSeconds;
+    private long _peakAtMs;
+
+    public AdaptiveDelay(int minSeconds, int maxSeconds, long nowMs) {
+        if(minSeconds < 0 || maxSeconds < minSeconds) {
+            throw new IllegalArgumentException(String.format("The delay bounds must satisfy 0 <= min <= max, received [%s] and [%s].", minSeconds, maxSeconds));
+        }
+        this._minSeconds = minSeconds;
+        this._maxSeconds = maxSeconds;
+        this._peakSeconds = maxSeconds / SAFETY_FACTOR;
+        this._peakAtMs = nowMs;
+    }
+
+    /**
+     * Notes a row that turned up this many seconds after the query that should have returned it.
+     */
+    public void observeLateness(long seconds, long nowMs) {
+        if(seconds > this.peakAt(nowMs)) {
+            this._peakSeconds = seconds;
+            this._peakAtMs = nowMs;
+        }
+    }
+
+    public int getDelaySeconds(long nowMs) {
+        final long delay = (long)Math.ceil(this.peakAt(nowMs) * SAFETY_FACTOR);
+        return (int)Math.max(this._minSeconds, Math.min(this._maxSeconds, delay));
+    }
+
+    /**
+     * @return The longest the delay can be, however late rows turn up.
+     */
+    public int getMaxSeconds() {
+        return this._maxSeconds;
+    }
+
+    private double peakAt(long nowMs) {
+        final long elapsedMs = Math.max(0, nowMs - this._peakAtMs);
+        return this._peakSeconds * Math.pow(0.5, (double)elapsedMs / HALF_LIFE_MS);
+    }
+}
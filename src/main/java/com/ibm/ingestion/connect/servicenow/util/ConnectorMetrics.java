@@ -0,0 +1,81 @@
+package com.ibm.ingestion.connect.servicenow.util;
+
+import org.apache.kafka.common.MetricName;
+import org.apache.kafka.common.metrics.JmxReporter;
+import org.apache.kafka.common.metrics.Measurable;
+import org.apache.kafka.common.metrics.MetricConfig;
+import org.apache.kafka.common.metrics.Metrics;
+import org.apache.kafka.common.metrics.Sensor;
+import org.apache.kafka.common.metrics.stats.Avg;
+import org.apache.kafka.common.metrics.stats.Max;
+import org.apache.kafka.common.metrics.stats.Meter;
+import org.apache.kafka.common.utils.Time;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * JVM wide metrics registry for the connector, exposed over JMX under the {@value #JMX_PREFIX} domain.
+ *
+ * Sensors are keyed by name and tags, so every task that asks for the same sensor shares it.
+ */
+public final class ConnectorMetrics {
+
+    public static final String JMX_PREFIX = "kafka.connect.servicenow";
+
+    // NOTE: the prefix constructor is deprecated for a MetricsContext, which the runtimes before Kafka 2.6 lack.
+    @SuppressWarnings("deprecation")
+    private static final Metrics METRICS = new Metrics(
+            new MetricConfig(),
+            Collections.singletonList(new JmxReporter(JMX_PREFIX)),
+            Time.SYSTEM);
+
+    private ConnectorMetrics() {
+    }
+
+    /**
+     * A sensor that reports the average and maximum of the recorded values as {@code <name>-avg} and {@code <name>-max}.
+     */
+    public static synchronized Sensor latencySensor(String group, String name, String description, Map<String, String> tags) {
+        final String sensorName = sensorName(group, name, tags);
+        Sensor sensor = METRICS.getSensor(sensorName);
+        if(sensor == null) {
+            sensor = METRICS.sensor(sensorName);
+            sensor.add(METRICS.metricName(name + "-avg", group, "The average " + description, tags), new Avg());
+            sensor.add(METRICS.metricName(name + "-max", group, "The maximum " + description, tags), new Max());
+        }
+        return sensor;
+    }
+
+    /**
+     * A sensor that reports the running total and per second rate of the recorded values as {@code <name>-total}
+     * and {@code <name>-rate}.
+     */
+    public static synchronized Sensor countSensor(String group, String name, String description, Map<String, String> tags) {
+        final String sensorName = sensorName(group, name, tags);
+        Sensor sensor = METRICS.getSensor(sensorName);
+        if(sensor == null) {
+            sensor = METRICS.sensor(sensorName);
+            sensor.add(new Meter(
+                    METRICS.metricName(name + "-rate", group, "The per second rate of " + description, tags),
+                    METRICS.metricName(name + "-total", group, "The total number of " + description, tags)));
+        }
+        return sensor;
+    }
+
+    /**
+     * Registers a gauge, unless one with the same name and tags is already registered.
+     */
+    public static synchronized void gauge(String group, String name, String description, Map<String, String> tags, Measurable measurable) {
+        MetricName metricName = METRICS.metricName(name, group, description, tags);
+        if(METRICS.metric(metricName) == null) {
+            METRICS.addMetric(metricName, measurable);
+        }
+    }
+
+    private static String sensorName(String group, String name, Map<String, String> tags) {
+        // NOTE: sorted so the same tags always produce the same sensor name.
+        return String.format("%s:%s:%s", group, name, new TreeMap<>(tags));
+    }
+}
@@ -0,0 +1,262 @@
+package com.ibm.ingestion.connect.servicenow.util;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+
+/**
+ * Remembers which versions of rows, (sys_id, sys_mod_count), have already been emitted, so rows fetched again
+ * (the re-scan of the offset's second, the through-delay window, restarts) can be dropped.
+ *
+ * The 128 bit sys_id is kept as two longs alongside the mod count in primitive arrays, open addressing, so an
+ * entry costs no objects. Memory is bounded with two generations: once the current one holds {@code maxEntries}
+ * rows it becomes the previous one and the one before is dropped, so the last {@code maxEntries} rows are always
+ * remembered, and at most twice that. Generations grow as rows are added, so memory follows the rows remembered
+ * rather than the bound.
+ */
+public final class DedupCache {
+
+    private static final int MAGIC = 0x534E4443;
+    private static final long EMPTY = -1;
+    private static final int MAX_ENTRIES = 1 << 24;
+
+    private final int _maxEntries;
+    private Generation _current;
+    private Generation _previous;
+
+    public DedupCache(int maxEntries) {
+        if(maxEntries < 1 || maxEntries > MAX_ENTRIES) {
+            throw new IllegalArgumentException(String.format("The dedup cache must hold between 1 and %s entries, received [%s].", MAX_ENTRIES, maxEntries));
+        }
+        this._maxEntries = maxEntries;
+        this._current = new Generation(maxEntries);
+        this._previous = new Generation(maxEntries);
+    }
+
+    /**
+     * Notes a row version as emitted.
+     *
+     * @return false if it already was, or true if it is new (or its sys_id isn't a 32 character hexadecimal id,
+     * which are never treated as duplicates).
+     */
+    public boolean add(String sysId, long modCount) {
+        if(!isTracked(sysId, modCount)) {
+            return true;
+        }
+        return this.add(parseHex(sysId, 0), parseHex(sysId, 16), modCount);
+    }
+
+    /**
+     * @return true if the row version was already emitted, without noting it.
+     */
+    public boolean contains(String sysId, long modCount) {
+        if(!isTracked(sysId, modCount)) {
+            return false;
+        }
+        final long high = parseHex(sysId, 0);
+        final long low = parseHex(sysId, 16);
+        return this._current.contains(high, low, modCount) || this._previous.contains(high, low, modCount);
+    }
+
+    /**
+     * @return true if the row version can be remembered, a 32 character hexadecimal sys_id and a mod count.
+     */
+    public static boolean isTracked(String sysId, long modCount) {
+        if(sysId == null || sysId.length() != 32 || modCount < 0) {
+            return false;
+        }
+        for(int i = 0; i < 32; i++) {
+            if(Character.digit(sysId.charAt(i), 16) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean add(long high, long low, long modCount) {
+        if(this._current.contains(high, low, modCount)) {
+            return false;
+        }
+        final boolean seen = this._previous.contains(high, low, modCount);
+
+        // NOTE: rows seen again are carried into the current generation, so rows that keep coming back stay.
+        if(this._current.size() >= this._maxEntries) {
+            Generation dropped = this._previous;
+            this._previous = this._current;
+            dropped.clear();
+            this._current = dropped;
+        }
+        this._current.put(high, low, modCount);
+        return !seen;
+    }
+
+    public int size() {
+        return this._current.size() + this._previous.size();
+    }
+
+    /**
+     * Writes the remembered rows to {@code file}, through a temp file so a crash never leaves it half written.
+     */
+    public void save(File file) throws IOException {
+        final File next = new File(file.getPath() + ".next");
+        try(DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(next)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(this.size());
+            // NOTE: oldest first, so loading them back in order keeps them in the same generations.
+            this._previous.writeTo(out);
+            this._current.writeTo(out);
+        }
+        Files.move(next.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Adds the rows saved in {@code file}, if it exists.
+     *
+     * @return The number of rows read.
+     */
+    public int load(File file) throws IOException {
+        if(!file.exists()) {
+            return 0;
+        }
+        try(DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if(in.readInt() != MAGIC) {
+                throw new IOException(String.format("[%s] isn't a dedup cache.", file));
+            }
+            final int count = in.readInt();
+            for(int i = 0; i < count; i++) {
+                final long high = in.readLong();
+                final long low = in.readLong();
+                final long modCount = in.readLong();
+                if(modCount >= 0) {
+                    this.add(high, low, modCount);
+                }
+            }
+            return count;
+        }
+    }
+
+    private static long parseHex(String sysId, int from) {
+        long value = 0;
+        for(int i = from; i < from + 16; i++) {
+            value = (value << 4) | Character.digit(sysId.charAt(i), 16);
+        }
+        return value;
+    }
+
+    /**
+     * One generation, a table kept at most half full. It starts small and doubles as it fills, up to the size
+     * {@code maxEntries} needs, so a large bound costs nothing until that many rows are seen. A mod count of -1 marks
+     * an empty slot.
+     */
+    private static final class Generation {
+
+        private static final int INITIAL_CAPACITY = 1024;
+
+        private final int _maxCapacity;
+        private long[] _high;
+        private long[] _low;
+        private long[] _modCounts;
+        private int _mask;
+        private int _size;
+
+        Generation(int maxEntries) {
+            this._maxCapacity = Integer.highestOneBit(Math.max(2, maxEntries) * 2 - 1) << 1;
+            this.allocate(Math.min(INITIAL_CAPACITY, this._maxCapacity));
+        }
+
+        private void allocate(int capacity) {
+            this._high = new long[capacity];
+            this._low = new long[capacity];
+            this._modCounts = new long[capacity];
+            this._mask = capacity - 1;
+            Arrays.fill(this._modCounts, EMPTY);
+        }
+
+        int size() {
+            return this._size;
+        }
+
+        boolean contains(long high, long low, long modCount) {
+            int slot = slotOf(high, low, modCount);
+            while(this._modCounts[slot] != EMPTY) {
+                if(this._modCounts[slot] == modCount && this._high[slot] == high && this._low[slot] == low) {
+                    return true;
+                }
+                slot = (slot + 1) & this._mask;
+            }
+            return false;
+        }
+
+        void put(long high, long low, long modCount) {
+            int slot = slotOf(high, low, modCount);
+            while(this._modCounts[slot] != EMPTY) {
+                if(this._modCounts[slot] == modCount && this._high[slot] == high && this._low[slot] == low) {
+                    return;
+                }
+                slot = (slot + 1) & this._mask;
+            }
+            if((this._size + 1) * 2 > this._mask + 1 && this._mask + 1 < this._maxCapacity) {
+                this.grow();
+                slot = slotOf(high, low, modCount);
+                while(this._modCounts[slot] != EMPTY) {
+                    slot = (slot + 1) & this._mask;
+                }
+            }
+            this._high[slot] = high;
+            this._low[slot] = low;
+            this._modCounts[slot] = modCount;
+            this._size++;
+        }
+
+        private void grow() {
+            final long[] high = this._high;
+            final long[] low = this._low;
+            final long[] modCounts = this._modCounts;
+            this.allocate(modCounts.length * 2);
+            for(int i = 0; i < modCounts.length; i++) {
+                if(modCounts[i] == EMPTY) {
+                    continue;
+                }
+                int slot = slotOf(high[i], low[i], modCounts[i]);
+                while(this._modCounts[slot] != EMPTY) {
+                    slot = (slot + 1) & this._mask;
+                }
+                this._high[slot] = high[i];
+                this._low[slot] = low[i];
+                this._modCounts[slot] = modCounts[i];
+            }
+        }
+
+        void clear() {
+            // NOTE: shrinks back, the arrays grown for a burst of rows aren't held on to.
+            this.allocate(Math.min(INITIAL_CAPACITY, this._maxCapacity));
+            this._size = 0;
+        }
+
+        void writeTo(DataOutputStream out) throws IOException {
+            for(int slot = 0; slot <= this._mask; slot++) {
+                if(this._modCounts[slot] != EMPTY) {
+                    out.writeLong(this._high[slot]);
+                    out.writeLong(this._low[slot]);
+                    out.writeLong(this._modCounts[slot]);
+                }
+            }
+        }
+
+        private int slotOf(long high, long low, long modCount) {
+            long hash = high ^ (low * 0x9E3779B97F4A7C15L) ^ (modCount * 0xC2B2AE3D27D4EB4FL);
+            hash ^= hash >>> 33;
+            hash *= 0xff51afd7ed558ccdL;
+            hash ^= hash >>> 33;
+            return (int)hash & this._mask;
+        }
+    }
+}
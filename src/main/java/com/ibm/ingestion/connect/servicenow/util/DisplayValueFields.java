@@ -0,0 +1,75 @@
+package com.ibm.ingestion.connect.servicenow.util;
+
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Display values for a chosen few reference fields, fetched as dot-walked fields (e.g. "assigned_to.name") rather
+ * than asking ServiceNow for display values on every field.
+ *
+ * Each record is rewritten so the reference field looks the way it does with display_value=all, which the value
+ * schema then flattens into the usual {@code <field>} and {@code <field>_display_value} columns.
+ */
+public final class DisplayValueFields {
+
+    private final String[] _fields;
+    private final String[] _dotWalkedFields;
+
+    private DisplayValueFields(String[] fields, String[] dotWalkedFields) {
+        this._fields = fields;
+        this._dotWalkedFields = dotWalkedFields;
+    }
+
+    /**
+     * @param dotWalkedFields Entries of the form {@code <reference field>.<field on the referenced table>}.
+     * @throws IllegalArgumentException if an entry isn't dot-walked, or a reference field is listed twice.
+     */
+    public static DisplayValueFields parse(List<String> dotWalkedFields) {
+        List<String> fields = new ArrayList<>();
+        for(String dotWalkedField : dotWalkedFields) {
+            final int separator = dotWalkedField.indexOf('.');
+            if(separator <= 0 || separator == dotWalkedField.length() - 1) {
+                throw new IllegalArgumentException(String.format("Expected a dot-walked field like 'assigned_to.name', received [%s].", dotWalkedField));
+            }
+            final String field = dotWalkedField.substring(0, separator);
+            if(fields.contains(field)) {
+                throw new IllegalArgumentException(String.format("Field [%s] has more than one display value field.", field));
+            }
+            fields.add(field);
+        }
+        return new DisplayValueFields(fields.toArray(new String[0]), dotWalkedFields.toArray(new String[0]));
+    }
+
+    /**
+     * @return The fields to request: the reference fields and their dot-walked display fields.
+     */
+    public List<String> requestFields() {
+        List<String> fields = new ArrayList<>();
+        for(int i = 0; i < this._fields.length; i++) {
+            fields.add(this._fields[i]);
+            fields.add(this._dotWalkedFields[i]);
+        }
+        return fields;
+    }
+
+    /**
+     * Replaces each dot-walked field in the record with a {@code {value, display_value}} object on its reference field.
+     */
+    public JSONObject apply(JSONObject record) {
+        for(int i = 0; i < this._fields.length; i++) {
+            if(!record.has(this._fields[i]) && !record.has(this._dotWalkedFields[i])) {
+                continue;
+            }
+            final Object displayValue = record.remove(this._dotWalkedFields[i]);
+            final Object value = record.opt(this._fields[i]);
+
+            JSONObject flattened = new JSONObject();
+            flattened.put("value", value == null ? JSONObject.NULL : value);
+            flattened.put("display_value", displayValue == null ? JSONObject.NULL : displayValue);
+            record.put(this._fields[i], flattened);
+        }
+        return record;
+    }
+}
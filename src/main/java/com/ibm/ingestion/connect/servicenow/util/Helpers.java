@@ -6,6 +6,7 @@ import org.apache.kafka.connect.data.Struct;
 import org.json.JSONObject;
 
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
@@ -20,12 +21,117 @@ public final class Helpers {
     // ServiceNow display format: "03/02/2026 14:40:07" (when display_value=true)
     private static DateTimeFormatter ServiceNowDisplayFormat = DateTimeFormatter.ofPattern("MM/dd/yyyy HH:mm:ssX");
 
+    private static final long NOT_PARSED = Long.MIN_VALUE;
+
     /**
      * @param raw The timestamp string from ServiceNow
      * @return LocalDateTime in UTC
      * @throws DateTimeParseException if the timestamp cannot be parsed in either format
      */
     public static LocalDateTime parseServiceNowDateTimeUtc(String raw) {
+        final long epochSeconds = parseFixedLayout(raw);
+        if(epochSeconds != NOT_PARSED) {
+            return LocalDateTime.ofEpochSecond(epochSeconds, 0, ZoneOffset.UTC);
+        }
+        return parseServiceNowDateTimeUtcWithFormatter(raw);
+    }
+
+    /**
+     * As {@link #parseServiceNowDateTimeUtc(String)}, returning seconds since the epoch without building any
+     * intermediate objects for well formed timestamps.
+     */
+    public static long parseServiceNowEpochSecondsUtc(String raw) {
+        final long epochSeconds = parseFixedLayout(raw);
+        if(epochSeconds != NOT_PARSED) {
+            return epochSeconds;
+        }
+        return parseServiceNowDateTimeUtcWithFormatter(raw).toEpochSecond(ZoneOffset.UTC);
+    }
+
+    /**
+     * Parses "yyyy-MM-dd HH:mm:ss" and "MM/dd/yyyy HH:mm:ss", optionally followed by "Z", character by character.
+     *
+     * @return The epoch seconds, or {@link #NOT_PARSED} for anything else (including dates the formatters would
+     * adjust, like the 30th of February), which is then left to the formatters so the result is always the same.
+     */
+    private static long parseFixedLayout(String raw) {
+        if(raw == null) {
+            return NOT_PARSED;
+        }
+        final int length = raw.length();
+        if(length != 19 && !(length == 20 && raw.charAt(19) == 'Z')) {
+            return NOT_PARSED;
+        }
+        if(raw.charAt(10) != ' ' || raw.charAt(13) != ':' || raw.charAt(16) != ':') {
+            return NOT_PARSED;
+        }
+
+        final int year;
+        final int month;
+        final int day;
+        if(raw.charAt(4) == '-' && raw.charAt(7) == '-') {
+            year = digits(raw, 0, 4);
+            month = digits(raw, 5, 2);
+            day = digits(raw, 8, 2);
+        } else if(raw.charAt(2) == '/' && raw.charAt(5) == '/') {
+            month = digits(raw, 0, 2);
+            day = digits(raw, 3, 2);
+            year = digits(raw, 6, 4);
+        } else {
+            return NOT_PARSED;
+        }
+        final int hour = digits(raw, 11, 2);
+        final int minute = digits(raw, 14, 2);
+        final int second = digits(raw, 17, 2);
+
+        if(year < 1 || month < 1 || month > 12 || day < 1 || day > lengthOfMonth(year, month)
+                || hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 59) {
+            return NOT_PARSED;
+        }
+
+        return epochDay(year, month, day) * 86400L + hour * 3600L + minute * 60L + second;
+    }
+
+    /**
+     * @return The value of {@code count} ascii digits starting at {@code offset}, or -1 if any of them isn't a digit.
+     */
+    private static int digits(String raw, int offset, int count) {
+        int value = 0;
+        for(int i = offset; i < offset + count; i++) {
+            final int digit = raw.charAt(i) - '0';
+            if(digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    private static int lengthOfMonth(int year, int month) {
+        switch(month) {
+            case 2:
+                return ((year & 3) == 0 && (year % 100 != 0 || year % 400 == 0)) ? 29 : 28;
+            case 4:
+            case 6:
+            case 9:
+            case 11:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+
+    private static long epochDay(int year, int month, int day) {
+        // NOTE: days from civil, counting years from March so the leap day falls at the end of the year.
+        final int y = month <= 2 ? year - 1 : year;
+        final int era = y / 400;
+        final int yearOfEra = y - era * 400;
+        final int dayOfYear = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        final int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097L + dayOfEra - 719468L;
+    }
+
+    static LocalDateTime parseServiceNowDateTimeUtcWithFormatter(String raw) {
         if (raw == null || raw.trim().isEmpty()) {
             throw new IllegalArgumentException("Timestamp string cannot be null or empty");
         }
@@ -73,6 +179,20 @@ public final class Helpers {
         return result;
     }
 
+    /**
+     * @return A field of a row as text, its "value" when display_value=all nests it, or null if missing or null.
+     */
+    public static String valueOf(JSONObject row, String field) {
+        Object value = row.opt(field);
+        if(value instanceof JSONObject) {
+            value = ((JSONObject)value).opt("value");
+        }
+        if(value == null || value == JSONObject.NULL) {
+            return null;
+        }
+        return value.toString();
+    }
+
     public static String underscoresForPeriods(String periods) {
         return periods.replaceAll("\\.", "__");
     }
@@ -0,0 +1,171 @@
+package com.ibm.ingestion.connect.servicenow.util;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Minimal scanning over UTF-8 encoded JSON, enough to find values by key without building a document.
+ *
+ * Nested objects and arrays are skipped by balancing brackets (outside of strings) rather than being fully
+ * validated, the Table API is trusted to return well formed JSON.
+ */
+final class JsonBytes {
+
+    private JsonBytes() {
+    }
+
+    static int skipWhitespace(byte[] bytes, int index, int end) throws IOException {
+        while(index < end) {
+            final byte b = bytes[index];
+            if(b != ' ' && b != '\n' && b != '\r' && b != '\t') {
+                return index;
+            }
+            index++;
+        }
+        throw new IOException("Unexpected end of JSON.");
+    }
+
+    static int expect(byte[] bytes, int index, int end, char expected) throws IOException {
+        index = skipWhitespace(bytes, index, end);
+        if(bytes[index] != expected) {
+            throw new IOException(String.format("Expected [%s] at offset [%s] but found [%s].", expected, index, (char)bytes[index]));
+        }
+        return index + 1;
+    }
+
+    /**
+     * @param index The offset of the opening quote.
+     * @return The offset just past the closing quote.
+     */
+    static int skipString(byte[] bytes, int index, int end) throws IOException {
+        index++;
+        while(index < end) {
+            final byte b = bytes[index];
+            if(b == '"') {
+                return index + 1;
+            }
+            index += b == '\\' ? 2 : 1;
+        }
+        throw new IOException("Unterminated JSON string.");
+    }
+
+    /**
+     * @param index The offset of the first byte of the value.
+     * @return The offset just past the value.
+     */
+    static int skipValue(byte[] bytes, int index, int end) throws IOException {
+        final byte first = bytes[index];
+        if(first == '"') {
+            return skipString(bytes, index, end);
+        }
+
+        if(first == '{' || first == '[') {
+            int depth = 0;
+            while(index < end) {
+                final byte b = bytes[index];
+                if(b == '"') {
+                    index = skipString(bytes, index, end);
+                    continue;
+                }
+                if(b == '{' || b == '[') {
+                    depth++;
+                } else if(b == '}' || b == ']') {
+                    if(--depth == 0) {
+                        return index + 1;
+                    }
+                }
+                index++;
+            }
+            throw new IOException("Unbalanced JSON object or array.");
+        }
+
+        // NOTE: numbers, true, false and null run until the next separator.
+        while(index < end) {
+            final byte b = bytes[index];
+            if(b == ',' || b == '}' || b == ']' || b == ' ' || b == '\n' || b == '\r' || b == '\t') {
+                return index;
+            }
+            index++;
+        }
+        return index;
+    }
+
+    /**
+     * @param start The offset of the opening quote of a string.
+     * @param stop The offset just past its closing quote.
+     */
+    static boolean stringEquals(byte[] bytes, int start, int stop, byte[] expected) {
+        final int length = stop - start - 2;
+        boolean escaped = false;
+        for(int i = start + 1; i < stop - 1; i++) {
+            if(bytes[i] == '\\') {
+                escaped = true;
+                break;
+            }
+        }
+        if(escaped) {
+            return decodeString(bytes, start, stop).equals(new String(expected, StandardCharsets.UTF_8));
+        }
+
+        if(length != expected.length) {
+            return false;
+        }
+        for(int i = 0; i < length; i++) {
+            if(bytes[start + 1 + i] != expected[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param start The offset of the opening quote of a string.
+     * @param stop The offset just past its closing quote.
+     */
+    static String decodeString(byte[] bytes, int start, int stop) {
+        int backslash = -1;
+        for(int i = start + 1; i < stop - 1; i++) {
+            if(bytes[i] == '\\') {
+                backslash = i;
+                break;
+            }
+        }
+        if(backslash < 0) {
+            return new String(bytes, start + 1, stop - start - 2, StandardCharsets.UTF_8);
+        }
+
+        final StringBuilder builder = new StringBuilder(stop - start);
+        builder.append(new String(bytes, start + 1, backslash - start - 1, StandardCharsets.UTF_8));
+        int i = backslash;
+        int runStart = i;
+        while(i < stop - 1) {
+            if(bytes[i] != '\\') {
+                i++;
+                continue;
+            }
+            if(i > runStart) {
+                builder.append(new String(bytes, runStart, i - runStart, StandardCharsets.UTF_8));
+            }
+            final byte escape = bytes[i + 1];
+            switch(escape) {
+                case 'b': builder.append('\b'); break;
+                case 'f': builder.append('\f'); break;
+                case 'n': builder.append('\n'); break;
+                case 'r': builder.append('\r'); break;
+                case 't': builder.append('\t'); break;
+                case 'u':
+                    builder.append((char)Integer.parseInt(new String(bytes, i + 2, 4, StandardCharsets.US_ASCII), 16));
+                    i += 4;
+                    break;
+                default:
+                    builder.append((char)escape);
+            }
+            i += 2;
+            runStart = i;
+        }
+        if(stop - 1 > runStart) {
+            builder.append(new String(bytes, runStart, stop - 1 - runStart, StandardCharsets.UTF_8));
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,28 @@
+package com.ibm.ingestion.connect.servicenow.util;
+
+import org.json.JSONObject;
+
+import java.util.List;
+
+/**
+ * The records of a Table API response body, parsed into {@link JSONObject}s, with the size of the body they were
+ * parsed from.
+ */
+public final class JsonPage {
+
+    private final List<JSONObject> _records;
+    private final long _sizeInBytes;
+
+    public JsonPage(List<JSONObject> records, long sizeInBytes) {
+        this._records = records;
+        this._sizeInBytes = sizeInBytes;
+    }
+
+    public List<JSONObject> getRecords() {
+        return this._records;
+    }
+
+    public long getSizeInBytes() {
+        return this._sizeInBytes;
+    }
+}
@@ -0,0 +1,146 @@
+package com.ibm.ingestion.connect.servicenow.util;
+
+import org.apache.kafka.common.metrics.Sensor;
+import org.json.JSONObject;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Caps the size of text fields (description, work_notes, comments, ...) before a record is converted, so one
+ * oversized value can't blow up the record, or push it past the producer's max.request.size.
+ *
+ * Values over the limit, counted in UTF-8 bytes, are either truncated to it, replaced with their SHA-256 and
+ * original length ({@code sha256:<hex>;length=<bytes>}), or dropped (null). Fields keep their type and place in
+ * the schema whichever policy applies. Both the value and the display value of a display_value object are capped.
+ */
+public final class LargeFieldPolicy {
+
+    public enum Action {
+        TRUNCATE,
+        HASH,
+        DROP
+    }
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final int _maxBytes;
+    private final Action _action;
+    private final Set<String> _fields;
+    private final Sensor _applied;
+
+    /**
+     * @param fields The fields to cap, or empty for every field.
+     * @param applied Recorded once per value the policy is applied to, may be null.
+     */
+    public LargeFieldPolicy(int maxBytes, Action action, Set<String> fields, Sensor applied) {
+        if(maxBytes < 0) {
+            throw new IllegalArgumentException(String.format("The maximum field size can't be negative, received [%s].", maxBytes));
+        }
+        this._maxBytes = maxBytes;
+        this._action = action;
+        this._fields = fields.isEmpty() ? null : Collections.unmodifiableSet(new HashSet<>(fields));
+        this._applied = applied;
+    }
+
+    /**
+     * @throws IllegalArgumentException if it isn't one of 'truncate', 'hash' or 'drop'.
+     */
+    public static Action parseAction(String action) {
+        return Action.valueOf(action.trim().toUpperCase(Locale.US));
+    }
+
+    public JSONObject apply(JSONObject record) {
+        if(this._fields != null) {
+            for(String field : this._fields) {
+                this.applyTo(record, field);
+            }
+            return record;
+        }
+
+        Iterator<String> keys = record.keys();
+        while(keys.hasNext()) {
+            this.applyTo(record, keys.next());
+        }
+        return record;
+    }
+
+    private void applyTo(JSONObject record, String field) {
+        final Object value = record.opt(field);
+        if(value instanceof String) {
+            final Object capped = this.cap((String)value);
+            if(capped != value) {
+                // NOTE: replacing the value of an existing key, safe while iterating the keys.
+                record.put(field, capped);
+            }
+        } else if(StructCodec.isDisplayValueObject(value)) {
+            final JSONObject displayValueObj = (JSONObject)value;
+            for(String key : new String[] { "value", "display_value" }) {
+                final Object inner = displayValueObj.opt(key);
+                if(inner instanceof String) {
+                    final Object capped = this.cap((String)inner);
+                    if(capped != inner) {
+                        displayValueObj.put(key, capped);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @return The value itself if it is within the limit.
+     */
+    Object cap(String value) {
+        // NOTE: a char is 1 to 3 UTF-8 bytes (surrogate pairs 4 for 2), so most values are settled without encoding.
+        if((long)value.length() * 3 <= this._maxBytes) {
+            return value;
+        }
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if(bytes.length <= this._maxBytes) {
+            return value;
+        }
+
+        if(this._applied != null) {
+            this._applied.record();
+        }
+        switch(this._action) {
+            case TRUNCATE:
+                return truncate(bytes, this._maxBytes);
+            case HASH:
+                return String.format("sha256:%s;length=%s", sha256(bytes), bytes.length);
+            default:
+                return JSONObject.NULL;
+        }
+    }
+
+    static String truncate(byte[] bytes, int maxBytes) {
+        int end = maxBytes;
+        // NOTE: back off to the start of a character rather than splitting a multi-byte sequence.
+        while(end > 0 && (bytes[end] & 0xC0) == 0x80) {
+            end--;
+        }
+        return new String(bytes, 0, end, StandardCharsets.UTF_8);
+    }
+
+    static String sha256(byte[] bytes) {
+        final byte[] digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256").digest(bytes);
+        } catch(NoSuchAlgorithmException ex) {
+            // NOTE: every JVM is required to provide SHA-256.
+            throw new IllegalStateException(ex);
+        }
+        final char[] hex = new char[digest.length * 2];
+        for(int i = 0; i < digest.length; i++) {
+            hex[i * 2] = HEX[(digest[i] >> 4) & 0xF];
+            hex[i * 2 + 1] = HEX[digest[i] & 0xF];
+        }
+        return new String(hex);
+    }
+}
@@ -0,0 +1,86 @@
+package com.ibm.ingestion.connect.servicenow.util;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A Table API response body, with the position of each record in its "result" array.
+ *
+ * Only the top level of the response is scanned, records stay as bytes until a field is asked for.
+ */
+public final class RawJsonPage {
+
+    private static final byte[] RESULT_KEY = RawJsonRecord.key("result");
+
+    private final byte[] _bytes;
+    private final List<RawJsonRecord> _records;
+    private final boolean _hasResult;
+
+    private RawJsonPage(byte[] bytes, List<RawJsonRecord> records, boolean hasResult) {
+        this._bytes = bytes;
+        this._records = records;
+        this._hasResult = hasResult;
+    }
+
+    /**
+     * @throws IOException if the body isn't a JSON object.
+     */
+    public static RawJsonPage parse(byte[] bytes) throws IOException {
+        final int end = bytes.length;
+        List<RawJsonRecord> records = null;
+
+        int index = JsonBytes.expect(bytes, 0, end, '{');
+        index = JsonBytes.skipWhitespace(bytes, index, end);
+        while(bytes[index] != '}') {
+            final int keyStart = index;
+            final int keyStop = JsonBytes.skipString(bytes, keyStart, end);
+            index = JsonBytes.expect(bytes, keyStop, end, ':');
+            index = JsonBytes.skipWhitespace(bytes, index, end);
+
+            if(JsonBytes.stringEquals(bytes, keyStart, keyStop, RESULT_KEY) && bytes[index] == '[') {
+                records = new ArrayList<>();
+                index = JsonBytes.skipWhitespace(bytes, index + 1, end);
+                while(bytes[index] != ']') {
+                    final int recordStop = JsonBytes.skipValue(bytes, index, end);
+                    if(bytes[index] != '{') {
+                        throw new IOException(String.format("Expected a record object at offset [%s].", index));
+                    }
+                    records.add(new RawJsonRecord(bytes, index, recordStop));
+                    index = JsonBytes.skipWhitespace(bytes, recordStop, end);
+                    if(bytes[index] == ',') {
+                        index = JsonBytes.skipWhitespace(bytes, index + 1, end);
+                    }
+                }
+                index++;
+            } else {
+                index = JsonBytes.skipValue(bytes, index, end);
+            }
+
+            index = JsonBytes.skipWhitespace(bytes, index, end);
+            if(bytes[index] == ',') {
+                index = JsonBytes.skipWhitespace(bytes, index + 1, end);
+            }
+        }
+
+        if(records == null) {
+            return new RawJsonPage(bytes, new ArrayList<>(), false);
+        }
+        return new RawJsonPage(bytes, records, true);
+    }
+
+    /**
+     * @return false if the response had no "result" array.
+     */
+    public boolean hasResult() {
+        return this._hasResult;
+    }
+
+    public List<RawJsonRecord> getRecords() {
+        return this._records;
+    }
+
+    public int getSizeInBytes() {
+        return this._bytes.length;
+    }
+}
@@ -0,0 +1,109 @@
+package com.ibm.ingestion.connect.servicenow.util;
+
+import org.apache.kafka.connect.errors.DataException;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * One record of a Table API response, as a view over the bytes it was received in.
+ */
+public final class RawJsonRecord {
+
+    private static final byte[] VALUE_KEY = key("value");
+
+    private final byte[] _bytes;
+    private final int _start;
+    private final int _end;
+
+    RawJsonRecord(byte[] bytes, int start, int end) {
+        this._bytes = bytes;
+        this._start = start;
+        this._end = end;
+    }
+
+    /**
+     * @return The UTF-8 encoded field name, to look values up with.
+     */
+    public static byte[] key(String field) {
+        return field.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return A copy of the record's JSON.
+     */
+    public byte[] toBytes() {
+        return Arrays.copyOfRange(this._bytes, this._start, this._end);
+    }
+
+    public String toJsonString() {
+        return new String(this._bytes, this._start, this._end - this._start, StandardCharsets.UTF_8);
+    }
+
+    public int length() {
+        return this._end - this._start;
+    }
+
+    /**
+     * Looks a top level field up the same way the connector reads fields from a JSONObject: strings are
+     * unescaped, display_value objects give their "value", and other values give their JSON text.
+     *
+     * @return The value, or null if the field is missing or null.
+     */
+    public String getString(byte[] key) {
+        try {
+            return getString(this._start, this._end, key);
+        } catch(IOException ex) {
+            throw new DataException(String.format("Could not read field [%s] from record. %s", new String(key, StandardCharsets.UTF_8), ex.getMessage()), ex);
+        }
+    }
+
+    private String getString(int start, int end, byte[] key) throws IOException {
+        int index = JsonBytes.expect(this._bytes, start, end, '{');
+        index = JsonBytes.skipWhitespace(this._bytes, index, end);
+        if(this._bytes[index] == '}') {
+            return null;
+        }
+
+        while(true) {
+            index = JsonBytes.skipWhitespace(this._bytes, index, end);
+            final int keyStart = index;
+            final int keyStop = JsonBytes.skipString(this._bytes, keyStart, end);
+            index = JsonBytes.expect(this._bytes, keyStop, end, ':');
+            index = JsonBytes.skipWhitespace(this._bytes, index, end);
+            final int valueStop = JsonBytes.skipValue(this._bytes, index, end);
+
+            if(JsonBytes.stringEquals(this._bytes, keyStart, keyStop, key)) {
+                return this.valueAsString(index, valueStop);
+            }
+
+            index = JsonBytes.skipWhitespace(this._bytes, valueStop, end);
+            if(this._bytes[index] == '}') {
+                return null;
+            }
+            if(this._bytes[index] != ',') {
+                throw new IOException(String.format("Expected [,] at offset [%s] but found [%s].", index, (char)this._bytes[index]));
+            }
+            index++;
+        }
+    }
+
+    private String valueAsString(int start, int stop) throws IOException {
+        switch(this._bytes[start]) {
+            case '"':
+                return JsonBytes.decodeString(this._bytes, start, stop);
+            case '{':
+                return this.getString(start, stop, VALUE_KEY);
+            case 'n':
+                return null;
+            default:
+                return new String(this._bytes, start, stop - start, StandardCharsets.UTF_8);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return this.toJsonString();
+    }
+}
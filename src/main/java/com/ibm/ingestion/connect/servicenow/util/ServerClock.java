@@ -0,0 +1,64 @@
+package com.ibm.ingestion.connect.servicenow.util;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * An estimate of how far the ServiceNow instance's clock is ahead of (or behind) the worker's, from the Date
+ * header of its responses.
+ *
+ * The header only has whole seconds, so each response bounds the skew rather than giving it: the server's clock
+ * read somewhere in [date, date + 1s) at some point between sending the request and receiving the response. The
+ * bounds of the last few responses are intersected, which narrows the estimate to well under a second; if they
+ * stop agreeing (either clock was stepped) it starts over from the latest response.
+ */
+public final class ServerClock {
+
+    private static final int WINDOW = 16;
+
+    private final long[] _lower = new long[WINDOW];
+    private final long[] _upper = new long[WINDOW];
+    private int _count = 0;
+    private int _next = 0;
+    private volatile long _skewMs = 0;
+
+    /**
+     * @param serverDateMs The response's Date header, in epoch milliseconds.
+     * @param sentMs When the request was sent, by the worker's clock.
+     * @param receivedMs When the response was received, by the worker's clock.
+     */
+    public synchronized void observe(long serverDateMs, long sentMs, long receivedMs) {
+        this._lower[this._next] = serverDateMs - receivedMs;
+        this._upper[this._next] = serverDateMs + 1000 - sentMs;
+        this._next = (this._next + 1) % WINDOW;
+        this._count = Math.min(WINDOW, this._count + 1);
+
+        long lower = Long.MIN_VALUE;
+        long upper = Long.MAX_VALUE;
+        for(int i = 0; i < this._count; i++) {
+            lower = Math.max(lower, this._lower[i]);
+            upper = Math.min(upper, this._upper[i]);
+        }
+        if(lower > upper) {
+            final int latest = (this._next + WINDOW - 1) % WINDOW;
+            lower = this._lower[latest];
+            upper = this._upper[latest];
+            this._lower[0] = lower;
+            this._upper[0] = upper;
+            this._count = 1;
+            this._next = 1 % WINDOW;
+        }
+        this._skewMs = lower + (upper - lower) / 2;
+    }
+
+    /**
+     * @return How far the server's clock is ahead of the worker's, in milliseconds. 0 before the first response.
+     */
+    public long getSkewMs() {
+        return this._skewMs;
+    }
+
+    public LocalDateTime nowUtc() {
+        return LocalDateTime.now(ZoneOffset.UTC).plusNanos(this._skewMs * 1000000);
+    }
+}
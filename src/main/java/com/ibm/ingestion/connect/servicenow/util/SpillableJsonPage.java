@@ -0,0 +1,334 @@
+package com.ibm.ingestion.connect.servicenow.util;
+
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A Table API response body read with a bound on the heap it takes up.
+ *
+ * The body is streamed in, noting where each record of the "result" array starts and ends as it goes. Up to
+ * {@code maxHeapBytes} it is kept in a byte array; past that it is written out to a temp file which is then
+ * memory-mapped, so the page costs the same heap whatever its size.
+ *
+ * Records are only decoded into {@link JSONObject}s when they are asked for, one at a time, so a page never holds
+ * all of its records as objects at once. The page must be closed once its records have been converted, which unmaps
+ * a spilled body there and then rather than whenever the garbage collector gets to it.
+ */
+public final class SpillableJsonPage implements Closeable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SpillableJsonPage.class);
+
+    private static final int CHUNK_SIZE = 64 * 1024;
+
+    private ByteBuffer _buffer;
+    private final int _size;
+    private final int _heapBytes;
+    private final boolean _spilled;
+    private final int[] _starts;
+    private final int[] _stops;
+    private final int _count;
+    private final boolean _hasResult;
+
+    private SpillableJsonPage(ByteBuffer buffer, int size, int heapBytes, boolean spilled, RecordScanner scanner) {
+        this._buffer = buffer;
+        this._size = size;
+        this._heapBytes = heapBytes;
+        this._spilled = spilled;
+        this._starts = scanner._starts;
+        this._stops = scanner._stops;
+        this._count = scanner._count;
+        this._hasResult = scanner._hasResult;
+    }
+
+    /**
+     * @param maxHeapBytes The most of the body to keep on the heap, 0 to always spill.
+     * @param spillDirectory Where the temp file is created, null for the default temp directory.
+     * @throws IOException if the body couldn't be read, is larger than 2GB, or isn't a JSON object.
+     */
+    public static SpillableJsonPage read(InputStream in, long maxHeapBytes, File spillDirectory) throws IOException {
+        final RecordScanner scanner = new RecordScanner();
+        byte[] heap = new byte[(int)Math.max(0, Math.min(CHUNK_SIZE, maxHeapBytes))];
+        int size = 0;
+
+        File file = null;
+        RandomAccessFile spill = null;
+        try {
+            final byte[] chunk = new byte[CHUNK_SIZE];
+            int read;
+            while((read = in.read(chunk)) != -1) {
+                if((long)size + read > Integer.MAX_VALUE) {
+                    throw new IOException("Response body is larger than 2GB.");
+                }
+                scanner.scan(chunk, read, size);
+
+                if(spill == null && (long)size + read > maxHeapBytes) {
+                    file = File.createTempFile("servicenow-page-", ".json", spillDirectory);
+                    spill = new RandomAccessFile(file, "rw");
+                    spill.write(heap, 0, size);
+                    heap = null;
+                    LOG.debug("Response body passed [{}] bytes, spilling to [{}].", maxHeapBytes, file);
+                }
+
+                if(spill != null) {
+                    spill.write(chunk, 0, read);
+                } else {
+                    if(size + read > heap.length) {
+                        heap = Arrays.copyOf(heap, (int)Math.min(maxHeapBytes, Math.max((long)heap.length * 2, size + read)));
+                    }
+                    System.arraycopy(chunk, 0, heap, size, read);
+                }
+                size += read;
+            }
+            scanner.finish();
+
+            if(spill == null) {
+                return new SpillableJsonPage(ByteBuffer.wrap(heap, 0, size), size, heap.length, false, scanner);
+            }
+
+            final ByteBuffer mapped = spill.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, size);
+            return new SpillableJsonPage(mapped, size, 0, true, scanner);
+        } finally {
+            if(spill != null) {
+                spill.close();
+            }
+            // NOTE: the mapping stays valid once the file is unlinked, and the space is reclaimed with it.
+            if(file != null && !file.delete()) {
+                file.deleteOnExit();
+            }
+        }
+    }
+
+    /**
+     * @return false if the response had no "result" array.
+     */
+    public boolean hasResult() {
+        return this._hasResult;
+    }
+
+    public boolean isSpilled() {
+        return this._spilled;
+    }
+
+    public long getSizeInBytes() {
+        return this._size;
+    }
+
+    /**
+     * @return The heap the body takes up, 0 when it was spilled.
+     */
+    public long getHeapBytes() {
+        return this._heapBytes;
+    }
+
+    /**
+     * @return The records, each decoded afresh every time it is asked for.
+     */
+    public List<JSONObject> getRecords() {
+        return new AbstractList<JSONObject>() {
+            @Override
+            public JSONObject get(int index) {
+                return decode(index);
+            }
+
+            @Override
+            public int size() {
+                return _count;
+            }
+        };
+    }
+
+    @Override
+    public void close() {
+        if(this._buffer == null) {
+            return;
+        }
+        final ByteBuffer buffer = this._buffer;
+        this._buffer = null;
+        if(this._spilled) {
+            unmap(buffer);
+        }
+    }
+
+    /**
+     * Releases a mapped buffer straight away. Neither JDK has a public API for it, so this is Unsafe.invokeCleaner
+     * on Java 9 and later, and the buffer's own cleaner on Java 8. Where neither can be reached the mapping is left
+     * to the garbage collector.
+     */
+    private static void unmap(ByteBuffer buffer) {
+        try {
+            final Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Method invokeCleaner;
+            try {
+                invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+            } catch(NoSuchMethodException ex) {
+                invokeCleaner = null;
+            }
+
+            if(invokeCleaner != null) {
+                final Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+                theUnsafe.setAccessible(true);
+                invokeCleaner.invoke(theUnsafe.get(null), buffer);
+            } else {
+                final Object cleaner = Class.forName("sun.nio.ch.DirectBuffer").getMethod("cleaner").invoke(buffer);
+                if(cleaner != null) {
+                    cleaner.getClass().getMethod("clean").invoke(cleaner);
+                }
+            }
+        } catch(ReflectiveOperationException | RuntimeException ex) {
+            LOG.debug("Could not unmap a spilled page, leaving it to the garbage collector. {}", ex.toString());
+        }
+    }
+
+    private JSONObject decode(int index) {
+        if(this._buffer == null) {
+            throw new IllegalStateException("The page has been closed.");
+        }
+        if(index < 0 || index >= this._count) {
+            throw new IndexOutOfBoundsException(String.valueOf(index));
+        }
+        final int start = this._starts[index];
+        final int length = this._stops[index] - start;
+        if(this._buffer.hasArray()) {
+            return new JSONObject(new String(this._buffer.array(), start, length, StandardCharsets.UTF_8));
+        }
+
+        final byte[] bytes = new byte[length];
+        final ByteBuffer view = this._buffer.duplicate();
+        view.position(start);
+        view.get(bytes);
+        return new JSONObject(new String(bytes, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Finds the records of the top level "result" array as the body streams past, tracking just enough of the
+     * JSON (nesting depth, strings and the keys of the top level object) to do so.
+     */
+    static final class RecordScanner {
+
+        private static final byte[] RESULT_KEY = "result".getBytes(StandardCharsets.UTF_8);
+
+        private int[] _starts = new int[64];
+        private int[] _stops = new int[64];
+        private int _count;
+        private boolean _hasResult;
+
+        private int _depth;
+        private boolean _inString;
+        private boolean _escaped;
+        private boolean _inResult;
+        private int _recordStart = -1;
+        private boolean _started;
+
+        // NOTE: the last string of the top level object, as far as telling "result" apart needs.
+        private final byte[] _key = new byte[RESULT_KEY.length + 1];
+        private int _keyLength;
+        private boolean _capturing;
+
+        void scan(byte[] bytes, int length, int position) throws IOException {
+            for(int i = 0; i < length; i++) {
+                final byte b = bytes[i];
+
+                if(this._inString) {
+                    if(this._escaped) {
+                        this._escaped = false;
+                    } else if(b == '\\') {
+                        this._escaped = true;
+                    } else if(b == '"') {
+                        this._inString = false;
+                        this._capturing = false;
+                        continue;
+                    }
+                    if(this._capturing && this._keyLength < this._key.length) {
+                        this._key[this._keyLength++] = b;
+                    }
+                    continue;
+                }
+
+                switch(b) {
+                    case '"':
+                        this._inString = true;
+                        if(this._depth == 1) {
+                            this._capturing = true;
+                            this._keyLength = 0;
+                        }
+                        break;
+                    case '{':
+                    case '[':
+                        if(this._depth == 0) {
+                            if(b != '{' || this._started) {
+                                throw new IOException("Expected the response body to be a JSON object.");
+                            }
+                            this._started = true;
+                        } else if(this._depth == 1 && b == '[' && !this._hasResult && this.isResultKey()) {
+                            this._hasResult = true;
+                            this._inResult = true;
+                        } else if(this._depth == 2 && this._inResult) {
+                            if(b != '{') {
+                                throw new IOException(String.format("Expected a record object at offset [%s].", position + i));
+                            }
+                            this._recordStart = position + i;
+                        }
+                        this._depth++;
+                        break;
+                    case '}':
+                    case ']':
+                        this._depth--;
+                        if(this._depth < 0) {
+                            throw new IOException("Unbalanced JSON object or array.");
+                        }
+                        if(this._depth == 2 && this._inResult && this._recordStart >= 0) {
+                            this.add(this._recordStart, position + i + 1);
+                            this._recordStart = -1;
+                        } else if(this._depth == 1 && this._inResult) {
+                            this._inResult = false;
+                        }
+                        break;
+                    case ' ':
+                    case '\n':
+                    case '\r':
+                    case '\t':
+                        break;
+                    default:
+                        if(this._depth == 0) {
+                            throw new IOException("Expected the response body to be a JSON object.");
+                        }
+                }
+            }
+        }
+
+        void finish() throws IOException {
+            if(!this._started || this._depth != 0 || this._inString) {
+                throw new IOException("Unexpected end of JSON.");
+            }
+        }
+
+        private boolean isResultKey() {
+            return this._keyLength == RESULT_KEY.length && Arrays.equals(Arrays.copyOf(this._key, this._keyLength), RESULT_KEY);
+        }
+
+        private void add(int start, int stop) {
+            if(this._count == this._starts.length) {
+                this._starts = Arrays.copyOf(this._starts, this._count * 2);
+                this._stops = Arrays.copyOf(this._stops, this._count * 2);
+            }
+            this._starts[this._count] = start;
+            this._stops[this._count] = stop;
+            this._count++;
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.ibm.ingestion.connect.servicenow.util;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Hands out one shared instance per distinct string value of low-cardinality columns (state, priority,
+ * assignment_group, sys_created_by, ...), so the structs of a page don't each hold their own copy.
+ *
+ * Columns are either listed up front, or detected automatically: every column starts out canonicalized and is
+ * dropped once a sample of its values shows it mostly holds distinct values. The table of values is bounded
+ * and is simply cleared when it fills up, values already handed out stay valid.
+ */
+public final class StringCanonicalizer {
+
+    public static final String AUTO = "auto";
+    public static final int DEFAULT_MAX_ENTRIES = 4096;
+
+    static final int SAMPLE_SIZE = 256;
+    static final int MAX_AUTO_VALUE_LENGTH = 64;
+
+    private final Set<String> _fields;
+    private final int _maxEntries;
+    private final Map<String, String> _values;
+    private final Map<String, Column> _columns = new HashMap<>();
+
+    private StringCanonicalizer(Set<String> fields, int maxEntries) {
+        this._fields = fields;
+        this._maxEntries = maxEntries;
+        this._values = new HashMap<>(Math.min(maxEntries, DEFAULT_MAX_ENTRIES) * 2);
+    }
+
+    /**
+     * Canonicalizes the values of the given fields only, and their display values.
+     */
+    public static StringCanonicalizer forFields(Set<String> fields, int maxEntries) {
+        return new StringCanonicalizer(Collections.unmodifiableSet(new HashSet<>(fields)), maxEntries);
+    }
+
+    /**
+     * Canonicalizes whichever columns turn out to repeat their values.
+     */
+    public static StringCanonicalizer auto(int maxEntries) {
+        return new StringCanonicalizer(null, maxEntries);
+    }
+
+    /**
+     * @param field The ServiceNow field name.
+     * @param displayValue true for the field's display value rather than its value.
+     * @return The column to canonicalize the field's values through, or null if the field isn't canonicalized.
+     */
+    public Column column(String field, boolean displayValue) {
+        if(this._fields != null && !this._fields.contains(field)) {
+            return null;
+        }
+        final String name = displayValue ? field + "_display_value" : field;
+        Column column = this._columns.get(name);
+        if(column == null) {
+            column = new Column(this._fields == null);
+            this._columns.put(name, column);
+        }
+        return column;
+    }
+
+    int size() {
+        return this._values.size();
+    }
+
+    private String add(String value) {
+        if(this._values.size() >= this._maxEntries) {
+            this._values.clear();
+        }
+        this._values.put(value, value);
+        return value;
+    }
+
+    public final class Column {
+
+        private final boolean _sampled;
+        private boolean _enabled = true;
+        private int _lookups;
+        private int _hits;
+
+        private Column(boolean sampled) {
+            this._sampled = sampled;
+        }
+
+        public boolean isEnabled() {
+            return this._enabled;
+        }
+
+        public String canonical(String value) {
+            if(!this._enabled || value == null) {
+                return value;
+            }
+            if(this._sampled && value.length() > MAX_AUTO_VALUE_LENGTH) {
+                // NOTE: long values (descriptions, work notes) are counted as misses without filling the table.
+                this.sample(false);
+                return value;
+            }
+
+            final String existing = _values.get(value);
+            if(this._sampled) {
+                this.sample(existing != null);
+            }
+            return existing != null ? existing : add(value);
+        }
+
+        private void sample(boolean hit) {
+            if(this._lookups >= SAMPLE_SIZE) {
+                return;
+            }
+            this._lookups++;
+            if(hit) {
+                this._hits++;
+            }
+            if(this._lookups == SAMPLE_SIZE && this._hits * 2 < SAMPLE_SIZE) {
+                // NOTE: mostly distinct values, canonicalizing them would only churn the table.
+                this._enabled = false;
+            }
+        }
+    }
+}
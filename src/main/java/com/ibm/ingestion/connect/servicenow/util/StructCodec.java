@@ -0,0 +1,292 @@
+package com.ibm.ingestion.connect.servicenow.util;
+
+import org.apache.kafka.connect.data.Field;
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.data.SchemaBuilder;
+import org.apache.kafka.connect.data.Struct;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Converts ServiceNow records into {@link Struct}s for one value schema.
+ *
+ * The codec is compiled once, from the record the schema is built from, so the sanitized field names and the
+ * display_value handling are worked out up front rather than for every record. Records are then decoded slot by
+ * slot, filling the struct by field index.
+ *
+ * Records that don't line up with the compiled slots (extra or renamed keys) are handed to
+ * {@link Helpers#buildStruct(Schema, JSONObject)}, so the output is always the same as it would be without the codec.
+ *
+ * Fields can optionally be given column types (see {@link TypedValues}), in which case their values are converted
+ * from the Table API strings. Display value fields always stay strings.
+ *
+ * String values can be shared between records through a {@link StringCanonicalizer}.
+ */
+public final class StructCodec {
+
+    private static final String DISPLAY_VALUE_SUFFIX = "_display_value";
+
+    private final Schema _schema;
+    private final Map<String, Schema> _types;
+    private final TypedValues.Failures _failures;
+    private final String[] _keys;
+    private final boolean[] _displayValues;
+    private final Field[] _fields;
+    private final Field[] _displayFields;
+    private final boolean[] _typed;
+    private final Map<String, Integer> _slots;
+
+    private StringCanonicalizer _strings;
+    private StringCanonicalizer.Column[] _columns;
+    private StringCanonicalizer.Column[] _displayColumns;
+
+    private StructCodec(String[] keys, boolean[] displayValues, Integer version, Map<String, Schema> types, TypedValues.Failures failures) {
+        SchemaBuilder builder = SchemaBuilder.struct();
+        this._typed = new boolean[keys.length];
+        for(int i = 0; i < keys.length; i++) {
+            final String fieldName = Helpers.underscoresForPeriods(keys[i]);
+            final Schema fieldSchema = types.get(keys[i]);
+            this._typed[i] = fieldSchema != null && fieldSchema != Schema.OPTIONAL_STRING_SCHEMA;
+            builder.field(fieldName, this._typed[i] ? fieldSchema : Schema.OPTIONAL_STRING_SCHEMA);
+            if(displayValues[i]) {
+                builder.field(fieldName + DISPLAY_VALUE_SUFFIX, Schema.OPTIONAL_STRING_SCHEMA);
+            }
+        }
+        if(version != null) {
+            builder.version(version);
+        }
+
+        this._schema = builder.build();
+        this._types = types;
+        this._failures = failures;
+        this._keys = keys;
+        this._displayValues = displayValues;
+        this._fields = new Field[keys.length];
+        this._displayFields = new Field[keys.length];
+        this._slots = new HashMap<>(keys.length * 2);
+        for(int i = 0; i < keys.length; i++) {
+            final String fieldName = Helpers.underscoresForPeriods(keys[i]);
+            this._fields[i] = this._schema.field(fieldName);
+            this._displayFields[i] = this._schema.field(fieldName + DISPLAY_VALUE_SUFFIX);
+            this._slots.put(keys[i], i);
+        }
+    }
+
+    /**
+     * Builds the value schema from a sample record, exactly as {@link Helpers#buildSchemaFromSimpleJsonRecord(JSONObject)}
+     * does, and compiles the codec for it.
+     */
+    public static StructCodec compile(JSONObject sample) {
+        return compile(sample, null);
+    }
+
+    /**
+     * As {@link #compile(JSONObject)}, stamping the schema with the given version.
+     */
+    public static StructCodec compile(JSONObject sample, Integer version) {
+        return compile(sample, version, Collections.emptyMap());
+    }
+
+    /**
+     * As {@link #compile(JSONObject, Integer)}, giving the fields found in {@code types} that schema instead of
+     * a string.
+     */
+    public static StructCodec compile(JSONObject sample, Integer version, Map<String, Schema> types) {
+        return compile(sample, version, types, null);
+    }
+
+    /**
+     * As {@link #compile(JSONObject, Integer, Map)}, reporting typed values that can't be converted to
+     * {@code failures}. Codecs derived from this one report to it too.
+     */
+    public static StructCodec compile(JSONObject sample, Integer version, Map<String, Schema> types, TypedValues.Failures failures) {
+        List<String> keys = new ArrayList<>();
+        List<Boolean> displayValues = new ArrayList<>();
+        Iterator<String> iterator = sample.keys();
+        while(iterator.hasNext()) {
+            String key = iterator.next();
+            if(key != null && !key.trim().isEmpty()) {
+                keys.add(key);
+                displayValues.add(isDisplayValueObject(sample.opt(key)));
+            }
+        }
+
+        boolean[] flags = new boolean[displayValues.size()];
+        for(int i = 0; i < flags.length; i++) {
+            flags[i] = displayValues.get(i);
+        }
+        return new StructCodec(keys.toArray(new String[0]), flags, version, types, failures);
+    }
+
+    /**
+     * @return true if every field of the record has a slot, with a display_value field wherever the record has
+     * a display_value object.
+     */
+    public boolean covers(JSONObject record) {
+        Iterator<String> iterator = record.keys();
+        while(iterator.hasNext()) {
+            String key = iterator.next();
+            if(key == null || key.trim().isEmpty()) {
+                continue;
+            }
+            Integer slot = this._slots.get(key);
+            if(slot == null || (!this._displayValues[slot] && isDisplayValueObject(record.opt(key)))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return true if the record has exactly this codec's fields, with a display_value object wherever there is a
+     * display_value field.
+     */
+    public boolean matches(JSONObject record) {
+        int fields = 0;
+        Iterator<String> iterator = record.keys();
+        while(iterator.hasNext()) {
+            String key = iterator.next();
+            if(key == null || key.trim().isEmpty()) {
+                continue;
+            }
+            Integer slot = this._slots.get(key);
+            if(slot == null || this._displayValues[slot] != isDisplayValueObject(record.opt(key))) {
+                return false;
+            }
+            fields++;
+        }
+        return fields == this._keys.length;
+    }
+
+    /**
+     * @return A codec whose schema is a superset of this one and the record's, existing fields first and in
+     * their existing order.
+     */
+    public StructCodec union(JSONObject record, Integer version) {
+        List<String> keys = new ArrayList<>(Arrays.asList(this._keys));
+        boolean[] flags = Arrays.copyOf(this._displayValues, this._keys.length + record.length());
+
+        Iterator<String> iterator = record.keys();
+        while(iterator.hasNext()) {
+            String key = iterator.next();
+            if(key == null || key.trim().isEmpty()) {
+                continue;
+            }
+            final boolean displayValue = isDisplayValueObject(record.opt(key));
+            Integer slot = this._slots.get(key);
+            if(slot == null) {
+                flags[keys.size()] = displayValue;
+                keys.add(key);
+            } else if(displayValue) {
+                flags[slot] = true;
+            }
+        }
+
+        return new StructCodec(keys.toArray(new String[0]), Arrays.copyOf(flags, keys.size()), version, this._types, this._failures);
+    }
+
+    /**
+     * @return A codec with the same fields as this one, typed with {@code types}.
+     */
+    public StructCodec withTypes(Map<String, Schema> types, Integer version) {
+        return new StructCodec(this._keys, this._displayValues, version, types, this._failures);
+    }
+
+    public Schema schema() {
+        return this._schema;
+    }
+
+    public Struct decode(JSONObject record) {
+        return this.decode(record, null);
+    }
+
+    /**
+     * As {@link #decode(JSONObject)}, passing string values through {@code strings} when it is given.
+     */
+    public Struct decode(JSONObject record, StringCanonicalizer strings) {
+        final Struct struct = new Struct(this._schema);
+        if(strings != this._strings) {
+            this.resolveColumns(strings);
+        }
+
+        int matched = 0;
+        for(int i = 0; i < this._keys.length; i++) {
+            final Object value = record.opt(this._keys[i]);
+            if(value == null) {
+                // NOTE: missing from this record, the struct value stays null.
+                continue;
+            }
+            matched++;
+
+            if(value == JSONObject.NULL) {
+                continue;
+            }
+
+            if(value instanceof JSONObject) {
+                final JSONObject displayValueObj = (JSONObject)value;
+                if(displayValueObj.has("display_value") && displayValueObj.has("value")) {
+                    final String raw = displayValueObj.isNull("value") ? null : displayValueObj.get("value").toString();
+                    struct.put(this._fields[i], this._typed[i] ? TypedValues.convert(this._fields[i].schema(), this._keys[i], raw, this._failures) : this.canonical(this._columns, i, raw));
+                    if(this._displayFields[i] != null && !displayValueObj.isNull("display_value")) {
+                        struct.put(this._displayFields[i], this.canonical(this._displayColumns, i, displayValueObj.get("display_value").toString()));
+                    }
+                    continue;
+                }
+            }
+
+            if(this._typed[i]) {
+                struct.put(this._fields[i], TypedValues.convert(this._fields[i].schema(), this._keys[i], value.toString(), this._failures));
+            } else {
+                struct.put(this._fields[i], this.canonical(this._columns, i, value.toString()));
+            }
+        }
+
+        if(matched != record.length()) {
+            // NOTE: the record has keys the schema was not compiled for, let the generic path deal with it.
+            return Helpers.buildStruct(this._schema, record);
+        }
+
+        return struct;
+    }
+
+    private String canonical(StringCanonicalizer.Column[] columns, int slot, String value) {
+        if(columns == null || columns[slot] == null) {
+            return value;
+        }
+        return columns[slot].canonical(value);
+    }
+
+    private void resolveColumns(StringCanonicalizer strings) {
+        this._strings = strings;
+        if(strings == null) {
+            this._columns = null;
+            this._displayColumns = null;
+            return;
+        }
+        this._columns = new StringCanonicalizer.Column[this._keys.length];
+        this._displayColumns = new StringCanonicalizer.Column[this._keys.length];
+        for(int i = 0; i < this._keys.length; i++) {
+            if(!this._typed[i]) {
+                this._columns[i] = strings.column(this._keys[i], false);
+            }
+            if(this._displayValues[i]) {
+                this._displayColumns[i] = strings.column(this._keys[i], true);
+            }
+        }
+    }
+
+    static boolean isDisplayValueObject(Object value) {
+        if(!(value instanceof JSONObject)) {
+            return false;
+        }
+        JSONObject obj = (JSONObject)value;
+        return obj.has("display_value") && obj.has("value");
+    }
+}
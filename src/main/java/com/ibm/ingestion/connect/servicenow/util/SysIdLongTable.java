@@ -0,0 +1,219 @@
+package com.ibm.ingestion.connect.servicenow.util;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * An open addressing hash table from sys_id to a long, held off the heap so it can cover tables with tens of
+ * millions of rows.
+ *
+ * Keys are the first 64 bits of the 128 bit hexadecimal sys_id (see {@link #keyOf(String)}), which keeps a slot to
+ * 16 bytes and, since sys_ids are random, collides about as rarely as a hash of the whole id would. The table is
+ * either a direct buffer, or a memory-mapped file that survives restarts.
+ */
+public final class SysIdLongTable implements Closeable {
+
+    public static final long MISSING = Long.MIN_VALUE;
+
+    private static final int MAGIC = 0x534E4954;
+    private static final int HEADER_BYTES = 16;
+    private static final int SLOT_BYTES = 16;
+    private static final int MIN_CAPACITY = 1024;
+    private static final double MAX_LOAD = 0.7;
+
+    private final File _file;
+    private ByteBuffer _buffer;
+    private int _capacity;
+    private int _size;
+
+    private SysIdLongTable(File file, ByteBuffer buffer, int capacity, int size) {
+        this._file = file;
+        this._buffer = buffer;
+        this._capacity = capacity;
+        this._size = size;
+    }
+
+    public static SysIdLongTable inMemory(int expectedSize) {
+        final int capacity = capacityFor(expectedSize);
+        return new SysIdLongTable(null, ByteBuffer.allocateDirect(HEADER_BYTES + capacity * SLOT_BYTES), capacity, 0);
+    }
+
+    /**
+     * Opens the table kept in {@code file}, creating it if it doesn't exist yet (or isn't a table).
+     */
+    public static SysIdLongTable open(File file, int expectedSize) throws IOException {
+        if(file.exists() && file.length() >= HEADER_BYTES) {
+            try(RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+                MappedByteBuffer buffer = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, raf.length());
+                final int capacity = buffer.getInt(4);
+                if(buffer.getInt(0) == MAGIC && Integer.bitCount(capacity) == 1 && raf.length() == HEADER_BYTES + (long)capacity * SLOT_BYTES) {
+                    return new SysIdLongTable(file, buffer, capacity, buffer.getInt(8));
+                }
+            }
+        }
+
+        final int capacity = capacityFor(expectedSize);
+        return new SysIdLongTable(file, create(file, capacity), capacity, 0);
+    }
+
+    /**
+     * @return The key for a sys_id, or 0 if it isn't a 32 character hexadecimal sys_id.
+     */
+    public static long keyOf(String sysId) {
+        if(sysId == null || sysId.length() != 32) {
+            return 0;
+        }
+        long key = 0;
+        for(int i = 0; i < 16; i++) {
+            final int digit = Character.digit(sysId.charAt(i), 16);
+            if(digit < 0) {
+                return 0;
+            }
+            key = (key << 4) | digit;
+        }
+        // NOTE: 0 marks an empty slot, an all zero prefix shares the key of ...0001.
+        return key == 0 ? 1 : key;
+    }
+
+    public int size() {
+        return this._size;
+    }
+
+    public long get(long key) {
+        int slot = this.slotOf(key);
+        while(true) {
+            final long candidate = this._buffer.getLong(offsetOf(slot));
+            if(candidate == 0) {
+                return MISSING;
+            }
+            if(candidate == key) {
+                return this._buffer.getLong(offsetOf(slot) + 8);
+            }
+            slot = (slot + 1) & (this._capacity - 1);
+        }
+    }
+
+    /**
+     * @return The previous value, or {@link #MISSING}.
+     */
+    public long put(long key, long value) throws IOException {
+        if(key == 0) {
+            throw new IllegalArgumentException("Key 0 is reserved for empty slots.");
+        }
+        if(this._size + 1 > this._capacity * MAX_LOAD) {
+            this.grow();
+        }
+
+        int slot = this.slotOf(key);
+        while(true) {
+            final int offset = offsetOf(slot);
+            final long candidate = this._buffer.getLong(offset);
+            if(candidate == key) {
+                final long previous = this._buffer.getLong(offset + 8);
+                this._buffer.putLong(offset + 8, value);
+                return previous;
+            }
+            if(candidate == 0) {
+                this._buffer.putLong(offset, key);
+                this._buffer.putLong(offset + 8, value);
+                this._size++;
+                this._buffer.putInt(8, this._size);
+                return MISSING;
+            }
+            slot = (slot + 1) & (this._capacity - 1);
+        }
+    }
+
+    /**
+     * Writes a file backed table through to disk.
+     */
+    public void flush() {
+        if(this._buffer instanceof MappedByteBuffer) {
+            ((MappedByteBuffer)this._buffer).force();
+        }
+    }
+
+    @Override
+    public void close() {
+        this.flush();
+    }
+
+    private void grow() throws IOException {
+        final int capacity = this._capacity * 2;
+        if(HEADER_BYTES + (long)capacity * SLOT_BYTES > Integer.MAX_VALUE) {
+            throw new IOException(String.format("Too many rows for one table, [%s] already held.", this._size));
+        }
+        final ByteBuffer previous = this._buffer;
+        final int previousCapacity = this._capacity;
+
+        File next = null;
+        if(this._file != null) {
+            next = new File(this._file.getPath() + ".grow");
+            this._buffer = create(next, capacity);
+        } else {
+            this._buffer = ByteBuffer.allocateDirect(HEADER_BYTES + capacity * SLOT_BYTES);
+        }
+        this._capacity = capacity;
+        this._size = 0;
+
+        for(int slot = 0; slot < previousCapacity; slot++) {
+            final int offset = HEADER_BYTES + slot * SLOT_BYTES;
+            final long key = previous.getLong(offset);
+            if(key != 0) {
+                this.put(key, previous.getLong(offset + 8));
+            }
+        }
+
+        if(next != null) {
+            this.flush();
+            Files.move(next.toPath(), this._file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+    }
+
+    private int slotOf(long key) {
+        // NOTE: the murmur3 64 bit finalizer, the key's own bits are the sys_id prefix that also picks its range.
+        long hash = key;
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        return (int)hash & (this._capacity - 1);
+    }
+
+    private static int offsetOf(int slot) {
+        return HEADER_BYTES + slot * SLOT_BYTES;
+    }
+
+    private static int capacityFor(int expectedSize) {
+        long capacity = MIN_CAPACITY;
+        while(capacity * MAX_LOAD < expectedSize) {
+            capacity *= 2;
+        }
+        if(HEADER_BYTES + capacity * SLOT_BYTES > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException(String.format("Too many rows for one table, received [%s].", expectedSize));
+        }
+        return (int)capacity;
+    }
+
+    private static ByteBuffer create(File file, int capacity) throws IOException {
+        final long length = HEADER_BYTES + (long)capacity * SLOT_BYTES;
+        if(length > Integer.MAX_VALUE) {
+            throw new IOException(String.format("Table of [%s] slots is too large to map.", capacity));
+        }
+        try(RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(0);
+            raf.setLength(length);
+            MappedByteBuffer buffer = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, length);
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, capacity);
+            buffer.putInt(8, 0);
+            return buffer;
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.ibm.ingestion.connect.servicenow.util;
+
+import org.apache.kafka.common.metrics.Sensor;
+import org.apache.kafka.connect.data.Date;
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.data.Timestamp;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Maps ServiceNow column types (sys_dictionary internal_type) onto Kafka Connect schemas, and converts the
+ * string values the Table API returns into values for those schemas.
+ *
+ * Anything that isn't listed stays an optional string.
+ */
+public final class TypedValues {
+
+    private static final Logger LOG = LoggerFactory.getLogger(TypedValues.class);
+
+    private static final Schema OPTIONAL_TIMESTAMP_SCHEMA = Timestamp.builder().optional().build();
+    private static final Schema OPTIONAL_DATE_SCHEMA = Date.builder().optional().build();
+
+    private static final Map<String, Schema> SCHEMAS = new HashMap<>();
+    static {
+        SCHEMAS.put("integer", Schema.OPTIONAL_INT64_SCHEMA);
+        SCHEMAS.put("longint", Schema.OPTIONAL_INT64_SCHEMA);
+        SCHEMAS.put("boolean", Schema.OPTIONAL_BOOLEAN_SCHEMA);
+        SCHEMAS.put("decimal", Schema.OPTIONAL_FLOAT64_SCHEMA);
+        SCHEMAS.put("float", Schema.OPTIONAL_FLOAT64_SCHEMA);
+        SCHEMAS.put("percent_complete", Schema.OPTIONAL_FLOAT64_SCHEMA);
+        SCHEMAS.put("glide_date_time", OPTIONAL_TIMESTAMP_SCHEMA);
+        SCHEMAS.put("due_date", OPTIONAL_TIMESTAMP_SCHEMA);
+        SCHEMAS.put("glide_date", OPTIONAL_DATE_SCHEMA);
+    }
+
+    private TypedValues() {
+    }
+
+    /**
+     * @return The schema for a ServiceNow internal type, or {@link Schema#OPTIONAL_STRING_SCHEMA} if it isn't mapped.
+     */
+    public static Schema schemaFor(String internalType) {
+        if(internalType == null) {
+            return Schema.OPTIONAL_STRING_SCHEMA;
+        }
+        Schema schema = SCHEMAS.get(internalType.trim().toLowerCase(Locale.US));
+        return schema == null ? Schema.OPTIONAL_STRING_SCHEMA : schema;
+    }
+
+    /**
+     * As {@link #convert(Schema, String, String, Failures)}, without reporting values that can't be parsed.
+     */
+    public static Object convert(Schema schema, String field, String raw) {
+        return convert(schema, field, raw, null);
+    }
+
+    /**
+     * Converts a raw Table API value. Empty values become null, as do values that can't be parsed (reported to
+     * {@code failures} when it is given), since a typed field can't carry the original string.
+     */
+    public static Object convert(Schema schema, String field, String raw, Failures failures) {
+        if(schema.type() == Schema.Type.STRING && schema.name() == null) {
+            return raw;
+        }
+        if(raw == null || raw.isEmpty()) {
+            return null;
+        }
+
+        try {
+            if(Timestamp.LOGICAL_NAME.equals(schema.name())) {
+                return new java.util.Date(Helpers.parseServiceNowEpochSecondsUtc(raw) * 1000L);
+            }
+            if(Date.LOGICAL_NAME.equals(schema.name())) {
+                return java.util.Date.from(LocalDate.parse(raw).atStartOfDay(ZoneOffset.UTC).toInstant());
+            }
+            switch(schema.type()) {
+                case INT64:
+                    return Long.parseLong(raw);
+                case FLOAT64:
+                    return Double.parseDouble(raw);
+                case BOOLEAN:
+                    // NOTE: Boolean.parseBoolean would take anything but "true" for false.
+                    if("true".equalsIgnoreCase(raw)) {
+                        return Boolean.TRUE;
+                    } else if("false".equalsIgnoreCase(raw)) {
+                        return Boolean.FALSE;
+                    }
+                    return failed(schema, field, raw, failures);
+                default:
+                    return raw;
+            }
+        } catch(NumberFormatException | DateTimeParseException ex) {
+            return failed(schema, field, raw, failures);
+        }
+    }
+
+    private static Object failed(Schema schema, String field, String raw, Failures failures) {
+        if(failures != null) {
+            failures.failed(schema, field, raw);
+        } else {
+            LOG.debug("Could not convert value [{}] of field [{}] to [{}], emitting null.", raw, field, schema.name() != null ? schema.name() : schema.type());
+        }
+        return null;
+    }
+
+    /**
+     * The values of one table that couldn't be converted. Each column is warned about once, with the first value
+     * that failed, and every failure is counted in the sensor.
+     */
+    public static final class Failures {
+
+        private final String _table;
+        private final Sensor _sensor;
+        private final Set<String> _warned = new HashSet<>();
+
+        public Failures(String table, Sensor sensor) {
+            this._table = table;
+            this._sensor = sensor;
+        }
+
+        void failed(Schema schema, String field, String raw) {
+            if(this._sensor != null) {
+                this._sensor.record();
+            }
+            if(this._warned.add(field)) {
+                LOG.warn("Could not convert value [{}] of field [{}] of table [{}] to [{}], emitting null. Further values of the field that can't be converted are only counted.",
+                        raw, field, this._table, schema.name() != null ? schema.name() : schema.type());
+            }
+        }
+    }
+}
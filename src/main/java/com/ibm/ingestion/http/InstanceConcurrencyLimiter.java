@@ -0,0 +1,105 @@
+package com.ibm.ingestion.http;
+
+import com.ibm.ingestion.connect.servicenow.util.ConnectorMetrics;
+import org.apache.kafka.common.metrics.Sensor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Caps the number of requests in flight against a single ServiceNow instance across every task in the JVM.
+ *
+ * There is one limiter per base uri, shared by all clients pointed at it. Waiting requests are admitted in
+ * arrival order, and the time they spend waiting is reported as the {@code request-queue-wait-time-avg/max}
+ * metrics (milliseconds) tagged with the instance.
+ */
+public final class InstanceConcurrencyLimiter {
+
+    private static final Logger LOG = LoggerFactory.getLogger(InstanceConcurrencyLimiter.class);
+
+    private static final String METRIC_GROUP = "servicenow-client-metrics";
+    private static final ConcurrentHashMap<String, InstanceConcurrencyLimiter> LIMITERS = new ConcurrentHashMap<>();
+
+    private final String _instance;
+    private final int _maxInFlight;
+    private final Semaphore _permits;
+    private final AtomicInteger _waiting = new AtomicInteger();
+    private final Sensor _queueWaitSensor;
+
+    private InstanceConcurrencyLimiter(String instance, int maxInFlight) {
+        this._instance = instance;
+        this._maxInFlight = maxInFlight;
+        this._permits = new Semaphore(maxInFlight, true);
+
+        Map<String, String> tags = Collections.singletonMap("instance", instance);
+        this._queueWaitSensor = ConnectorMetrics.latencySensor(METRIC_GROUP, "request-queue-wait-time", "time in ms a request waited for an in-flight slot.", tags);
+        ConnectorMetrics.gauge(METRIC_GROUP, "requests-waiting", "The number of requests waiting for an in-flight slot.", tags, (config, now) -> this._waiting.get());
+        ConnectorMetrics.gauge(METRIC_GROUP, "requests-in-flight", "The number of requests in flight.", tags, (config, now) -> this._maxInFlight - this._permits.availablePermits());
+    }
+
+    /**
+     * @param baseUri The ServiceNow instance base uri.
+     * @param maxInFlight The limit to use if this is the first client for the instance. Later clients share the
+     *                    existing limiter, whatever limit they ask for.
+     */
+    public static InstanceConcurrencyLimiter forInstance(String baseUri, int maxInFlight) {
+        if(maxInFlight < 1) {
+            throw new IllegalArgumentException(String.format("The in-flight request limit must be at least 1, received [%s].", maxInFlight));
+        }
+
+        final String instance = normalize(baseUri);
+        InstanceConcurrencyLimiter limiter = LIMITERS.computeIfAbsent(instance, key -> new InstanceConcurrencyLimiter(key, maxInFlight));
+        if(limiter._maxInFlight != maxInFlight) {
+            LOG.warn("Instance [{}] already has an in-flight request limit of [{}], ignoring the requested limit of [{}].", instance, limiter._maxInFlight, maxInFlight);
+        }
+        return limiter;
+    }
+
+    /**
+     * Blocks until a slot is free. Every successful call must be paired with a call to {@link #release()}.
+     */
+    public void acquire() throws InterruptedException {
+        // NOTE: the timed tryAcquire honours the fair ordering, the untimed one would barge ahead of waiters.
+        if(this._permits.tryAcquire(0, TimeUnit.NANOSECONDS)) {
+            this._queueWaitSensor.record(0);
+            return;
+        }
+
+        final long startNs = System.nanoTime();
+        this._waiting.incrementAndGet();
+        try {
+            this._permits.acquire();
+        } finally {
+            this._waiting.decrementAndGet();
+        }
+
+        final long waitedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNs);
+        this._queueWaitSensor.record(waitedMs);
+        if(LOG.isDebugEnabled()) {
+            LOG.debug("Waited [{}] ms for an in-flight slot against instance [{}].", waitedMs, this._instance);
+        }
+    }
+
+    public void release() {
+        this._permits.release();
+    }
+
+    public int getMaxInFlight() {
+        return this._maxInFlight;
+    }
+
+    public int getAvailable() {
+        return this._permits.availablePermits();
+    }
+
+    private static String normalize(String baseUri) {
+        return baseUri.trim().replaceAll("/+$", "").toLowerCase(Locale.US);
+    }
+}
@@ -1,6 +1,10 @@
 package com.ibm.ingestion.http;
 
 import com.ibm.ingestion.connect.servicenow.source.ServiceNowSourceConnectorConfig;
+import com.ibm.ingestion.connect.servicenow.util.JsonPage;
+import com.ibm.ingestion.connect.servicenow.util.RawJsonPage;
+import com.ibm.ingestion.connect.servicenow.util.ServerClock;
+import com.ibm.ingestion.connect.servicenow.util.SpillableJsonPage;
 import okhttp3.*;
 
 import org.apache.kafka.common.config.ConfigException;
@@ -11,12 +15,15 @@ import org.json.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.io.UnsupportedEncodingException;
 import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
@@ -30,6 +37,10 @@ public class ServiceNowTableApiClient {
         public static final String LOGIN = "/oauth_token.do";
     }
 
+    private interface ResponseParser<T> {
+        T parse(Response response) throws IOException;
+    }
+
     private ServiceNowSourceConnectorConfig _config;
     private OkHttpClient _okHttpClient;
 
@@ -37,6 +48,10 @@ public class ServiceNowTableApiClient {
     private int MAX_RETRIES;
     private int RETRY_BACKOFF_MS;
     private String DISPLAY_VALUE;
+    private InstanceConcurrencyLimiter _limiter;
+    private final ServerClock _serverClock = new ServerClock();
+    private long MAX_RESPONSE_HEAP_BYTES;
+    private File SPILL_DIRECTORY;
 
     /**
      * EXAMPLE: https://ibmmhasdev2.service-now.com
@@ -102,6 +117,21 @@ public class ServiceNowTableApiClient {
         }
         
         LOG.info("ServiceNow client initialized with display_value mode: {}", this.DISPLAY_VALUE);
+
+        this.MAX_RESPONSE_HEAP_BYTES = this.getConfigOrDefault(ServiceNowSourceConnectorConfig.TASK_RESPONSE_HEAP_MAX_BYTES,
+                ServiceNowSourceConnectorConfig.TASK_RESPONSE_HEAP_MAX_BYTES_DEFAULT);
+        final String spillDirectory = this.getConfigOrDefault(ServiceNowSourceConnectorConfig.TASK_RESPONSE_SPILL_DIR, "");
+        this.SPILL_DIRECTORY = spillDirectory.trim().isEmpty() ? null : new File(spillDirectory.trim());
+        if(this.isResponseMemoryBounded()) {
+            LOG.info("ServiceNow client keeping at most [{}] bytes of each response on the heap, spilling to [{}].", this.MAX_RESPONSE_HEAP_BYTES,
+                    this.SPILL_DIRECTORY != null ? this.SPILL_DIRECTORY : System.getProperty("java.io.tmpdir"));
+        }
+
+        final int MAX_CONCURRENT_REQUESTS = this.getRequiredConfigInt(ServiceNowSourceConnectorConfig.SERVICENOW_CLIENT_MAX_CONCURRENT_REQUESTS);
+        if(MAX_CONCURRENT_REQUESTS > 0) {
+            this._limiter = InstanceConcurrencyLimiter.forInstance(this.getBaseUri().toString(), MAX_CONCURRENT_REQUESTS);
+            LOG.info("ServiceNow client limited to [{}] in-flight requests per instance.", this._limiter.getMaxInFlight());
+        }
     }
     
     /**
@@ -136,6 +166,42 @@ public class ServiceNowTableApiClient {
     }
 
     public List<JSONObject> getRecords(String table, TableAPIQueryBuilder query, long offset, int limit, boolean excludeReferenceLink, List<String> fields) throws InterruptedException, IOException {
+        return this.sendWithRetry(this.buildTableRequest(table, query, offset, limit, excludeReferenceLink, fields), this::parseJSONBody).getRecords();
+    }
+
+    /**
+     * As {@link #getRecords(String, TableAPIQueryBuilder, long, int, List)}, along with the size of the response
+     * the records were parsed from.
+     */
+    public JsonPage getJsonPage(String table, TableAPIQueryBuilder query, long offset, int limit, List<String> fields) throws InterruptedException, IOException {
+        return this.sendWithRetry(this.buildTableRequest(table, query, offset, limit, true, fields), this::parseJSONBody);
+    }
+
+    /**
+     * As {@link #getRecords(String, TableAPIQueryBuilder, long, int, List)}, but leaves the records as the bytes
+     * they were received in rather than parsing them.
+     */
+    public RawJsonPage getRawRecords(String table, TableAPIQueryBuilder query, long offset, int limit, List<String> fields) throws InterruptedException, IOException {
+        return this.sendWithRetry(this.buildTableRequest(table, query, offset, limit, true, fields), this::parseRawBody);
+    }
+
+    /**
+     * As {@link #getRecords(String, TableAPIQueryBuilder, long, int, List)}, but keeps at most
+     * 'task.response.heap.max.bytes' of the response on the heap, spilling the rest of it off the heap. The page
+     * must be closed, which unmaps a spilled response.
+     */
+    public SpillableJsonPage getRecordPage(String table, TableAPIQueryBuilder query, long offset, int limit, List<String> fields) throws InterruptedException, IOException {
+        return this.sendWithRetry(this.buildTableRequest(table, query, offset, limit, true, fields), this::parseSpillableBody);
+    }
+
+    /**
+     * @return true if 'task.response.heap.max.bytes' is set, and {@link #getRecordPage} should be used.
+     */
+    public boolean isResponseMemoryBounded() {
+        return this.MAX_RESPONSE_HEAP_BYTES >= 0;
+    }
+
+    private Request.Builder buildTableRequest(String table, TableAPIQueryBuilder query, long offset, int limit, boolean excludeReferenceLink, List<String> fields) {
 
         final StringBuilder requestUrl = this.getBaseUri();
         requestUrl.append(Urls.DEFAULT_TABLEAPI_PATH);
@@ -174,12 +240,10 @@ public class ServiceNowTableApiClient {
         requestUrl.append("?");
         requestUrl.append(String.join("&", queryArgs));
 
-        Request.Builder req = new Request.Builder()
+        return new Request.Builder()
                 .url(requestUrl.toString())
                 .addHeader("Accept", "application/json")
                 .get();
-
-        return this.sendWithRetry(req);
     }
 
     /**
@@ -188,59 +252,67 @@ public class ServiceNowTableApiClient {
      * @return
      * @throws InterruptedException
      */
-    private List<JSONObject> sendWithRetry(Request.Builder requestBuilder) throws InterruptedException {
+    private <T> T sendWithRetry(Request.Builder requestBuilder, ResponseParser<T> parser) throws InterruptedException {
 
-        List<JSONObject> result = null;
+        T result = null;
         final String AUTHORIZATION_HEADER = "Authorization";
         int remainingRetries = this.MAX_RETRIES;
         while(this.MAX_RETRIES == this.UNBOUNDED_NUMBER_OF_RETRIES || remainingRetries-- > 0) {
 
-            Response candidate = null;
-            Request request = requestBuilder
-                    .removeHeader(AUTHORIZATION_HEADER)
-                    .addHeader(AUTHORIZATION_HEADER, String.format("Bearer %s", this.getAccessToken()))
-                    .build();
-
+            // NOTE: the slot is held until the response body has been consumed, and released before backing off.
+            this.acquireRequestSlot();
             try {
-                candidate = this._okHttpClient.newCall(request).execute();
-            }
-            catch(IOException ex) {
-                LOG.error("The following error occurred while sending request {}. {}", request, ex);
-            }
+                Response candidate = null;
+                Request request = requestBuilder
+                        .removeHeader(AUTHORIZATION_HEADER)
+                        .addHeader(AUTHORIZATION_HEADER, String.format("Bearer %s", this.getAccessToken()))
+                        .build();
 
-            // NOTE(millies): handling a failed response and trying to log as much info as we can.
-            if(candidate == null || !candidate.isSuccessful()) {
-                if(candidate != null) {
-                    ResponseBody body = candidate.body();
-                    String bodyContents = "";
-                    try {
-                        if(body != null) {
-                            bodyContents = body.string();
-                            body.close();
-                        }
-                    } catch(Exception ignored) {
-                        // ignored.
-                    }
+                final long sentMs = System.currentTimeMillis();
+                try {
+                    candidate = this._okHttpClient.newCall(request).execute();
+                    this.observeServerClock(candidate, sentMs, System.currentTimeMillis());
+                }
+                catch(IOException ex) {
+                    LOG.error("The following error occurred while sending request {}. {}", request, ex);
+                }
 
-                    LOG.error("Request {} failed with code {} and the following body. {}", request, candidate.code(), bodyContents);
-                    if(candidate.code() == 401) {
-                        LOG.info("Received 401 from server, attempting to refresh authentication token.");
+                // NOTE(millies): handling a failed response and trying to log as much info as we can.
+                if(candidate == null || !candidate.isSuccessful()) {
+                    if(candidate != null) {
+                        ResponseBody body = candidate.body();
+                        String bodyContents = "";
                         try {
-                            this.refreshAuthenticationToken();
-                        } catch(Exception ex) {
-                            LOG.error("Failed to refresh authentication token: {}", ex);
+                            if(body != null) {
+                                bodyContents = body.string();
+                                body.close();
+                            }
+                        } catch(Exception ignored) {
+                            // ignored.
+                        }
+
+                        LOG.error("Request {} failed with code {} and the following body. {}", request, candidate.code(), bodyContents);
+                        if(candidate.code() == 401) {
+                            LOG.info("Received 401 from server, attempting to refresh authentication token.");
+                            try {
+                                this.refreshAuthenticationToken();
+                            } catch(Exception ex) {
+                                LOG.error("Failed to refresh authentication token: {}", ex);
+                            }
                         }
                     }
+                } else {
+                    // NOTE(millies): Received a successful response attempt parsing.
+                    try {
+                        result = parser.parse(candidate);
+                        // NOTE(millies): Successful parsing.
+                        break;
+                    } catch(IOException ex) {
+                        LOG.error("Failed parsing response with error [{}].", ex);
+                    }
                 }
-            } else {
-                // NOTE(millies): Received a successful response attempt parsing.
-                try {
-                    result = parseJSONBody(candidate);
-                    // NOTE(millies): Successful parsing.
-                    break;
-                } catch(IOException ex) {
-                    LOG.error("Failed parsing response with error [{}].", ex);
-                }
+            } finally {
+                this.releaseRequestSlot();
             }
 
             LOG.info("Retrying in [{}] ms. [{}] retries remaining.", this.RETRY_BACKOFF_MS, remainingRetries);
@@ -257,13 +329,63 @@ public class ServiceNowTableApiClient {
         return result;
     }
 
-    private List<JSONObject>  parseJSONBody(Response response) throws IOException {
+    private void acquireRequestSlot() throws InterruptedException {
+        if(this._limiter != null) {
+            this._limiter.acquire();
+        }
+    }
+
+    private void releaseRequestSlot() {
+        if(this._limiter != null) {
+            this._limiter.release();
+        }
+    }
+
+    private RawJsonPage parseRawBody(Response response) throws IOException {
+        byte[] contents = new byte[0];
+        try(ResponseBody body = response.body()) {
+            if(body != null) {
+                contents = body.bytes();
+            }
+        }
+
+        RawJsonPage page = RawJsonPage.parse(contents);
+        if(!page.hasResult()) {
+            // NOTE: put this here so we have visibility of this situation.
+            LOG.error("Received the following body that could not be parsed. {}", new String(contents, StandardCharsets.UTF_8));
+        }
+        return page;
+    }
+
+    private SpillableJsonPage parseSpillableBody(Response response) throws IOException {
+        final SpillableJsonPage page;
+        try(ResponseBody body = response.body()) {
+            if(body == null) {
+                throw new IOException("Response had no body.");
+            }
+            page = SpillableJsonPage.read(body.byteStream(), this.MAX_RESPONSE_HEAP_BYTES, this.SPILL_DIRECTORY);
+        }
+
+        if(page.isSpilled()) {
+            LOG.info("Response of [{}] bytes was over the [{}] bytes kept on the heap, spilled it to disk.", page.getSizeInBytes(), this.MAX_RESPONSE_HEAP_BYTES);
+        }
+        if(!page.hasResult()) {
+            // NOTE: the body could be huge, so only its size is logged.
+            LOG.error("Received a body of [{}] bytes with no result that could be parsed.", page.getSizeInBytes());
+        }
+        return page;
+    }
+
+    private JsonPage parseJSONBody(Response response) throws IOException {
         JSONObject page = null;
         ResponseBody body = null;
+        long sizeInBytes = 0;
         try {
             body = response.body();
             if(body != null) {
-                page = new JSONObject(body.string());
+                final byte[] contents = body.bytes();
+                sizeInBytes = contents.length;
+                page = new JSONObject(new String(contents, StandardCharsets.UTF_8));
             }
         } finally {
             if(body != null) {
@@ -287,7 +409,21 @@ public class ServiceNowTableApiClient {
             LOG.error("Page ended up being null during query of table.");
         }
 
-        return results;
+        return new JsonPage(results, sizeInBytes);
+    }
+
+    private void observeServerClock(Response response, long sentMs, long receivedMs) {
+        final Date serverDate = response.headers().getDate("Date");
+        if(serverDate != null) {
+            this._serverClock.observe(serverDate.getTime(), sentMs, receivedMs);
+        }
+    }
+
+    /**
+     * @return The instance's clock, as estimated from the Date header of its responses.
+     */
+    public ServerClock getServerClock() {
+        return this._serverClock;
     }
 
     private String getAccessToken() {
@@ -340,6 +476,14 @@ public class ServiceNowTableApiClient {
         }
     }
 
+    private Long getConfigOrDefault(String key, Long defaultValue) {
+        try {
+            return this._config.getLong(key);
+        } catch(ConfigException ex) {
+            return defaultValue;
+        }
+    }
+
     private StringBuilder getBaseUri() {
         final String baseUrl = this.getRequiredConfig(ServiceNowSourceConnectorConfig.SERVICENOW_CLIENT_BASEURI);
         // NOTE(millies): starting the url with ensuring the baseurl doesn't have a trailing slash.
@@ -79,6 +79,12 @@ public class TableAPIQueryBuilder {
         return this;
     }
 
+    public TableAPIQueryBuilder whereStartsWith(String field, String value) {
+        value = this.sanitizeValue(value);
+        this._query.append(String.format("%s%s%s%s",ServiceNowQuerySyntax.AND, field, ServiceNowQuerySyntax.STARTS_WITH, value));
+        return this;
+    }
+
     public TableAPIQueryBuilder whereGreaterThan(String field, String value) {
         value = this.sanitizeValue(value);
         this._query.append(String.format("%s%s%s%s",ServiceNowQuerySyntax.AND, field, ServiceNowQuerySyntax.GREATER_THAN, value));
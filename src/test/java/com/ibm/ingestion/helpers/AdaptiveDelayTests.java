@@ -0,0 +1,42 @@
+package com.ibm.ingestion.connect.servicenow.util;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests that the delay starts safe, decays towards its minimum, and goes back up when rows arrive late.
+ */
+public class AdaptiveDelayTests {
+
+    private static final long MINUTE_MS = 60 * 1000L;
+
+    @Test
+    public void startsAtTheMaximumAndDecaysToTheMinimum() {
+        AdaptiveDelay delay = new AdaptiveDelay(2, 60, 0);
+        assertEquals(60, delay.getDelaySeconds(0));
+        assertEquals(30, delay.getDelaySeconds(AdaptiveDelay.HALF_LIFE_MS));
+        assertEquals(2, delay.getDelaySeconds(10 * AdaptiveDelay.HALF_LIFE_MS));
+    }
+
+    @Test
+    public void lateRowsPutTheDelayBackUpWithinTheBounds() {
+        AdaptiveDelay delay = new AdaptiveDelay(2, 60, 0);
+        final long later = 10 * AdaptiveDelay.HALF_LIFE_MS;
+        delay.observeLateness(10, later);
+        assertEquals(15, delay.getDelaySeconds(later));
+        assertEquals(15, delay.getDelaySeconds(later + 1), 1);
+
+        // NOTE: a smaller lateness than the decayed peak changes nothing.
+        delay.observeLateness(4, later + MINUTE_MS);
+        assertTrue(delay.getDelaySeconds(later + MINUTE_MS) > 6);
+
+        delay.observeLateness(600, later + 2 * MINUTE_MS);
+        assertEquals(60, delay.getDelaySeconds(later + 2 * MINUTE_MS));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void boundsMustBeOrdered() {
+        new AdaptiveDelay(10, 5, 0);
+    }
+}
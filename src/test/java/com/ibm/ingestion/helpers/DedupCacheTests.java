@@ -0,0 +1,98 @@
+package com.ibm.ingestion.connect.servicenow.util;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests that row versions are remembered across generations, up to the bound, and across saving and loading.
+ */
+public class DedupCacheTests {
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private static String sysId(int i) {
+        return String.format("%016x%016x", (long)i * 0x9E3779B97F4A7C15L, (long)i);
+    }
+
+    @Test
+    public void secondVersionOfARowIsNotADuplicate() {
+        DedupCache cache = new DedupCache(10);
+        assertTrue(cache.add(sysId(1), 1));
+        assertFalse(cache.add(sysId(1), 1));
+        assertTrue(cache.add(sysId(1), 2));
+        assertFalse(cache.add(sysId(1), 2));
+        assertTrue(cache.add(sysId(2), 1));
+    }
+
+    @Test
+    public void idsThatArentSysIdsAreNeverDuplicates() {
+        DedupCache cache = new DedupCache(10);
+        assertTrue(cache.add("INC0000001", 1));
+        assertTrue(cache.add("INC0000001", 1));
+        assertTrue(cache.add(null, 1));
+        assertTrue(cache.add(sysId(1), -1));
+        assertTrue(cache.add(sysId(1), -1));
+        assertTrue(cache.add("zz" + sysId(1).substring(2), 1));
+        assertTrue(cache.add("zz" + sysId(1).substring(2), 1));
+    }
+
+    @Test
+    public void lastMaxEntriesRowsAreAlwaysRemembered() {
+        final int maxEntries = 1000;
+        DedupCache cache = new DedupCache(maxEntries);
+        for(int i = 0; i < 10 * maxEntries; i++) {
+            assertTrue(cache.add(sysId(i), 0));
+            assertTrue(cache.size() <= 2 * maxEntries);
+        }
+        for(int i = 9 * maxEntries; i < 10 * maxEntries; i++) {
+            assertFalse(cache.add(sysId(i), 0));
+        }
+        assertTrue(cache.add(sysId(0), 0));
+    }
+
+    @Test
+    public void largeBoundsAreNotAllocatedUpFront() {
+        // NOTE: allocated up front, each of these would take over a gigabyte.
+        DedupCache[] caches = new DedupCache[16];
+        for(int i = 0; i < caches.length; i++) {
+            caches[i] = new DedupCache(1 << 24);
+            assertTrue(caches[i].add(sysId(i), 0));
+        }
+        for(int i = 0; i < 10000; i++) {
+            caches[0].add(sysId(i), 1);
+        }
+        for(int i = 0; i < 10000; i++) {
+            assertTrue(caches[0].contains(sysId(i), 1));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void emptyCacheIsRejected() {
+        new DedupCache(0);
+    }
+
+    @Test
+    public void rowsAreKeptAcrossSaveAndLoad() throws IOException {
+        File directory = this.folder.newFolder();
+        File file = new File(directory, "connector.incident.dedup");
+        DedupCache cache = new DedupCache(100);
+        for(int i = 0; i < 150; i++) {
+            cache.add(sysId(i), i % 3);
+        }
+        cache.save(file);
+
+        DedupCache loaded = new DedupCache(100);
+        assertEquals(cache.size(), loaded.load(file));
+        for(int i = 50; i < 150; i++) {
+            assertFalse(loaded.add(sysId(i), i % 3));
+        }
+        assertEquals(0, new DedupCache(100).load(new File(directory, "missing.dedup")));
+    }
+}
@@ -0,0 +1,81 @@
+package com.ibm.ingestion.connect.servicenow.util;
+
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.data.Struct;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests that dot-walked display values end up in the same columns as display_value=all.
+ */
+public class DisplayValueFieldsTests {
+
+    @Test
+    public void testRequestFieldsPairReferenceAndDotWalkedField() {
+        DisplayValueFields fields = DisplayValueFields.parse(Arrays.asList("assigned_to.name", "caller_id.user_name"));
+        assertEquals(Arrays.asList("assigned_to", "assigned_to.name", "caller_id", "caller_id.user_name"), fields.requestFields());
+    }
+
+    @Test
+    public void testMatchesDisplayValueAll() {
+        JSONObject dotWalked = new JSONObject();
+        dotWalked.put("sys_id", "abc123");
+        dotWalked.put("assigned_to", "user-1");
+        dotWalked.put("assigned_to.name", "John Doe");
+
+        JSONObject displayValueAll = new JSONObject();
+        displayValueAll.put("sys_id", "abc123");
+        JSONObject assignedTo = new JSONObject();
+        assignedTo.put("value", "user-1");
+        assignedTo.put("display_value", "John Doe");
+        displayValueAll.put("assigned_to", assignedTo);
+
+        DisplayValueFields.parse(Collections.singletonList("assigned_to.name")).apply(dotWalked);
+
+        Schema expectedSchema = Helpers.buildSchemaFromSimpleJsonRecord(displayValueAll);
+        Struct expected = Helpers.buildStruct(expectedSchema, displayValueAll);
+        StructCodec codec = StructCodec.compile(dotWalked);
+        assertEquals(expectedSchema, codec.schema());
+        assertEquals(expected, codec.decode(dotWalked));
+        assertEquals("John Doe", codec.decode(dotWalked).getString("assigned_to_display_value"));
+    }
+
+    @Test
+    public void testEmptyReferenceKeepsNullDisplayValue() {
+        JSONObject record = new JSONObject();
+        record.put("assigned_to", "");
+        record.put("assigned_to.name", "");
+
+        DisplayValueFields.parse(Collections.singletonList("assigned_to.name")).apply(record);
+
+        assertFalse(record.has("assigned_to.name"));
+        assertEquals("", record.getJSONObject("assigned_to").getString("value"));
+        assertEquals("", record.getJSONObject("assigned_to").getString("display_value"));
+    }
+
+    @Test
+    public void testMissingFieldsAreLeftAlone() {
+        JSONObject record = new JSONObject();
+        record.put("sys_id", "abc123");
+
+        DisplayValueFields.parse(Collections.singletonList("assigned_to.name")).apply(record);
+
+        assertEquals(1, record.length());
+        assertFalse(record.has("assigned_to"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsFieldsThatAreNotDotWalked() {
+        DisplayValueFields.parse(Collections.singletonList("assigned_to"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsTwoDisplayFieldsForOneReference() {
+        DisplayValueFields.parse(Arrays.asList("assigned_to.name", "assigned_to.email"));
+    }
+}
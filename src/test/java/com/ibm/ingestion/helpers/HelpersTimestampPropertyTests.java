@@ -0,0 +1,108 @@
+package com.ibm.ingestion.connect.servicenow.util;
+
+import org.junit.Test;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks the fixed layout timestamp parser against the original formatter based implementation, on generated
+ * well formed, out of range and corrupted inputs.
+ */
+public class HelpersTimestampPropertyTests {
+
+    private static final int ITERATIONS = 200000;
+
+    private static final DateTimeFormatter INTERNAL_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ssX");
+    private static final DateTimeFormatter DISPLAY_FORMAT = DateTimeFormatter.ofPattern("MM/dd/yyyy HH:mm:ssX");
+
+    /**
+     * The implementation before the fixed layout parser, as the reference.
+     */
+    private static LocalDateTime reference(String raw) {
+        if(raw == null || raw.trim().isEmpty()) {
+            throw new IllegalArgumentException("Timestamp string cannot be null or empty");
+        }
+        if(!raw.endsWith("Z")) {
+            raw = raw + "Z";
+        }
+        try {
+            return LocalDateTime.parse(raw, INTERNAL_FORMAT);
+        } catch(DateTimeParseException e) {
+            return LocalDateTime.parse(raw, DISPLAY_FORMAT);
+        }
+    }
+
+    private static String pad(int value, int width) {
+        StringBuilder builder = new StringBuilder(Integer.toString(value));
+        while(builder.length() < width) {
+            builder.insert(0, '0');
+        }
+        return builder.toString();
+    }
+
+    private static String generate(Random random) {
+        // NOTE: ranges go past the valid values so the out of range handling is exercised too.
+        final String year = pad(random.nextInt(10) == 0 ? random.nextInt(10000) : 1970 + random.nextInt(100), 4);
+        final String month = pad(random.nextInt(14), 2);
+        final String day = pad(random.nextInt(10) < 3 ? 28 + random.nextInt(5) : random.nextInt(33), 2);
+        final String time = pad(random.nextInt(26), 2) + ":" + pad(random.nextInt(62), 2) + ":" + pad(random.nextInt(62), 2);
+        final String zone = random.nextBoolean() ? "Z" : "";
+
+        String candidate = random.nextBoolean()
+                ? year + "-" + month + "-" + day + " " + time + zone
+                : month + "/" + day + "/" + year + " " + time + zone;
+
+        if(random.nextInt(8) == 0) {
+            // NOTE: corrupt a single character.
+            char[] chars = candidate.toCharArray();
+            chars[random.nextInt(chars.length)] = "0123456789-/: Zx+".charAt(random.nextInt(17));
+            candidate = new String(chars);
+        } else if(random.nextInt(16) == 0) {
+            candidate = candidate.substring(0, random.nextInt(candidate.length()));
+        }
+        return candidate;
+    }
+
+    @Test
+    public void testMatchesReference() {
+        Random random = new Random(20260203L);
+        for(int i = 0; i < ITERATIONS; i++) {
+            final String raw = generate(random);
+
+            LocalDateTime expected;
+            try {
+                expected = reference(raw);
+            } catch(RuntimeException ex) {
+                try {
+                    Helpers.parseServiceNowEpochSecondsUtc(raw);
+                    fail(String.format("Expected [%s] to be rejected.", raw));
+                } catch(DateTimeParseException | IllegalArgumentException ignored) {
+                    // expected.
+                }
+                continue;
+            }
+
+            assertEquals(raw, expected.toEpochSecond(ZoneOffset.UTC), Helpers.parseServiceNowEpochSecondsUtc(raw));
+            assertEquals(raw, expected, Helpers.parseServiceNowDateTimeUtc(raw));
+        }
+    }
+
+    @Test
+    public void testEveryDayOfFourCenturies() {
+        LocalDateTime timestamp = LocalDateTime.of(1900, 1, 1, 23, 59, 59);
+        final DateTimeFormatter internal = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+        final DateTimeFormatter display = DateTimeFormatter.ofPattern("MM/dd/yyyy HH:mm:ss");
+        while(timestamp.getYear() < 2300) {
+            final long expected = timestamp.toEpochSecond(ZoneOffset.UTC);
+            assertEquals(expected, Helpers.parseServiceNowEpochSecondsUtc(internal.format(timestamp)));
+            assertEquals(expected, Helpers.parseServiceNowEpochSecondsUtc(display.format(timestamp)));
+            timestamp = timestamp.plusDays(1);
+        }
+    }
+}
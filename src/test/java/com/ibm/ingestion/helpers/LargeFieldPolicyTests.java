@@ -0,0 +1,106 @@
+package com.ibm.ingestion.connect.servicenow.util;
+
+import org.json.JSONObject;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests that oversized values are truncated, hashed or dropped, and everything else is left alone.
+ */
+public class LargeFieldPolicyTests {
+
+    private static String repeat(String value, int times) {
+        StringBuilder builder = new StringBuilder();
+        for(int i = 0; i < times; i++) {
+            builder.append(value);
+        }
+        return builder.toString();
+    }
+
+    @Test
+    public void testLeavesSmallValuesAlone() {
+        LargeFieldPolicy policy = new LargeFieldPolicy(10, LargeFieldPolicy.Action.DROP, Collections.emptySet(), null);
+        JSONObject record = new JSONObject();
+        record.put("number", "INC0001");
+        record.put("description", "0123456789");
+
+        policy.apply(record);
+
+        assertEquals("INC0001", record.getString("number"));
+        assertEquals("0123456789", record.getString("description"));
+    }
+
+    @Test
+    public void testTruncatesOnCharacterBoundary() {
+        LargeFieldPolicy policy = new LargeFieldPolicy(5, LargeFieldPolicy.Action.TRUNCATE, Collections.emptySet(), null);
+        JSONObject record = new JSONObject();
+        // NOTE: 'e' with an acute accent is 2 bytes, so the fifth byte would split the third one.
+        record.put("description", repeat("\u00e9", 10));
+
+        policy.apply(record);
+
+        assertEquals("\u00e9\u00e9", record.getString("description"));
+        assertTrue(record.getString("description").getBytes(StandardCharsets.UTF_8).length <= 5);
+    }
+
+    @Test
+    public void testHashesWithLength() {
+        LargeFieldPolicy policy = new LargeFieldPolicy(3, LargeFieldPolicy.Action.HASH, Collections.emptySet(), null);
+        JSONObject record = new JSONObject();
+        record.put("description", "abcd");
+
+        policy.apply(record);
+
+        // NOTE: sha256("abcd")
+        assertEquals("sha256:88d4266fd4e6338d13b845fcf289579d209c897823b9217da3e161936f031589;length=4", record.getString("description"));
+    }
+
+    @Test
+    public void testDropsToNull() {
+        LargeFieldPolicy policy = new LargeFieldPolicy(3, LargeFieldPolicy.Action.DROP, Collections.emptySet(), null);
+        JSONObject record = new JSONObject();
+        record.put("description", "abcd");
+
+        policy.apply(record);
+
+        assertTrue(record.has("description"));
+        assertTrue(record.isNull("description"));
+    }
+
+    @Test
+    public void testOnlyListedFields() {
+        LargeFieldPolicy policy = new LargeFieldPolicy(3, LargeFieldPolicy.Action.DROP, Collections.singleton("work_notes"), null);
+        JSONObject record = new JSONObject();
+        record.put("description", "abcd");
+        record.put("work_notes", "abcd");
+
+        policy.apply(record);
+
+        assertEquals("abcd", record.getString("description"));
+        assertTrue(record.isNull("work_notes"));
+    }
+
+    @Test
+    public void testCapsBothPartsOfDisplayValueObjects() {
+        LargeFieldPolicy policy = new LargeFieldPolicy(4, LargeFieldPolicy.Action.TRUNCATE, Collections.emptySet(), null);
+        JSONObject comments = new JSONObject();
+        comments.put("value", "abcdefgh");
+        comments.put("display_value", "ABCDEFGH");
+        JSONObject record = new JSONObject();
+        record.put("comments", comments);
+
+        policy.apply(record);
+
+        assertEquals("abcd", record.getJSONObject("comments").getString("value"));
+        assertEquals("ABCD", record.getJSONObject("comments").getString("display_value"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsUnknownAction() {
+        LargeFieldPolicy.parseAction("shrink");
+    }
+}
@@ -0,0 +1,73 @@
+package com.ibm.ingestion.connect.servicenow.util;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for reading records out of a Table API response without parsing it into JSONObjects.
+ */
+public class RawJsonPageTests {
+
+    private static RawJsonPage parse(String body) throws IOException {
+        return RawJsonPage.parse(body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testSlicesRecords() throws IOException {
+        RawJsonPage page = parse("{\"result\": [ {\"sys_id\":\"a\",\"n\":{\"x\":[1,2]}} , {\"sys_id\":\"b\"}]}");
+
+        List<RawJsonRecord> records = page.getRecords();
+        assertTrue(page.hasResult());
+        assertEquals(2, records.size());
+        assertEquals("{\"sys_id\":\"a\",\"n\":{\"x\":[1,2]}}", records.get(0).toJsonString());
+        assertEquals("{\"sys_id\":\"b\"}", new String(records.get(1).toBytes(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testSkipsOtherMembersAndBracketsInStrings() throws IOException {
+        RawJsonPage page = parse("{\"meta\":{\"note\":\"] } [\"},\"result\":[{\"d\":\"}{\\\"\"}],\"more\":true}");
+
+        assertEquals(1, page.getRecords().size());
+        assertEquals("}{\"", page.getRecords().get(0).getString(RawJsonRecord.key("d")));
+    }
+
+    @Test
+    public void testEmptyAndMissingResult() throws IOException {
+        assertEquals(0, parse("{\"result\":[]}").getRecords().size());
+        assertFalse(parse("{\"error\":{\"message\":\"nope\"}}").hasResult());
+    }
+
+    @Test(expected = IOException.class)
+    public void testTruncatedBody() throws IOException {
+        parse("{\"result\":[{\"sys_id\":\"a\"");
+    }
+
+    @Test
+    public void testGetString() throws IOException {
+        RawJsonRecord record = parse("{\"result\":[{"
+                + "\"sys_id\":\"abc\","
+                + "\"short_description\":\"caf\\u00e9 \\\"quoted\\\"\\n\","
+                + "\"assigned_to\":{\"display_value\":\"John Doe\",\"value\":\"user-1\"},"
+                + "\"caller_id\":{\"display_value\":\"\",\"value\":null},"
+                + "\"close_notes\":null,"
+                + "\"reassignment_count\":3,"
+                + "\"active\":true,"
+                + "\"name\":\"K\u00f8benhavn\""
+                + "}]}").getRecords().get(0);
+
+        assertEquals("abc", record.getString(RawJsonRecord.key("sys_id")));
+        assertEquals("caf\u00e9 \"quoted\"\n", record.getString(RawJsonRecord.key("short_description")));
+        assertEquals("user-1", record.getString(RawJsonRecord.key("assigned_to")));
+        assertNull(record.getString(RawJsonRecord.key("caller_id")));
+        assertNull(record.getString(RawJsonRecord.key("close_notes")));
+        assertNull(record.getString(RawJsonRecord.key("missing")));
+        assertEquals("3", record.getString(RawJsonRecord.key("reassignment_count")));
+        assertEquals("true", record.getString(RawJsonRecord.key("active")));
+        assertEquals("K\u00f8benhavn", record.getString(RawJsonRecord.key("name")));
+    }
+}
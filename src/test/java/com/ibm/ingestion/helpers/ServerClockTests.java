@@ -0,0 +1,49 @@
+package com.ibm.ingestion.connect.servicenow.util;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests that whole second Date headers narrow down to the server's clock skew, and that a stepped clock is followed.
+ */
+public class ServerClockTests {
+
+    /**
+     * A response from a server whose clock is {@code skewMs} ahead, sent at {@code sentMs} and taking 50ms.
+     */
+    private static void respond(ServerClock clock, long skewMs, long sentMs) {
+        final long serverMs = sentMs + 25 + skewMs;
+        clock.observe(serverMs - Math.floorMod(serverMs, 1000L), sentMs, sentMs + 50);
+    }
+
+    @Test
+    public void unknownSkewIsZero() {
+        assertEquals(0, new ServerClock().getSkewMs());
+    }
+
+    @Test
+    public void skewIsNarrowedDownAcrossResponses() {
+        ServerClock clock = new ServerClock();
+        for(int i = 0; i < 16; i++) {
+            respond(clock, 4321, 1000000 + i * 1063);
+        }
+        assertEquals(4321, clock.getSkewMs(), 100);
+
+        clock = new ServerClock();
+        for(int i = 0; i < 16; i++) {
+            respond(clock, -2700, 5000000 + i * 1171);
+        }
+        assertEquals(-2700, clock.getSkewMs(), 100);
+    }
+
+    @Test
+    public void steppedClockIsFollowed() {
+        ServerClock clock = new ServerClock();
+        for(int i = 0; i < 16; i++) {
+            respond(clock, 0, 1000000 + i * 1063);
+        }
+        respond(clock, 60000, 2000000);
+        assertEquals(60000, clock.getSkewMs(), 1000);
+    }
+}
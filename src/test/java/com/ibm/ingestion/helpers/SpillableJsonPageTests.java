@@ -0,0 +1,124 @@
+package com.ibm.ingestion.connect.servicenow.util;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests that records read through a spillable page match the records org.json parses from the same body.
+ */
+public class SpillableJsonPageTests {
+
+    private static String body(int records) {
+        JSONArray result = new JSONArray();
+        for(int i = 0; i < records; i++) {
+            JSONObject record = new JSONObject();
+            record.put("sys_id", "id-" + i);
+            record.put("short_description", "Brace } and [bracket] with \"quotes\" and \\ slashes " + i);
+            JSONObject assignedTo = new JSONObject();
+            assignedTo.put("value", "user-" + i);
+            assignedTo.put("display_value", "\u00dcn\u00efc\u00f6d\u00e9 " + i);
+            record.put("assigned_to", assignedTo);
+            result.put(record);
+        }
+        JSONObject body = new JSONObject();
+        body.put("result", result);
+        return body.toString();
+    }
+
+    private static InputStream stream(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void assertSameRecords(String body, SpillableJsonPage page) {
+        JSONArray expected = new JSONObject(body).getJSONArray("result");
+        List<JSONObject> actual = page.getRecords();
+        assertEquals(expected.length(), actual.size());
+        for(int i = 0; i < expected.length(); i++) {
+            assertTrue(expected.getJSONObject(i).similar(actual.get(i)));
+        }
+    }
+
+    @Test
+    public void testKeepsSmallPagesOnTheHeap() throws IOException {
+        final String body = body(10);
+        try(SpillableJsonPage page = SpillableJsonPage.read(stream(body), 1024 * 1024, null)) {
+            assertFalse(page.isSpilled());
+            assertTrue(page.hasResult());
+            assertTrue(page.getHeapBytes() >= page.getSizeInBytes());
+            assertSameRecords(body, page);
+        }
+    }
+
+    @Test
+    public void testSpillsLargePages() throws IOException {
+        final String body = body(2000);
+        try(SpillableJsonPage page = SpillableJsonPage.read(stream(body), 4096, null)) {
+            assertTrue(page.isSpilled());
+            assertEquals(0, page.getHeapBytes());
+            assertEquals(body.getBytes(StandardCharsets.UTF_8).length, page.getSizeInBytes());
+            assertSameRecords(body, page);
+        }
+    }
+
+    @Test
+    public void testZeroAlwaysSpills() throws IOException {
+        final String body = body(1);
+        try(SpillableJsonPage page = SpillableJsonPage.read(stream(body), 0, null)) {
+            assertTrue(page.isSpilled());
+            assertSameRecords(body, page);
+        }
+    }
+
+    @Test
+    public void testIgnoresOtherTopLevelKeys() throws IOException {
+        final String body = "{\"meta\":{\"result\":[{\"a\":\"b\"}]},\"tags\":[{\"x\":1}],\"result\":[ {\"sys_id\":\"1\"} , {\"sys_id\":\"2\"} ]}";
+        try(SpillableJsonPage page = SpillableJsonPage.read(stream(body), 1024, null)) {
+            assertEquals(2, page.getRecords().size());
+            assertEquals("2", page.getRecords().get(1).getString("sys_id"));
+        }
+    }
+
+    @Test
+    public void testMissingResult() throws IOException {
+        try(SpillableJsonPage page = SpillableJsonPage.read(stream("{\"error\":{\"message\":\"No Record found\"}}"), 1024, null)) {
+            assertFalse(page.hasResult());
+            assertTrue(page.getRecords().isEmpty());
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testTruncatedBody() throws IOException {
+        SpillableJsonPage.read(stream("{\"result\":[{\"sys_id\":\"1\"}"), 1024, null);
+    }
+
+    @Test(expected = IOException.class)
+    public void testNotAnObject() throws IOException {
+        SpillableJsonPage.read(stream("[{\"sys_id\":\"1\"}]"), 1024, null);
+    }
+
+    @Test
+    public void testClosedPagesCantBeRead() throws IOException {
+        for(long maxHeapBytes : new long[] { 1024 * 1024, 0 }) {
+            SpillableJsonPage page = SpillableJsonPage.read(stream(body(3)), maxHeapBytes, null);
+            assertEquals(maxHeapBytes == 0, page.isSpilled());
+            page.getRecords().get(0);
+            page.close();
+            page.close();
+            try {
+                page.getRecords().get(0);
+                fail("Expected a closed page to refuse decoding.");
+            } catch(IllegalStateException ex) {
+                // NOTE: expected, a spilled page's mapping is gone by now.
+            }
+        }
+    }
+}
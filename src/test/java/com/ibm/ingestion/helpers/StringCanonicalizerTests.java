@@ -0,0 +1,108 @@
+package com.ibm.ingestion.connect.servicenow.util;
+
+import org.apache.kafka.connect.data.Struct;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests that repeated values share one instance without changing what is decoded.
+ */
+public class StringCanonicalizerTests {
+
+    private static JSONObject record(String sysId, String state, String assignedTo, String displayName) {
+        JSONObject record = new JSONObject();
+        record.put("sys_id", sysId);
+        // NOTE: new String(...) so the values are distinct instances, as they are when parsed from a response.
+        record.put("state", new String(state));
+        JSONObject assigned = new JSONObject();
+        assigned.put("value", new String(assignedTo));
+        assigned.put("display_value", new String(displayName));
+        record.put("assigned_to", assigned);
+        return record;
+    }
+
+    @Test
+    public void testConfiguredFieldsShareInstances() {
+        StringCanonicalizer strings = StringCanonicalizer.forFields(Collections.singleton("state"), StringCanonicalizer.DEFAULT_MAX_ENTRIES);
+        StructCodec codec = StructCodec.compile(record("a", "New", "user-1", "John"));
+
+        Struct first = codec.decode(record("a", "New", "user-1", "John"), strings);
+        Struct second = codec.decode(record("b", "New", "user-1", "John"), strings);
+
+        assertSame(first.getString("state"), second.getString("state"));
+        assertNotSame(first.getString("assigned_to"), second.getString("assigned_to"));
+        assertNotSame(first.getString("assigned_to_display_value"), second.getString("assigned_to_display_value"));
+    }
+
+    @Test
+    public void testDisplayValuesOfConfiguredFieldsShareInstances() {
+        StringCanonicalizer strings = StringCanonicalizer.forFields(Collections.singleton("assigned_to"), StringCanonicalizer.DEFAULT_MAX_ENTRIES);
+        StructCodec codec = StructCodec.compile(record("a", "New", "user-1", "John"));
+
+        Struct first = codec.decode(record("a", "New", "user-1", "John"), strings);
+        Struct second = codec.decode(record("b", "New", "user-1", "John"), strings);
+
+        assertSame(first.getString("assigned_to"), second.getString("assigned_to"));
+        assertSame(first.getString("assigned_to_display_value"), second.getString("assigned_to_display_value"));
+    }
+
+    @Test
+    public void testDecodesTheSameStruct() {
+        StringCanonicalizer strings = StringCanonicalizer.auto(StringCanonicalizer.DEFAULT_MAX_ENTRIES);
+        StructCodec codec = StructCodec.compile(record("a", "New", "user-1", "John"));
+        for(int i = 0; i < 10; i++) {
+            JSONObject record = record("id-" + i, "New", "user-" + (i % 2), "John");
+            assertEquals(codec.decode(record), codec.decode(record, strings));
+        }
+    }
+
+    @Test
+    public void testAutoDropsMostlyDistinctColumns() {
+        StringCanonicalizer strings = StringCanonicalizer.auto(StringCanonicalizer.DEFAULT_MAX_ENTRIES);
+        StringCanonicalizer.Column sysId = strings.column("sys_id", false);
+        StringCanonicalizer.Column state = strings.column("state", false);
+
+        for(int i = 0; i < StringCanonicalizer.SAMPLE_SIZE; i++) {
+            sysId.canonical("id-" + i);
+            state.canonical(new String(i % 3 == 0 ? "New" : "Closed"));
+        }
+
+        assertFalse(sysId.isEnabled());
+        assertTrue(state.isEnabled());
+        assertSame(state.canonical(new String("New")), state.canonical(new String("New")));
+    }
+
+    @Test
+    public void testAutoSkipsLongValues() {
+        StringCanonicalizer strings = StringCanonicalizer.auto(StringCanonicalizer.DEFAULT_MAX_ENTRIES);
+        StringCanonicalizer.Column description = strings.column("description", false);
+        char[] chars = new char[StringCanonicalizer.MAX_AUTO_VALUE_LENGTH + 1];
+        Arrays.fill(chars, 'x');
+
+        description.canonical(new String(chars));
+
+        assertEquals(0, strings.size());
+    }
+
+    @Test
+    public void testTableIsBounded() {
+        StringCanonicalizer strings = StringCanonicalizer.forFields(Collections.singleton("number"), 8);
+        StringCanonicalizer.Column number = strings.column("number", false);
+        for(int i = 0; i < 100; i++) {
+            assertEquals("INC" + i, number.canonical("INC" + i));
+            assertTrue(strings.size() <= 8);
+        }
+    }
+
+    @Test
+    public void testUnlistedFieldsHaveNoColumn() {
+        StringCanonicalizer strings = StringCanonicalizer.forFields(Collections.singleton("state"), StringCanonicalizer.DEFAULT_MAX_ENTRIES);
+        assertNull(strings.column("sys_id", false));
+        assertNotNull(strings.column("state", true));
+    }
+}
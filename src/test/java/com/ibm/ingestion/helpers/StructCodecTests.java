@@ -0,0 +1,84 @@
+package com.ibm.ingestion.connect.servicenow.util;
+
+import org.apache.kafka.connect.data.Struct;
+import org.apache.kafka.connect.errors.DataException;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests that the compiled codec produces the same structs as {@link Helpers#buildStruct}.
+ */
+public class StructCodecTests {
+
+    private static JSONObject displayValue(String value, String displayValue) {
+        JSONObject obj = new JSONObject();
+        obj.put("value", value == null ? JSONObject.NULL : value);
+        obj.put("display_value", displayValue == null ? JSONObject.NULL : displayValue);
+        return obj;
+    }
+
+    private static JSONObject sample() {
+        JSONObject record = new JSONObject();
+        record.put("sys_id", "abc123");
+        record.put("number", "INC0001");
+        record.put("assigned_to", displayValue("user-1", "John Doe"));
+        record.put("caller_id.name", "Jane");
+        record.put("close_notes", JSONObject.NULL);
+        return record;
+    }
+
+    private static void assertSameAsHelpers(StructCodec codec, JSONObject record) {
+        Struct expected = Helpers.buildStruct(codec.schema(), record);
+        Struct actual = codec.decode(record);
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    public void testSchemaMatchesHelpers() {
+        JSONObject record = sample();
+        assertEquals(Helpers.buildSchemaFromSimpleJsonRecord(record), StructCodec.compile(record).schema());
+    }
+
+    @Test
+    public void testDecodeMatchesHelpers() {
+        StructCodec codec = StructCodec.compile(sample());
+
+        assertSameAsHelpers(codec, sample());
+
+        JSONObject nulls = sample();
+        nulls.put("assigned_to", displayValue(null, null));
+        nulls.put("number", JSONObject.NULL);
+        assertSameAsHelpers(codec, nulls);
+
+        JSONObject plain = sample();
+        plain.put("assigned_to", "");
+        assertSameAsHelpers(codec, plain);
+
+        JSONObject missing = sample();
+        missing.remove("caller_id.name");
+        assertSameAsHelpers(codec, missing);
+    }
+
+    @Test
+    public void testDisplayValueObjectOnPlainField() {
+        // NOTE: schema compiled while the field was null, so there is no display field to fill.
+        JSONObject first = sample();
+        first.put("assigned_to", JSONObject.NULL);
+        StructCodec codec = StructCodec.compile(first);
+
+        JSONObject record = sample();
+        assertSameAsHelpers(codec, record);
+        assertEquals("user-1", codec.decode(record).get("assigned_to"));
+    }
+
+    @Test(expected = DataException.class)
+    public void testUnknownKeysFallBackToHelpers() {
+        StructCodec codec = StructCodec.compile(sample());
+
+        JSONObject record = sample();
+        record.put("new_column", "x");
+        codec.decode(record);
+    }
+}
@@ -0,0 +1,76 @@
+package com.ibm.ingestion.connect.servicenow.util;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the off-heap sys_id table against a HashMap's answers, in memory and across reopening its file.
+ */
+public class SysIdLongTableTests {
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private static String sysId(Random random) {
+        StringBuilder sysId = new StringBuilder(32);
+        for(int i = 0; i < 32; i++) {
+            sysId.append(Character.forDigit(random.nextInt(16), 16));
+        }
+        return sysId.toString();
+    }
+
+    @Test
+    public void keysAreTheFirstSixteenHexCharacters() {
+        assertEquals(0x0123456789abcdefL, SysIdLongTable.keyOf("0123456789abcdef0000000000000000"));
+        assertEquals(0xfedcba9876543210L, SysIdLongTable.keyOf("FEDCBA98765432100000000000000000"));
+        assertEquals(1, SysIdLongTable.keyOf("00000000000000000000000000000000"));
+        assertEquals(0, SysIdLongTable.keyOf("not-a-sys-id"));
+        assertEquals(0, SysIdLongTable.keyOf("0123456789abcdeg0000000000000000"));
+        assertEquals(0, SysIdLongTable.keyOf(null));
+    }
+
+    @Test
+    public void putAndGetThroughGrowth() throws IOException {
+        SysIdLongTable table = SysIdLongTable.inMemory(10);
+        java.util.Map<Long, Long> expected = new java.util.HashMap<>();
+        Random random = new Random(42);
+        for(int i = 0; i < 20000; i++) {
+            final long key = SysIdLongTable.keyOf(sysId(random));
+            final Long previous = expected.put(key, (long)i);
+            assertEquals(previous == null ? SysIdLongTable.MISSING : previous, table.put(key, i));
+        }
+        assertEquals(expected.size(), table.size());
+        for(java.util.Map.Entry<Long, Long> entry : expected.entrySet()) {
+            assertEquals((long)entry.getValue(), table.get(entry.getKey()));
+        }
+        assertEquals(SysIdLongTable.MISSING, table.get(SysIdLongTable.keyOf("ffffffffffffffff0000000000000000")));
+    }
+
+    @Test
+    public void fileBackedTableIsKeptAcrossOpens() throws IOException {
+        File directory = this.folder.newFolder();
+        File file = new File(directory, "incident.rows");
+        Random random = new Random(7);
+        String[] sysIds = new String[5000];
+        SysIdLongTable table = SysIdLongTable.open(file, 100);
+        for(int i = 0; i < sysIds.length; i++) {
+            sysIds[i] = sysId(random);
+            table.put(SysIdLongTable.keyOf(sysIds[i]), i);
+        }
+        table.close();
+
+        SysIdLongTable reopened = SysIdLongTable.open(file, 100);
+        assertEquals(table.size(), reopened.size());
+        for(int i = 0; i < sysIds.length; i++) {
+            assertEquals(i, reopened.get(SysIdLongTable.keyOf(sysIds[i])));
+        }
+        reopened.close();
+    }
+}
@@ -0,0 +1,100 @@
+package com.ibm.ingestion.connect.servicenow.util;
+
+import org.apache.kafka.common.MetricName;
+import org.apache.kafka.common.metrics.Metrics;
+import org.apache.kafka.common.metrics.Sensor;
+import org.apache.kafka.common.metrics.stats.CumulativeCount;
+import org.apache.kafka.connect.data.Date;
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.data.Struct;
+import org.apache.kafka.connect.data.Timestamp;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for converting Table API strings into typed values.
+ */
+public class TypedValuesTests {
+
+    @Test
+    public void testSchemaFor() {
+        assertEquals(Schema.OPTIONAL_INT64_SCHEMA, TypedValues.schemaFor("integer"));
+        assertEquals(Schema.OPTIONAL_BOOLEAN_SCHEMA, TypedValues.schemaFor("boolean"));
+        assertEquals(Schema.OPTIONAL_FLOAT64_SCHEMA, TypedValues.schemaFor("decimal"));
+        assertEquals(Timestamp.LOGICAL_NAME, TypedValues.schemaFor("glide_date_time").name());
+        assertEquals(Date.LOGICAL_NAME, TypedValues.schemaFor("glide_date").name());
+        assertEquals(Schema.OPTIONAL_STRING_SCHEMA, TypedValues.schemaFor("reference"));
+        assertEquals(Schema.OPTIONAL_STRING_SCHEMA, TypedValues.schemaFor(null));
+    }
+
+    @Test
+    public void testConvert() {
+        assertEquals(42L, TypedValues.convert(Schema.OPTIONAL_INT64_SCHEMA, "reassignment_count", "42"));
+        assertEquals(true, TypedValues.convert(Schema.OPTIONAL_BOOLEAN_SCHEMA, "active", "true"));
+        assertEquals(1.5, TypedValues.convert(Schema.OPTIONAL_FLOAT64_SCHEMA, "u_amount", "1.5"));
+        assertEquals(new java.util.Date(1770129607000L), TypedValues.convert(TypedValues.schemaFor("glide_date_time"), "sys_updated_on", "2026-02-03 14:40:07"));
+        assertEquals(new java.util.Date(1770076800000L), TypedValues.convert(TypedValues.schemaFor("glide_date"), "u_date", "2026-02-03"));
+    }
+
+    @Test
+    public void testEmptyAndInvalidValuesBecomeNull() {
+        assertNull(TypedValues.convert(Schema.OPTIONAL_INT64_SCHEMA, "reassignment_count", ""));
+        assertNull(TypedValues.convert(Schema.OPTIONAL_INT64_SCHEMA, "reassignment_count", "many"));
+        assertEquals("", TypedValues.convert(Schema.OPTIONAL_STRING_SCHEMA, "short_description", ""));
+    }
+
+    @Test
+    public void testBooleansAreOnlyTrueOrFalse() {
+        assertEquals(true, TypedValues.convert(Schema.OPTIONAL_BOOLEAN_SCHEMA, "active", "TRUE"));
+        assertEquals(false, TypedValues.convert(Schema.OPTIONAL_BOOLEAN_SCHEMA, "active", "False"));
+        assertNull(TypedValues.convert(Schema.OPTIONAL_BOOLEAN_SCHEMA, "active", "yes"));
+        assertNull(TypedValues.convert(Schema.OPTIONAL_BOOLEAN_SCHEMA, "active", "1"));
+    }
+
+    @Test
+    public void testTypedCodec() {
+        Map<String, Schema> types = new HashMap<>();
+        types.put("reassignment_count", Schema.OPTIONAL_INT64_SCHEMA);
+        types.put("active", Schema.OPTIONAL_BOOLEAN_SCHEMA);
+
+        JSONObject record = new JSONObject();
+        record.put("number", "INC0001");
+        record.put("reassignment_count", "3");
+        JSONObject active = new JSONObject();
+        active.put("value", "false");
+        active.put("display_value", "No");
+        record.put("active", active);
+
+        StructCodec codec = StructCodec.compile(record, 1, types);
+        Struct struct = codec.decode(record);
+
+        assertEquals(Schema.Type.INT64, codec.schema().field("reassignment_count").schema().type());
+        assertEquals(3L, struct.get("reassignment_count"));
+        assertEquals(false, struct.get("active"));
+        assertEquals("No", struct.get("active_display_value"));
+        assertEquals("INC0001", struct.get("number"));
+    }
+
+    @Test
+    public void testFailuresAreCountedPerValue() {
+        Metrics metrics = new Metrics();
+        Sensor sensor = metrics.sensor("conversion-failures");
+        MetricName total = metrics.metricName("conversion-failures-total", "test");
+        sensor.add(total, new CumulativeCount());
+        TypedValues.Failures failures = new TypedValues.Failures("incident", sensor);
+
+        for(int i = 0; i < 3; i++) {
+            assertNull(TypedValues.convert(Schema.OPTIONAL_INT64_SCHEMA, "reassignment_count", "many", failures));
+        }
+        assertNull(TypedValues.convert(TypedValues.schemaFor("glide_date"), "u_date", "someday", failures));
+        assertNull(TypedValues.convert(Schema.OPTIONAL_BOOLEAN_SCHEMA, "active", "maybe", failures));
+        assertEquals(42L, TypedValues.convert(Schema.OPTIONAL_INT64_SCHEMA, "reassignment_count", "42", failures));
+        assertEquals(5.0, (Double)metrics.metric(total).metricValue(), 0.0);
+        metrics.close();
+    }
+}
@@ -0,0 +1,73 @@
+package com.ibm.ingestion.http;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the JVM wide in-flight request limit per ServiceNow instance.
+ */
+public class InstanceConcurrencyLimiterTests {
+
+    @Test
+    public void testSameInstanceSharesOneLimiter() {
+        InstanceConcurrencyLimiter first = InstanceConcurrencyLimiter.forInstance("https://shared.service-now.com/", 4);
+        InstanceConcurrencyLimiter second = InstanceConcurrencyLimiter.forInstance("HTTPS://shared.service-now.com", 8);
+
+        assertSame(first, second);
+        assertEquals(4, second.getMaxInFlight());
+    }
+
+    @Test
+    public void testDifferentInstancesAreIndependent() {
+        InstanceConcurrencyLimiter first = InstanceConcurrencyLimiter.forInstance("https://one.service-now.com", 1);
+        InstanceConcurrencyLimiter second = InstanceConcurrencyLimiter.forInstance("https://two.service-now.com", 1);
+
+        assertNotSame(first, second);
+    }
+
+    @Test
+    public void testInFlightNeverExceedsLimit() throws InterruptedException {
+        final InstanceConcurrencyLimiter limiter = InstanceConcurrencyLimiter.forInstance("https://limited.service-now.com", 2);
+        final AtomicInteger inFlight = new AtomicInteger();
+        final AtomicInteger maxObserved = new AtomicInteger();
+        final CountDownLatch done = new CountDownLatch(8);
+
+        List<Thread> threads = new ArrayList<>();
+        for(int i = 0; i < 8; i++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    limiter.acquire();
+                    try {
+                        maxObserved.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                        Thread.sleep(20);
+                        inFlight.decrementAndGet();
+                    } finally {
+                        limiter.release();
+                    }
+                } catch(InterruptedException ignored) {
+                    // ignored.
+                } finally {
+                    done.countDown();
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertEquals(2, maxObserved.get());
+        assertEquals(2, limiter.getAvailable());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testLimitMustBePositive() {
+        InstanceConcurrencyLimiter.forInstance("https://invalid.service-now.com", 0);
+    }
+}
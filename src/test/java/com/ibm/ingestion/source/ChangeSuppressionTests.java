@@ -0,0 +1,195 @@
+package com.ibm.ingestion.connect.servicenow.source;
+
+import org.apache.kafka.connect.data.Struct;
+import org.apache.kafka.connect.source.SourceRecord;
+import org.json.JSONObject;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static com.ibm.ingestion.connect.servicenow.source.SubTaskFixtures.*;
+import static org.junit.Assert.*;
+
+/**
+ * Tests that updates leaving the watched columns unchanged are dropped, and that delta mode cuts rows down to the
+ * columns that changed.
+ */
+public class ChangeSuppressionTests {
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private static final List<String> WATCHED = Arrays.asList("state", "priority");
+
+    private static JSONObject row(String updatedOn, String modCount, String state, String priority) {
+        JSONObject row = SubTaskFixtures.row(FIRST, updatedOn, modCount);
+        row.put("state", state);
+        row.put("priority", priority);
+        row.put("short_description", "Printer on fire");
+        return row;
+    }
+
+    /**
+     * Compares a row and keeps its hashes, as once it is written.
+     */
+    private static List<String> written(ChangeSuppression changes, String sysId, JSONObject row) throws IOException {
+        ChangeSuppression.Hashes hashes = changes.hash(sysId, row);
+        List<String> changed = changes.changedFields(hashes);
+        if(hashes != null) {
+            changes.record(hashes);
+        }
+        return changed;
+    }
+
+    private static List<SourceRecord> acked(TableAPISubTask subTask, List<SourceRecord> records) {
+        for(SourceRecord record : records) {
+            subTask.commitRecord(record);
+        }
+        return records;
+    }
+
+    private static TableAPISubTask subTask(TimestampSourceOffset offset, String mode) {
+        Map<String, String> props = props();
+        props.put("table.whitelist.incident.fields", "sys_id,sys_updated_on,short_description");
+        props.put("table.whitelist.incident.change.suppression.fields", "state,priority");
+        props.put("table.whitelist.incident.change.suppression.mode", mode);
+        return tableSubTask(offset, props);
+    }
+
+    @Test
+    public void newRowsAreEmittedWholeAndUnchangedOnesDropped() throws Exception {
+        ChangeSuppression changes = ChangeSuppression.inMemory(WATCHED, false);
+        assertNull(written(changes, FIRST, row("2020-01-01 00:00:00", "1", "1", "3")));
+        assertEquals(Collections.emptyList(), written(changes, FIRST, row("2020-01-01 00:01:00", "2", "1", "3")));
+        assertNull(written(changes, FIRST, row("2020-01-01 00:02:00", "3", "2", "3")));
+        assertNull(written(changes, "not-a-sys-id", row("2020-01-01 00:02:00", "3", "2", "3")));
+    }
+
+    @Test
+    public void deltaModeTellsWhichColumnsChanged() throws Exception {
+        ChangeSuppression changes = ChangeSuppression.inMemory(WATCHED, true);
+        assertNull(written(changes, FIRST, row("2020-01-01 00:00:00", "1", "1", "3")));
+        assertEquals(Collections.singletonList("priority"), written(changes, FIRST, row("2020-01-01 00:01:00", "2", "1", "2")));
+        assertEquals(WATCHED, written(changes, FIRST, row("2020-01-01 00:02:00", "3", "2", null)));
+    }
+
+    @Test
+    public void deltaModeTellsEveryChangedColumnOfWideRows() throws Exception {
+        List<String> watched = new ArrayList<>();
+        JSONObject row = new JSONObject();
+        for(int i = 0; i < 100; i++) {
+            watched.add("u_column_" + i);
+            row.put("u_column_" + i, "before");
+        }
+        ChangeSuppression changes = ChangeSuppression.inMemory(watched, true);
+        assertNull(written(changes, FIRST, row));
+
+        for(int i = 0; i < 100; i++) {
+            row.put("u_column_" + i, "after " + i);
+            assertEquals(Collections.singletonList("u_column_" + i), written(changes, FIRST, row));
+        }
+    }
+
+    @Test
+    public void hashesAreKeptAcrossRestartsForTheSameColumns() throws Exception {
+        File directory = this.folder.newFolder();
+        ChangeSuppression changes = ChangeSuppression.open(directory, "incident", WATCHED, false);
+        assertNull(written(changes, FIRST, row("2020-01-01 00:00:00", "1", "1", "3")));
+        changes.flush();
+
+        ChangeSuppression reopened = ChangeSuppression.open(directory, "incident", WATCHED, false);
+        assertEquals(Collections.emptyList(), written(reopened, FIRST, row("2020-01-01 00:01:00", "2", "1", "3")));
+        reopened.flush();
+
+        ChangeSuppression rewatched = ChangeSuppression.open(directory, "incident", Collections.singletonList("state"), false);
+        assertNull(written(rewatched, FIRST, row("2020-01-01 00:02:00", "3", "1", "3")));
+    }
+
+    @Test
+    public void unchangedUpdatesAreDroppedAndTheOffsetMovesOn() {
+        TimestampSourceOffset offset = new TimestampSourceOffset(null, null);
+        TableAPISubTask subTask = subTask(offset, "suppress");
+        assertTrue(subTask.getFields().containsAll(WATCHED));
+
+        assertEquals(1, acked(subTask, subTask.processBatch(Collections.singletonList(row("2020-01-01 00:00:00", "1", "1", "3")))).size());
+        assertEquals(0, subTask.processBatch(Collections.singletonList(row("2020-01-01 00:01:00", "2", "1", "3"))).size());
+        assertEquals(Instant.parse("2020-01-01T00:01:00Z"), offset.getLastSeenTimestamp());
+
+        List<SourceRecord> changed = subTask.processBatch(Collections.singletonList(row("2020-01-01 00:02:00", "3", "2", "3")));
+        assertEquals(1, changed.size());
+        assertNotNull(((Struct)changed.get(0).value()).schema().field("short_description"));
+    }
+
+    @Test
+    public void rowsNeverAcknowledgedAreComparedWithTheVersionBefore() {
+        TableAPISubTask subTask = subTask(new TimestampSourceOffset(null, null), "suppress");
+
+        acked(subTask, subTask.processBatch(Collections.singletonList(row("2020-01-01 00:00:00", "1", "1", "3"))));
+        assertEquals(1, subTask.processBatch(Collections.singletonList(row("2020-01-01 00:01:00", "2", "2", "3"))).size());
+
+        // NOTE: the changed row was lost before it was written, so fetched again it still counts as changed.
+        List<SourceRecord> refetched = subTask.processBatch(Collections.singletonList(row("2020-01-01 00:01:00", "2", "2", "3")));
+        assertEquals(1, refetched.size());
+        acked(subTask, refetched);
+        assertEquals(0, subTask.processBatch(Collections.singletonList(row("2020-01-01 00:02:00", "3", "2", "3"))).size());
+    }
+
+    @Test
+    public void rowsRevertedWhileAVersionIsInFlightAreComparedWithIt() {
+        TableAPISubTask subTask = subTask(new TimestampSourceOffset(null, null), "suppress");
+
+        acked(subTask, subTask.processBatch(Collections.singletonList(row("2020-01-01 00:00:00", "1", "1", "3"))));
+        List<SourceRecord> inFlight = subTask.processBatch(Collections.singletonList(row("2020-01-01 00:01:00", "2", "2", "3")));
+        assertEquals(1, inFlight.size());
+
+        // NOTE: the same as the acknowledged version, but not the one the topic would otherwise end on.
+        List<SourceRecord> reverted = subTask.processBatch(Collections.singletonList(row("2020-01-01 00:02:00", "3", "1", "3")));
+        assertEquals(1, reverted.size());
+
+        acked(subTask, inFlight);
+        assertEquals(0, subTask.processBatch(Collections.singletonList(row("2020-01-01 00:03:00", "4", "1", "3"))).size());
+        acked(subTask, reverted);
+        assertEquals(0, subTask.processBatch(Collections.singletonList(row("2020-01-01 00:04:00", "5", "1", "3"))).size());
+        assertEquals(1, subTask.processBatch(Collections.singletonList(row("2020-01-01 00:05:00", "6", "2", "3"))).size());
+    }
+
+    @Test
+    public void deltasWhileAVersionIsInFlightHoldTheColumnsChangedSinceIt() {
+        TableAPISubTask subTask = subTask(new TimestampSourceOffset(null, null), "delta");
+
+        acked(subTask, subTask.processBatch(Collections.singletonList(row("2020-01-01 00:00:00", "1", "1", "3"))));
+        assertEquals(1, subTask.processBatch(Collections.singletonList(row("2020-01-01 00:01:00", "2", "2", "3"))).size());
+
+        List<SourceRecord> delta = subTask.processBatch(Collections.singletonList(row("2020-01-01 00:02:00", "3", "2", "4")));
+        assertEquals(1, delta.size());
+        Struct value = (Struct)delta.get(0).value();
+        assertNull(value.schema().field("state"));
+        assertNotNull(value.schema().field("priority"));
+    }
+
+    @Test
+    public void deltasKeepTheChangedColumnsAndKey() {
+        TableAPISubTask subTask = subTask(new TimestampSourceOffset(null, null), "delta");
+
+        acked(subTask, subTask.processBatch(Collections.singletonList(row("2020-01-01 00:00:00", "1", "1", "3"))));
+        List<SourceRecord> delta = subTask.processBatch(Collections.singletonList(row("2020-01-01 00:01:00", "2", "2", "3")));
+        assertEquals(1, delta.size());
+
+        Struct value = (Struct)delta.get(0).value();
+        assertNotNull(value.schema().field("sys_id"));
+        assertNotNull(value.schema().field("sys_updated_on"));
+        assertNotNull(value.schema().field("sys_mod_count"));
+        assertNotNull(value.schema().field("state"));
+        assertNull(value.schema().field("priority"));
+        assertNull(value.schema().field("short_description"));
+    }
+}
@@ -0,0 +1,76 @@
+package com.ibm.ingestion.connect.servicenow.source;
+
+import org.apache.kafka.connect.source.SourceRecord;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static com.ibm.ingestion.connect.servicenow.source.SubTaskFixtures.*;
+import static org.junit.Assert.*;
+
+/**
+ * Tests that a table with a dedup cache drops row versions it already emitted, while its offset still moves on.
+ */
+public class DedupTableTests {
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private static TableAPISubTask subTask(TimestampSourceOffset offset) {
+        return subTask(offset, null);
+    }
+
+    private static TableAPISubTask subTask(TimestampSourceOffset offset, File stateDirectory) {
+        Map<String, String> props = props();
+        props.put("table.whitelist.incident.fields", "sys_id,sys_updated_on");
+        props.put("table.whitelist.incident.dedup.max.entries", "1000");
+        if(stateDirectory != null) {
+            props.put(ServiceNowSourceConnectorConfig.DEDUP_STATE_DIR, stateDirectory.getPath());
+        }
+        return tableSubTask(offset, props);
+    }
+
+    @Test
+    public void duplicatesAreDroppedAndTheOffsetMovesOn() {
+        TimestampSourceOffset offset = new TimestampSourceOffset(null, null);
+        TableAPISubTask subTask = subTask(offset);
+        assertTrue(subTask.getFields().contains("sys_mod_count"));
+
+        List<SourceRecord> first = subTask.processBatch(Arrays.asList(row(FIRST, "2020-01-01 00:00:00", "1")));
+        assertEquals(1, first.size());
+
+        // NOTE: the re-scan of the offset's second fetches the first row again, next to a new version of the second.
+        List<SourceRecord> second = subTask.processBatch(Arrays.asList(
+                row(FIRST, "2020-01-01 00:00:00", "1"),
+                row(SECOND, "2020-01-01 00:00:01", "3"),
+                row(FIRST, "2020-01-01 00:00:02", "2")));
+        assertEquals(2, second.size());
+        assertEquals(Instant.parse("2020-01-01T00:00:02Z"), offset.getLastSeenTimestamp());
+
+        List<SourceRecord> third = subTask.processBatch(Arrays.asList(row(FIRST, "2020-01-01 00:00:02", "2")));
+        assertTrue(third.isEmpty());
+        assertEquals(FIRST, offset.getLastReadIdentifier());
+    }
+
+    @Test
+    public void onlyAcknowledgedVersionsAreSaved() throws Exception {
+        File directory = this.folder.newFolder();
+        TableAPISubTask subTask = subTask(new TimestampSourceOffset(null, null), directory);
+        List<SourceRecord> first = subTask.processBatch(Arrays.asList(row(FIRST, "2020-01-01 00:00:00", "1")));
+        List<SourceRecord> second = subTask.processBatch(Arrays.asList(row(SECOND, "2020-01-01 00:00:01", "1")));
+        subTask.commitRecord(first.get(0));
+        subTask.saveState();
+
+        // NOTE: the second row never made it to Kafka, so after a restart it is emitted again.
+        TableAPISubTask restarted = subTask(new TimestampSourceOffset(null, null), directory);
+        assertTrue(restarted.processBatch(Arrays.asList(row(FIRST, "2020-01-01 00:00:00", "1"))).isEmpty());
+        assertEquals(1, restarted.processBatch(Arrays.asList(row(SECOND, "2020-01-01 00:00:01", "1"))).size());
+        assertEquals(1, second.size());
+    }
+}
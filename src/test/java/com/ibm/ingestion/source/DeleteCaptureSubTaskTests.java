@@ -0,0 +1,106 @@
+package com.ibm.ingestion.connect.servicenow.source;
+
+import com.ibm.ingestion.connect.servicenow.util.Helpers;
+import com.ibm.ingestion.http.ServiceNowTableApiClient;
+import org.apache.kafka.connect.data.Struct;
+import org.apache.kafka.connect.errors.ConnectException;
+import org.apache.kafka.connect.source.SourceRecord;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static com.ibm.ingestion.connect.servicenow.source.SubTaskFixtures.*;
+import static org.junit.Assert.*;
+
+/**
+ * Tests that sys_audit_delete rows become tombstones keyed like the table's rows.
+ */
+public class DeleteCaptureSubTaskTests {
+
+    private static ServiceNowTableAPISourceTaskConfig config(String partitionType, String partitionFields) {
+        Map<String, String> props = props();
+        props.put("table.whitelist.incident.capture.deletes", "true");
+        props.put("table.whitelist.incident.partition.type", partitionType);
+        if(partitionFields != null) {
+            props.put("table.whitelist.incident.partition.fields", partitionFields);
+        }
+        return SubTaskFixtures.config(props);
+    }
+
+    private static DeleteCaptureSubTask subTask(ServiceNowTableAPISourceTaskConfig config, TimestampSourceOffset offset) {
+        return new DeleteCaptureSubTask(new TableQueryPartition("incident", DeleteCaptureSubTask.STREAM), offset, config, new ServiceNowTableApiClient(config));
+    }
+
+    private static JSONObject auditRow(String sysId, String createdOn, String documentKey, String number) {
+        JSONObject row = SubTaskFixtures.auditRow(sysId, createdOn, documentKey);
+        if(number != null) {
+            row.put("payload", "<?xml version=\"1.0\" encoding=\"UTF-8\"?><record_update table=\"incident\"><incident action=\"DELETE\">"
+                    + "<number>" + number + "</number><sys_id>" + documentKey + "</sys_id></incident></record_update>");
+        }
+        return row;
+    }
+
+    @Test
+    public void testEmitsTombstonesKeyedLikeTheTable() {
+        TimestampSourceOffset offset = new TimestampSourceOffset(null, null);
+        DeleteCaptureSubTask subTask = subTask(config("field-based", "sys_id,number"), offset);
+
+        List<SourceRecord> records = subTask.processBatch(Arrays.asList(
+                auditRow("a1", "2026-03-01 10:00:00", "doc-1", "INC0001"),
+                auditRow("a2", "2026-03-01 10:00:05", "doc-2", "INC0002")));
+
+        assertEquals(2, records.size());
+        SourceRecord record = records.get(1);
+        // NOTE: the same topic the table's rows go to.
+        assertEquals("servicenowincident", record.topic());
+        assertNull(record.value());
+        assertNull(record.valueSchema());
+        assertEquals("doc-2", ((Struct)record.key()).getString("sys_id"));
+        assertEquals("INC0002", ((Struct)record.key()).getString("number"));
+        assertEquals("deletes", record.sourcePartition().get("stream"));
+        assertEquals("incident", record.sourcePartition().get("partition"));
+        assertEquals("a2", record.sourceOffset().get("last_identifier"));
+
+        assertEquals("a2", offset.getLastReadIdentifier());
+        assertEquals(Helpers.parseServiceNowEpochSecondsUtc("2026-03-01 10:00:05"), offset.getLastSeenTimestamp().getEpochSecond());
+    }
+
+    @Test
+    public void testSkipsDeletesWithoutTheKeyButMovesTheOffset() {
+        TimestampSourceOffset offset = new TimestampSourceOffset(null, null);
+        DeleteCaptureSubTask subTask = subTask(config("field-based", "number"), offset);
+
+        List<SourceRecord> records = subTask.processBatch(Collections.singletonList(auditRow("a1", "2026-03-01 10:00:00", "doc-1", null)));
+
+        assertTrue(records.isEmpty());
+        assertEquals("a1", offset.getLastReadIdentifier());
+    }
+
+    @Test(expected = ConnectException.class)
+    public void testRequiresFieldBasedPartitioner() {
+        subTask(config("default", null), new TimestampSourceOffset(null, null));
+    }
+
+    @Test
+    public void testParsesPayload() {
+        Map<String, String> fields = DeleteCaptureSubTask.parsePayload(auditRow("a1", "2026-03-01 10:00:00", "doc-1", "INC0001").getString("payload"));
+        assertEquals("INC0001", fields.get("number"));
+        assertEquals("doc-1", fields.get("sys_id"));
+    }
+
+    @Test
+    public void testRejectsPayloadWithDoctype() {
+        Map<String, String> fields = DeleteCaptureSubTask.parsePayload("<?xml version=\"1.0\"?><!DOCTYPE r [<!ENTITY x SYSTEM \"file:///etc/passwd\">]><r><incident><number>&x;</number></incident></r>");
+        assertTrue(fields.isEmpty());
+    }
+
+    @Test
+    public void testIsEnabled() {
+        assertTrue(DeleteCaptureSubTask.isEnabled(config("field-based", "sys_id"), "incident"));
+        assertFalse(DeleteCaptureSubTask.isEnabled(config("field-based", "sys_id"), "problem"));
+    }
+}
@@ -0,0 +1,60 @@
+package com.ibm.ingestion.connect.servicenow.source;
+
+import com.ibm.ingestion.connect.servicenow.ServiceNowSourceConnector;
+import org.apache.kafka.connect.source.ConnectorTransactionBoundaries;
+import org.apache.kafka.connect.source.ExactlyOnceSupport;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests that the connector declares exactly-once support unless a table keeps state, or offsets, outside of Kafka.
+ */
+public class ExactlyOnceSupportTests {
+
+    private static Map<String, String> props() {
+        Map<String, String> props = new HashMap<>();
+        props.put(ServiceNowSourceConnectorConfig.TABLE_WHITELIST, "incident");
+        props.put("table.whitelist.incident.name", "incident");
+        props.put("table.whitelist.incident.timestamp.field.name", "sys_updated_on");
+        props.put("table.whitelist.incident.identifier.field.name", "sys_id");
+        return props;
+    }
+
+    @Test
+    public void supportedByDefault() {
+        ServiceNowSourceConnector connector = new ServiceNowSourceConnector();
+        assertEquals(ExactlyOnceSupport.SUPPORTED, connector.exactlyOnceSupport(props()));
+        assertEquals(ConnectorTransactionBoundaries.SUPPORTED, connector.canDefineTransactionBoundaries(props()));
+    }
+
+    @Test
+    public void unsupportedWithDedupCaches() {
+        Map<String, String> props = props();
+        props.put("table.whitelist.incident.dedup.max.entries", "0");
+        assertEquals(ExactlyOnceSupport.SUPPORTED, new ServiceNowSourceConnector().exactlyOnceSupport(props));
+
+        props.put("table.whitelist.incident.dedup.max.entries", "1000");
+        assertEquals(ExactlyOnceSupport.UNSUPPORTED, new ServiceNowSourceConnector().exactlyOnceSupport(props));
+    }
+
+    @Test
+    public void unsupportedWithChangeSuppression() {
+        Map<String, String> props = props();
+        props.put("table.whitelist.incident.change.suppression.fields", "state");
+        assertEquals(ExactlyOnceSupport.UNSUPPORTED, new ServiceNowSourceConnector().exactlyOnceSupport(props));
+    }
+
+    @Test
+    public void unsupportedWithOffsetCheckpoints() {
+        Map<String, String> props = props();
+        props.put(ServiceNowSourceConnectorConfig.OFFSET_CHECKPOINT_DIR, " ");
+        assertEquals(ExactlyOnceSupport.SUPPORTED, new ServiceNowSourceConnector().exactlyOnceSupport(props));
+
+        props.put(ServiceNowSourceConnectorConfig.OFFSET_CHECKPOINT_DIR, "/var/lib/connect/checkpoints");
+        assertEquals(ExactlyOnceSupport.UNSUPPORTED, new ServiceNowSourceConnector().exactlyOnceSupport(props));
+    }
+}
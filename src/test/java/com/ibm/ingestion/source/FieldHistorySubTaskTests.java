@@ -0,0 +1,108 @@
+package com.ibm.ingestion.connect.servicenow.source;
+
+import com.ibm.ingestion.http.ServiceNowTableApiClient;
+import org.apache.kafka.connect.data.Struct;
+import org.apache.kafka.connect.errors.ConnectException;
+import org.apache.kafka.connect.source.SourceRecord;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import static com.ibm.ingestion.connect.servicenow.source.SubTaskFixtures.*;
+import static org.junit.Assert.*;
+
+/**
+ * Tests that sys_audit rows become field change records on the table's field history topic, with their own offset.
+ */
+public class FieldHistorySubTaskTests {
+
+    private static ServiceNowTableAPISourceTaskConfig config(String captureMode, String fields) {
+        Map<String, String> props = props();
+        if(captureMode != null) {
+            props.put("table.whitelist.incident.capture.mode", captureMode);
+        }
+        if(fields != null) {
+            props.put("table.whitelist.incident.field.history.fields", fields);
+        }
+        return SubTaskFixtures.config(props);
+    }
+
+    private static FieldHistorySubTask subTask(ServiceNowTableAPISourceTaskConfig config, TimestampSourceOffset offset) {
+        return new FieldHistorySubTask(new TableQueryPartition("incident", FieldHistorySubTask.STREAM), offset, config, new ServiceNowTableApiClient(config));
+    }
+
+    private static JSONObject auditRow(String sysId, String createdOn, String documentKey, String field, String oldValue, String newValue) {
+        JSONObject row = SubTaskFixtures.auditRow(sysId, createdOn, documentKey);
+        row.put("fieldname", field);
+        row.put("oldvalue", oldValue);
+        row.put("newvalue", newValue);
+        row.put("user", "admin");
+        return row;
+    }
+
+    @Test
+    public void testEmitsAFieldChangePerAuditRow() {
+        TimestampSourceOffset offset = new TimestampSourceOffset(null, null);
+        FieldHistorySubTask subTask = subTask(config("field-history", null), offset);
+
+        List<SourceRecord> records = subTask.processBatch(Arrays.asList(
+                auditRow("a1", "2026-03-01 10:00:00", "doc-1", "state", "1", "2"),
+                auditRow("a2", "2026-03-01 10:00:05", "doc-1", "priority", "3", "1")));
+
+        assertEquals(2, records.size());
+        SourceRecord record = records.get(1);
+        assertEquals("servicenowincident.field_history", record.topic());
+        assertEquals("doc-1", record.key());
+        assertEquals(new TableQueryPartition("incident", FieldHistorySubTask.STREAM).getPartition(), record.sourcePartition());
+
+        Struct value = (Struct)record.value();
+        assertEquals("incident", value.get("table"));
+        assertEquals("priority", value.get("field"));
+        assertEquals("3", value.get("old"));
+        assertEquals("1", value.get("new"));
+        assertEquals(Date.from(Instant.parse("2026-03-01T10:00:05Z")), value.get("time"));
+
+        assertEquals(Instant.parse("2026-03-01T10:00:05Z"), offset.getLastSeenTimestamp());
+        assertEquals("a2", offset.getLastReadIdentifier());
+    }
+
+    @Test
+    public void testSkipsAuditRowsWithoutAFieldButMovesTheOffset() {
+        TimestampSourceOffset offset = new TimestampSourceOffset(null, null);
+        FieldHistorySubTask subTask = subTask(config("both", null), offset);
+
+        List<SourceRecord> records = subTask.processBatch(Arrays.asList(auditRow("a1", "2026-03-01 10:00:00", "doc-1", null, null, "2")));
+
+        assertTrue(records.isEmpty());
+        assertEquals("a1", offset.getLastReadIdentifier());
+    }
+
+    @Test
+    public void testQueryIsLimitedToTheTableAndItsFields() {
+        TimestampSourceOffset offset = new TimestampSourceOffset(Instant.parse("2026-03-01T10:00:00Z"), "a1");
+        String query = subTask(config("field-history", "state,priority"), offset).buildQuery().build();
+
+        assertTrue(query, query.startsWith("tablename=incident^fieldname=state^ORfieldname=priority^sys_created_on="));
+        assertTrue(query, query.contains("^NQtablename=incident^fieldname=state^ORfieldname=priority^sys_created_on>"));
+    }
+
+    @Test
+    public void testCaptureModes() {
+        assertTrue(FieldHistorySubTask.capturesRows(config(null, null), "incident"));
+        assertFalse(FieldHistorySubTask.isEnabled(config(null, null), "incident"));
+        assertFalse(FieldHistorySubTask.capturesRows(config("field-history", null), "incident"));
+        assertTrue(FieldHistorySubTask.isEnabled(config("field-history", null), "incident"));
+        assertTrue(FieldHistorySubTask.capturesRows(config("Both", null), "incident"));
+        assertTrue(FieldHistorySubTask.isEnabled(config("Both", null), "incident"));
+    }
+
+    @Test(expected = ConnectException.class)
+    public void testRejectsUnknownCaptureModes() {
+        FieldHistorySubTask.getCaptureMode(config("audit", null), "incident");
+    }
+}
@@ -0,0 +1,52 @@
+package com.ibm.ingestion.connect.servicenow.source;
+
+import org.apache.kafka.connect.data.Schema;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for resolving column types across a table hierarchy.
+ */
+public class FieldTypeCacheTests {
+
+    private static JSONObject entry(String table, String element, String internalType) {
+        JSONObject entry = new JSONObject();
+        entry.put("name", table);
+        entry.put("element", element);
+        entry.put("internal_type", internalType);
+        return entry;
+    }
+
+    @Test
+    public void testChildDefinitionWins() {
+        List<String> hierarchy = Arrays.asList("u_incident_ext", "incident", "task");
+        List<JSONObject> entries = Arrays.asList(
+                entry("task", "priority", "integer"),
+                entry("task", "u_score", "integer"),
+                entry("u_incident_ext", "u_score", "string"),
+                entry("incident", "reopen_count", "integer"),
+                entry("task", "opened_at", "glide_date_time"),
+                entry("task", "short_description", "string"));
+
+        Map<String, Schema> types = FieldTypeCache.toTypes(hierarchy, entries);
+
+        assertEquals(Schema.OPTIONAL_INT64_SCHEMA, types.get("priority"));
+        assertEquals(Schema.OPTIONAL_INT64_SCHEMA, types.get("reopen_count"));
+        assertEquals("org.apache.kafka.connect.data.Timestamp", types.get("opened_at").name());
+        assertFalse(types.containsKey("u_score"));
+        assertFalse(types.containsKey("short_description"));
+    }
+
+    @Test
+    public void testIgnoresOtherTables() {
+        Map<String, Schema> types = FieldTypeCache.toTypes(Arrays.asList("incident"), Arrays.asList(entry("problem", "known_error", "boolean")));
+
+        assertTrue(types.isEmpty());
+    }
+}
@@ -0,0 +1,78 @@
+package com.ibm.ingestion.connect.servicenow.source;
+
+import org.apache.kafka.connect.data.Struct;
+import org.apache.kafka.connect.source.SourceRecord;
+import org.junit.Test;
+
+import java.time.Instant;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+import static com.ibm.ingestion.connect.servicenow.source.SubTaskFixtures.*;
+import static org.junit.Assert.*;
+
+/**
+ * Tests that an idle table's heartbeat moves its offset on to the through timestamp, at most once per interval.
+ */
+public class HeartbeatTests {
+
+    private static final Instant LAST_SEEN = Instant.parse("2020-06-01T12:00:00Z");
+
+    private static TableAPISubTask subTask(TimestampSourceOffset offset, String heartbeatIntervalSeconds) {
+        Map<String, String> props = props();
+        props.put(ServiceNowSourceConnectorConfig.HEARTBEAT_INTERVAL_SECONDS, heartbeatIntervalSeconds);
+        return tableSubTask(offset, props);
+    }
+
+    @Test
+    public void heartbeatMovesTheOffsetToTheThroughTimestamp() {
+        TimestampSourceOffset offset = new TimestampSourceOffset(LAST_SEEN, "abc");
+        TableAPISubTask subTask = subTask(offset, "60");
+        final long through = LAST_SEEN.getEpochSecond() + 300;
+
+        SourceRecord heartbeat = subTask.heartbeat(through, 1000L);
+        assertNotNull(heartbeat);
+        assertEquals("servicenow-heartbeats", heartbeat.topic());
+        assertEquals("incident", heartbeat.key());
+        assertEquals(new TableQueryPartition("incident").getPartition(), heartbeat.sourcePartition());
+        assertEquals(TimestampSourceOffset.toMap(Instant.ofEpochSecond(through), null), new HashMap<>(heartbeat.sourceOffset()));
+        assertEquals(Date.from(Instant.ofEpochSecond(through)), ((Struct)heartbeat.value()).get("watermark"));
+
+        assertEquals(Instant.ofEpochSecond(through), offset.getLastSeenTimestamp());
+        assertNull(offset.getLastReadIdentifier());
+    }
+
+    @Test
+    public void heartbeatsAreSentAtMostOncePerInterval() {
+        TimestampSourceOffset offset = new TimestampSourceOffset(LAST_SEEN, "abc");
+        TableAPISubTask subTask = subTask(offset, "60");
+        final long through = LAST_SEEN.getEpochSecond() + 300;
+
+        assertNotNull(subTask.heartbeat(through, 1000L));
+        assertNull(subTask.heartbeat(through + 30, 1000L + 59999L));
+        assertEquals(Instant.ofEpochSecond(through), offset.getLastSeenTimestamp());
+        assertNotNull(subTask.heartbeat(through + 60, 1000L + 60000L));
+        assertEquals(Instant.ofEpochSecond(through + 60), offset.getLastSeenTimestamp());
+    }
+
+    @Test
+    public void heartbeatNeverMovesTheOffsetBack() {
+        TimestampSourceOffset offset = new TimestampSourceOffset(LAST_SEEN, "abc");
+        TableAPISubTask subTask = subTask(offset, "60");
+
+        assertNull(subTask.heartbeat(LAST_SEEN.getEpochSecond(), 1000L));
+        assertNull(subTask.heartbeat(null, 1000L));
+        assertEquals(LAST_SEEN, offset.getLastSeenTimestamp());
+        assertEquals("abc", offset.getLastReadIdentifier());
+    }
+
+    @Test
+    public void noHeartbeatsByDefault() {
+        TimestampSourceOffset offset = new TimestampSourceOffset(LAST_SEEN, "abc");
+        TableAPISubTask subTask = subTask(offset, "0");
+
+        assertNull(subTask.heartbeat(LAST_SEEN.getEpochSecond() + 300, 1000L));
+        assertEquals(LAST_SEEN, offset.getLastSeenTimestamp());
+    }
+}
@@ -0,0 +1,143 @@
+package com.ibm.ingestion.connect.servicenow.source;
+
+import org.apache.kafka.connect.source.SourceRecord;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests that the acknowledged offset only moves over an unbroken run of acknowledged records, and that checkpoints
+ * are read back as written and only resumed from when further on than the committed offset, and not reset since.
+ */
+public class OffsetCheckpointTests {
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private static final TableQueryPartition PARTITION = new TableQueryPartition("incident");
+
+    private static SourceRecord record(long seconds, String sysId) {
+        return new SourceRecord(PARTITION.getPartition(), TimestampSourceOffset.toCompactMap(seconds, sysId), "servicenowincident", null, sysId);
+    }
+
+    @Test
+    public void ackedOffsetOnlyMovesOverAnUnbrokenRun() {
+        AckTracker tracker = new AckTracker();
+        SourceRecord first = record(100, "a");
+        SourceRecord second = record(100, "b");
+        SourceRecord third = record(200, "c");
+        tracker.emitted(first);
+        tracker.emitted(second);
+        tracker.emitted(third);
+
+        tracker.acked(second);
+        tracker.acked(third);
+        assertNull(tracker.getAckedOffset());
+        assertEquals(3, tracker.getInFlightCount());
+
+        tracker.acked(first);
+        assertSame(third.sourceOffset(), tracker.getAckedOffset());
+        assertEquals(0, tracker.getInFlightCount());
+    }
+
+    @Test
+    public void recordsNeverEmittedAreIgnored() {
+        AckTracker tracker = new AckTracker();
+        SourceRecord first = record(100, "a");
+        tracker.emitted(first);
+
+        // NOTE: an equal record, but not the one emitted.
+        tracker.acked(record(100, "a"));
+        assertNull(tracker.getAckedOffset());
+
+        tracker.acked(first);
+        assertSame(first.sourceOffset(), tracker.getAckedOffset());
+    }
+
+    @Test
+    public void checkpointsAreReadBackAsWritten() throws Exception {
+        File directory = this.folder.newFolder();
+        OffsetCheckpoints checkpoints = new OffsetCheckpoints(directory, "connector");
+        assertNull(checkpoints.read(PARTITION));
+
+        TimestampSourceOffset base = TimestampSourceOffset.fromMap(TimestampSourceOffset.toCompactMap(50L, "xyz"));
+        checkpoints.write(PARTITION, TimestampSourceOffset.toCompactMap(100L, "abc"), base);
+        OffsetCheckpoints.Checkpoint checkpoint = checkpoints.read(PARTITION);
+        assertEquals(Instant.ofEpochSecond(100), checkpoint.getOffset().getLastSeenTimestamp());
+        assertEquals("abc", checkpoint.getOffset().getLastReadIdentifier());
+        assertEquals(Instant.ofEpochSecond(50), checkpoint.getBase().getLastSeenTimestamp());
+        assertEquals("xyz", checkpoint.getBase().getLastReadIdentifier());
+        assertTrue(new File(directory, "connector.incident.offset").exists());
+
+        TableQueryPartition deletes = new TableQueryPartition("incident", "deletes");
+        checkpoints.write(deletes, TimestampSourceOffset.toSnapshotMap(50L, "def"), new TimestampSourceOffset(null, null));
+        checkpoint = checkpoints.read(deletes);
+        assertTrue(checkpoint.getOffset().isSnapshot());
+        assertEquals(Instant.ofEpochSecond(50), checkpoint.getOffset().getSnapshotStarted());
+        assertEquals("def", checkpoint.getOffset().getSnapshotCursor());
+        assertTrue(checkpoint.getBase().isEmpty());
+        assertTrue(new File(directory, "connector.incident.deletes.offset").exists());
+    }
+
+    @Test
+    public void checkpointsAreOnlyTrustedWhileTheCommittedOffsetHasntGoneBack() {
+        TimestampSourceOffset base = TimestampSourceOffset.fromMap(TimestampSourceOffset.toCompactMap(100L, "b"));
+        OffsetCheckpoints.Checkpoint checkpoint = new OffsetCheckpoints.Checkpoint(TimestampSourceOffset.fromMap(TimestampSourceOffset.toCompactMap(300L, "c")), base);
+
+        assertTrue(checkpoint.isBasedOn(base));
+        assertTrue(checkpoint.isBasedOn(TimestampSourceOffset.fromMap(TimestampSourceOffset.toCompactMap(200L, "a"))));
+        // NOTE: reset back to an earlier offset, or deleted altogether.
+        assertFalse(checkpoint.isBasedOn(TimestampSourceOffset.fromMap(TimestampSourceOffset.toCompactMap(50L, "a"))));
+        assertFalse(checkpoint.isBasedOn(new TimestampSourceOffset(null, null)));
+    }
+
+    @Test
+    public void emptyOffsetsAreNotWritten() throws Exception {
+        File directory = this.folder.newFolder();
+        OffsetCheckpoints checkpoints = new OffsetCheckpoints(directory, null);
+        checkpoints.write(PARTITION, Collections.emptyMap(), new TimestampSourceOffset(null, null));
+        assertNull(checkpoints.read(PARTITION));
+    }
+
+    @Test
+    public void unreadableCheckpointsAreIgnored() throws Exception {
+        File directory = this.folder.newFolder();
+        Files.write(new File(directory, "incident.offset").toPath(), new byte[] { 1, 2 });
+        assertNull(new OffsetCheckpoints(directory, null).read(PARTITION));
+    }
+
+    @Test
+    public void onlyFurtherOffsetsAreAfter() {
+        Map<String, Object> empty = Collections.emptyMap();
+        TimestampSourceOffset earlier = TimestampSourceOffset.fromMap(TimestampSourceOffset.toCompactMap(100L, "b"));
+        TimestampSourceOffset sameSecond = TimestampSourceOffset.fromMap(TimestampSourceOffset.toCompactMap(100L, "c"));
+        TimestampSourceOffset noIdentifier = TimestampSourceOffset.fromMap(TimestampSourceOffset.toCompactMap(100L, null));
+        TimestampSourceOffset later = TimestampSourceOffset.fromMap(TimestampSourceOffset.toCompactMap(200L, "a"));
+
+        assertTrue(later.isAfter(earlier));
+        assertFalse(earlier.isAfter(later));
+        assertTrue(sameSecond.isAfter(earlier));
+        assertTrue(earlier.isAfter(noIdentifier));
+        assertFalse(earlier.isAfter(earlier));
+        assertTrue(earlier.isAfter(TimestampSourceOffset.fromMap(empty)));
+        assertFalse(TimestampSourceOffset.fromMap(empty).isAfter(earlier));
+
+        TimestampSourceOffset snapshot = TimestampSourceOffset.fromMap(TimestampSourceOffset.toSnapshotMap(50L, "b"));
+        TimestampSourceOffset furtherSnapshot = TimestampSourceOffset.fromMap(TimestampSourceOffset.toSnapshotMap(50L, "c"));
+        TimestampSourceOffset otherSnapshot = TimestampSourceOffset.fromMap(TimestampSourceOffset.toSnapshotMap(60L, "z"));
+        assertTrue(furtherSnapshot.isAfter(snapshot));
+        assertFalse(snapshot.isAfter(furtherSnapshot));
+        assertFalse(otherSnapshot.isAfter(snapshot));
+        assertTrue(earlier.isAfter(snapshot));
+        assertFalse(snapshot.isAfter(earlier));
+        assertTrue(snapshot.isAfter(TimestampSourceOffset.fromMap(empty)));
+    }
+}
@@ -0,0 +1,49 @@
+package com.ibm.ingestion.connect.servicenow.source;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the per polling cycle budgets.
+ */
+public class PollBudgetTests {
+
+    private static final long MS = 1_000_000L;
+
+    @Test
+    public void testUnboundedByDefault() {
+        PollBudget budget = new PollBudget(-1, -1, -1, 0);
+        budget.add(1_000_000, 1_000_000_000L);
+
+        assertNull(budget.exhausted(Long.MAX_VALUE / 2));
+    }
+
+    @Test
+    public void testDurationBudget() {
+        PollBudget budget = new PollBudget(500, -1, -1, 0);
+
+        assertNull(budget.exhausted(499 * MS));
+        assertEquals("duration", budget.exhausted(500 * MS));
+    }
+
+    @Test
+    public void testRecordBudget() {
+        PollBudget budget = new PollBudget(-1, 100, -1, 0);
+        budget.add(60, 0);
+        assertNull(budget.exhausted(0));
+
+        budget.add(60, 0);
+        assertEquals("records", budget.exhausted(0));
+    }
+
+    @Test
+    public void testByteBudget() {
+        PollBudget budget = new PollBudget(-1, -1, 1024, 0);
+        budget.add(1, 1023);
+        assertNull(budget.exhausted(0));
+
+        budget.add(1, 1);
+        assertEquals("bytes", budget.exhausted(0));
+    }
+}
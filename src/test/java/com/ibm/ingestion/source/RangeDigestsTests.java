@@ -0,0 +1,137 @@
+package com.ibm.ingestion.connect.servicenow.source;
+
+import com.ibm.ingestion.http.ServiceNowTableApiClient;
+import org.apache.kafka.connect.source.SourceRecord;
+import org.json.JSONObject;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.ibm.ingestion.connect.servicenow.source.SubTaskFixtures.*;
+import static org.junit.Assert.*;
+
+/**
+ * Tests that range digests follow the emitted rows, and match digests worked out afresh from ServiceNow's rows.
+ */
+public class RangeDigestsTests {
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private static ServiceNowTableAPISourceTaskConfig config() {
+        Map<String, String> props = props();
+        props.put("table.whitelist.incident.fields", "sys_id,sys_updated_on,short_description");
+        props.put("table.whitelist.incident.reconcile.interval.minutes", "60");
+        return SubTaskFixtures.config(props);
+    }
+
+    private static TableAPISubTask subTask(TimestampSourceOffset offset) {
+        ServiceNowTableAPISourceTaskConfig config = config();
+        return new TableAPISubTask(new TableQueryPartition("incident"), offset, config, new ServiceNowTableApiClient(config));
+    }
+
+    @Test
+    public void rangesAreSysIdPrefixes() {
+        RangeDigests digests = RangeDigests.inMemory(2);
+        assertEquals(256, digests.getRangeCount());
+        assertEquals(0x0a, digests.rangeOf(FIRST));
+        assertEquals(0xff, digests.rangeOf(OTHER));
+        assertEquals(-1, digests.rangeOf("not-a-sys-id"));
+        assertEquals("0a", digests.prefixOf(0x0a));
+        assertEquals("0003", RangeDigests.inMemory(4).prefixOf(3));
+    }
+
+    @Test
+    public void digestFollowsTheLatestModCountOfEachRow() throws IOException {
+        RangeDigests digests = RangeDigests.inMemory(2);
+        digests.record(FIRST, 1);
+        digests.record(SECOND, 4);
+        digests.record(FIRST, 2);
+        digests.record(FIRST, 3);
+
+        assertEquals(RangeDigests.contribution(FIRST, 3) + RangeDigests.contribution(SECOND, 4), digests.getDigest(0x0a));
+        assertEquals(0, digests.getDigest(0xff));
+        assertNotEquals(RangeDigests.contribution(FIRST, 2) + RangeDigests.contribution(SECOND, 4), digests.getDigest(0x0a));
+    }
+
+    @Test
+    public void modCountsMayBeDisplayValues() {
+        assertEquals(1024, RangeDigests.parseModCount("1,024"));
+        assertEquals(1234567, RangeDigests.parseModCount("1,234,567"));
+        assertEquals(7, RangeDigests.parseModCount("7"));
+        assertEquals(-1, RangeDigests.parseModCount("1.5"));
+        assertEquals(-1, RangeDigests.parseModCount("1 024"));
+        assertEquals(-1, RangeDigests.parseModCount("1,5"));
+        assertEquals(-1, RangeDigests.parseModCount("1024,"));
+        assertEquals(-1, RangeDigests.parseModCount(",024"));
+        assertEquals(-1, RangeDigests.parseModCount("-1"));
+        assertEquals(-1, RangeDigests.parseModCount("12345678901234567890"));
+        assertEquals(-1, RangeDigests.parseModCount(""));
+        assertEquals(-1, RangeDigests.parseModCount("seven"));
+        assertEquals(-1, RangeDigests.parseModCount(null));
+    }
+
+    @Test
+    public void digestsAreKeptAcrossOpens() throws IOException {
+        File directory = this.folder.newFolder();
+        RangeDigests digests = RangeDigests.open(directory, "connector.incident", 2);
+        digests.record(FIRST, 1);
+        digests.reset(0xff, 42);
+        digests.flush();
+
+        RangeDigests reopened = RangeDigests.open(directory, "connector.incident", 2);
+        assertEquals(RangeDigests.contribution(FIRST, 1), reopened.getDigest(0x0a));
+        assertTrue(reopened.isSeeded(0xff));
+        assertFalse(reopened.isSeeded(0x0a));
+
+        // NOTE: the row's old contribution comes out of the reopened digest.
+        reopened.record(FIRST, 2);
+        assertEquals(RangeDigests.contribution(FIRST, 2), reopened.getDigest(0x0a));
+
+        RangeDigests otherPrefix = RangeDigests.open(directory, "connector.incident", 1);
+        assertEquals(0, otherPrefix.getDigest(0));
+    }
+
+    @Test
+    public void emittedRowsAreDigestedAndReconciledRowsKeepTheOffset() {
+        TimestampSourceOffset offset = new TimestampSourceOffset(null, null);
+        TableAPISubTask subTask = subTask(offset);
+        assertTrue(subTask.getFields().contains("sys_mod_count"));
+
+        subTask.processBatch(Arrays.asList(row(FIRST, "2020-01-01 00:00:00", "1"), row(SECOND, "2020-01-01 00:00:01", "2")));
+        final long emitted = subTask.getRangeDigests().getDigest(0x0a);
+        assertEquals(RangeDigests.contribution(FIRST, 1) + RangeDigests.contribution(SECOND, 2), emitted);
+        final Map<String, Object> offsetBefore = offset.toMap();
+
+        List<SourceRecord> reconciled = subTask.processReconciledBatch(Arrays.asList(row(FIRST, "2019-06-01 00:00:00", "5")));
+        assertEquals(1, reconciled.size());
+        assertEquals(offsetBefore, offset.toMap());
+        assertEquals(offsetBefore, new HashMap<>(reconciled.get(0).sourceOffset()));
+        assertEquals(RangeDigests.contribution(FIRST, 5) + RangeDigests.contribution(SECOND, 2), subTask.getRangeDigests().getDigest(0x0a));
+    }
+
+    @Test
+    public void rowsChangedSinceTheOffsetAreDigestedAsLastEmitted() throws IOException {
+        TimestampSourceOffset offset = new TimestampSourceOffset(null, null);
+        TableAPISubTask subTask = subTask(offset);
+        ReconcileSubTask reconcile = new ReconcileSubTask(subTask, config(), new ServiceNowTableApiClient(config()));
+        subTask.processBatch(Arrays.asList(row(FIRST, "2020-01-01 00:00:00", "1"), row(SECOND, "2020-01-01 00:00:01", "2")));
+        final long emitted = subTask.getRangeDigests().getDigest(0x0a);
+
+        // NOTE: FIRST was updated after the offset and is yet to be streamed, a row after it is yet to be streamed at all.
+        List<JSONObject> remote = Arrays.asList(row(FIRST, "2020-01-01 00:05:00", "2"), row(SECOND, "2020-01-01 00:00:01", "2"), row(OTHER.replace("ff", "0a"), "2020-01-01 00:05:00", "1"));
+        assertEquals(emitted, reconcile.digest(remote, false, true));
+
+        // NOTE: a row changed without its timestamp moving still shows.
+        List<JSONObject> missed = Arrays.asList(row(FIRST, "2020-01-01 00:00:00", "2"), row(SECOND, "2020-01-01 00:00:01", "2"));
+        assertNotEquals(emitted, reconcile.digest(missed, false, true));
+        assertEquals(RangeDigests.contribution(FIRST, 2) + RangeDigests.contribution(SECOND, 2), reconcile.digest(missed, false, false));
+    }
+}
@@ -0,0 +1,83 @@
+package com.ibm.ingestion.connect.servicenow.source;
+
+import com.ibm.ingestion.http.ServiceNowTableApiClient;
+import org.apache.kafka.connect.source.SourceRecord;
+import org.junit.Test;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static com.ibm.ingestion.connect.servicenow.source.SubTaskFixtures.*;
+import static org.junit.Assert.*;
+
+/**
+ * Tests that a snapshot keeps its cursor in the offset, resumes from it, and hands over to streaming from the
+ * timestamp it started at.
+ */
+public class SnapshotLoadTests {
+
+    private static final Instant STARTED = Instant.parse("2020-06-01T12:00:00Z");
+
+    private static TableAPISubTask subTask(TimestampSourceOffset offset) {
+        Map<String, String> props = props();
+        props.put(ServiceNowSourceConnectorConfig.TIMESTAMP_INITIAL_QUERY_HOURS_AGO, "-1");
+        props.put(ServiceNowSourceConnectorConfig.TASK_POLL_BATCH_MAX_SIZE, "2");
+        props.put("table.whitelist.incident.initial.load", "snapshot");
+        return tableSubTask(offset, props);
+    }
+
+    @Test
+    public void snapshotOffsetsRoundTrip() {
+        TimestampSourceOffset offset = TimestampSourceOffset.fromMap(TimestampSourceOffset.toSnapshotMap(STARTED.getEpochSecond(), "abc"));
+        assertTrue(offset.isSnapshot());
+        assertEquals(STARTED, offset.getSnapshotStarted());
+        assertEquals("abc", offset.getSnapshotCursor());
+        assertNull(offset.getLastSeenTimestamp());
+        assertEquals(TimestampSourceOffset.toSnapshotMap(STARTED.getEpochSecond(), "abc"), offset.toMap());
+
+        TimestampSourceOffset streaming = TimestampSourceOffset.fromMap(TimestampSourceOffset.toMap(STARTED, "abc"));
+        assertFalse(streaming.isSnapshot());
+        assertEquals(STARTED, streaming.getLastSeenTimestamp());
+    }
+
+    @Test
+    public void fullPagesMoveTheCursorAndAShortPageHandsOverToStreaming() {
+        TimestampSourceOffset offset = TimestampSourceOffset.fromMap(TimestampSourceOffset.toSnapshotMap(STARTED.getEpochSecond(), null));
+        TableAPISubTask subTask = subTask(offset);
+
+        // NOTE: snapshot rows are read in sys_id order, whatever their timestamps.
+        List<SourceRecord> first = subTask.processBatch(Arrays.asList(row("a1", "2020-05-01 00:00:00"), row("b2", "2019-01-01 00:00:00")));
+        assertEquals(2, first.size());
+        assertEquals(TimestampSourceOffset.toSnapshotMap(STARTED.getEpochSecond(), "b2"), first.get(1).sourceOffset());
+        assertTrue(offset.isSnapshot());
+        assertEquals("b2", offset.getSnapshotCursor());
+
+        List<SourceRecord> last = subTask.processBatch(Arrays.asList(row("c3", "2020-04-01 00:00:00")));
+        assertEquals(1, last.size());
+        assertEquals(TimestampSourceOffset.toSnapshotMap(STARTED.getEpochSecond(), "c3"), last.get(0).sourceOffset());
+        assertFalse(offset.isSnapshot());
+        assertEquals(STARTED, offset.getLastSeenTimestamp());
+        assertNull(offset.getLastReadIdentifier());
+        assertEquals(0, subTask.getLagSeconds());
+    }
+
+    @Test
+    public void adaptiveSnapshotsStartOffTheInstanceClockWithTheLongestDelay() {
+        Map<String, String> props = props();
+        props.put("table.whitelist.incident.initial.load", "snapshot");
+        props.put(ServiceNowSourceConnectorConfig.TIMESTAMP_DELAY_ADAPTIVE, "true");
+        props.put(ServiceNowSourceConnectorConfig.TIMESTAMP_DELAY_INTERVAL_SECONDS, "30");
+        ServiceNowTableAPISourceTaskConfig config = config(props);
+        ServiceNowTableApiClient client = new ServiceNowTableApiClient(config);
+        TableAPISubTask subTask = new TableAPISubTask(new TableQueryPartition("incident"), new TimestampSourceOffset(null, null), config, client);
+
+        // NOTE: the instance's clock runs ten minutes behind the worker's.
+        final long nowMs = System.currentTimeMillis();
+        client.getServerClock().observe(nowMs - 600 * 1000, nowMs, nowMs);
+
+        final long expected = (nowMs - 600 * 1000) / 1000 - 30;
+        assertEquals(expected, subTask.getSnapshotStart().getEpochSecond(), 2);
+    }
+}
@@ -0,0 +1,73 @@
+package com.ibm.ingestion.connect.servicenow.source;
+
+import com.ibm.ingestion.http.ServiceNowTableApiClient;
+import org.json.JSONObject;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The setup shared by the sub task tests: a task configured with the single table "incident", polled on
+ * sys_updated_on and sys_id, and the rows and audit rows fed to it. Tests add the props they are about on top.
+ */
+final class SubTaskFixtures {
+
+    static final String FIRST = "0a000000000000010000000000000000";
+    static final String SECOND = "0a000000000000020000000000000000";
+    static final String OTHER = "ff000000000000000000000000000001";
+
+    private SubTaskFixtures() {
+    }
+
+    /**
+     * @return The props of a task with just the "incident" table, to add to.
+     */
+    static Map<String, String> props() {
+        Map<String, String> props = new HashMap<>();
+        props.put(ServiceNowSourceConnectorConfig.SERVICENOW_CLIENT_BASEURI, "https://test.service-now.com");
+        props.put(ServiceNowSourceConnectorConfig.SERVICENOW_CLIENT_OAUTH_CLIENTID, "id");
+        props.put(ServiceNowSourceConnectorConfig.SERVICENOW_CLIENT_OAUTH_CLIENTSECRET, "secret");
+        props.put(ServiceNowSourceConnectorConfig.SERVICENOW_CLIENT_OAUTH_USERNAME, "user");
+        props.put(ServiceNowSourceConnectorConfig.SERVICENOW_CLIENT_OAUTH_USERPASSWORD, "password");
+        props.put(ServiceNowSourceConnectorConfig.TABLE_WHITELIST, "incident");
+        props.put(ServiceNowSourceConnectorConfig.STREAM_PREFIX, "servicenow.");
+        props.put(ServiceNowTableAPISourceTaskConfig.TABLE_LIST, "incident");
+        props.put("table.whitelist.incident.name", "incident");
+        props.put("table.whitelist.incident.timestamp.field.name", "sys_updated_on");
+        props.put("table.whitelist.incident.identifier.field.name", "sys_id");
+        return props;
+    }
+
+    static ServiceNowTableAPISourceTaskConfig config(Map<String, String> props) {
+        return new ServiceNowTableAPISourceTaskConfig(props);
+    }
+
+    static TableAPISubTask tableSubTask(TimestampSourceOffset offset, Map<String, String> props) {
+        ServiceNowTableAPISourceTaskConfig config = config(props);
+        return new TableAPISubTask(new TableQueryPartition("incident"), offset, config, new ServiceNowTableApiClient(config));
+    }
+
+    static JSONObject row(String sysId, String updatedOn) {
+        JSONObject row = new JSONObject();
+        row.put("sys_id", sysId);
+        row.put("sys_updated_on", updatedOn);
+        return row;
+    }
+
+    static JSONObject row(String sysId, String updatedOn, String modCount) {
+        JSONObject row = row(sysId, updatedOn);
+        row.put("sys_mod_count", modCount);
+        return row;
+    }
+
+    /**
+     * @return The columns every audit row has, for a row of the "incident" table.
+     */
+    static JSONObject auditRow(String sysId, String createdOn, String documentKey) {
+        JSONObject row = new JSONObject();
+        row.put("sys_id", sysId);
+        row.put("sys_created_on", createdOn);
+        row.put("documentkey", documentKey);
+        return row;
+    }
+}
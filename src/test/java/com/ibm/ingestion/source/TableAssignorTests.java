@@ -0,0 +1,131 @@
+package com.ibm.ingestion.connect.servicenow.source;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for weight driven table to task assignment.
+ */
+public class TableAssignorTests {
+
+    @Test
+    public void testNoWeightsSpreadsByCount() {
+        List<String> tables = Arrays.asList("a", "b", "c", "d", "e");
+        List<List<String>> groups = TableAssignor.assign(tables, new HashMap<>(), 2);
+
+        assertEquals(2, groups.size());
+        assertEquals(3, groups.get(0).size());
+        assertEquals(2, groups.get(1).size());
+    }
+
+    @Test
+    public void testHeavyTablesAreSplitAcrossTasks() {
+        List<String> tables = Arrays.asList("incident", "task", "sys_audit", "q1", "q2", "q3", "q4", "q5");
+        Map<String, Double> weights = new HashMap<>();
+        weights.put("incident", 600.0);
+        weights.put("task", 500.0);
+        weights.put("sys_audit", 900.0);
+        weights.put("q1", 1.0);
+        weights.put("q2", 1.0);
+        weights.put("q3", 1.0);
+        weights.put("q4", 1.0);
+        weights.put("q5", 1.0);
+
+        List<List<String>> groups = TableAssignor.assign(tables, weights, 3);
+
+        // NOTE: every heavy table ends up on its own task.
+        for(List<String> group : groups) {
+            int heavy = 0;
+            for(String table : group) {
+                if(weights.get(table) > 100) {
+                    heavy++;
+                }
+            }
+            assertEquals(1, heavy);
+        }
+
+        double[] loads = TableAssignor.loads(groups, weights);
+        assertEquals(2005.0, loads[0] + loads[1] + loads[2], 0.0001);
+    }
+
+    @Test
+    public void testUnknownTablesGetTheMeanWeight() {
+        List<String> tables = Arrays.asList("a", "b", "c");
+        Map<String, Double> weights = new HashMap<>();
+        weights.put("a", 10.0);
+        weights.put("b", 30.0);
+
+        double[] loads = TableAssignor.loads(Arrays.asList(tables), weights);
+        assertEquals(60.0, loads[0], 0.0001);
+    }
+
+    @Test
+    public void testZeroWeightTablesStillSpread() {
+        List<String> tables = Arrays.asList("a", "b", "c", "d");
+        Map<String, Double> weights = new HashMap<>();
+        tables.forEach(table -> weights.put(table, 0.0));
+
+        List<List<String>> groups = TableAssignor.assign(tables, weights, 4);
+        for(List<String> group : groups) {
+            assertEquals(1, group.size());
+        }
+    }
+
+    @Test
+    public void testGroupsKeepWhitelistOrder() {
+        List<String> tables = Arrays.asList("a", "b", "c");
+        Map<String, Double> weights = new HashMap<>();
+        weights.put("a", 1.0);
+        weights.put("b", 1.0);
+        weights.put("c", 100.0);
+
+        List<List<String>> groups = TableAssignor.assign(tables, weights, 2);
+        assertEquals(Arrays.asList("c"), groups.get(0));
+        assertEquals(Arrays.asList("a", "b"), groups.get(1));
+    }
+
+    @Test
+    public void testRegistryReportsRateAfterAFullWindow() {
+        final String connector = "assignor-tests";
+        TableLoadRegistry.clear(connector);
+
+        TableLoadRegistry.record(connector, "incident", 100, 5, 0);
+        assertFalse(TableLoadRegistry.getRecordsPerMinute(connector, 0).containsKey("incident"));
+
+        TableLoadRegistry.record(connector, "incident", 20, 3, 120 * 1000);
+        assertEquals(60.0, TableLoadRegistry.getRecordsPerMinute(connector, 120 * 1000).get("incident"), 0.0001);
+        assertEquals(3L, (long)TableLoadRegistry.getLagSeconds(connector, 120 * 1000).get("incident"));
+
+        TableLoadRegistry.clear(connector);
+        assertTrue(TableLoadRegistry.getRecordsPerMinute(connector, 120 * 1000).isEmpty());
+    }
+
+    @Test
+    public void testRegistryDropsTablesNoLongerReported() {
+        final String connector = "assignor-stale-tests";
+        TableLoadRegistry.clear(connector);
+
+        TableLoadRegistry.record(connector, "incident", 100, 5, 0);
+        TableLoadRegistry.record(connector, "incident", 100, 5, 60 * 1000);
+        TableLoadRegistry.record(connector, "problem", 10, 0, 0);
+        TableLoadRegistry.record(connector, "problem", 10, 0, 60 * 1000);
+        TableLoadRegistry.record(connector, "incident", 100, 5, 200 * 1000);
+
+        assertEquals(2, TableLoadRegistry.getRecordsPerMinute(connector, 200 * 1000).size());
+        assertEquals(Collections.singleton("incident"), TableLoadRegistry.getRecordsPerMinute(connector, 250 * 1000).keySet());
+        assertEquals(Collections.singleton("incident"), TableLoadRegistry.getLagSeconds(connector, 250 * 1000).keySet());
+        assertTrue(TableLoadRegistry.getLagSeconds(connector, 400 * 1000).isEmpty());
+
+        // NOTE: a table reported again after it was dropped starts a new window.
+        TableLoadRegistry.record(connector, "problem", 10, 0, 260 * 1000);
+        assertFalse(TableLoadRegistry.getRecordsPerMinute(connector, 260 * 1000).containsKey("problem"));
+        TableLoadRegistry.clear(connector);
+    }
+}
@@ -0,0 +1,107 @@
+package com.ibm.ingestion.connect.servicenow.source;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the hysteresis around automatic task reconfiguration.
+ */
+public class TaskRebalanceMonitorTests {
+
+    private static final long MINUTE_MS = 60 * 1000;
+
+    private List<List<String>> skewedAssignment;
+    private Map<String, Double> weights;
+    private Map<String, Long> lags;
+
+    @Before
+    public void setUp() {
+        // NOTE: both heavy tables ended up on the first task.
+        skewedAssignment = Arrays.asList(Arrays.asList("incident", "sys_audit"), Arrays.asList("q1", "q2"));
+
+        weights = new HashMap<>();
+        weights.put("incident", 500.0);
+        weights.put("sys_audit", 500.0);
+        weights.put("q1", 1.0);
+        weights.put("q2", 1.0);
+
+        lags = new HashMap<>();
+        lags.put("incident", 600L);
+        lags.put("sys_audit", 0L);
+        lags.put("q1", 0L);
+        lags.put("q2", 0L);
+    }
+
+    @Test
+    public void testRequiresConsecutiveSkewedChecks() {
+        TaskRebalanceMonitor monitor = new TaskRebalanceMonitor(1.5, 3, 0, 300, 0);
+
+        assertFalse(monitor.check(skewedAssignment, weights, lags, MINUTE_MS));
+        assertFalse(monitor.check(skewedAssignment, weights, lags, 2 * MINUTE_MS));
+        assertTrue(monitor.check(skewedAssignment, weights, lags, 3 * MINUTE_MS));
+    }
+
+    @Test
+    public void testBalancedCheckResetsTheCount() {
+        TaskRebalanceMonitor monitor = new TaskRebalanceMonitor(1.5, 2, 0, 300, 0);
+        List<List<String>> balanced = Arrays.asList(Arrays.asList("incident", "q1"), Arrays.asList("sys_audit", "q2"));
+
+        assertFalse(monitor.check(skewedAssignment, weights, lags, MINUTE_MS));
+        assertFalse(monitor.check(balanced, weights, lags, 2 * MINUTE_MS));
+        assertFalse(monitor.check(skewedAssignment, weights, lags, 3 * MINUTE_MS));
+        assertTrue(monitor.check(skewedAssignment, weights, lags, 4 * MINUTE_MS));
+    }
+
+    @Test
+    public void testMinimumIntervalBetweenReconfigurations() {
+        TaskRebalanceMonitor monitor = new TaskRebalanceMonitor(1.5, 1, 30 * MINUTE_MS, 300, 0);
+
+        assertFalse(monitor.check(skewedAssignment, weights, lags, MINUTE_MS));
+        assertTrue(monitor.check(skewedAssignment, weights, lags, 31 * MINUTE_MS));
+        assertFalse(monitor.check(skewedAssignment, weights, lags, 32 * MINUTE_MS));
+        assertTrue(monitor.check(skewedAssignment, weights, lags, 62 * MINUTE_MS));
+    }
+
+    @Test
+    public void testNoReconfigurationWhileKeepingUp() {
+        TaskRebalanceMonitor monitor = new TaskRebalanceMonitor(1.5, 1, 0, 300, 0);
+        lags.put("incident", 10L);
+
+        assertFalse(monitor.check(skewedAssignment, weights, lags, MINUTE_MS));
+    }
+
+    @Test
+    public void testNoReconfigurationWithoutFreshLoadForMostTables() {
+        TaskRebalanceMonitor monitor = new TaskRebalanceMonitor(1.5, 1, 0, 300, 0);
+        // NOTE: the other task's tables moved to another worker, and stopped reporting here.
+        lags.remove("q1");
+        lags.remove("q2");
+        assertFalse(monitor.check(skewedAssignment, weights, lags, MINUTE_MS));
+
+        lags.put("q1", 0L);
+        assertTrue(monitor.check(skewedAssignment, weights, lags, 2 * MINUTE_MS));
+    }
+
+    @Test
+    public void testNoReconfigurationWhenItWouldNotHelp() {
+        TaskRebalanceMonitor monitor = new TaskRebalanceMonitor(1.5, 1, 0, 300, 0);
+        // NOTE: a single dominant table can't be split across tasks.
+        List<List<String>> assignment = Arrays.asList(Arrays.asList("incident"), Arrays.asList("q1", "q2"));
+
+        assertFalse(monitor.check(assignment, weights, lags, MINUTE_MS));
+    }
+
+    @Test
+    public void testImbalance() {
+        assertEquals(1.0, TaskRebalanceMonitor.imbalance(new double[] {5, 5}), 0.0001);
+        assertEquals(2.0, TaskRebalanceMonitor.imbalance(new double[] {10, 0}), 0.0001);
+        assertEquals(1.0, TaskRebalanceMonitor.imbalance(new double[] {0, 0}), 0.0001);
+    }
+}
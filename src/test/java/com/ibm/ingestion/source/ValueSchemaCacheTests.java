@@ -0,0 +1,147 @@
+package com.ibm.ingestion.connect.servicenow.source;
+
+import com.ibm.ingestion.connect.servicenow.util.StructCodec;
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.data.Struct;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for picking value schemas for records with different field sets.
+ */
+public class ValueSchemaCacheTests {
+
+    private static JSONObject record(String... keys) {
+        JSONObject record = new JSONObject();
+        for(String key : keys) {
+            record.put(key, key + "-value");
+        }
+        return record;
+    }
+
+    @Test
+    public void testFingerprintIgnoresOrderAndValues() {
+        JSONObject first = record("sys_id", "number", "short_description");
+        JSONObject second = new JSONObject();
+        second.put("short_description", "other");
+        second.put("sys_id", "other");
+        second.put("number", JSONObject.NULL);
+
+        assertEquals(ValueSchemaCache.fingerprint(first), ValueSchemaCache.fingerprint(second));
+        assertNotEquals(ValueSchemaCache.fingerprint(first), ValueSchemaCache.fingerprint(record("sys_id", "number")));
+    }
+
+    @Test
+    public void testFingerprintIncludesDisplayValues() {
+        JSONObject plain = record("sys_id", "assigned_to");
+        JSONObject display = record("sys_id");
+        JSONObject assignedTo = new JSONObject();
+        assignedTo.put("value", "user-1");
+        assignedTo.put("display_value", "John Doe");
+        display.put("assigned_to", assignedTo);
+
+        assertNotEquals(ValueSchemaCache.fingerprint(plain), ValueSchemaCache.fingerprint(display));
+    }
+
+    @Test
+    public void testRecordModeChecksFieldSetsThatShareAFingerprint() {
+        ValueSchemaCache cache = new ValueSchemaCache("incident", ValueSchemaCache.Mode.RECORD);
+        // NOTE: "Aa" and "BB" have the same String hash code and length.
+        assertEquals(ValueSchemaCache.fingerprint(record("Aa")), ValueSchemaCache.fingerprint(record("BB")));
+
+        StructCodec first = cache.codecFor(record("Aa"));
+        StructCodec second = cache.codecFor(record("BB"));
+        assertNotSame(first, second);
+        assertNotNull(second.schema().field("BB"));
+        assertEquals("BB-value", second.decode(record("BB")).get("BB"));
+        assertEquals(Integer.valueOf(2), second.schema().version());
+        assertEquals(Integer.valueOf(3), cache.codecFor(record("Aa")).schema().version());
+    }
+
+    @Test
+    public void testUnionModeChecksFieldSetsThatShareAFingerprint() {
+        ValueSchemaCache cache = new ValueSchemaCache("incident", ValueSchemaCache.Mode.UNION);
+
+        cache.codecFor(record("Aa"));
+        StructCodec grown = cache.codecFor(record("BB"));
+        assertNotNull(grown.schema().field("Aa"));
+        assertNotNull(grown.schema().field("BB"));
+    }
+
+    @Test
+    public void testRecordModeHandlesExtraFields() {
+        ValueSchemaCache cache = new ValueSchemaCache("incident", ValueSchemaCache.Mode.RECORD);
+
+        StructCodec first = cache.codecFor(record("sys_id", "number"));
+        JSONObject wider = record("sys_id", "number", "close_notes");
+        StructCodec second = cache.codecFor(wider);
+
+        assertNotSame(first, second);
+        assertSame(first, cache.codecFor(record("number", "sys_id")));
+        assertEquals(Integer.valueOf(1), first.schema().version());
+        assertEquals(Integer.valueOf(2), second.schema().version());
+
+        Struct struct = second.decode(wider);
+        assertEquals("close_notes-value", struct.get("close_notes"));
+    }
+
+    @Test
+    public void testRecordModeNeverReusesVersionsAfterEviction() {
+        ValueSchemaCache cache = new ValueSchemaCache("incident", ValueSchemaCache.Mode.RECORD, 1);
+
+        StructCodec first = cache.codecFor(record("a"));
+        assertEquals(Integer.valueOf(2), cache.codecFor(record("b")).schema().version());
+        StructCodec again = cache.codecFor(record("a"));
+
+        assertNotSame(first, again);
+        assertEquals(Integer.valueOf(3), again.schema().version());
+        assertEquals(Integer.valueOf(4), cache.codecFor(record("c")).schema().version());
+    }
+
+    @Test
+    public void testRecordModeRebuildsTheLatestFieldSetWithItsVersion() {
+        ValueSchemaCache cache = new ValueSchemaCache("incident", ValueSchemaCache.Mode.RECORD, 0);
+
+        assertEquals(Integer.valueOf(1), cache.codecFor(record("a")).schema().version());
+        assertEquals(Integer.valueOf(1), cache.codecFor(record("a")).schema().version());
+        assertEquals(Integer.valueOf(2), cache.codecFor(record("b")).schema().version());
+        assertEquals(Integer.valueOf(3), cache.codecFor(record("a")).schema().version());
+    }
+
+    @Test
+    public void testUnionModeGrowsToSuperset() {
+        ValueSchemaCache cache = new ValueSchemaCache("incident", ValueSchemaCache.Mode.UNION);
+
+        StructCodec first = cache.codecFor(record("sys_id", "number"));
+        assertSame(first, cache.codecFor(record("sys_id")));
+
+        StructCodec grown = cache.codecFor(record("sys_id", "close_notes"));
+        Schema schema = grown.schema();
+        assertEquals(Integer.valueOf(2), schema.version());
+        assertEquals("sys_id", schema.fields().get(0).name());
+        assertEquals("number", schema.fields().get(1).name());
+        assertEquals("close_notes", schema.fields().get(2).name());
+
+        // NOTE: narrower records now use the grown schema too.
+        assertSame(grown, cache.codecFor(record("sys_id", "number")));
+        Struct struct = grown.decode(record("sys_id"));
+        assertNull(struct.get("close_notes"));
+    }
+
+    @Test
+    public void testUnionModeGrowsForDisplayValues() {
+        ValueSchemaCache cache = new ValueSchemaCache("incident", ValueSchemaCache.Mode.UNION);
+        cache.codecFor(record("sys_id", "assigned_to"));
+
+        JSONObject display = record("sys_id");
+        JSONObject assignedTo = new JSONObject();
+        assignedTo.put("value", "user-1");
+        assignedTo.put("display_value", "John Doe");
+        display.put("assigned_to", assignedTo);
+
+        StructCodec grown = cache.codecFor(display);
+        assertEquals("John Doe", grown.decode(display).get("assigned_to_display_value"));
+    }
+}
@@ -0,0 +1,89 @@
+package com.ibm.ingestion.connect.servicenow.source;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the weighted fair ordering of due tables.
+ */
+public class WeightedFairSchedulerTests {
+
+    @Test
+    public void testEqualWeightsAlternate() {
+        WeightedFairScheduler<String> scheduler = new WeightedFairScheduler<>();
+        scheduler.add("incident", 1);
+        scheduler.add("sys_audit", 1);
+
+        List<String> due = Arrays.asList("incident", "sys_audit");
+
+        // Only one fetch slot per cycle, both tables always have a full page.
+        Map<String, Integer> served = new HashMap<>();
+        for(int i = 0; i < 10; i++) {
+            String next = scheduler.order(due).get(0);
+            scheduler.charge(next, 20);
+            served.merge(next, 1, Integer::sum);
+        }
+
+        assertEquals(5, (int)served.get("incident"));
+        assertEquals(5, (int)served.get("sys_audit"));
+    }
+
+    @Test
+    public void testHigherPriorityGetsProportionalShare() {
+        WeightedFairScheduler<String> scheduler = new WeightedFairScheduler<>();
+        scheduler.add("incident", 3);
+        scheduler.add("sys_audit", 1);
+
+        List<String> due = Arrays.asList("sys_audit", "incident");
+
+        Map<String, Integer> served = new HashMap<>();
+        for(int i = 0; i < 40; i++) {
+            String next = scheduler.order(due).get(0);
+            scheduler.charge(next, 20);
+            served.merge(next, 1, Integer::sum);
+        }
+
+        assertEquals(30, (int)served.get("incident"));
+        assertEquals(10, (int)served.get("sys_audit"));
+    }
+
+    @Test
+    public void testIdleTableIsServedFirstWhenItBecomesDue() {
+        WeightedFairScheduler<String> scheduler = new WeightedFairScheduler<>();
+        scheduler.add("incident", 10);
+        scheduler.add("sys_audit", 1);
+
+        // sys_audit drains a backlog while incident has nothing to do.
+        for(int i = 0; i < 50; i++) {
+            scheduler.charge(scheduler.order(Arrays.asList("sys_audit")).get(0), 20);
+        }
+
+        // incident becomes due and jumps the queue, without having banked the idle time as credit.
+        List<String> ordered = scheduler.order(Arrays.asList("sys_audit", "incident"));
+        assertEquals("incident", ordered.get(0));
+
+        scheduler.charge("incident", 400);
+        assertEquals("sys_audit", scheduler.order(Arrays.asList("sys_audit", "incident")).get(0));
+    }
+
+    @Test
+    public void testEmptyFetchStillCostsATurn() {
+        WeightedFairScheduler<String> scheduler = new WeightedFairScheduler<>();
+        scheduler.add("a", 1);
+        scheduler.add("b", 1);
+
+        scheduler.charge("a", 0);
+        assertEquals("b", scheduler.order(Arrays.asList("a", "b")).get(0));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testWeightMustBePositive() {
+        new WeightedFairScheduler<String>().add("a", 0);
+    }
+}